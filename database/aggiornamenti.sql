@@ -0,0 +1,208 @@
+--
+-- Aggiornamenti incrementali dello schema per database creati con una versione
+-- precedente di database.sql. Ogni sezione è idempotente e può essere rieseguita.
+--
+
+--
+-- Indice per la ricerca degli username per prefisso (autocompletamento nella condivisione).
+--
+
+CREATE INDEX IF NOT EXISTS idx_utenti_username_pattern ON public.utenti USING btree (username text_pattern_ops);
+
+--
+-- Indice per la paginazione keyset dei Task di una bacheca su (posizione, id).
+--
+
+CREATE INDEX IF NOT EXISTS idx_todos_bacheca_posizione_id ON public.todos USING btree (bacheca_id, posizione, id);
+
+--
+-- Versione di riga dei Task per il controllo di concorrenza ottimistico (UPDATE ... WHERE versione = ?).
+--
+
+ALTER TABLE public.todos ADD COLUMN IF NOT EXISTS versione integer DEFAULT 0 NOT NULL;
+
+--
+-- Notifiche in tempo reale delle modifiche ai Task e alle condivisioni sul canale todo_modifiche.
+-- I trigger sono per istruzione e leggono le righe modificate dalle tabelle di transizione, quindi
+-- un'istruzione che modifica molte righe invia una notifica ogni 100 righe invece di una per riga.
+-- Payload: righe separate da ';', ognuna nel formato
+-- operazione|tabella|todo_id|bacheca_id|utente_id|versione|posizione|immagine
+-- (operazione I/U/D, tabella T = todos, C = todo_condivisioni; per C bacheca_id è la bacheca di destinazione
+-- e versione e posizione sono vuote; immagine è 1 se l'immagine del Task è cambiata).
+--
+
+DROP TRIGGER IF EXISTS todos_notifica_modifica ON public.todos;
+DROP TRIGGER IF EXISTS todo_condivisioni_notifica_modifica ON public.todo_condivisioni;
+DROP FUNCTION IF EXISTS public.notifica_modifica_todo();
+DROP FUNCTION IF EXISTS public.notifica_modifica_condivisione();
+
+CREATE OR REPLACE FUNCTION public.notifica_modifiche_todos() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM pg_notify('todo_modifiche', string_agg(r.riga, ';'))
+        FROM (SELECT format('I|T|%s|%s|%s|%s|%s|%s', n.id, n.bacheca_id, n.autore_id, n.versione, n.posizione,
+                            (n.immagine IS NOT NULL)::integer) AS riga,
+                     (row_number() OVER () - 1) / 100 AS gruppo
+              FROM nuove n) r
+        GROUP BY r.gruppo;
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM pg_notify('todo_modifiche', string_agg(r.riga, ';'))
+        FROM (SELECT format('U|T|%s|%s|%s|%s|%s|%s', n.id, n.bacheca_id, n.autore_id, n.versione, n.posizione,
+                            (n.immagine IS DISTINCT FROM v.immagine)::integer) AS riga,
+                     (row_number() OVER () - 1) / 100 AS gruppo
+              FROM nuove n JOIN vecchie v ON v.id = n.id) r
+        GROUP BY r.gruppo;
+    ELSE
+        PERFORM pg_notify('todo_modifiche', string_agg(r.riga, ';'))
+        FROM (SELECT format('D|T|%s|%s|%s|%s|%s|0', v.id, v.bacheca_id, v.autore_id, v.versione, v.posizione) AS riga,
+                     (row_number() OVER () - 1) / 100 AS gruppo
+              FROM vecchie v) r
+        GROUP BY r.gruppo;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION public.notifica_modifiche_condivisioni() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('todo_modifiche', string_agg(r.riga, ';'))
+        FROM (SELECT format('D|C|%s|%s|%s|||0', v.todo_id, v.bacheca_destinazione_id, v.utente_id) AS riga,
+                     (row_number() OVER () - 1) / 100 AS gruppo
+              FROM vecchie v) r
+        GROUP BY r.gruppo;
+    ELSE
+        PERFORM pg_notify('todo_modifiche', string_agg(r.riga, ';'))
+        FROM (SELECT format('%s|C|%s|%s|%s|||0', left(TG_OP, 1), n.todo_id, n.bacheca_destinazione_id, n.utente_id) AS riga,
+                     (row_number() OVER () - 1) / 100 AS gruppo
+              FROM nuove n) r
+        GROUP BY r.gruppo;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS todos_notifica_inserimento ON public.todos;
+CREATE TRIGGER todos_notifica_inserimento AFTER INSERT ON public.todos
+    REFERENCING NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifiche_todos();
+DROP TRIGGER IF EXISTS todos_notifica_aggiornamento ON public.todos;
+CREATE TRIGGER todos_notifica_aggiornamento AFTER UPDATE ON public.todos
+    REFERENCING OLD TABLE AS vecchie NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifiche_todos();
+DROP TRIGGER IF EXISTS todos_notifica_eliminazione ON public.todos;
+CREATE TRIGGER todos_notifica_eliminazione AFTER DELETE ON public.todos
+    REFERENCING OLD TABLE AS vecchie FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifiche_todos();
+DROP TRIGGER IF EXISTS todo_condivisioni_notifica_inserimento ON public.todo_condivisioni;
+CREATE TRIGGER todo_condivisioni_notifica_inserimento AFTER INSERT ON public.todo_condivisioni
+    REFERENCING NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifiche_condivisioni();
+DROP TRIGGER IF EXISTS todo_condivisioni_notifica_aggiornamento ON public.todo_condivisioni;
+CREATE TRIGGER todo_condivisioni_notifica_aggiornamento AFTER UPDATE ON public.todo_condivisioni
+    REFERENCING NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifiche_condivisioni();
+DROP TRIGGER IF EXISTS todo_condivisioni_notifica_eliminazione ON public.todo_condivisioni;
+CREATE TRIGGER todo_condivisioni_notifica_eliminazione AFTER DELETE ON public.todo_condivisioni
+    REFERENCING OLD TABLE AS vecchie FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifiche_condivisioni();
+
+--
+-- Sincronizzazione incrementale: ogni riga registra la transazione che l'ha scritta per ultima
+-- (xid_modifica) e le eliminazioni lasciano una riga in public.eliminazioni.
+-- Il client conserva come versione lo xmin dello snapshot (pg_snapshot_xmin(pg_current_snapshot()))
+-- e alla richiesta successiva legge solo le righe con xid_modifica >= versione.
+--
+
+ALTER TABLE public.bacheche ADD COLUMN IF NOT EXISTS xid_modifica xid8 DEFAULT pg_current_xact_id() NOT NULL;
+ALTER TABLE public.todos ADD COLUMN IF NOT EXISTS xid_modifica xid8 DEFAULT pg_current_xact_id() NOT NULL;
+ALTER TABLE public.todo_condivisioni ADD COLUMN IF NOT EXISTS xid_modifica xid8 DEFAULT pg_current_xact_id() NOT NULL;
+
+CREATE TABLE IF NOT EXISTS public.eliminazioni (
+    xid_modifica xid8 DEFAULT pg_current_xact_id() NOT NULL,
+    tabella "char" NOT NULL,
+    todo_id integer,
+    bacheca_id integer,
+    utente_id integer NOT NULL,
+    eliminato_il timestamp with time zone DEFAULT now() NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_bacheche_xid_modifica ON public.bacheche USING btree (xid_modifica);
+CREATE INDEX IF NOT EXISTS idx_todos_xid_modifica ON public.todos USING btree (xid_modifica);
+CREATE INDEX IF NOT EXISTS idx_todo_condivisioni_xid_modifica ON public.todo_condivisioni USING btree (xid_modifica);
+CREATE INDEX IF NOT EXISTS idx_eliminazioni_xid_modifica ON public.eliminazioni USING btree (xid_modifica);
+
+CREATE OR REPLACE FUNCTION public.aggiorna_xid_modifica() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    NEW.xid_modifica := pg_current_xact_id();
+    RETURN NEW;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION public.registra_eliminazione() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    IF TG_TABLE_NAME = 'todos' THEN
+        INSERT INTO public.eliminazioni (tabella, todo_id, bacheca_id, utente_id) VALUES ('T', OLD.id, OLD.bacheca_id, OLD.autore_id);
+    ELSIF TG_TABLE_NAME = 'todo_condivisioni' THEN
+        INSERT INTO public.eliminazioni (tabella, todo_id, bacheca_id, utente_id) VALUES ('C', OLD.todo_id, OLD.bacheca_destinazione_id, OLD.utente_id);
+    ELSE
+        INSERT INTO public.eliminazioni (tabella, todo_id, bacheca_id, utente_id) VALUES ('B', NULL, OLD.id, OLD.utente_id);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS bacheche_xid_modifica ON public.bacheche;
+CREATE TRIGGER bacheche_xid_modifica BEFORE UPDATE ON public.bacheche
+    FOR EACH ROW EXECUTE FUNCTION public.aggiorna_xid_modifica();
+DROP TRIGGER IF EXISTS todos_xid_modifica ON public.todos;
+CREATE TRIGGER todos_xid_modifica BEFORE UPDATE ON public.todos
+    FOR EACH ROW EXECUTE FUNCTION public.aggiorna_xid_modifica();
+DROP TRIGGER IF EXISTS todo_condivisioni_xid_modifica ON public.todo_condivisioni;
+CREATE TRIGGER todo_condivisioni_xid_modifica BEFORE UPDATE ON public.todo_condivisioni
+    FOR EACH ROW EXECUTE FUNCTION public.aggiorna_xid_modifica();
+
+DROP TRIGGER IF EXISTS bacheche_registra_eliminazione ON public.bacheche;
+CREATE TRIGGER bacheche_registra_eliminazione AFTER DELETE ON public.bacheche
+    FOR EACH ROW EXECUTE FUNCTION public.registra_eliminazione();
+DROP TRIGGER IF EXISTS todos_registra_eliminazione ON public.todos;
+CREATE TRIGGER todos_registra_eliminazione AFTER DELETE ON public.todos
+    FOR EACH ROW EXECUTE FUNCTION public.registra_eliminazione();
+DROP TRIGGER IF EXISTS todo_condivisioni_registra_eliminazione ON public.todo_condivisioni;
+CREATE TRIGGER todo_condivisioni_registra_eliminazione AFTER DELETE ON public.todo_condivisioni
+    FOR EACH ROW EXECUTE FUNCTION public.registra_eliminazione();
+
+--
+-- Conservazione delle eliminazioni: pota_eliminazioni(conservazione) cancella le righe di eliminazioni
+-- più vecchie del periodo indicato e registra in orizzonte_eliminazioni lo xid dell'ultima cancellata.
+-- Un client la cui versione non supera l'orizzonte potrebbe aver perso delle eliminazioni e ricarica
+-- il workspace per intero. Il client la esegue periodicamente (todoapp.sync.deletionRetentionDays).
+--
+
+CREATE TABLE IF NOT EXISTS public.orizzonte_eliminazioni (
+    unica boolean DEFAULT true NOT NULL PRIMARY KEY CHECK (unica),
+    xid_modifica xid8 DEFAULT '0'::xid8 NOT NULL
+);
+INSERT INTO public.orizzonte_eliminazioni DEFAULT VALUES ON CONFLICT DO NOTHING;
+
+CREATE INDEX IF NOT EXISTS idx_eliminazioni_eliminato_il ON public.eliminazioni USING btree (eliminato_il);
+
+CREATE OR REPLACE FUNCTION public.pota_eliminazioni(conservazione interval) RETURNS integer
+    LANGUAGE plpgsql
+    AS $$
+DECLARE
+    limite xid8;
+    cancellate integer;
+BEGIN
+    SELECT max(xid_modifica) INTO limite FROM public.eliminazioni WHERE eliminato_il < now() - conservazione;
+    IF limite IS NULL THEN
+        RETURN 0;
+    END IF;
+    UPDATE public.orizzonte_eliminazioni SET xid_modifica = limite WHERE xid_modifica < limite;
+    DELETE FROM public.eliminazioni WHERE xid_modifica <= limite;
+    GET DIAGNOSTICS cancellate = ROW_COUNT;
+    RETURN cancellate;
+END;
+$$;
@@ -19,6 +19,135 @@ SET xmloption = content;
 SET client_min_messages = warning;
 SET row_security = off;
 
+--
+-- TOC entry 226 (class 1255 OID 1065734)
+-- Name: aggiorna_xid_modifica(); Type: FUNCTION; Schema: public; Owner: postgres
+--
+
+CREATE FUNCTION public.aggiorna_xid_modifica() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    NEW.xid_modifica := pg_current_xact_id();
+    RETURN NEW;
+END;
+$$;
+
+
+ALTER FUNCTION public.aggiorna_xid_modifica() OWNER TO postgres;
+
+--
+-- Name: notifica_modifiche_condivisioni(); Type: FUNCTION; Schema: public; Owner: postgres
+--
+
+CREATE FUNCTION public.notifica_modifiche_condivisioni() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('todo_modifiche', string_agg(r.riga, ';'))
+        FROM (SELECT format('D|C|%s|%s|%s|||0', v.todo_id, v.bacheca_destinazione_id, v.utente_id) AS riga,
+                     (row_number() OVER () - 1) / 100 AS gruppo
+              FROM vecchie v) r
+        GROUP BY r.gruppo;
+    ELSE
+        PERFORM pg_notify('todo_modifiche', string_agg(r.riga, ';'))
+        FROM (SELECT format('%s|C|%s|%s|%s|||0', left(TG_OP, 1), n.todo_id, n.bacheca_destinazione_id, n.utente_id) AS riga,
+                     (row_number() OVER () - 1) / 100 AS gruppo
+              FROM nuove n) r
+        GROUP BY r.gruppo;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+
+ALTER FUNCTION public.notifica_modifiche_condivisioni() OWNER TO postgres;
+
+--
+-- Name: notifica_modifiche_todos(); Type: FUNCTION; Schema: public; Owner: postgres
+--
+
+CREATE FUNCTION public.notifica_modifiche_todos() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM pg_notify('todo_modifiche', string_agg(r.riga, ';'))
+        FROM (SELECT format('I|T|%s|%s|%s|%s|%s|%s', n.id, n.bacheca_id, n.autore_id, n.versione, n.posizione,
+                            (n.immagine IS NOT NULL)::integer) AS riga,
+                     (row_number() OVER () - 1) / 100 AS gruppo
+              FROM nuove n) r
+        GROUP BY r.gruppo;
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM pg_notify('todo_modifiche', string_agg(r.riga, ';'))
+        FROM (SELECT format('U|T|%s|%s|%s|%s|%s|%s', n.id, n.bacheca_id, n.autore_id, n.versione, n.posizione,
+                            (n.immagine IS DISTINCT FROM v.immagine)::integer) AS riga,
+                     (row_number() OVER () - 1) / 100 AS gruppo
+              FROM nuove n JOIN vecchie v ON v.id = n.id) r
+        GROUP BY r.gruppo;
+    ELSE
+        PERFORM pg_notify('todo_modifiche', string_agg(r.riga, ';'))
+        FROM (SELECT format('D|T|%s|%s|%s|%s|%s|0', v.id, v.bacheca_id, v.autore_id, v.versione, v.posizione) AS riga,
+                     (row_number() OVER () - 1) / 100 AS gruppo
+              FROM vecchie v) r
+        GROUP BY r.gruppo;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+
+ALTER FUNCTION public.notifica_modifiche_todos() OWNER TO postgres;
+
+--
+-- Name: pota_eliminazioni(interval); Type: FUNCTION; Schema: public; Owner: postgres
+--
+
+CREATE FUNCTION public.pota_eliminazioni(conservazione interval) RETURNS integer
+    LANGUAGE plpgsql
+    AS $$
+DECLARE
+    limite xid8;
+    cancellate integer;
+BEGIN
+    SELECT max(xid_modifica) INTO limite FROM public.eliminazioni WHERE eliminato_il < now() - conservazione;
+    IF limite IS NULL THEN
+        RETURN 0;
+    END IF;
+    UPDATE public.orizzonte_eliminazioni SET xid_modifica = limite WHERE xid_modifica < limite;
+    DELETE FROM public.eliminazioni WHERE xid_modifica <= limite;
+    GET DIAGNOSTICS cancellate = ROW_COUNT;
+    RETURN cancellate;
+END;
+$$;
+
+
+ALTER FUNCTION public.pota_eliminazioni(interval) OWNER TO postgres;
+
+--
+-- TOC entry 227 (class 1255 OID 1065735)
+-- Name: registra_eliminazione(); Type: FUNCTION; Schema: public; Owner: postgres
+--
+
+CREATE FUNCTION public.registra_eliminazione() RETURNS trigger
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    IF TG_TABLE_NAME = 'todos' THEN
+        INSERT INTO public.eliminazioni (tabella, todo_id, bacheca_id, utente_id) VALUES ('T', OLD.id, OLD.bacheca_id, OLD.autore_id);
+    ELSIF TG_TABLE_NAME = 'todo_condivisioni' THEN
+        INSERT INTO public.eliminazioni (tabella, todo_id, bacheca_id, utente_id) VALUES ('C', OLD.todo_id, OLD.bacheca_destinazione_id, OLD.utente_id);
+    ELSE
+        INSERT INTO public.eliminazioni (tabella, todo_id, bacheca_id, utente_id) VALUES ('B', NULL, OLD.id, OLD.utente_id);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+
+ALTER FUNCTION public.registra_eliminazione() OWNER TO postgres;
+
 SET default_tablespace = '';
 
 SET default_table_access_method = heap;
@@ -32,7 +161,8 @@ CREATE TABLE public.bacheche (
     id integer NOT NULL,
     utente_id integer NOT NULL,
     titolo_bacheca character varying(50) NOT NULL,
-    descrizione text
+    descrizione text,
+    xid_modifica xid8 DEFAULT pg_current_xact_id() NOT NULL
 );
 
 
@@ -63,6 +193,35 @@ ALTER SEQUENCE public.bacheche_id_seq OWNER TO postgres;
 ALTER SEQUENCE public.bacheche_id_seq OWNED BY public.bacheche.id;
 
 
+--
+-- TOC entry 228 (class 1259 OID 1065736)
+-- Name: eliminazioni; Type: TABLE; Schema: public; Owner: postgres
+--
+
+CREATE TABLE public.eliminazioni (
+    xid_modifica xid8 DEFAULT pg_current_xact_id() NOT NULL,
+    tabella "char" NOT NULL,
+    todo_id integer,
+    bacheca_id integer,
+    utente_id integer NOT NULL,
+    eliminato_il timestamp with time zone DEFAULT now() NOT NULL
+);
+
+
+ALTER TABLE public.eliminazioni OWNER TO postgres;
+
+--
+-- Name: orizzonte_eliminazioni; Type: TABLE; Schema: public; Owner: postgres
+--
+
+CREATE TABLE public.orizzonte_eliminazioni (
+    unica boolean DEFAULT true NOT NULL PRIMARY KEY CHECK (unica),
+    xid_modifica xid8 DEFAULT '0'::xid8 NOT NULL
+);
+
+
+ALTER TABLE public.orizzonte_eliminazioni OWNER TO postgres;
+
 --
 -- TOC entry 219 (class 1259 OID 1065666)
 -- Name: todo_condivisioni; Type: TABLE; Schema: public; Owner: postgres
@@ -71,7 +230,8 @@ ALTER SEQUENCE public.bacheche_id_seq OWNED BY public.bacheche.id;
 CREATE TABLE public.todo_condivisioni (
     todo_id integer NOT NULL,
     utente_id integer NOT NULL,
-    bacheca_destinazione_id integer
+    bacheca_destinazione_id integer,
+    xid_modifica xid8 DEFAULT pg_current_xact_id() NOT NULL
 );
 
 
@@ -94,7 +254,9 @@ CREATE TABLE public.todos (
     posizione integer DEFAULT 0 NOT NULL,
     stato character varying(20) DEFAULT 'NON_COMPLETATO'::character varying NOT NULL,
     data_creazione date DEFAULT CURRENT_DATE NOT NULL,
-    colore character varying(7) DEFAULT '#FFFFFF'::character varying
+    colore character varying(7) DEFAULT '#FFFFFF'::character varying,
+    versione integer DEFAULT 0 NOT NULL,
+    xid_modifica xid8 DEFAULT pg_current_xact_id() NOT NULL
 );
 
 
@@ -201,6 +363,13 @@ COPY public.bacheche (id, utente_id, titolo_bacheca, descrizione) FROM stdin;
 \.
 
 
+--
+-- Data for Name: orizzonte_eliminazioni; Type: TABLE DATA; Schema: public; Owner: postgres
+--
+
+INSERT INTO public.orizzonte_eliminazioni DEFAULT VALUES;
+
+
 --
 -- TOC entry 3747 (class 0 OID 1065666)
 -- Dependencies: 219
@@ -323,6 +492,29 @@ ALTER TABLE ONLY public.utenti
 CREATE INDEX idx_bacheche_utente_id ON public.bacheche USING btree (utente_id);
 
 
+--
+-- TOC entry 3602 (class 1259 OID 1065737)
+-- Name: idx_bacheche_xid_modifica; Type: INDEX; Schema: public; Owner: postgres
+--
+
+CREATE INDEX idx_bacheche_xid_modifica ON public.bacheche USING btree (xid_modifica);
+
+
+--
+-- TOC entry 3603 (class 1259 OID 1065738)
+-- Name: idx_eliminazioni_xid_modifica; Type: INDEX; Schema: public; Owner: postgres
+--
+
+CREATE INDEX idx_eliminazioni_xid_modifica ON public.eliminazioni USING btree (xid_modifica);
+
+
+--
+-- Name: idx_eliminazioni_eliminato_il; Type: INDEX; Schema: public; Owner: postgres
+--
+
+CREATE INDEX idx_eliminazioni_eliminato_il ON public.eliminazioni USING btree (eliminato_il);
+
+
 --
 -- TOC entry 3583 (class 1259 OID 1065699)
 -- Name: idx_todo_condivisioni_todo_id; Type: INDEX; Schema: public; Owner: postgres
@@ -339,6 +531,14 @@ CREATE INDEX idx_todo_condivisioni_todo_id ON public.todo_condivisioni USING btr
 CREATE INDEX idx_todo_condivisioni_utente_id ON public.todo_condivisioni USING btree (utente_id);
 
 
+--
+-- TOC entry 3604 (class 1259 OID 1065739)
+-- Name: idx_todo_condivisioni_xid_modifica; Type: INDEX; Schema: public; Owner: postgres
+--
+
+CREATE INDEX idx_todo_condivisioni_xid_modifica ON public.todo_condivisioni USING btree (xid_modifica);
+
+
 --
 -- TOC entry 3587 (class 1259 OID 1065701)
 -- Name: idx_todos_autore_id; Type: INDEX; Schema: public; Owner: postgres
@@ -355,6 +555,120 @@ CREATE INDEX idx_todos_autore_id ON public.todos USING btree (autore_id);
 CREATE INDEX idx_todos_bacheca_id ON public.todos USING btree (bacheca_id);
 
 
+--
+-- TOC entry 3590 (class 1259 OID 1065729)
+-- Name: idx_todos_bacheca_posizione_id; Type: INDEX; Schema: public; Owner: postgres
+--
+
+CREATE INDEX idx_todos_bacheca_posizione_id ON public.todos USING btree (bacheca_id, posizione, id);
+
+
+--
+-- TOC entry 3605 (class 1259 OID 1065740)
+-- Name: idx_todos_xid_modifica; Type: INDEX; Schema: public; Owner: postgres
+--
+
+CREATE INDEX idx_todos_xid_modifica ON public.todos USING btree (xid_modifica);
+
+
+--
+-- TOC entry 3589 (class 1259 OID 1065728)
+-- Name: idx_utenti_username_pattern; Type: INDEX; Schema: public; Owner: postgres
+--
+
+CREATE INDEX idx_utenti_username_pattern ON public.utenti USING btree (username text_pattern_ops);
+
+
+--
+-- TOC entry 3606 (class 2620 OID 1065741)
+-- Name: bacheche bacheche_registra_eliminazione; Type: TRIGGER; Schema: public; Owner: postgres
+--
+
+CREATE TRIGGER bacheche_registra_eliminazione AFTER DELETE ON public.bacheche FOR EACH ROW EXECUTE FUNCTION public.registra_eliminazione();
+
+
+--
+-- TOC entry 3607 (class 2620 OID 1065742)
+-- Name: bacheche bacheche_xid_modifica; Type: TRIGGER; Schema: public; Owner: postgres
+--
+
+CREATE TRIGGER bacheche_xid_modifica BEFORE UPDATE ON public.bacheche FOR EACH ROW EXECUTE FUNCTION public.aggiorna_xid_modifica();
+
+
+--
+-- Name: todo_condivisioni todo_condivisioni_notifica_inserimento; Type: TRIGGER; Schema: public; Owner: postgres
+--
+
+CREATE TRIGGER todo_condivisioni_notifica_inserimento AFTER INSERT ON public.todo_condivisioni REFERENCING NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifiche_condivisioni();
+
+
+--
+-- Name: todo_condivisioni todo_condivisioni_notifica_aggiornamento; Type: TRIGGER; Schema: public; Owner: postgres
+--
+
+CREATE TRIGGER todo_condivisioni_notifica_aggiornamento AFTER UPDATE ON public.todo_condivisioni REFERENCING NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifiche_condivisioni();
+
+
+--
+-- Name: todo_condivisioni todo_condivisioni_notifica_eliminazione; Type: TRIGGER; Schema: public; Owner: postgres
+--
+
+CREATE TRIGGER todo_condivisioni_notifica_eliminazione AFTER DELETE ON public.todo_condivisioni REFERENCING OLD TABLE AS vecchie FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifiche_condivisioni();
+
+
+--
+-- TOC entry 3608 (class 2620 OID 1065743)
+-- Name: todo_condivisioni todo_condivisioni_registra_eliminazione; Type: TRIGGER; Schema: public; Owner: postgres
+--
+
+CREATE TRIGGER todo_condivisioni_registra_eliminazione AFTER DELETE ON public.todo_condivisioni FOR EACH ROW EXECUTE FUNCTION public.registra_eliminazione();
+
+
+--
+-- TOC entry 3609 (class 2620 OID 1065744)
+-- Name: todo_condivisioni todo_condivisioni_xid_modifica; Type: TRIGGER; Schema: public; Owner: postgres
+--
+
+CREATE TRIGGER todo_condivisioni_xid_modifica BEFORE UPDATE ON public.todo_condivisioni FOR EACH ROW EXECUTE FUNCTION public.aggiorna_xid_modifica();
+
+
+--
+-- Name: todos todos_notifica_inserimento; Type: TRIGGER; Schema: public; Owner: postgres
+--
+
+CREATE TRIGGER todos_notifica_inserimento AFTER INSERT ON public.todos REFERENCING NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifiche_todos();
+
+
+--
+-- Name: todos todos_notifica_aggiornamento; Type: TRIGGER; Schema: public; Owner: postgres
+--
+
+CREATE TRIGGER todos_notifica_aggiornamento AFTER UPDATE ON public.todos REFERENCING OLD TABLE AS vecchie NEW TABLE AS nuove FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifiche_todos();
+
+
+--
+-- Name: todos todos_notifica_eliminazione; Type: TRIGGER; Schema: public; Owner: postgres
+--
+
+CREATE TRIGGER todos_notifica_eliminazione AFTER DELETE ON public.todos REFERENCING OLD TABLE AS vecchie FOR EACH STATEMENT EXECUTE FUNCTION public.notifica_modifiche_todos();
+
+
+--
+-- TOC entry 3610 (class 2620 OID 1065745)
+-- Name: todos todos_registra_eliminazione; Type: TRIGGER; Schema: public; Owner: postgres
+--
+
+CREATE TRIGGER todos_registra_eliminazione AFTER DELETE ON public.todos FOR EACH ROW EXECUTE FUNCTION public.registra_eliminazione();
+
+
+--
+-- TOC entry 3611 (class 2620 OID 1065746)
+-- Name: todos todos_xid_modifica; Type: TRIGGER; Schema: public; Owner: postgres
+--
+
+CREATE TRIGGER todos_xid_modifica BEFORE UPDATE ON public.todos FOR EACH ROW EXECUTE FUNCTION public.aggiorna_xid_modifica();
+
+
 --
 -- TOC entry 3595 (class 2606 OID 1065703)
 -- Name: bacheche bacheche_utente_id_fkey; Type: FK CONSTRAINT; Schema: public; Owner: postgres
@@ -0,0 +1,195 @@
+package cache;
+
+import metrics.ImageMemoryTracker;
+import model.ColoreToDo;
+import model.RiferimentiUtenti;
+import model.StatoToDo;
+import model.ToDo;
+import model.Utente;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Codifica binaria dei Task per i file locali (snapshot e journal).
+ * Le stringhe sono scritte come lunghezza + byte UTF-8, quindi non hanno il limite di 64 KB di writeUTF;
+ * i valori facoltativi sono preceduti da un booleano di presenza. Le immagini vengono salvate in PNG.
+ * Degli utenti si salvano solo ID e username, mai l'hash della password.
+ */
+final class CodificaToDo {
+
+    private CodificaToDo() {
+    }
+
+    /**
+     * Scrive un Task, con autore, condivisioni e bacheca di destinazione.
+     */
+    static void scriviToDo(DataOutput out, ToDo todo) throws IOException {
+        out.writeInt(todo.getId());
+        scriviIntero(out, todo.getBachecaId());
+        out.writeInt(todo.getAutoreId());
+        scriviUtente(out, todo.getAutore());
+        scriviStringa(out, todo.getTitolo());
+        scriviStringa(out, todo.getDescrizione());
+        scriviStringa(out, todo.getUrl());
+        scriviData(out, todo.getScadenza());
+        byte[] immagine = immagineInByte(todo.getImmagine());
+        out.writeInt(immagine.length);
+        out.write(immagine);
+        out.writeInt(todo.getPosizione());
+        out.writeUTF(todo.getStato().name());
+        scriviData(out, todo.getCreazione());
+        scriviStringa(out, todo.getColore());
+        out.writeInt(todo.getVersione());
+        scriviIntero(out, todo.getBachecaDestinazioneId());
+        Set<Utente> condivisi = todo.getUtentiConAccessoCondiviso();
+        out.writeInt(condivisi.size());
+        for (Utente u : condivisi) {
+            scriviUtente(out, u);
+        }
+    }
+
+    /**
+     * Legge un Task scritto da {@link #scriviToDo(DataOutput, ToDo)}; autore e utenti condivisi
+     * sono le istanze canoniche di {@code riferimenti}.
+     */
+    static ToDo leggiToDo(DataInput in, RiferimentiUtenti riferimenti) throws IOException {
+        int id = in.readInt();
+        Integer bachecaId = leggiIntero(in);
+        int autoreId = in.readInt();
+        Utente autore = leggiUtente(in, riferimenti);
+        String titolo = leggiStringa(in);
+        String descrizione = leggiStringa(in);
+        String url = leggiStringa(in);
+        LocalDate scadenza = leggiData(in);
+        byte[] immagine = new byte[in.readInt()];
+        in.readFully(immagine);
+        int posizione = in.readInt();
+        StatoToDo stato = StatoToDo.valueOf(in.readUTF());
+        LocalDate creazione = leggiData(in);
+        String colore = ColoreToDo.canonico(leggiStringa(in));
+        ToDo todo = new ToDo(id, bachecaId, autoreId, titolo, descrizione, url, scadenza,
+                byteInImmagine(immagine), posizione, stato, creazione, colore);
+        todo.setVersione(in.readInt());
+        todo.setBachecaDestinazioneId(leggiIntero(in));
+        if (autore != null) {
+            todo.setAutore(autore);
+        }
+        int condivisi = in.readInt();
+        Set<Utente> utenti = new HashSet<>(condivisi * 2);
+        for (int i = 0; i < condivisi; i++) {
+            utenti.add(leggiUtente(in, riferimenti));
+        }
+        todo.setUtentiConAccessoCondiviso(utenti);
+        return todo;
+    }
+
+    /**
+     * Copia i campi di un Task in un nuovo oggetto, condividendo immagine e utenti (non modificati sul posto).
+     */
+    static ToDo copia(ToDo todo) {
+        ToDo copia = new ToDo(todo.getId(), todo.getBachecaId(), todo.getAutoreId(), todo.getTitolo(), todo.getDescrizione(),
+                todo.getUrl(), todo.getScadenza(), todo.getImmagine(), todo.getPosizione(), todo.getStato(),
+                todo.getCreazione(), todo.getColore());
+        copia.setVersione(todo.getVersione());
+        copia.setBachecaDestinazioneId(todo.getBachecaDestinazioneId());
+        if (todo.getAutore() != null) {
+            copia.setAutore(todo.getAutore());
+        }
+        copia.setUtentiConAccessoCondiviso(new HashSet<>(todo.getUtentiConAccessoCondiviso()));
+        return copia;
+    }
+
+    static void scriviStringa(DataOutput out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(b.length);
+            out.write(b);
+        }
+    }
+
+    static String leggiStringa(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        byte[] b = new byte[in.readInt()];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    static void scriviIntero(DataOutput out, Integer valore) throws IOException {
+        out.writeBoolean(valore != null);
+        if (valore != null) {
+            out.writeInt(valore);
+        }
+    }
+
+    static Integer leggiIntero(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void scriviData(DataOutput out, LocalDate data) throws IOException {
+        out.writeBoolean(data != null);
+        if (data != null) {
+            out.writeLong(data.toEpochDay());
+        }
+    }
+
+    private static LocalDate leggiData(DataInput in) throws IOException {
+        return in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null;
+    }
+
+    static void scriviUtente(DataOutput out, Utente utente) throws IOException {
+        out.writeBoolean(utente != null);
+        if (utente != null) {
+            out.writeInt(utente.getId());
+            scriviStringa(out, utente.getUsername());
+        }
+    }
+
+    static Utente leggiUtente(DataInput in, RiferimentiUtenti riferimenti) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int id = in.readInt();
+        // L'hash della password non viene salvato in locale
+        return riferimenti.riferimento(id, leggiStringa(in));
+    }
+
+    private static byte[] immagineInByte(Image immagine) throws IOException {
+        if (immagine == null) {
+            return new byte[0];
+        }
+        BufferedImage buffered;
+        if (immagine instanceof BufferedImage b) {
+            buffered = b;
+        } else {
+            buffered = new BufferedImage(immagine.getWidth(null), immagine.getHeight(null), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = buffered.createGraphics();
+            g.drawImage(immagine, 0, 0, null);
+            g.dispose();
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(buffered, "png", baos);
+        return baos.toByteArray();
+    }
+
+    private static Image byteInImmagine(byte[] bytes) throws IOException {
+        if (bytes.length == 0) {
+            return null;
+        }
+        return ImageMemoryTracker.traccia(ImageIO.read(new ByteArrayInputStream(bytes)));
+    }
+}
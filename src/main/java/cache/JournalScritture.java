@@ -0,0 +1,518 @@
+package cache;
+
+import model.RiferimentiUtenti;
+import model.ToDo;
+import model.Utente;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Journal persistente delle operazioni sui Task non ancora inviate al database (write-behind).
+ * Il file è scritto solo in coda attraverso una regione mappata in memoria ({@link MappedByteBuffer}),
+ * quindi registrare un'operazione è una copia in memoria, senza chiamate di sistema: l'operazione
+ * sopravvive alla chiusura improvvisa del processo, e {@link #sincronizzaSuDisco()} la rende persistente
+ * anche a un arresto del sistema. Ogni record ha lunghezza, CRC32 e numero di sequenza crescente:
+ * la lettura si ferma al primo record incompleto o corrotto.
+ * <p>
+ * Gli invii riusciti vengono registrati con un record di conferma invece di riscrivere il file;
+ * quando non resta nulla da inviare il file viene azzerato. I Task creati offline hanno un ID
+ * temporaneo negativo, sostituito da quello assegnato dal database al momento dell'invio.
+ */
+public final class JournalScritture implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(JournalScritture.class);
+
+    private static final int MAGIC = 0x54444A31; // "TDJ1"
+    private static final int FORMATO = 1;
+    /** Intestazione: magic, formato e sequenza da cui ripartono i record dopo l'ultimo azzeramento. */
+    private static final int INTESTAZIONE = Integer.BYTES * 2 + Long.BYTES;
+    /** Lunghezza e CRC che precedono ogni record. */
+    private static final int TESTA_RECORD = Integer.BYTES * 2;
+    private static final int CAPACITA_INIZIALE = 1 << 20;
+
+    private static final byte ID_ASSEGNATI = 10;
+    private static final byte CONFERMA = 11;
+
+    /**
+     * Tipo di operazione registrata.
+     */
+    public enum Tipo {
+        /** Creazione di un Task (con ID temporaneo negativo). */
+        CREA,
+        /** Modifica dei campi di un Task, con controllo di versione. */
+        AGGIORNA,
+        /** Cambio di bacheca o di posizione di un Task, con controllo di versione. */
+        SPOSTA,
+        /** Condivisione di un Task con un utente. */
+        CONDIVIDI,
+        /** Revoca della condivisione di un Task per un utente. */
+        REVOCA,
+        /** Eliminazione di un Task. */
+        ELIMINA
+    }
+
+    /**
+     * Operazione del journal.
+     * @param sequenza Numero progressivo del record
+     * @param tipo Tipo di operazione
+     * @param todo Copia del Task al momento dell'operazione, con la versione di partenza
+     * @param utente Utente della condivisione o della revoca (null per le altre operazioni)
+     * @param bachecaDestinazioneId Bacheca di destinazione della condivisione (può essere null)
+     */
+    public record Operazione(long sequenza, Tipo tipo, ToDo todo, Utente utente, Integer bachecaDestinazioneId) {
+    }
+
+    /**
+     * Operazioni da inviare, unite per ridurre le chiamate al database: le modifiche successive di un Task
+     * diventano una sola (con la versione della prima), quelle a un Task creato offline confluiscono
+     * nella creazione, e un'eliminazione annulla le operazioni precedenti sullo stesso Task.
+     * Vanno eseguite nell'ordine: creazioni, aggiornamenti, condivisioni e revoche, eliminazioni.
+     * @param daCreare Task da inserire, con ID temporaneo
+     * @param daAggiornare Task da aggiornare con controllo di versione
+     * @param condivisioni Condivisioni e revoche, nell'ordine in cui sono state fatte
+     * @param daEliminare ID dei Task da eliminare
+     * @param finoASequenza Sequenza dell'ultimo record compreso
+     * @param operazioni Numero di operazioni registrate comprese nel lotto
+     */
+    public record Lotto(List<ToDo> daCreare, List<ToDo> daAggiornare, List<Operazione> condivisioni,
+                        List<Integer> daEliminare, long finoASequenza, int operazioni) {
+        /**
+         * Indica se il lotto non contiene operazioni.
+         * @return true se non c'è nulla da inviare
+         */
+        public boolean isVuoto() {
+            return operazioni == 0;
+        }
+    }
+
+    private final Path file;
+    private final FileChannel canale;
+    private MappedByteBuffer mappa;
+    private int posizione;
+    private long ultimaSequenza;
+    private boolean daSincronizzare;
+    private final List<Operazione> operazioni = new ArrayList<>();
+    /** ID assegnati dal database ai Task creati offline, per ID temporaneo. */
+    private final Map<Integer, Integer> idAssegnati = new HashMap<>();
+    /** Istanze canoniche degli utenti letti dai record del journal. */
+    private final RiferimentiUtenti riferimenti = new RiferimentiUtenti();
+    /** Versione lasciata sul database dagli invii confermati, per ID. */
+    private final Map<Integer, Integer> versioniInviate = new HashMap<>();
+
+    private JournalScritture(Path file, FileChannel canale) {
+        this.file = file;
+        this.canale = canale;
+    }
+
+    /**
+     * Apre (o crea) il journal di un utente e ne rilegge le operazioni non ancora confermate.
+     * @param cartella Cartella dei file locali
+     * @param utenteId ID dell'utente
+     * @return Journal aperto
+     * @throws IOException se il file non può essere aperto o non è un journal
+     */
+    public static JournalScritture apri(Path cartella, int utenteId) throws IOException {
+        Files.createDirectories(cartella);
+        Path file = fileDi(cartella, utenteId);
+        FileChannel canale = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        JournalScritture journal = new JournalScritture(file, canale);
+        try {
+            journal.recupera();
+        } catch (IOException | RuntimeException e) {
+            canale.close();
+            throw e;
+        }
+        if (!journal.operazioni.isEmpty()) {
+            logger.info("JournalScritture: {} operazioni in sospeso da inviare.", journal.operazioni.size());
+        }
+        return journal;
+    }
+
+    /**
+     * Elimina il journal di un utente, se presente (ad es. quando l'utente viene eliminato).
+     * @param cartella Cartella dei file locali
+     * @param utenteId ID dell'utente
+     */
+    public static void elimina(Path cartella, int utenteId) {
+        try {
+            Files.deleteIfExists(fileDi(cartella, utenteId));
+        } catch (IOException e) {
+            logger.warn("JournalScritture: eliminazione del journal dell'utente {} fallita: {}", utenteId, e.getMessage());
+        }
+    }
+
+    /**
+     * Registra un'operazione su un Task. Per {@link Tipo#CREA} a un Task senza ID viene assegnato
+     * un ID temporaneo negativo; un Task creato offline e già inviato passa al suo ID definitivo.
+     * @param tipo Tipo di operazione (non condivisione o revoca)
+     * @param todo Task, con la versione letta dal database prima della modifica
+     * @return Sequenza dell'operazione
+     * @throws IOException se la codifica del Task o l'estensione del file falliscono
+     */
+    public synchronized long accoda(Tipo tipo, ToDo todo) throws IOException {
+        if (tipo == Tipo.CONDIVIDI || tipo == Tipo.REVOCA) {
+            throw new IllegalArgumentException("Usare accodaCondivisione per " + tipo);
+        }
+        return registra(tipo, todo, null, null);
+    }
+
+    /**
+     * Registra la condivisione o la revoca di un Task.
+     * @param tipo {@link Tipo#CONDIVIDI} o {@link Tipo#REVOCA}
+     * @param todo Task condiviso
+     * @param utente Utente della condivisione
+     * @param bachecaDestinazioneId Bacheca di destinazione (null per la revoca)
+     * @return Sequenza dell'operazione
+     * @throws IOException se la codifica del Task o l'estensione del file falliscono
+     */
+    public synchronized long accodaCondivisione(Tipo tipo, ToDo todo, Utente utente, Integer bachecaDestinazioneId) throws IOException {
+        if (tipo != Tipo.CONDIVIDI && tipo != Tipo.REVOCA) {
+            throw new IllegalArgumentException("Tipo non valido per una condivisione: " + tipo);
+        }
+        return registra(tipo, todo, utente, bachecaDestinazioneId);
+    }
+
+    /**
+     * Indica se non ci sono operazioni da inviare.
+     * @return true se il journal è vuoto
+     */
+    public synchronized boolean isVuoto() {
+        return operazioni.isEmpty();
+    }
+
+    /**
+     * Restituisce le operazioni non ancora confermate, nell'ordine in cui sono state registrate.
+     * @return Copia dell'elenco delle operazioni
+     */
+    public synchronized List<Operazione> getOperazioni() {
+        return new ArrayList<>(operazioni);
+    }
+
+    /**
+     * Restituisce l'ID assegnato dal database a un Task creato offline.
+     * @param idTemporaneo ID temporaneo (negativo)
+     * @return ID definitivo, oppure null se il Task non è stato inviato dall'apertura del journal
+     */
+    public synchronized Integer getIdAssegnato(int idTemporaneo) {
+        return idAssegnati.get(idTemporaneo);
+    }
+
+    /**
+     * Indica se la creazione offline di un Task è ancora da inviare.
+     * @param idTemporaneo ID temporaneo (negativo)
+     * @return true se la creazione non è ancora stata inviata
+     */
+    public synchronized boolean isCreazioneInSospeso(int idTemporaneo) {
+        return operazioni.stream().anyMatch(op -> op.tipo() == Tipo.CREA && op.todo().getId() == idTemporaneo);
+    }
+
+    /**
+     * Unisce le operazioni in sospeso in un lotto da inviare (vedi {@link Lotto}).
+     * I Task restituiti sono copie: chi invia il lotto può modificarli.
+     * @return Lotto da inviare, vuoto se non c'è nulla
+     */
+    public synchronized Lotto inSospeso() {
+        Map<Integer, ToDo> daCreare = new LinkedHashMap<>();
+        Map<Integer, ToDo> daAggiornare = new LinkedHashMap<>();
+        List<Operazione> condivisioni = new ArrayList<>();
+        Set<Integer> daEliminare = new LinkedHashSet<>();
+        for (Operazione op : operazioni) {
+            int id = op.todo().getId();
+            switch (op.tipo()) {
+                case CREA -> daCreare.put(id, CodificaToDo.copia(op.todo()));
+                case AGGIORNA, SPOSTA -> {
+                    ToDo ultimo = CodificaToDo.copia(op.todo());
+                    if (daCreare.containsKey(id)) {
+                        daCreare.put(id, ultimo);
+                    } else {
+                        ToDo precedente = daAggiornare.put(id, ultimo);
+                        if (precedente != null) {
+                            ultimo.setVersione(precedente.getVersione());
+                        }
+                    }
+                }
+                case CONDIVIDI, REVOCA -> condivisioni.add(new Operazione(op.sequenza(), op.tipo(),
+                        CodificaToDo.copia(op.todo()), op.utente(), op.bachecaDestinazioneId()));
+                case ELIMINA -> {
+                    condivisioni.removeIf(c -> c.todo().getId() == id);
+                    daAggiornare.remove(id);
+                    if (daCreare.remove(id) == null) {
+                        daEliminare.add(id);
+                    }
+                }
+            }
+        }
+        return new Lotto(new ArrayList<>(daCreare.values()), new ArrayList<>(daAggiornare.values()), condivisioni,
+                new ArrayList<>(daEliminare), ultimaSequenza, operazioni.size());
+    }
+
+    /**
+     * Registra gli ID assegnati dal database ai Task creati offline, subito dopo l'inserimento:
+     * un nuovo invio dopo un errore non li inserisce di nuovo, e le operazioni successive usano l'ID definitivo.
+     * @param assegnati ID definitivo per ID temporaneo
+     * @throws IOException se l'estensione del file fallisce
+     */
+    public synchronized void registraIdAssegnati(Map<Integer, Integer> assegnati) throws IOException {
+        if (assegnati.isEmpty()) {
+            return;
+        }
+        scriviRecord(++ultimaSequenza, ID_ASSEGNATI, corpoMappa(null, assegnati));
+        sincronizzaSuDisco();
+        applicaIdAssegnati(assegnati);
+    }
+
+    /**
+     * Conferma l'invio delle operazioni fino alla sequenza indicata. Le operazioni registrate dopo il lotto
+     * restano, riportate sulla versione lasciata sul database dall'invio; se non ne restano il file viene azzerato.
+     * @param finoASequenza Sequenza del lotto inviato
+     * @param nuoveVersioni Versione sul database dei Task aggiornati, per ID
+     * @throws IOException se l'estensione del file fallisce
+     */
+    public synchronized void conferma(long finoASequenza, Map<Integer, Integer> nuoveVersioni) throws IOException {
+        scriviRecord(++ultimaSequenza, CONFERMA, corpoMappa(finoASequenza, nuoveVersioni));
+        applicaConferma(finoASequenza, nuoveVersioni);
+        if (operazioni.isEmpty()) {
+            azzera();
+        }
+        sincronizzaSuDisco();
+    }
+
+    /**
+     * Forza su disco i record scritti nella regione mappata dall'ultima chiamata.
+     */
+    public synchronized void sincronizzaSuDisco() {
+        if (daSincronizzare) {
+            mappa.force();
+            daSincronizzare = false;
+        }
+    }
+
+    /**
+     * Forza su disco i record e chiude il file del journal.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            sincronizzaSuDisco();
+            canale.close();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("JournalScritture: chiusura di {} fallita: {}", file, e.getMessage());
+        }
+    }
+
+    private long registra(Tipo tipo, ToDo todo, Utente utente, Integer bachecaDestinazioneId) throws IOException {
+        long sequenza = ultimaSequenza + 1;
+        ToDo copia = CodificaToDo.copia(todo);
+        if (tipo == Tipo.CREA && copia.getId() == 0) {
+            int idTemporaneo = (int) -sequenza;
+            todo.setId(idTemporaneo);
+            copia.setId(idTemporaneo);
+        }
+        Integer assegnato = idAssegnati.get(copia.getId());
+        if (assegnato != null) {
+            copia.setId(assegnato);
+        }
+        Integer inviata = versioniInviate.get(copia.getId());
+        if (inviata != null && inviata > copia.getVersione()) {
+            // Il modello non ha ancora letto la versione lasciata dall'ultimo invio
+            copia.setVersione(inviata);
+        }
+        Operazione op = new Operazione(sequenza, tipo, copia, utente, bachecaDestinazioneId);
+        scriviRecord(sequenza, (byte) tipo.ordinal(), corpoOperazione(op));
+        ultimaSequenza = sequenza;
+        operazioni.add(op);
+        return sequenza;
+    }
+
+    private void scriviRecord(long sequenza, byte tipo, byte[] corpo) throws IOException {
+        int lunghezza = Long.BYTES + 1 + corpo.length;
+        garantisciSpazio(TESTA_RECORD + lunghezza);
+        ByteBuffer dati = ByteBuffer.allocate(lunghezza).putLong(sequenza).put(tipo).put(corpo).flip();
+        CRC32 crc = new CRC32();
+        crc.update(dati.duplicate());
+        // La lunghezza è scritta per ultima: finché manca, il record non viene letto
+        mappa.putInt(posizione + Integer.BYTES, (int) crc.getValue());
+        mappa.put(posizione + TESTA_RECORD, dati, 0, lunghezza);
+        mappa.putInt(posizione, lunghezza);
+        posizione += TESTA_RECORD + lunghezza;
+        daSincronizzare = true;
+    }
+
+    private void garantisciSpazio(int byteNecessari) throws IOException {
+        // Dopo l'ultimo record resta sempre una lunghezza a zero, che segna la fine del journal
+        long necessaria = (long) posizione + byteNecessari + Integer.BYTES;
+        if (necessaria <= mappa.capacity()) {
+            return;
+        }
+        long capacita = mappa.capacity();
+        while (capacita < necessaria) {
+            capacita *= 2;
+        }
+        if (capacita > Integer.MAX_VALUE) {
+            throw new IOException("Journal delle modifiche troppo grande: " + file);
+        }
+        mappa.force();
+        mappa = canale.map(FileChannel.MapMode.READ_WRITE, 0, capacita);
+    }
+
+    private void recupera() throws IOException {
+        long dimensione = canale.size();
+        if (dimensione < INTESTAZIONE) {
+            mappa = canale.map(FileChannel.MapMode.READ_WRITE, 0, CAPACITA_INIZIALE);
+            scriviIntestazione(0);
+            sincronizzaSuDisco();
+            return;
+        }
+        if (dimensione > Integer.MAX_VALUE) {
+            throw new IOException("Journal delle modifiche di dimensione non valida: " + file);
+        }
+        mappa = canale.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(dimensione, CAPACITA_INIZIALE));
+        if (mappa.getInt(0) != MAGIC || mappa.getInt(Integer.BYTES) != FORMATO) {
+            throw new IOException("File non riconosciuto come journal delle modifiche: " + file);
+        }
+        ultimaSequenza = mappa.getLong(Integer.BYTES * 2);
+        posizione = INTESTAZIONE;
+        while (true) {
+            int lunghezza = posizione + TESTA_RECORD < mappa.capacity() ? mappa.getInt(posizione) : 0;
+            if (lunghezza == 0) {
+                return;
+            }
+            if (lunghezza <= Long.BYTES || lunghezza > mappa.capacity() - posizione - TESTA_RECORD) {
+                break;
+            }
+            ByteBuffer dati = mappa.slice(posizione + TESTA_RECORD, lunghezza);
+            CRC32 crc = new CRC32();
+            crc.update(dati.duplicate());
+            long sequenza = dati.getLong(0);
+            if ((int) crc.getValue() != mappa.getInt(posizione + Integer.BYTES) || sequenza <= ultimaSequenza) {
+                break;
+            }
+            leggiRecord(sequenza, dati.get(Long.BYTES), dati.slice(Long.BYTES + 1, lunghezza - Long.BYTES - 1));
+            ultimaSequenza = sequenza;
+            posizione += TESTA_RECORD + lunghezza;
+        }
+        // Record scritto a metà da un arresto improvviso: azzerandone la lunghezza, i record successivi non lo incontrano
+        logger.warn("JournalScritture: record incompleto in fondo a {} ignorato.", file);
+        mappa.putInt(posizione, 0);
+        daSincronizzare = true;
+        sincronizzaSuDisco();
+    }
+
+    private void leggiRecord(long sequenza, byte tipo, ByteBuffer corpo) throws IOException {
+        DataInputStream in = new DataInputStream(new SnapshotLocale.ByteBufferInputStream(corpo));
+        if (tipo == ID_ASSEGNATI) {
+            applicaIdAssegnati(leggiMappa(in));
+        } else if (tipo == CONFERMA) {
+            long finoASequenza = in.readLong();
+            applicaConferma(finoASequenza, leggiMappa(in));
+        } else if (tipo >= 0 && tipo < Tipo.values().length) {
+            Tipo t = Tipo.values()[tipo];
+            ToDo todo = CodificaToDo.leggiToDo(in, riferimenti);
+            Utente utente = null;
+            Integer bachecaDestinazioneId = null;
+            if (t == Tipo.CONDIVIDI || t == Tipo.REVOCA) {
+                utente = CodificaToDo.leggiUtente(in, riferimenti);
+                bachecaDestinazioneId = CodificaToDo.leggiIntero(in);
+            }
+            operazioni.add(new Operazione(sequenza, t, todo, utente, bachecaDestinazioneId));
+        } else {
+            throw new IOException("Tipo di record sconosciuto nel journal: " + tipo);
+        }
+    }
+
+    private void applicaIdAssegnati(Map<Integer, Integer> assegnati) {
+        idAssegnati.putAll(assegnati);
+        // Le creazioni inviate non vanno ripetute; le altre operazioni passano all'ID definitivo
+        operazioni.removeIf(op -> op.tipo() == Tipo.CREA && assegnati.containsKey(op.todo().getId()));
+        for (Operazione op : operazioni) {
+            Integer assegnato = assegnati.get(op.todo().getId());
+            if (assegnato != null) {
+                op.todo().setId(assegnato);
+            }
+        }
+    }
+
+    private void applicaConferma(long finoASequenza, Map<Integer, Integer> nuoveVersioni) {
+        operazioni.removeIf(op -> op.sequenza() <= finoASequenza);
+        versioniInviate.putAll(nuoveVersioni);
+        for (Operazione op : operazioni) {
+            Integer versione = nuoveVersioni.get(op.todo().getId());
+            if (versione != null) {
+                op.todo().setVersione(versione);
+            }
+        }
+    }
+
+    private void azzera() {
+        mappa.put(INTESTAZIONE, new byte[posizione - INTESTAZIONE]);
+        scriviIntestazione(ultimaSequenza);
+    }
+
+    private void scriviIntestazione(long sequenzaBase) {
+        mappa.putInt(0, MAGIC);
+        mappa.putInt(Integer.BYTES, FORMATO);
+        mappa.putLong(Integer.BYTES * 2, sequenzaBase);
+        posizione = INTESTAZIONE;
+        daSincronizzare = true;
+    }
+
+    private static byte[] corpoOperazione(Operazione op) throws IOException {
+        ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(corpo);
+        CodificaToDo.scriviToDo(out, op.todo());
+        if (op.tipo() == Tipo.CONDIVIDI || op.tipo() == Tipo.REVOCA) {
+            CodificaToDo.scriviUtente(out, op.utente());
+            CodificaToDo.scriviIntero(out, op.bachecaDestinazioneId());
+        }
+        return corpo.toByteArray();
+    }
+
+    private static byte[] corpoMappa(Long finoASequenza, Map<Integer, Integer> valori) throws IOException {
+        ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(corpo);
+        if (finoASequenza != null) {
+            out.writeLong(finoASequenza);
+        }
+        out.writeInt(valori.size());
+        for (Map.Entry<Integer, Integer> e : valori.entrySet()) {
+            out.writeInt(e.getKey());
+            out.writeInt(e.getValue());
+        }
+        return corpo.toByteArray();
+    }
+
+    private static Map<Integer, Integer> leggiMappa(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n == 0) {
+            return Collections.emptyMap();
+        }
+        Map<Integer, Integer> valori = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            valori.put(in.readInt(), in.readInt());
+        }
+        return valori;
+    }
+
+    private static Path fileDi(Path cartella, int utenteId) {
+        return cartella.resolve("scritture-" + utenteId + ".journal");
+    }
+}
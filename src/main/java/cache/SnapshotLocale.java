@@ -0,0 +1,222 @@
+package cache;
+
+import model.Bacheca;
+import model.RiferimentiUtenti;
+import model.TitoloBacheca;
+import model.ToDo;
+import model.Utente;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot locale del workspace di un utente (bacheche e Task caricati), salvato sotto il profilo utente.
+ * All'avvio permette di mostrare subito i dati e di chiedere al database solo le modifiche successive
+ * alla versione salvata. Il file termina con un CRC32: uno snapshot incompleto o corrotto viene ignorato.
+ * La cartella è configurabile con la proprietà di sistema todoapp.cache.dir (predefinita ~/.todoapp/cache).
+ */
+public final class SnapshotLocale {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotLocale.class);
+
+    private static final int MAGIC = 0x54445331; // "TDS1"
+    private static final int FORMATO = 1;
+
+    private final Path cartella;
+
+    /**
+     * Contenuto di uno snapshot.
+     * @param versione Versione del database a cui era allineato il modello (vedi dao.ModificheDAO)
+     * @param salvatoIl Istante del salvataggio
+     * @param bacheche Bacheche con i Task caricati e lo stato della paginazione
+     */
+    public record Snapshot(long versione, Instant salvatoIl, List<Bacheca> bacheche) {
+    }
+
+    /**
+     * Costruttore.
+     * @param cartella Cartella dei file locali, creata al primo salvataggio
+     */
+    public SnapshotLocale(Path cartella) {
+        this.cartella = cartella;
+    }
+
+    /**
+     * Crea lo snapshot nella cartella predefinita.
+     * @return Snapshot locale
+     */
+    public static SnapshotLocale predefinito() {
+        String configurata = System.getProperty("todoapp.cache.dir");
+        return new SnapshotLocale(configurata != null && !configurata.isBlank()
+                ? Paths.get(configurata)
+                : Paths.get(System.getProperty("user.home"), ".todoapp", "cache"));
+    }
+
+    /**
+     * Restituisce la cartella dei file locali.
+     * @return Cartella della cache
+     */
+    public Path getCartella() {
+        return cartella;
+    }
+
+    /**
+     * Salva lo snapshot del workspace dell'utente, sostituendo atomicamente quello precedente.
+     * @param utente Utente con le bacheche caricate
+     * @param versione Versione del database a cui è allineato il modello
+     * @throws IOException se la scrittura fallisce
+     */
+    public void salva(Utente utente, long versione) throws IOException {
+        Files.createDirectories(cartella);
+        Path file = fileDi(utente.getId());
+        Path temporaneo = file.resolveSibling(file.getFileName() + ".part");
+        CRC32 crc = new CRC32();
+        try (OutputStream fileOut = Files.newOutputStream(temporaneo);
+             DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fileOut), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMATO);
+            out.writeInt(utente.getId());
+            out.writeLong(versione);
+            out.writeLong(System.currentTimeMillis());
+            List<Bacheca> bacheche = utente.getBacheche();
+            out.writeInt(bacheche.size());
+            for (Bacheca b : bacheche) {
+                out.writeInt(b.getId());
+                out.writeUTF(b.getTitoloEnum().name());
+                CodificaToDo.scriviStringa(out, b.getDescrizione());
+                out.writeBoolean(b.isCaricamentoCompleto());
+                out.writeInt(b.getCursorePosizione());
+                out.writeInt(b.getCursoreId());
+                out.writeInt(b.getTodos().size());
+                for (ToDo t : b.getTodos()) {
+                    CodificaToDo.scriviToDo(out, t);
+                }
+            }
+            out.flush();
+            // Il CRC di tutti i byte precedenti chiude il file
+            out.writeInt((int) crc.getValue());
+        }
+        Files.move(temporaneo, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("SnapshotLocale: snapshot dell'utente {} salvato ({} byte).", utente.getId(), Files.size(file));
+    }
+
+    /**
+     * Legge lo snapshot dell'utente, mappando il file in memoria.
+     * @param utenteId ID dell'utente
+     * @return Snapshot, vuoto se assente, di un formato diverso o corrotto
+     */
+    public Optional<Snapshot> carica(int utenteId) {
+        Path file = fileDi(utenteId);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel canale = FileChannel.open(file, StandardOpenOption.READ)) {
+            long dimensione = canale.size();
+            if (dimensione < Integer.BYTES * 4 || dimensione > Integer.MAX_VALUE) {
+                logger.warn("SnapshotLocale: snapshot {} di dimensione non valida, ignorato.", file);
+                return Optional.empty();
+            }
+            MappedByteBuffer mappato = canale.map(FileChannel.MapMode.READ_ONLY, 0, dimensione);
+            ByteBuffer dati = mappato.slice(0, (int) dimensione - Integer.BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(dati.duplicate());
+            if ((int) crc.getValue() != mappato.getInt((int) dimensione - Integer.BYTES)) {
+                logger.warn("SnapshotLocale: snapshot {} corrotto (CRC non valido), ignorato.", file);
+                return Optional.empty();
+            }
+            return Optional.ofNullable(leggi(new DataInputStream(new ByteBufferInputStream(dati)), utenteId));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("SnapshotLocale: lettura dello snapshot {} fallita: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Elimina lo snapshot dell'utente, se presente.
+     * @param utenteId ID dell'utente
+     */
+    public void elimina(int utenteId) {
+        try {
+            Files.deleteIfExists(fileDi(utenteId));
+        } catch (IOException e) {
+            logger.warn("SnapshotLocale: eliminazione dello snapshot dell'utente {} fallita: {}", utenteId, e.getMessage());
+        }
+    }
+
+    private Snapshot leggi(DataInputStream in, int utenteId) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMATO || in.readInt() != utenteId) {
+            logger.warn("SnapshotLocale: snapshot dell'utente {} di formato non riconosciuto, ignorato.", utenteId);
+            return null;
+        }
+        long versione = in.readLong();
+        Instant salvatoIl = Instant.ofEpochMilli(in.readLong());
+        int numeroBacheche = in.readInt();
+        List<Bacheca> bacheche = new ArrayList<>(numeroBacheche);
+        RiferimentiUtenti riferimenti = new RiferimentiUtenti();
+        for (int i = 0; i < numeroBacheche; i++) {
+            int id = in.readInt();
+            TitoloBacheca titolo = TitoloBacheca.valueOf(in.readUTF());
+            Bacheca bacheca = new Bacheca(id, utenteId, titolo, CodificaToDo.leggiStringa(in));
+            boolean completo = in.readBoolean();
+            int cursorePosizione = in.readInt();
+            int cursoreId = in.readInt();
+            int numeroToDo = in.readInt();
+            List<ToDo> todos = new ArrayList<>(numeroToDo);
+            for (int j = 0; j < numeroToDo; j++) {
+                todos.add(CodificaToDo.leggiToDo(in, riferimenti));
+            }
+            bacheca.ripristina(todos, cursorePosizione, cursoreId, completo);
+            bacheche.add(bacheca);
+        }
+        return new Snapshot(versione, salvatoIl, bacheche);
+    }
+
+    private Path fileDi(int utenteId) {
+        return cartella.resolve("workspace-" + utenteId + ".snapshot");
+    }
+
+    /**
+     * InputStream che legge da un ByteBuffer (ad es. la regione mappata del file).
+     */
+    static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
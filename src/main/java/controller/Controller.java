@@ -1,27 +1,74 @@
 // File: src/main/java/controller/Controller.java
 package controller;
 
+import model.ArchivioToDo;
 import model.Bacheca;
+import model.RiferimentiUtenti;
 import model.StatoToDo;
 import model.ToDo;
 import model.TitoloBacheca;
 import model.Utente;
+import model.UtenteRef;
 import dao.UtenteDAO;
 import dao.BachecaDAO;
+import dao.ModificheDAO;
 import dao.ToDoDAO;
+import dao.WorkspaceDAO;
+import dao.implementazione_postgres_dao.DatabaseConnectionException;
 import dao.implementazione_postgres_dao.UtentePostgresDAOImpl;
 import dao.implementazione_postgres_dao.BachecaPostgresDAOImpl;
+import dao.implementazione_postgres_dao.ModifichePostgresDAOImpl;
 import dao.implementazione_postgres_dao.ToDoPostgresDAOImpl;
+import dao.implementazione_postgres_dao.WorkspacePostgresDAOImpl;
+import cache.JournalScritture;
+import cache.SnapshotLocale;
+import database.AscoltatoreNotifiche;
+import database.ConnessioneDatabase;
+import metrics.DaoMetrics;
+import sicurezza.ServizioPassword;
 
 import java.awt.Image;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,14 +83,183 @@ public class Controller {
     private final UtenteDAO utenteDAO;
     private final BachecaDAO bachecaDAO;
     private final ToDoDAO toDoDAO;
+    private final WorkspaceDAO workspaceDAO;
+    private final ModificheDAO modificheDAO;
+    private final UsernameLookupService ricercaUtenti;
+    private final ExecutorService caricamentoPagine;
+    private AscoltatoreNotifiche ascoltatoreModifiche;
+    /** Versione del database a cui è allineato il modello in memoria (vedi {@link ModificheDAO}). */
+    private long versioneSincronizzazione;
+    private final SnapshotLocale snapshotLocale;
+    /** Modifiche non ancora inviate al database dell'utente corrente; null se il journal non è disponibile. */
+    private volatile JournalScritture journal;
+    /** Impedisce che due thread inviino insieme lo stesso lotto del journal. */
+    private final Object invioJournal = new Object();
+    private ScheduledExecutorService invioJournalPeriodico;
+    // Stato dell'invio periodico, usato solo dal thread che possiede il modello
+    private boolean invioJournalInCorso;
+    private long attesaInvioJournalMs = INTERVALLO_INVIO_JOURNAL_MS;
+    private long prossimoInvioJournal;
+    /**
+     * Archivio dei Task non ancora caricati, usato da ricerche e scadenze; null se va ricostruito.
+     * Viene scartato a ogni scrittura sui Task e a ogni sincronizzazione che modifica il modello.
+     */
+    private volatile ArchivioNonCaricati archivioNonCaricati;
+    /**
+     * Destinatario e bacheca di destinazione delle condivisioni già risolte sul database, per username e bacheca:
+     * permettono di accodare al journal una condivisione anche quando il database non è raggiungibile.
+     */
+    private final Map<String, DestinazioneCondivisione> destinazioniNote = new ConcurrentHashMap<>();
+    /** Istanze canoniche degli autori risolti dal Controller per il workspace (vedi {@link RiferimentiUtenti}). */
+    private final RiferimentiUtenti riferimentiUtenti = new RiferimentiUtenti();
+
+    /**
+     * Età massima di uno snapshot locale per avviare da esso con una sincronizzazione incrementale;
+     * oltre si ricarica tutto il workspace. Configurabile con la proprietà di sistema todoapp.cache.maxAgeDays.
+     */
+    private static final Duration ETA_MASSIMA_SNAPSHOT = Duration.ofDays(Long.getLong("todoapp.cache.maxAgeDays", 7));
+    /**
+     * Periodo per cui il database conserva le eliminazioni lette dalla sincronizzazione incrementale; un client
+     * fermo da più tempo ricarica il workspace per intero. Più lungo di {@link #ETA_MASSIMA_SNAPSHOT}, così uno
+     * snapshot ancora valido trova le eliminazioni successive. Configurabile con todoapp.sync.deletionRetentionDays.
+     */
+    private static final Duration CONSERVAZIONE_ELIMINAZIONI = Duration.ofDays(Long.getLong("todoapp.sync.deletionRetentionDays", 14));
+    /** Intervallo con cui vengono cancellate le eliminazioni più vecchie del periodo di conservazione. */
+    private static final long INTERVALLO_POTATURA_ELIMINAZIONI_MS = TimeUnit.HOURS.toMillis(1);
+    /** Numero di modifiche del journal inviate al database in ogni batch. */
+    private static final int DIMENSIONE_LOTTO_JOURNAL = 100;
+    /**
+     * Intervallo con cui il journal viene forzato su disco e, se contiene operazioni, inviato al database.
+     * Configurabile con la proprietà di sistema todoapp.journal.flushMs.
+     */
+    private static final long INTERVALLO_INVIO_JOURNAL_MS = Long.getLong("todoapp.journal.flushMs", 1_000);
+    /** Attesa massima tra due tentativi di invio del journal con il database non raggiungibile. */
+    private static final long ATTESA_MASSIMA_INVIO_JOURNAL_MS = 60_000;
+
+    /** Canale delle notifiche PostgreSQL emesse dai trigger su todos e todo_condivisioni. */
+    private static final String CANALE_MODIFICHE = "todo_modifiche";
+
+    /** Lunghezza massima del titolo di un Task (colonna todos.titolo). */
+    private static final int MAX_LUNGHEZZA_TITOLO = 255;
+
+    /**
+     * Voce di una checklist: marcatore di elenco opzionale, casella opzionale (gruppo 1) e testo (gruppo 2).
+     */
+    private static final Pattern VOCE_CHECKLIST = Pattern.compile("^\\s*(?:[-*+\u2022]\\s+|\\d+[.)]\\s+)?(?:\\[([ xX]?)]\\s*)?(.*)$");
+
+    /** Numero massimo di suggerimenti restituiti dall'autocompletamento degli username. */
+    private static final int MAX_SUGGERIMENTI_USERNAME = 8;
+
+    /**
+     * Numero di Task letti dal DB per ogni pagina di una bacheca.
+     * Configurabile con la proprietà di sistema todoapp.board.pageSize.
+     */
+    private static final int DIMENSIONE_PAGINA_TODO = Math.max(1, Integer.getInteger("todoapp.board.pageSize", 100));
+
+    /**
+     * Pagina di Task letta dal database per una bacheca.
+     * @param bachecaId ID della bacheca
+     * @param dopoPosizione Posizione del cursore da cui è stata letta la pagina
+     * @param dopoId ID del cursore da cui è stata letta la pagina
+     * @param todos Task della pagina, nell'ordine (posizione, id)
+     * @param ultima true se dopo questa pagina non ci sono altri Task
+     */
+    public record PaginaToDo(int bachecaId, int dopoPosizione, int dopoId, List<ToDo> todos, boolean ultima) {
+    }
+
+    /**
+     * Modifiche lette dal database a partire da una versione.
+     * @param daVersione Versione da cui sono state lette
+     * @param versione Nuova versione a cui si allinea il modello applicandole
+     * @param bacheche Bacheche create o modificate
+     * @param todos Task creati o modificati
+     * @param eliminazioni Task, bacheche e condivisioni eliminati
+     * @param scrittureInConflitto Modifiche del journal scartate perché i Task erano stati modificati da altri
+     * @param workspaceCompleto Bacheche rilette per intero quando daVersione precede le eliminazioni conservate
+     *                          dal database (le altre liste sono allora vuote), altrimenti null
+     */
+    public record DeltaModifiche(long daVersione, long versione, List<Bacheca> bacheche, List<ToDo> todos,
+                                 List<ModificheDAO.Eliminazione> eliminazioni, int scrittureInConflitto,
+                                 List<Bacheca> workspaceCompleto) {
+    }
+
+    /**
+     * Versioni dei Task caricati e cursori delle bacheche lette a pagine, copiati dal thread che possiede il modello
+     * per filtrare in background i Task letti dalla sincronizzazione incrementale.
+     * @param versioni Versione per ID di ogni Task caricato
+     * @param cursori Cursore (posizione, id) per ID delle bacheche non ancora caricate per intero
+     */
+    private record StatoCaricamento(Map<Integer, Integer> versioni, Map<Integer, int[]> cursori) {
+        /**
+         * Indica se il Task non è caricato e segue il cursore della sua bacheca: arriverà con le pagine successive.
+         */
+        boolean isNonRaggiunto(ToDo todo) {
+            int[] cursore = todo.getBachecaId() != null ? cursori.get(todo.getBachecaId()) : null;
+            return cursore != null && !versioni.containsKey(todo.getId())
+                    && (todo.getPosizione() > cursore[0] || (todo.getPosizione() == cursore[0] && todo.getId() > cursore[1]));
+        }
+
+        /**
+         * Indica se del Task va letta l'immagine: entra nel modello o è stato modificato dopo la versione caricata.
+         */
+        boolean richiedeImmagine(ToDo todo) {
+            Integer versione = versioni.get(todo.getId());
+            return versione == null || versione < todo.getVersione();
+        }
+    }
+
+    /**
+     * Destinatario di una condivisione e sua bacheca di destinazione.
+     */
+    private record DestinazioneCondivisione(Utente destinatario, int bachecaId) {
+    }
+
+    /**
+     * Utente con password verificata e, se l'hash memorizzato era da aggiornare, l'hash ricalcolato da salvare.
+     * @param utente Utente autenticato
+     * @param nuovoHash Hash ricalcolato da salvare, oppure null se quello memorizzato è aggiornato
+     */
+    public record CredenzialiVerificate(Utente utente, String nuovoHash) {
+        /**
+         * @return true se l'hash ricalcolato va salvato con {@link Controller#concludiAutenticazione(Optional)}
+         */
+        public boolean isHashDaAggiornare() {
+            return nuovoHash != null;
+        }
+    }
+
+    /**
+     * Effetto sul modello di una sincronizzazione.
+     * @param bachecheModificate Nomi visualizzati delle bacheche il cui contenuto è cambiato
+     * @param bachecheCambiate true se sono state aggiunte o rimosse bacheche
+     * @param scrittureInConflitto Modifiche fatte offline scartate perché i Task erano stati modificati da altri
+     */
+    public record EsitoSincronizzazione(Set<String> bachecheModificate, boolean bachecheCambiate, int scrittureInConflitto) {
+        /**
+         * Indica se la sincronizzazione non ha cambiato nulla.
+         * @return true se non c'è nulla da aggiornare o segnalare nell'interfaccia
+         */
+        public boolean isVuoto() {
+            return bachecheModificate.isEmpty() && !bachecheCambiate && scrittureInConflitto == 0;
+        }
+    }
 
     /**
      * Costruttore del Controller. Inizializza i DAO e crea l'utente admin di default se non esiste.
      */
     public Controller() {
-        this.utenteDAO = new UtentePostgresDAOImpl();
-        this.bachecaDAO = new BachecaPostgresDAOImpl();
-        this.toDoDAO = new ToDoPostgresDAOImpl();
+        this.utenteDAO = DaoMetrics.strumenta(UtenteDAO.class, new UtentePostgresDAOImpl(), "utente");
+        this.bachecaDAO = DaoMetrics.strumenta(BachecaDAO.class, new BachecaPostgresDAOImpl(), "bacheca");
+        this.toDoDAO = DaoMetrics.strumenta(ToDoDAO.class, new ToDoPostgresDAOImpl(), "todo");
+        this.workspaceDAO = DaoMetrics.strumenta(WorkspaceDAO.class, new WorkspacePostgresDAOImpl(), "workspace");
+        this.modificheDAO = DaoMetrics.strumenta(ModificheDAO.class, new ModifichePostgresDAOImpl(), "modifiche");
+        this.ricercaUtenti = new UsernameLookupService(utenteDAO, bachecaDAO);
+        this.snapshotLocale = SnapshotLocale.predefinito();
+        this.caricamentoPagine = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "todo-page-loader");
+            t.setDaemon(true);
+            return t;
+        });
         this.utenteCorrente = null;
 
         Optional<Utente> adminOpt = utenteDAO.findByUsername("admin");
@@ -59,6 +275,167 @@ public class Controller {
         }
     }
 
+    /**
+     * Costruttore per la modalità server: i DAO usano la connessione indicata e le letture asincrone
+     * l'esecutore indicato. Non crea l'utente admin e non usa snapshot locale né journal.
+     */
+    private Controller(Connection connessione, ExecutorService esecutore) {
+        this.utenteDAO = DaoMetrics.strumenta(UtenteDAO.class, new UtentePostgresDAOImpl(connessione), "utente");
+        this.bachecaDAO = DaoMetrics.strumenta(BachecaDAO.class, new BachecaPostgresDAOImpl(connessione), "bacheca");
+        this.toDoDAO = DaoMetrics.strumenta(ToDoDAO.class, new ToDoPostgresDAOImpl(connessione), "todo");
+        this.workspaceDAO = DaoMetrics.strumenta(WorkspaceDAO.class, new WorkspacePostgresDAOImpl(), "workspace");
+        this.modificheDAO = DaoMetrics.strumenta(ModificheDAO.class, new ModifichePostgresDAOImpl(connessione), "modifiche");
+        this.ricercaUtenti = new UsernameLookupService(utenteDAO, bachecaDAO, esecutore);
+        this.snapshotLocale = null;
+        this.caricamentoPagine = esecutore;
+        this.utenteCorrente = null;
+    }
+
+    /**
+     * Crea un Controller senza sessione per una singola richiesta della modalità server,
+     * ad es. per verificare le credenziali con {@link #autentica(String, String)}.
+     * @param connessione Connessione della richiesta
+     * @param esecutore Esecutore per le letture asincrone (non viene arrestato dal Controller)
+     * @return Controller senza utente corrente
+     */
+    public static Controller perRichiesta(Connection connessione, ExecutorService esecutore) {
+        return new Controller(connessione, esecutore);
+    }
+
+    /**
+     * Crea un Controller che lavora sul workspace della sessione indicata, per una singola richiesta
+     * della modalità server. Va chiamato dentro {@link Sessione#esegui(Sessione.Operazione)} e il Controller
+     * va scartato prima di uscirne: il lock della sessione garantisce che un solo thread alla volta ne
+     * modifichi il modello. Al primo uso vengono lette le bacheche dell'utente (i Task sono letti dalle
+     * operazioni che li richiedono); alle richieste successive il workspace viene riallineato con le sole
+     * modifiche avvenute dalla versione della sessione.
+     * @param connessione Connessione della richiesta
+     * @param esecutore Esecutore per le letture asincrone (non viene arrestato dal Controller)
+     * @param sessione Sessione dell'utente, di cui il thread corrente detiene il lock
+     * @return Controller legato alla sessione
+     * @throws IllegalStateException se il thread corrente non detiene il lock della sessione
+     */
+    public static Controller perSessione(Connection connessione, ExecutorService esecutore, Sessione sessione) {
+        Controller controller = new Controller(connessione, esecutore);
+        Utente utente = sessione.getUtente();
+        controller.utenteCorrente = utente;
+        if (sessione.getVersione() < 0) {
+            controller.versioneSincronizzazione = controller.modificheDAO.versioneCorrente();
+            List<Bacheca> bacheche = controller.bachecaDAO.findByUtenteId(utente.getId());
+            bacheche.forEach(Bacheca::iniziaPaginazione);
+            utente.setBacheche(bacheche);
+        } else {
+            controller.versioneSincronizzazione = sessione.getVersione();
+            controller.applicaDelta(controller.leggiDelta(utente.getId(), sessione.getVersione(), controller.statoCaricamento()));
+        }
+        sessione.setVersione(controller.versioneSincronizzazione);
+        return controller;
+    }
+
+    /**
+     * Verifica le credenziali senza modificare lo stato del Controller, come {@link #autenticaAsync(String, String, Executor)}
+     * ma attendendone l'esito sul thread chiamante, che salva anche l'eventuale hash ricalcolato. La connessione del
+     * Controller resta in uso per tutta la verifica: la modalità server usa invece
+     * {@link #verificaCredenziali(String, String)} e {@link #concludiAutenticazione(Optional)}.
+     * @param username Nome utente
+     * @param password Password
+     * @return Utente autenticato, oppure Optional vuoto se le credenziali non sono valide
+     * @throws RejectedExecutionException se ci sono troppe verifiche in attesa
+     * @throws LoginGate.TroppiTentativiException se lo username o il processo hanno superato il limite di tentativi
+     */
+    public Optional<Utente> autentica(String username, String password) {
+        try {
+            return concludiAutenticazione(verificaCredenziali(username, password).join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Verifica le credenziali senza modificare lo stato del Controller. Il tentativo passa prima dal
+     * {@link LoginGate}; l'utente viene poi letto sul thread chiamante e la verifica della password, costosa
+     * per scelta, gira sull'esecutore di {@link ServizioPassword}. Se l'hash memorizzato usa un algoritmo
+     * o parametri superati viene ricalcolato nello stesso task e salvato sul thread di {@code esecutoreModello},
+     * così l'esecutore degli hash non esegue query.
+     * @param username Nome utente
+     * @param password Password
+     * @param esecutoreModello Esecutore del thread che possiede il modello (es. {@code SwingUtilities::invokeLater})
+     * @return Future con l'utente autenticato, oppure con Optional vuoto se le credenziali non sono valide;
+     *         completato con una {@link LoginGate.TroppiTentativiException} se il tentativo viene respinto
+     * @throws RejectedExecutionException se ci sono troppe verifiche in attesa
+     */
+    public CompletableFuture<Optional<Utente>> autenticaAsync(String username, String password, Executor esecutoreModello) {
+        return verificaCredenziali(username, password).thenApplyAsync(this::concludiAutenticazione, esecutoreModello);
+    }
+
+    /**
+     * Verifica le credenziali senza scrivere sul database. Il tentativo passa dal {@link LoginGate} e l'utente
+     * viene letto sul thread chiamante con la connessione del Controller; la password è verificata sull'esecutore
+     * di {@link ServizioPassword} e il future restituito non usa più la connessione. La modalità server può quindi
+     * restituirla al pool prima di attendere l'esito e prenderne un'altra solo se l'hash ricalcolato va salvato
+     * con {@link #concludiAutenticazione(Optional)}.
+     * @param username Nome utente
+     * @param password Password
+     * @return Future con le credenziali verificate, oppure con Optional vuoto se non sono valide;
+     *         completato con una {@link LoginGate.TroppiTentativiException} se il tentativo viene respinto
+     * @throws RejectedExecutionException se ci sono troppe verifiche in attesa
+     */
+    public CompletableFuture<Optional<CredenzialiVerificate>> verificaCredenziali(String username, String password) {
+        if (username == null || password == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        LoginGate gate = LoginGate.getInstance();
+        try {
+            if (!gate.consenti(username)) {
+                logger.info("Controller: Login fallito - Utente '{}' non trovato (in cache).", username);
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+        } catch (LoginGate.TroppiTentativiException e) {
+            logger.warn("Controller: Login respinto per l'utente '{}': {}.", username, e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+        Optional<Utente> utenteOpt = utenteDAO.findByUsername(username);
+        if (utenteOpt.isEmpty()) {
+            gate.utenteSconosciuto(username);
+            logger.info("Controller: Login fallito - Utente '{}' non trovato.", username);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        Utente utente = utenteOpt.get();
+        return ServizioPassword.getInstance().verificaAsync(password, utente.getPasswordHash()).thenApply(esito -> {
+            if (!esito.valida()) {
+                logger.info("Controller: Login fallito - Password errata per l'utente '{}'.", username);
+                return Optional.empty();
+            }
+            gate.accessoRiuscito(username);
+            return Optional.of(new CredenzialiVerificate(utente, esito.nuovoHash()));
+        });
+    }
+
+    /**
+     * Salva l'eventuale hash ricalcolato durante la verifica e restituisce l'utente autenticato.
+     * Un errore nel salvataggio non blocca il login: l'hash verrà aggiornato al login successivo.
+     * @param credenziali Esito di {@link #verificaCredenziali(String, String)}
+     * @return Utente autenticato, oppure Optional vuoto se le credenziali non erano valide
+     */
+    public Optional<Utente> concludiAutenticazione(Optional<CredenzialiVerificate> credenziali) {
+        credenziali.filter(CredenzialiVerificate::isHashDaAggiornare).ifPresent(c -> salvaHashPassword(c.utente(), c.nuovoHash()));
+        return credenziali.map(CredenzialiVerificate::utente);
+    }
+
+    private void salvaHashPassword(Utente utente, String nuovoHash) {
+        try {
+            utente.setPasswordHash(nuovoHash);
+            if (utenteDAO.update(utente)) {
+                logger.info("Controller: Hash della password dell'utente '{}' aggiornato.", utente.getUsername());
+            }
+        } catch (DatabaseConnectionException e) {
+            logger.warn("Controller: Aggiornamento dell'hash della password di '{}' fallito: {}", utente.getUsername(), e.getMessage());
+        }
+    }
+
     /**
      * Registra un nuovo utente nel sistema.
      * @param username Nome utente da registrare
@@ -70,10 +447,37 @@ public class Controller {
             logger.error("Controller: Username e password non possono essere vuoti per la registrazione.");
             return false;
         }
-        Utente nuovoUtente = new Utente(username, password);
+        return salvaNuovoUtente(new Utente(username, password));
+    }
+
+    /**
+     * Registra un nuovo utente calcolando l'hash della password sull'esecutore di {@link ServizioPassword};
+     * il salvataggio avviene sul thread di {@code esecutoreModello}. L'utente registrato può aprire la sessione
+     * con {@link #apriSessione(Utente)}.
+     * @param username Nome utente da registrare
+     * @param password Password dell'utente
+     * @param esecutoreModello Esecutore del thread che possiede il modello (es. {@code SwingUtilities::invokeLater})
+     * @return Future con l'utente registrato, oppure con Optional vuoto se la registrazione fallisce
+     * @throws RejectedExecutionException se ci sono troppe richieste di hashing in attesa
+     */
+    public CompletableFuture<Optional<Utente>> registraUtenteAsync(String username, String password, Executor esecutoreModello) {
+        if (username == null || username.trim().isEmpty() || password == null || password.isEmpty()) {
+            logger.error("Controller: Username e password non possono essere vuoti per la registrazione.");
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return ServizioPassword.getInstance().calcolaAsync(password).thenApplyAsync(hash -> {
+            Utente nuovoUtente = new Utente(0, username, hash);
+            return salvaNuovoUtente(nuovoUtente) ? Optional.of(nuovoUtente) : Optional.empty();
+        }, esecutoreModello);
+    }
+
+    private boolean salvaNuovoUtente(Utente nuovoUtente) {
+        String username = nuovoUtente.getUsername();
         boolean success = utenteDAO.save(nuovoUtente);
         if (success) {
             logger.info("Controller: Utente '{}' registrato con successo nel DB con ID: {}", username, nuovoUtente.getId());
+            ricercaUtenti.invalida();
+            LoginGate.getInstance().utenteRegistrato(username);
 
             // Crea automaticamente la board "Università" per il nuovo utente
             Bacheca nuovaBacheca = new Bacheca(TitoloBacheca.UNIVERSITA, "Bacheca per le attività universitarie");
@@ -96,43 +500,273 @@ public class Controller {
      * @return true se il login ha successo, false altrimenti
      */
     public boolean login(String username, String password) {
-        Optional<Utente> utenteOpt = utenteDAO.findByUsername(username);
+        Optional<Utente> utenteOpt = autentica(username, password);
         if (utenteOpt.isPresent()) {
-            Utente utente = utenteOpt.get();
-            if (utente.checkPassword(password)) {
-                this.utenteCorrente = utente;
-                loadFullUtenteCorrente();
-                logger.info("Controller: Utente '{}' loggato con successo. ID: {}", username, utente.getId());
-                return true;
-            } else {
-                logger.info("Controller: Login fallito - Password errata per l'utente '{}'.", username);
-            }
-        } else {
-            logger.info("Controller: Login fallito - Utente '{}' non trovato.", username);
+            apriSessione(utenteOpt.get());
+            return true;
         }
         this.utenteCorrente = null;
         return false;
     }
 
     /**
-     * Carica tutte le informazioni complete dell'utente corrente (bacheche e Task).
+     * Apre la sessione di un utente già autenticato con {@link #autenticaAsync(String, String, Executor)} o registrato
+     * con {@link #registraUtenteAsync(String, String, Executor)}: lo imposta come utente corrente e ne carica il workspace.
+     * Va chiamato dal thread che possiede il modello.
+     * @param utente Utente autenticato
+     */
+    public void apriSessione(Utente utente) {
+        this.utenteCorrente = utente;
+        caricaWorkspace();
+        logger.info("Controller: Utente '{}' loggato con successo. ID: {}", utente.getUsername(), utente.getId());
+    }
+
+    /**
+     * Carica le informazioni dell'utente corrente: le bacheche, la prima pagina di Task
+     * di ciascuna bacheca e i Task condivisi con l'utente. Le pagine successive vengono
+     * lette su richiesta con {@link #caricaPaginaToDoAsync(Bacheca)} o {@link #caricaTuttiIToDo(Bacheca)}.
      */
     public void loadFullUtenteCorrente() { // <--- DEVE ESSERE PUBLIC
         if (utenteCorrente == null || utenteCorrente.getId() == 0) return;
 
-        List<Bacheca> bachecheDB = bachecaDAO.findByUtenteId(utenteCorrente.getId());
+        // Letta prima dei dati: ciò che cambia durante il caricamento verrà riletto dalla prossima sincronizzazione
+        versioneSincronizzazione = modificheDAO.versioneCorrente();
+        utenteCorrente.setBacheche(leggiWorkspaceCompleto(utenteCorrente.getId()));
+    }
+
+    /**
+     * Legge dal database le bacheche dell'utente con la prima pagina di Task di ciascuna e i Task condivisi con lui.
+     * Non modifica il modello, quindi può essere eseguito fuori dall'EDT.
+     */
+    private List<Bacheca> leggiWorkspaceCompleto(int utenteId) {
+        List<Bacheca> bachecheDB = bachecaDAO.findByUtenteId(utenteId);
         bachecheDB.forEach(this::caricaToDoPerBacheca);
         gestisciToDoCondivisi(bachecheDB);
-        utenteCorrente.setBacheche(bachecheDB);
+        return bachecheDB;
+    }
+
+    /**
+     * Carica il workspace dell'utente appena loggato. Le operazioni rimaste nel journal vengono inviate per prime;
+     * se esiste uno snapshot locale recente le bacheche vengono ripristinate da esso e dal database si leggono
+     * solo le modifiche successive, altrimenti il workspace viene caricato per intero.
+     * Le operazioni che non è stato possibile inviare vengono riapplicate al modello caricato.
+     */
+    private void caricaWorkspace() {
+        int utenteId = utenteCorrente.getId();
+        apriJournal(utenteId);
+        Optional<SnapshotLocale.Snapshot> snapshot = Optional.ofNullable(snapshotLocale)
+                .flatMap(s -> s.carica(utenteId))
+                .filter(s -> s.salvatoIl().isAfter(Instant.now().minus(ETA_MASSIMA_SNAPSHOT)));
+        if (snapshot.isEmpty()) {
+            try {
+                inviaScrittureInSospeso();
+            } catch (DatabaseConnectionException | UncheckedIOException e) {
+                logger.warn("Controller: Invio delle operazioni in sospeso non riuscito, verrà ritentato: {}", e.getMessage());
+            }
+            loadFullUtenteCorrente();
+            applicaOperazioniInSospeso();
+            return;
+        }
+        utenteCorrente.setBacheche(snapshot.get().bacheche());
+        versioneSincronizzazione = snapshot.get().versione();
+        logger.info("Controller: Workspace dell'utente '{}' ripristinato dallo snapshot locale del {}.",
+                utenteCorrente.getUsername(), snapshot.get().salvatoIl());
+        try {
+            applicaDelta(leggiDelta(utenteId, versioneSincronizzazione, statoCaricamento()));
+        } catch (DatabaseConnectionException | UncheckedIOException e) {
+            logger.warn("Controller: Sincronizzazione dello snapshot locale non riuscita, verrà ritentata: {}", e.getMessage());
+            applicaOperazioniInSospeso();
+        }
+    }
+
+    private void apriJournal(int utenteId) {
+        chiudiJournal();
+        if (snapshotLocale == null) {
+            return;
+        }
+        try {
+            journal = JournalScritture.apri(snapshotLocale.getCartella(), utenteId);
+        } catch (IOException e) {
+            logger.warn("Controller: Journal delle modifiche non disponibile, le modifiche offline non verranno salvate: {}", e.getMessage());
+        }
+    }
+
+    private void chiudiJournal() {
+        JournalScritture j = journal;
+        journal = null;
+        if (j != null) {
+            j.close();
+        }
+    }
+
+    /**
+     * Salva lo snapshot locale del workspace dell'utente corrente, da cui ripartire al prossimo login.
+     * Da chiamare dal thread che possiede il modello, ad es. alla chiusura della finestra.
+     */
+    public void salvaStatoLocale() {
+        if (!isUserLoggedIn() || snapshotLocale == null) {
+            return;
+        }
+        try {
+            snapshotLocale.salva(utenteCorrente, versioneSincronizzazione);
+        } catch (IOException e) {
+            logger.warn("Controller: Salvataggio dello snapshot locale fallito: {}", e.getMessage());
+        }
     }
 
     private void caricaToDoPerBacheca(Bacheca bacheca) {
-        List<ToDo> todosInBacheca = toDoDAO.findAllByBachecaId(bacheca.getId());
-        for (ToDo t : todosInBacheca) {
-            utenteDAO.findById(t.getAutoreId()).ifPresent(t::setAutore);
+        bacheca.iniziaPaginazione();
+        applicaPaginaToDo(bacheca, leggiPaginaToDo(bacheca.getId(), bacheca.getCursorePosizione(), bacheca.getCursoreId()));
+    }
+
+    /**
+     * Legge dal DB la pagina di Task successiva al cursore indicato, completando autore e condivisioni.
+     * Non modifica il modello, quindi può essere eseguito fuori dall'EDT.
+     */
+    private PaginaToDo leggiPaginaToDo(int bachecaId, int dopoPosizione, int dopoId) {
+        // Un Task in più rispetto alla pagina indica se ne esistono altri senza una query aggiuntiva
+        List<ToDo> letti = toDoDAO.findPageByBachecaId(bachecaId, dopoPosizione, dopoId, DIMENSIONE_PAGINA_TODO + 1);
+        boolean ultima = letti.size() <= DIMENSIONE_PAGINA_TODO;
+        List<ToDo> pagina = ultima ? letti : new ArrayList<>(letti.subList(0, DIMENSIONE_PAGINA_TODO));
+        for (ToDo t : pagina) {
             t.setUtentiConAccessoCondiviso(new HashSet<>(toDoDAO.getUtentiCondivisione(t)));
         }
-        bacheca.setTodos(todosInBacheca);
+        return new PaginaToDo(bachecaId, dopoPosizione, dopoId, pagina, ultima);
+    }
+
+    /**
+     * Legge in background la pagina di Task successiva di una bacheca.
+     * Il risultato va applicato al modello con {@link #applicaPaginaToDo(Bacheca, PaginaToDo)}
+     * dal thread che possiede il modello (l'EDT per l'interfaccia grafica).
+     * @param bacheca Bacheca di cui leggere la pagina successiva
+     * @return Future con la pagina letta, oppure con null se la bacheca è già completa
+     */
+    public CompletableFuture<PaginaToDo> caricaPaginaToDoAsync(Bacheca bacheca) {
+        if (!isUserLoggedIn() || bacheca == null || bacheca.isCaricamentoCompleto()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int bachecaId = bacheca.getId();
+        int dopoPosizione = bacheca.getCursorePosizione();
+        int dopoId = bacheca.getCursoreId();
+        return CompletableFuture.supplyAsync(() -> leggiPaginaToDo(bachecaId, dopoPosizione, dopoId), caricamentoPagine);
+    }
+
+    /**
+     * Accoda alla bacheca una pagina letta in precedenza.
+     * La pagina viene scartata se nel frattempo il cursore della bacheca è cambiato
+     * (pagina già applicata o bacheca ricaricata).
+     * @param bacheca Bacheca di destinazione
+     * @param pagina Pagina da applicare (può essere null)
+     * @return true se la pagina è stata applicata, false se scartata
+     */
+    public boolean applicaPaginaToDo(Bacheca bacheca, PaginaToDo pagina) {
+        if (bacheca == null || pagina == null || bacheca.isCaricamentoCompleto()
+                || pagina.bachecaId() != bacheca.getId()
+                || pagina.dopoPosizione() != bacheca.getCursorePosizione()
+                || pagina.dopoId() != bacheca.getCursoreId()) {
+            return false;
+        }
+        int aggiunti = bacheca.aggiungiPagina(pagina.todos(), pagina.ultima());
+        logger.debug("Controller: Pagina di {} ToDo applicata alla bacheca '{}' (completa: {}).",
+                aggiunti, bacheca.getTitoloDisplayName(), pagina.ultima());
+        return true;
+    }
+
+    /**
+     * Legge tutte le pagine rimanenti di una bacheca.
+     * Necessario prima delle operazioni che lavorano sull'insieme completo dei Task.
+     * @param bacheca Bacheca da completare
+     */
+    public void caricaTuttiIToDo(Bacheca bacheca) {
+        while (bacheca != null && !bacheca.isCaricamentoCompleto()) {
+            PaginaToDo pagina = leggiPaginaToDo(bacheca.getId(), bacheca.getCursorePosizione(), bacheca.getCursoreId());
+            applicaPaginaToDo(bacheca, pagina);
+        }
+    }
+
+    /**
+     * Archivio colonnare dei Task non caricati, con il cursore di ogni bacheca al momento della lettura.
+     * Copre una bacheca finché il suo cursore non torna prima di quello da cui l'archivio è stato letto.
+     */
+    private record ArchivioNonCaricati(ArchivioToDo archivio, Map<Integer, long[]> cursori) {
+        boolean copre(List<Bacheca> incomplete) {
+            for (Bacheca bacheca : incomplete) {
+                long[] cursore = cursori.get(bacheca.getId());
+                if (cursore == null || bacheca.getCursorePosizione() < cursore[0]
+                        || (bacheca.getCursorePosizione() == cursore[0] && bacheca.getCursoreId() < cursore[1])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Restituisce l'archivio dei Task non ancora caricati delle bacheche indicate, leggendolo in streaming
+     * senza immagini se manca o non copre tutte le bacheche.
+     */
+    private ArchivioToDo archivioNonCaricati(List<Bacheca> incomplete) {
+        ArchivioNonCaricati attuale = archivioNonCaricati;
+        if (attuale != null && attuale.copre(incomplete)) {
+            return attuale.archivio();
+        }
+        ArchivioToDo archivio = new ArchivioToDo();
+        Map<Integer, long[]> cursori = new HashMap<>();
+        for (Bacheca bacheca : incomplete) {
+            try (Stream<ToDo> rimanenti = toDoDAO.streamSenzaImmaginiByBachecaId(bacheca.getId(),
+                    bacheca.getCursorePosizione(), bacheca.getCursoreId())) {
+                rimanenti.forEach(archivio::aggiungi);
+            }
+            cursori.put(bacheca.getId(), new long[] {bacheca.getCursorePosizione(), bacheca.getCursoreId()});
+        }
+        archivioNonCaricati = new ArchivioNonCaricati(archivio, cursori);
+        logger.debug("Controller: Archiviati {} Task non caricati di {} bacheche.", archivio.dimensione(), incomplete.size());
+        return archivio;
+    }
+
+    /**
+     * Seleziona nell'archivio i Task non ancora caricati delle bacheche dell'utente corrente e li legge
+     * per intero dal database. Le righe selezionate vengono riverificate con il filtro sui dati letti,
+     * così un archivio non ancora scartato non restituisce Task modificati nel frattempo.
+     * @param selezione Righe dell'archivio da leggere, nell'ordine del risultato
+     * @param filtro Condizione sui Task
+     * @return Task non caricati che soddisfano il filtro, con l'autore risolto
+     */
+    private List<ToDo> filtraToDoNonCaricati(Function<ArchivioToDo, int[]> selezione, Predicate<ToDo> filtro) {
+        Map<Integer, Bacheca> incomplete = new HashMap<>();
+        for (Bacheca bacheca : utenteCorrente.getBacheche()) {
+            if (!bacheca.isCaricamentoCompleto()) {
+                incomplete.put(bacheca.getId(), bacheca);
+            }
+        }
+        if (incomplete.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ArchivioToDo archivio = archivioNonCaricati(List.copyOf(incomplete.values()));
+        List<Integer> ids = new ArrayList<>();
+        for (int riga : selezione.apply(archivio)) {
+            Bacheca bacheca = incomplete.get(archivio.getBachecaId(riga));
+            // Le righe già caricate da pagine successive alla lettura dell'archivio sono nel modello
+            if (bacheca != null && archivio.isDopo(riga, bacheca.getCursorePosizione(), bacheca.getCursoreId())) {
+                ids.add(archivio.getId(riga));
+            }
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Integer, ToDo> letti = new HashMap<>();
+        for (ToDo t : toDoDAO.findAllByIds(ids)) {
+            letti.put(t.getId(), t);
+        }
+        List<ToDo> trovati = new ArrayList<>();
+        for (Integer id : ids) {
+            ToDo t = letti.get(id);
+            if (t != null && filtro.test(t)) {
+                utenteDAO.findRefById(t.getAutoreId()).map(riferimentiUtenti::riferimento).ifPresent(t::setAutore);
+                trovati.add(t);
+            }
+        }
+        return trovati;
     }
 
     private void gestisciToDoCondivisi(List<Bacheca> bachecheDB) {
@@ -211,7 +845,7 @@ public class Controller {
             return;
         }
 
-        utenteDAO.findById(sharedToDo.getAutoreId()).ifPresent(sharedToDo::setAutore);
+        utenteDAO.findRefById(sharedToDo.getAutoreId()).map(riferimentiUtenti::riferimento).ifPresent(sharedToDo::setAutore);
         sharedToDo.setUtentiConAccessoCondiviso(new HashSet<>(toDoDAO.getUtentiCondivisione(sharedToDo)));
         targetBacheca.aggiungiToDo(sharedToDo);
         logger.info("Controller: ToDo condiviso '{}' aggiunto alla bacheca locale '{}' per '{}'.",
@@ -223,6 +857,9 @@ public class Controller {
      * Effettua il logout dell'utente corrente.
      */
     public void logout() {
+        arrestaSincronizzazione();
+        salvaStatoLocale();
+        chiudiJournal();
         if (this.utenteCorrente != null) {
             logger.info("Controller: Utente '{}' sloggato.", this.utenteCorrente.getUsername());
         }
@@ -251,7 +888,7 @@ public class Controller {
      * @return Optional contenente l'utente se trovato, altrimenti Optional vuoto
      */
     public Optional<Utente> getUtenteByUsername(String username) {
-        return utenteDAO.findByUsername(username);
+        return utenteDAO.findRefByUsername(username).map(UtenteRef::utente);
     }
 
     /**
@@ -415,6 +1052,7 @@ public class Controller {
                     return Optional.empty();
                 }
 
+                caricaTuttiIToDoSePossibile(bachecaDest);
                 ToDo nuovoToDo = new ToDo(titolo, descrizione, utenteCorrente, scadenza, colore);
                 nuovoToDo.setAutoreId(utenteCorrente.getId());
                 nuovoToDo.setBachecaId(bachecaDest.getId());
@@ -425,7 +1063,7 @@ public class Controller {
                 nuovoToDo.setPosizione(nuovaPosizione);
 
 
-                if (toDoDAO.save(nuovoToDo)) {
+                if (scriviOAccoda(null, () -> toDoDAO.save(nuovoToDo), j -> j.accoda(JournalScritture.Tipo.CREA, nuovoToDo))) {
                     bachecaDest.aggiungiToDo(nuovoToDo);
                     logger.info("Controller: ToDo '{}' creato e salvato nel DB. ID: {}", titolo, nuovoToDo.getId());
                     return Optional.of(nuovoToDo);
@@ -441,6 +1079,112 @@ public class Controller {
         return Optional.empty();
     }
 
+    /**
+     * Crea un Task per ogni riga di una checklist incollata dall'utente, con un unico salvataggio in blocco.
+     * Le righe vuote sono ignorate; marcatori di elenco ("-", "*", "1.") e caselle ("[ ]", "[x]") vengono
+     * rimossi, e le righe con la casella spuntata sono create già completate.
+     * @param nomeBachecaDestinazione Nome visualizzato della bacheca di destinazione
+     * @param checklist Testo della checklist, una voce per riga
+     * @param scadenza Data di scadenza comune (opzionale)
+     * @param colore Colore comune
+     * @return Lista dei Task creati, vuota se non ci sono voci o se il salvataggio fallisce
+     */
+    public List<ToDo> creaToDoDaChecklist(String nomeBachecaDestinazione, String checklist, LocalDate scadenza, String colore) {
+        if (!isUserLoggedIn() || checklist == null) return Collections.emptyList();
+        try {
+            TitoloBacheca titoloBachecaEnum = TitoloBacheca.fromDisplayName(nomeBachecaDestinazione);
+            Optional<Bacheca> bachecaOpt = utenteCorrente.getBachecaByTitolo(titoloBachecaEnum);
+            if (bachecaOpt.isEmpty() || bachecaOpt.get().getId() == 0) {
+                logger.error("Controller: Bacheca '{}' non disponibile per la creazione da checklist.", nomeBachecaDestinazione);
+                return Collections.emptyList();
+            }
+            Bacheca bachecaDest = bachecaOpt.get();
+            caricaTuttiIToDoSePossibile(bachecaDest);
+
+            List<ToDo> nuovi = new ArrayList<>();
+            int posizione = bachecaDest.getTodos().size();
+            for (String riga : checklist.split("\\R")) {
+                Matcher voce = VOCE_CHECKLIST.matcher(riga);
+                if (!voce.matches() || voce.group(2).isBlank()) {
+                    continue;
+                }
+                String titolo = voce.group(2).strip();
+                if (titolo.length() > MAX_LUNGHEZZA_TITOLO) {
+                    titolo = titolo.substring(0, MAX_LUNGHEZZA_TITOLO);
+                }
+                ToDo nuovoToDo = new ToDo(titolo, "", utenteCorrente, scadenza, colore);
+                nuovoToDo.setAutoreId(utenteCorrente.getId());
+                nuovoToDo.setBachecaId(bachecaDest.getId());
+                nuovoToDo.setPosizione(posizione++);
+                if (voce.group(1) != null && voce.group(1).equalsIgnoreCase("x")) {
+                    nuovoToDo.setStato(StatoToDo.COMPLETATO);
+                }
+                nuovi.add(nuovoToDo);
+            }
+            if (nuovi.isEmpty()) {
+                return Collections.emptyList();
+            }
+            boolean salvati = scriviOAccoda(null, () -> toDoDAO.saveAll(nuovi), j -> {
+                for (ToDo nuovo : nuovi) {
+                    j.accoda(JournalScritture.Tipo.CREA, nuovo);
+                }
+            });
+            if (!salvati) {
+                logger.error("Controller: Fallimento salvataggio di {} ToDo da checklist nel DB.", nuovi.size());
+                return Collections.emptyList();
+            }
+            bachecaDest.aggiungiToDos(nuovi);
+            logger.info("Controller: {} ToDo creati da checklist nella bacheca '{}'.", nuovi.size(), nomeBachecaDestinazione);
+            return nuovi;
+        } catch (IllegalArgumentException ignored) {
+            logger.error("Controller: Nome bacheca non valido '{}' per creazione da checklist. {}", nomeBachecaDestinazione, ignored.getMessage());
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Segna come completati tutti i Task della bacheca con un'unica istruzione sul database,
+     * compresi quelli delle pagine non ancora caricate e i Task condivisi mostrati nella bacheca,
+     * poi aggiorna lo stato dei Task in memoria.
+     * <p>
+     * L'istruzione non passa dal journal: le operazioni in attesa vengono inviate prima, altrimenti le modifiche
+     * fatte offline ai Task della bacheca verrebbero scartate come conflitti dopo il completamento. Se non è
+     * possibile inviarle la bacheca non viene completata.
+     * @param bacheca Bacheca da completare
+     * @return Numero di Task completati (0 se erano già tutti completati)
+     * @throws IllegalStateException se ci sono operazioni in attesa che non è stato possibile inviare
+     */
+    public int completaTutti(Bacheca bacheca) {
+        if (!isUserLoggedIn() || bacheca == null || bacheca.getId() == 0) return 0;
+        JournalScritture j = journal;
+        if (j != null && !j.isVuoto()) {
+            try {
+                inviaScrittureInSospeso();
+            } catch (DatabaseConnectionException | UncheckedIOException e) {
+                logger.warn("Controller: Bacheca '{}' non completata, operazioni in sospeso non inviate: {}",
+                        bacheca.getTitoloDisplayName(), e.getMessage());
+                throw new IllegalStateException("Ci sono modifiche non ancora inviate al database. "
+                        + "Riprovare quando la connessione è disponibile.", e);
+            }
+            riconciliaToDoCreatiOffline(new HashSet<>());
+        }
+        List<Integer> idCondivisi = bacheca.getTodos().stream()
+                .filter(t -> t.getBachecaId() == null || t.getBachecaId() != bacheca.getId())
+                .map(ToDo::getId)
+                .toList();
+        archivioNonCaricati = null;
+        Map<Integer, Integer> completati = toDoDAO.completaTutti(bacheca.getId(), idCondivisi);
+        for (ToDo t : bacheca.getTodos()) {
+            Integer versione = completati.get(t.getId());
+            if (versione != null) {
+                t.setStato(StatoToDo.COMPLETATO);
+                t.setVersione(versione);
+            }
+        }
+        logger.info("Controller: {} ToDo completati nella bacheca '{}'.", completati.size(), bacheca.getTitoloDisplayName());
+        return completati.size();
+    }
+
     /**
      * Parametri di aggiornamento per la modifica di un Task.
      */
@@ -552,49 +1296,200 @@ public class Controller {
     }
 
     /**
-     * Modifica un Task esistente con i parametri specificati.
+     * Esito della modifica di un Task.
+     */
+    public enum EsitoModifica {
+        /** Modifica salvata. */
+        MODIFICATO,
+        /** Nessun campo da modificare (o modifiche non permesse all'utente). */
+        NESSUNA_MODIFICA,
+        /** Il Task è stato modificato da un altro utente: il Task in memoria è stato riallineato al database. */
+        CONFLITTO,
+        /** Il Task non esiste più nel database. */
+        NON_TROVATO,
+        /** Utente non loggato o Task non valido. */
+        NON_VALIDO,
+        /** Database non raggiungibile: modifica salvata in locale, verrà inviata alla prossima sincronizzazione. */
+        IN_CODA
+    }
+
+    /**
+     * Modifica un Task esistente.
      * @param todoDaModificare Task da modificare
      * @param params Parametri di aggiornamento
-     * @return true se la modifica ha successo, false altrimenti
+     * @return true se la modifica ha successo o non c'era nulla da modificare, false altrimenti
      */
     public boolean modificaToDo(ToDo todoDaModificare, ToDoUpdateParams params) {
-        if (!isUserLoggedIn() || todoDaModificare == null || todoDaModificare.getId() == 0) {
-            logger.error("Controller: Impossibile modificare ToDo. Utente non loggato o ToDo non valido/non persistito.");
-            return false;
-        }
-        Optional<ToDo> currentToDoOpt = toDoDAO.findById(todoDaModificare.getId());
-        if (currentToDoOpt.isEmpty()) {
-            logger.error("Controller: ToDo con ID {} non trovato nel DB per la modifica.", todoDaModificare.getId());
-            return false;
+        EsitoModifica esito = modificaToDoConEsito(todoDaModificare, params);
+        return esito == EsitoModifica.MODIFICATO || esito == EsitoModifica.NESSUNA_MODIFICA;
+    }
+
+    /**
+     * Modifica un Task esistente con controllo di concorrenza ottimistico.
+     * Le modifiche vengono applicate a una copia del Task in memoria e salvate con un UPDATE
+     * condizionato alla versione letta, senza rileggere il Task dal database; solo in caso di
+     * conflitto il Task in memoria viene riallineato con lo stato corrente del database.
+     * Se il database non è raggiungibile, o ci sono già modifiche in attesa di invio, la modifica
+     * viene aggiunta al journal locale e applicata subito al Task in memoria.
+     * @param todoDaModificare Task da modificare
+     * @param params Parametri di aggiornamento
+     * @return Esito della modifica
+     */
+    public EsitoModifica modificaToDoConEsito(ToDo todoDaModificare, ToDoUpdateParams params) {
+        if (!isUserLoggedIn() || todoDaModificare == null || todoDaModificare.getId() == 0) {
+            logger.error("Controller: Impossibile modificare ToDo. Utente non loggato o ToDo non valido/non persistito.");
+            return EsitoModifica.NON_VALIDO;
         }
-        ToDo originalToDoInDB = currentToDoOpt.get();
-        boolean isAutore = originalToDoInDB.getAutoreId() == utenteCorrente.getId();
+        ToDo modificato = copiaToDo(todoDaModificare);
+        boolean isAutore = modificato.getAutoreId() == utenteCorrente.getId();
         boolean changed = false;
-        changed |= aggiornaTitolo(originalToDoInDB, params.getNuovoTitolo(), isAutore);
-        changed |= aggiornaDescrizione(originalToDoInDB, params.getNuovaDescrizione(), isAutore);
-        changed |= aggiornaScadenza(originalToDoInDB, params.getNuovaScadenza(), isAutore);
-        changed |= aggiornaColore(originalToDoInDB, params.getNuovoColore(), isAutore);
-        changed |= aggiornaUrl(originalToDoInDB, params.getNuovoUrl(), isAutore);
-        changed |= aggiornaImmagine(originalToDoInDB, params.getNuovaImmagine(), isAutore);
-        changed |= aggiornaStato(originalToDoInDB, params.getNuovoStato());
+        changed |= aggiornaTitolo(modificato, params.getNuovoTitolo(), isAutore);
+        changed |= aggiornaDescrizione(modificato, params.getNuovaDescrizione(), isAutore);
+        changed |= aggiornaScadenza(modificato, params.getNuovaScadenza(), isAutore);
+        changed |= aggiornaColore(modificato, params.getNuovoColore(), isAutore);
+        changed |= aggiornaUrl(modificato, params.getNuovoUrl(), isAutore);
+        changed |= aggiornaImmagine(modificato, params.getNuovaImmagine(), isAutore);
+        changed |= aggiornaStato(modificato, params.getNuovoStato());
         if (!changed) {
-            logger.info("Controller: Nessuna modifica effettiva al ToDo '{}'.", originalToDoInDB.getTitolo());
+            logger.info("Controller: Nessuna modifica effettiva al ToDo '{}'.", modificato.getTitolo());
+            return EsitoModifica.NESSUNA_MODIFICA;
+        }
+        if (scritturaInCoda(modificato)) {
+            return accodaModifica(modificato, todoDaModificare);
+        }
+        ToDoDAO.EsitoAggiornamento esito;
+        archivioNonCaricati = null;
+        try {
+            esito = toDoDAO.updateSeVersione(modificato);
+        } catch (DatabaseConnectionException e) {
+            if (journal == null) {
+                throw e;
+            }
+            logger.warn("Controller: Database non raggiungibile, modifica al ToDo '{}' salvata in locale.", modificato.getTitolo());
+            return accodaModifica(modificato, todoDaModificare);
+        }
+        switch (esito) {
+            case AGGIORNATO -> {
+                copiaCampiModificabili(modificato, todoDaModificare);
+                logger.info("Controller: ToDo '{}' modificato.", modificato.getTitolo());
+                return EsitoModifica.MODIFICATO;
+            }
+            case CONFLITTO -> {
+                logger.info("Controller: Conflitto di versione sul ToDo ID {}: modificato da un altro utente.", todoDaModificare.getId());
+                toDoDAO.findById(todoDaModificare.getId()).ifPresent(attuale -> copiaCampiModificabili(attuale, todoDaModificare));
+                return EsitoModifica.CONFLITTO;
+            }
+            default -> {
+                logger.error("Controller: ToDo con ID {} non trovato nel DB per la modifica.", todoDaModificare.getId());
+                return EsitoModifica.NON_TROVATO;
+            }
+        }
+    }
+
+    private EsitoModifica accodaModifica(ToDo modificato, ToDo todoDaModificare) {
+        accoda(j -> j.accoda(JournalScritture.Tipo.AGGIORNA, modificato));
+        copiaCampiModificabili(modificato, todoDaModificare);
+        return EsitoModifica.IN_CODA;
+    }
+
+    /**
+     * Operazione da registrare nel journal delle scritture.
+     */
+    @FunctionalInterface
+    private interface OperazioneJournal {
+        void registra(JournalScritture journal) throws IOException;
+    }
+
+    /**
+     * Indica se una scrittura va registrata nel journal invece che eseguita subito: ci sono operazioni
+     * in attesa, da inviare prima di questa, oppure il Task è stato creato offline e non ha ancora un ID del database.
+     */
+    private boolean scritturaInCoda(ToDo todo) {
+        JournalScritture j = journal;
+        return j != null && (!j.isVuoto() || (todo != null && todo.getId() < 0));
+    }
+
+    private void accoda(OperazioneJournal operazione) {
+        JournalScritture j = journal;
+        if (j == null) {
+            throw new DatabaseConnectionException("Journal delle modifiche non disponibile", null);
+        }
+        try {
+            operazione.registra(j);
+        } catch (IOException e) {
+            throw new DatabaseConnectionException("Errore salvataggio locale dell'operazione", e);
+        }
+    }
+
+    /**
+     * Esegue una scrittura sul database oppure, se deve seguire operazioni in attesa o il database non è
+     * raggiungibile, la registra nel journal: verrà inviata in background dalla sincronizzazione.
+     * @param todo Task interessato (null per le creazioni)
+     * @param scrittura Scrittura sul database
+     * @param operazione Registrazione equivalente nel journal
+     * @return Esito della scrittura, oppure true se l'operazione è stata registrata nel journal
+     */
+    private boolean scriviOAccoda(ToDo todo, BooleanSupplier scrittura, OperazioneJournal operazione) {
+        archivioNonCaricati = null;
+        if (scritturaInCoda(todo)) {
+            accoda(operazione);
             return true;
         }
-        boolean successDB = toDoDAO.update(originalToDoInDB);
-        if (successDB) {
-            todoDaModificare.setTitolo(originalToDoInDB.getTitolo());
-            todoDaModificare.setDescrizione(originalToDoInDB.getDescrizione());
-            todoDaModificare.setScadenza(originalToDoInDB.getScadenza());
-            todoDaModificare.setStato(originalToDoInDB.getStato());
-            todoDaModificare.setColore(originalToDoInDB.getColore());
-            todoDaModificare.setUrl(originalToDoInDB.getUrl());
-            todoDaModificare.setImmagine(originalToDoInDB.getImmagine());
-            logger.info("Controller: ToDo '{}' modificato.", originalToDoInDB.getTitolo());
-        } else {
-            logger.error("Controller: Fallimento modifica ToDo '{}'", originalToDoInDB.getTitolo());
+        try {
+            return scrittura.getAsBoolean();
+        } catch (DatabaseConnectionException e) {
+            if (journal == null) {
+                throw e;
+            }
+            logger.warn("Controller: Database non raggiungibile, operazione salvata in locale: {}", e.getMessage());
+            accoda(operazione);
+            return true;
         }
-        return successDB;
+    }
+
+    /**
+     * Come {@link #caricaTuttiIToDo(Bacheca)}, ma se il database non è raggiungibile e le scritture
+     * possono essere accodate prosegue con i soli Task già caricati.
+     */
+    private void caricaTuttiIToDoSePossibile(Bacheca bacheca) {
+        try {
+            caricaTuttiIToDo(bacheca);
+        } catch (DatabaseConnectionException e) {
+            if (journal == null) {
+                throw e;
+            }
+            logger.warn("Controller: Bacheca '{}' non completata, database non raggiungibile: {}",
+                    bacheca.getTitoloDisplayName(), e.getMessage());
+        }
+    }
+
+    private boolean salvaPosizione(ToDo todo) {
+        return scriviOAccoda(todo, () -> toDoDAO.update(todo), j -> j.accoda(JournalScritture.Tipo.SPOSTA, todo));
+    }
+
+    /**
+     * Crea una copia di lavoro di un Task, su cui applicare le modifiche prima di salvarle.
+     */
+    private static ToDo copiaToDo(ToDo todo) {
+        ToDo copia = new ToDo(todo.getId(), todo.getBachecaId(), todo.getAutoreId(), todo.getTitolo(), todo.getDescrizione(),
+                todo.getUrl(), todo.getScadenza(), todo.getImmagine(), todo.getPosizione(), todo.getStato(),
+                todo.getCreazione(), todo.getColore());
+        copia.setVersione(todo.getVersione());
+        return copia;
+    }
+
+    /**
+     * Copia sul Task di destinazione i campi modificabili e la versione del Task di origine.
+     */
+    private static void copiaCampiModificabili(ToDo origine, ToDo destinazione) {
+        destinazione.setTitolo(origine.getTitolo());
+        destinazione.setDescrizione(origine.getDescrizione());
+        destinazione.setScadenza(origine.getScadenza());
+        destinazione.setStato(origine.getStato());
+        destinazione.setColore(origine.getColore());
+        destinazione.setUrl(origine.getUrl());
+        destinazione.setImmagine(origine.getImmagine());
+        destinazione.setVersione(origine.getVersione());
     }
 
     private boolean aggiornaTitolo(ToDo todo, String nuovoTitolo, boolean isAutore) {
@@ -669,7 +1564,8 @@ public class Controller {
     }
 
     private boolean eliminaToDoComeAutore(ToDo todoDaEliminare) {
-        boolean successDB = toDoDAO.delete(todoDaEliminare.getId());
+        boolean successDB = scriviOAccoda(todoDaEliminare, () -> toDoDAO.delete(todoDaEliminare.getId()),
+                j -> j.accoda(JournalScritture.Tipo.ELIMINA, todoDaEliminare));
         if (successDB) {
             for (Bacheca b : utenteCorrente.getBacheche()) {
                 b.eliminaToDo(todoDaEliminare);
@@ -683,7 +1579,9 @@ public class Controller {
     }
 
     private boolean revocaCondivisioneToDo(ToDo todoDaEliminare) {
-        boolean successRevoca = toDoDAO.removeCondivisione(todoDaEliminare, utenteCorrente);
+        Utente utente = utenteCorrente;
+        boolean successRevoca = scriviOAccoda(todoDaEliminare, () -> toDoDAO.removeCondivisione(todoDaEliminare, utente),
+                j -> j.accodaCondivisione(JournalScritture.Tipo.REVOCA, todoDaEliminare, utente, null));
         if (successRevoca) {
             for (Bacheca b : utenteCorrente.getBacheche()) {
                 b.eliminaToDo(todoDaEliminare);
@@ -729,6 +1627,7 @@ public class Controller {
                 finalToDos.sort((t1, t2) -> Integer.compare(t1.getPosizione(), t2.getPosizione()));
 
                 bacheca.setTodos(finalToDos);
+                bacheca.setCaricamentoCompleto(true);
 
                 return finalToDos;
             }
@@ -739,8 +1638,34 @@ public class Controller {
     }
 
     /**
-     * Restituisce tutti i Task dell'utente corrente.
-     * @return Lista di tutti i Task
+     * Restituisce un Task visibile all'utente corrente: di cui è autore o che è condiviso con lui.
+     * Se il Task appartiene a una bacheca dell'utente, la bacheca viene caricata per intero e viene
+     * restituita l'istanza del modello, su cui possono lavorare spostamenti e riordini.
+     * @param todoId ID del Task
+     * @return Task trovato, oppure Optional vuoto se non esiste o non è visibile all'utente
+     */
+    public Optional<ToDo> trovaToDoVisibile(int todoId) {
+        if (!isUserLoggedIn()) return Optional.empty();
+        ToDo caricato = trovaToDoCaricato(todoId);
+        if (caricato != null) return Optional.of(caricato);
+        Optional<ToDo> lettoOpt = toDoDAO.findById(todoId);
+        if (lettoOpt.isEmpty()) return Optional.empty();
+        ToDo letto = lettoOpt.get();
+        if (letto.getAutoreId() == utenteCorrente.getId()) {
+            Optional<Bacheca> bacheca = trovaBachecaPerId(letto.getBachecaId(), utenteCorrente.getBacheche());
+            if (bacheca.isPresent()) {
+                caricaTuttiIToDo(bacheca.get());
+                caricato = trovaToDoCaricato(todoId);
+            }
+            return Optional.of(caricato != null ? caricato : letto);
+        }
+        return letto.getUtentiConAccessoCondiviso().contains(utenteCorrente) ? Optional.of(letto) : Optional.empty();
+    }
+
+    /**
+     * Restituisce tutti i Task dell'utente corrente già caricati in memoria.
+     * Per le bacheche caricate a pagine include solo le pagine già lette.
+     * @return Lista dei Task caricati
      */
     public List<ToDo> getAllToDosUtenteCorrente() {
         if (!isUserLoggedIn()) return Collections.emptyList();
@@ -783,7 +1708,9 @@ public class Controller {
                 logger.error("Controller: Bacheche di origine o destinazione non persistite (ID=0).");
                 return false;
             }
+            caricaTuttiIToDoSePossibile(bDestinazione);
             if (bOrigine.getTodos().contains(todoDaSpostare)) {
+                caricaTuttiIToDoSePossibile(bOrigine);
                 return aggiornaSpostamentoToDo(todoDaSpostare, bOrigine, bDestinazione, origineEnum, destinazioneEnum);
             } else {
                 logger.info("Controller: ToDo '{}' non trovato nella bacheca di origine '{}'.", todoDaSpostare.getTitolo(), origineEnum.getDisplayName());
@@ -798,7 +1725,7 @@ public class Controller {
     private boolean aggiornaSpostamentoToDo(ToDo todoDaSpostare, Bacheca bOrigine, Bacheca bDestinazione, TitoloBacheca origineEnum, TitoloBacheca destinazioneEnum) {
         todoDaSpostare.setBachecaId(bDestinazione.getId());
         todoDaSpostare.setPosizione(bDestinazione.getTodos().size());
-        boolean successDB = toDoDAO.update(todoDaSpostare);
+        boolean successDB = salvaPosizione(todoDaSpostare);
         if (successDB) {
             bOrigine.eliminaToDo(todoDaSpostare);
             bDestinazione.aggiungiToDo(todoDaSpostare);
@@ -816,7 +1743,7 @@ public class Controller {
             ToDo t = bacheca.getTodos().get(i);
             if (t.getPosizione() != i) {
                 t.setPosizione(i);
-                if (!toDoDAO.update(t)) {
+                if (!salvaPosizione(t)) {
                     logger.error("Controller: Fallito aggiornamento posizione per ToDo ID {}. Ripristino manuale necessario.", t.getId());
                 }
             }
@@ -874,6 +1801,7 @@ public class Controller {
             Optional<Bacheca> bachecaOpt = utenteCorrente.getBachecaByTitolo(bachecaEnum);
             if (bachecaOpt.isPresent()) {
                 Bacheca bacheca = bachecaOpt.get();
+                caricaTuttiIToDoSePossibile(bacheca);
                 if (!bacheca.getTodos().contains(todo)) {
                     logger.error("Controller: Il ToDo specificato non si trova nella bacheca '{}'.", nomeBachecaDisplay);
                     return false;
@@ -894,7 +1822,7 @@ public class Controller {
                 ToDo t = todosOrdinati.get(i);
                 if (t.getPosizione() != i) {
                     t.setPosizione(i);
-                    if (!toDoDAO.update(t)) {
+                    if (!salvaPosizione(t)) {
                         allUpdated = false;
                         logger.error("Controller: Fallito aggiornamento posizione per ToDo ID {}. Ripristino manuale necessario.", t.getId());
                     }
@@ -910,6 +1838,9 @@ public class Controller {
 
     /**
      * Condivide un Task con un altro utente su una bacheca specifica.
+     * Ricerca del destinatario, verifica della bacheca e inserimento avvengono con un'unica istruzione;
+     * solo se la scrittura va accodata al journal, o se il database non è raggiungibile, si usa la catena
+     * di query separate, che accoda la condivisione al journal.
      * @param toDoDaCondividere Task da condividere
      * @param usernameDestinatario Username del destinatario
      * @param nomeBachecaDestinazioneDisplay Nome visualizzato della bacheca di destinazione
@@ -924,68 +1855,120 @@ public class Controller {
             logger.error("Controller: Solo l'autore può condividere questo ToDo.");
             return false;
         }
-
-        Optional<Utente> utenteTargetOpt = utenteDAO.findByUsername(usernameDestinatario);
-        if (utenteTargetOpt.isEmpty()) {
-            logger.error("Controller: Utente destinatario '{}' non trovato.", usernameDestinatario);
+        if (utenteCorrente.getUsername().equals(usernameDestinatario)) {
+            logger.info("Controller: Tentativo di condivisione con se stesso per l'utente '{}'.", usernameDestinatario);
             return false;
         }
-        Utente utenteTarget = utenteTargetOpt.get();
-        if (utenteTarget.getId() == utenteCorrente.getId()) {
-            logger.info("Controller: Tentativo di condivisione con se stesso per l'utente '{}'.", utenteTarget.getUsername());
+
+        TitoloBacheca bachecaTargetEnum;
+        try {
+            bachecaTargetEnum = TitoloBacheca.fromDisplayName(nomeBachecaDestinazioneDisplay);
+        } catch (IllegalArgumentException ignored) {
+            logger.error("Controller: Nome bacheca destinazione non valido per condivisione: '{}' {}", nomeBachecaDestinazioneDisplay, ignored.getMessage());
             return false;
         }
+        if (scritturaInCoda(toDoDaCondividere)) {
+            return condividiToDoInCoda(toDoDaCondividere, usernameDestinatario, bachecaTargetEnum);
+        }
 
+        ToDoDAO.RisultatoCondivisione risultato;
         try {
-            TitoloBacheca bachecaTargetEnum = TitoloBacheca.fromDisplayName(nomeBachecaDestinazioneDisplay);
-
-            // Verifica se la bacheca di destinazione esiste per l'utente target
-            List<Bacheca> bachecheTarget = bachecaDAO.findByUtenteId(utenteTarget.getId());
-            boolean bachecaEsiste = bachecheTarget.stream()
-                    .anyMatch(b -> b.getTitoloEnum() == bachecaTargetEnum);
-
-            if (!bachecaEsiste) {
-                logger.error("Controller: Bacheca '{}' non esiste per l'utente '{}'. Impossibile condividere il ToDo.",
-                        bachecaTargetEnum.getDisplayName(), utenteTarget.getUsername());
-                return false;
+            risultato = toDoDAO.condividiConUsername(toDoDaCondividere.getId(), usernameDestinatario, bachecaTargetEnum);
+        } catch (DatabaseConnectionException e) {
+            if (journal == null) {
+                throw e;
             }
-
-            if (toDoDAO.getUtentiCondivisione(toDoDaCondividere).contains(utenteTarget)) {
-                logger.info("Controller: ToDo '{}' è già condiviso con '{}'.", toDoDaCondividere.getTitolo(), utenteTarget.getUsername());
+            logger.warn("Controller: Database non raggiungibile, condivisione accodata in locale: {}", e.getMessage());
+            return condividiToDoInCoda(toDoDaCondividere, usernameDestinatario, bachecaTargetEnum);
+        }
+        if (risultato.destinatario() != null && risultato.bachecaDestinazioneId() != null) {
+            destinazioniNote.put(chiaveDestinazione(usernameDestinatario, bachecaTargetEnum),
+                    new DestinazioneCondivisione(risultato.destinatario(), risultato.bachecaDestinazioneId()));
+        }
+        switch (risultato.esito()) {
+            case UTENTE_NON_TROVATO -> logger.error("Controller: Utente destinatario '{}' non trovato.", usernameDestinatario);
+            case AUTORE -> logger.info("Controller: Tentativo di condivisione con se stesso per l'utente '{}'.", usernameDestinatario);
+            case BACHECA_NON_TROVATA -> logger.error("Controller: Bacheca '{}' non esiste per l'utente '{}'. Impossibile condividere il ToDo.",
+                    bachecaTargetEnum.getDisplayName(), usernameDestinatario);
+            case TASK_NON_TROVATO -> logger.error("Controller: ToDo '{}' non più presente nel DB, impossibile condividerlo.", toDoDaCondividere.getTitolo());
+            case GIA_CONDIVISO -> {
+                toDoDaCondividere.aggiungiUtenteCondiviso(risultato.destinatario());
+                logger.info("Controller: ToDo '{}' è già condiviso con '{}'.", toDoDaCondividere.getTitolo(), usernameDestinatario);
+                return true;
+            }
+            case CONDIVISO -> {
+                toDoDaCondividere.aggiungiUtenteCondiviso(risultato.destinatario());
+                logger.info("Controller: ToDo '{}' condiviso con successo con '{}' sulla bacheca corrispondente '{}'.", toDoDaCondividere.getTitolo(), usernameDestinatario, bachecaTargetEnum.getDisplayName());
                 return true;
             }
+        }
+        return false;
+    }
 
-            // Trova la bacheca di destinazione per l'utente target
-            Optional<Bacheca> bachecaDestinazioneOpt = bachecheTarget.stream()
-                    .filter(b -> b.getTitoloEnum() == bachecaTargetEnum)
-                    .findFirst();
+    /**
+     * Condivisione con query separate, per quando la scrittura va accodata al journal dietro le operazioni in attesa
+     * o il database non è raggiungibile. In quest'ultimo caso destinatario e bacheca vengono presi dalle condivisioni
+     * già risolte in questa sessione; se non sono noti la condivisione fallisce.
+     */
+    private boolean condividiToDoInCoda(ToDo toDoDaCondividere, String usernameDestinatario, TitoloBacheca bachecaTargetEnum) {
+        String chiave = chiaveDestinazione(usernameDestinatario, bachecaTargetEnum);
+        DestinazioneCondivisione destinazione;
+        try {
+            Optional<Utente> utenteTargetOpt = utenteDAO.findRefByUsername(usernameDestinatario).map(UtenteRef::utente);
+            if (utenteTargetOpt.isEmpty()) {
+                logger.error("Controller: Utente destinatario '{}' non trovato.", usernameDestinatario);
+                return false;
+            }
+            Utente utenteTarget = utenteTargetOpt.get();
+            if (utenteTarget.getId() == utenteCorrente.getId()) {
+                logger.info("Controller: Tentativo di condivisione con se stesso per l'utente '{}'.", utenteTarget.getUsername());
+                return false;
+            }
 
+            Optional<Bacheca> bachecaDestinazioneOpt = bachecaDAO.findByUtenteIdAndTitolo(utenteTarget.getId(), bachecaTargetEnum);
             if (bachecaDestinazioneOpt.isEmpty()) {
-                logger.error("Controller: Bacheca di destinazione non trovata per l'utente '{}'.", utenteTarget.getUsername());
+                logger.error("Controller: Bacheca '{}' non esiste per l'utente '{}'. Impossibile condividere il ToDo.",
+                        bachecaTargetEnum.getDisplayName(), utenteTarget.getUsername());
                 return false;
             }
-
-            Integer bachecaDestinazioneId = bachecaDestinazioneOpt.get().getId();
-            boolean condivisioneSuccess = toDoDAO.addCondivisione(toDoDaCondividere, utenteTarget, bachecaDestinazioneId);
-            if (!condivisioneSuccess) {
-                logger.error("Controller: Fallimento aggiunta relazione di condivisione nel DB.");
+            destinazione = new DestinazioneCondivisione(utenteTarget, bachecaDestinazioneOpt.get().getId());
+            destinazioniNote.put(chiave, destinazione);
+        } catch (DatabaseConnectionException e) {
+            if (journal == null) {
+                throw e;
+            }
+            destinazione = destinazioniNote.get(chiave);
+            if (destinazione == null) {
+                logger.error("Controller: Database non raggiungibile e bacheca '{}' dell'utente '{}' non nota in locale. Impossibile condividere il ToDo.",
+                        bachecaTargetEnum.getDisplayName(), usernameDestinatario);
                 return false;
             }
+        }
 
-            toDoDaCondividere.aggiungiUtenteCondiviso(utenteTarget);
-
-            logger.info("Controller: ToDo '{}' condiviso con successo con '{}' sulla bacheca corrispondente '{}'.", toDoDaCondividere.getTitolo(), utenteTarget.getUsername(), bachecaTargetEnum.getDisplayName());
-            return true;
-
-        } catch (IllegalArgumentException ignored) {
-            logger.error("Controller: Nome bacheca destinazione non valido per condivisione: '{}' {}", nomeBachecaDestinazioneDisplay, ignored.getMessage());
+        Utente utenteTarget = destinazione.destinatario();
+        Integer bachecaDestinazioneId = destinazione.bachecaId();
+        boolean condivisioneSuccess = scriviOAccoda(toDoDaCondividere,
+                () -> toDoDAO.addCondivisione(toDoDaCondividere, utenteTarget, bachecaDestinazioneId),
+                j -> j.accodaCondivisione(JournalScritture.Tipo.CONDIVIDI, toDoDaCondividere, utenteTarget, bachecaDestinazioneId));
+        if (!condivisioneSuccess) {
+            logger.error("Controller: Fallimento aggiunta relazione di condivisione nel DB.");
             return false;
         }
+
+        toDoDaCondividere.aggiungiUtenteCondiviso(utenteTarget);
+        logger.info("Controller: ToDo '{}' condiviso con successo con '{}' sulla bacheca corrispondente '{}'.", toDoDaCondividere.getTitolo(), utenteTarget.getUsername(), bachecaTargetEnum.getDisplayName());
+        return true;
     }
 
 
+    private static String chiaveDestinazione(String username, TitoloBacheca titolo) {
+        return username + '\u0000' + titolo.name();
+    }
+
     /**
-     * Revoca la condivisione di un Task per un utente specifico.
+     * Revoca la condivisione di un Task per un utente specifico, con un'unica istruzione sul database. Se ci sono
+     * operazioni in attesa, il Task non ha ancora un ID del database o il database non è raggiungibile, la revoca
+     * viene accodata al journal come le altre scritture.
      * @param toDoCondiviso Task condiviso
      * @param usernameTarget Username dell'utente a cui revocare la condivisione
      * @return true se la revoca ha successo, false altrimenti
@@ -999,45 +1982,741 @@ public class Controller {
             logger.error("Controller: Solo l'autore può revocare la condivisione di questo ToDo.");
             return false;
         }
-
-        Optional<Utente> utenteTargetOpt = utenteDAO.findByUsername(usernameTarget);
-        if (utenteTargetOpt.isEmpty()) {
-            logger.error("Controller: Utente target '{}' non trovato per revoca.", usernameTarget);
-            return false;
+        if (scritturaInCoda(toDoCondiviso)) {
+            return revocaCondivisioneInCoda(toDoCondiviso, usernameTarget);
         }
-        Utente utenteTarget = utenteTargetOpt.get();
 
-        boolean successRevoca = toDoDAO.removeCondivisione(toDoCondiviso, utenteTarget);
-        if (successRevoca) {
-            toDoCondiviso.rimuoviUtenteCondiviso(utenteTarget);
+        Optional<Utente> utenteRimosso;
+        try {
+            utenteRimosso = toDoDAO.removeCondivisioneByUsername(toDoCondiviso.getId(), usernameTarget);
+        } catch (DatabaseConnectionException e) {
+            if (journal == null) {
+                throw e;
+            }
+            logger.warn("Controller: Database non raggiungibile, revoca accodata in locale: {}", e.getMessage());
+            return revocaCondivisioneInCoda(toDoCondiviso, usernameTarget);
+        }
+        if (utenteRimosso.isPresent()) {
+            toDoCondiviso.rimuoviUtenteCondiviso(utenteRimosso.get());
 
-            logger.info("Controller: Condivisione del ToDo '{}' revocata per l'utente '{}'.", toDoCondiviso.getTitolo(), utenteTarget.getUsername());
+            logger.info("Controller: Condivisione del ToDo '{}' revocata per l'utente '{}'.", toDoCondiviso.getTitolo(), usernameTarget);
             return true;
         } else {
-            logger.error("Controller: Fallimento revoca condivisione dal DB. Il ToDo potrebbe non essere stato condiviso con questo utente.");
+            logger.error("Controller: Fallimento revoca condivisione dal DB. L'utente '{}' non esiste o il ToDo non era condiviso con lui.", usernameTarget);
             return false;
         }
     }
 
+    /**
+     * Revoca accodata al journal dietro le operazioni in attesa, o per quando il database non è raggiungibile.
+     * L'utente viene preso dalle condivisioni del Task già caricate, così la revoca non richiede query.
+     */
+    private boolean revocaCondivisioneInCoda(ToDo toDoCondiviso, String usernameTarget) {
+        Optional<Utente> utenteTargetOpt = toDoCondiviso.getUtentiConAccessoCondiviso().stream()
+                .filter(u -> u.getUsername().equals(usernameTarget))
+                .findFirst();
+        if (utenteTargetOpt.isEmpty()) {
+            logger.error("Controller: Il ToDo '{}' non risulta condiviso con l'utente '{}'. Impossibile revocare la condivisione.",
+                    toDoCondiviso.getTitolo(), usernameTarget);
+            return false;
+        }
+        Utente utenteTarget = utenteTargetOpt.get();
+        boolean revocaSuccess = scriviOAccoda(toDoCondiviso, () -> toDoDAO.removeCondivisione(toDoCondiviso, utenteTarget),
+                j -> j.accodaCondivisione(JournalScritture.Tipo.REVOCA, toDoCondiviso, utenteTarget, null));
+        if (!revocaSuccess) {
+            logger.error("Controller: Fallimento rimozione relazione di condivisione nel DB.");
+            return false;
+        }
+
+        toDoCondiviso.rimuoviUtenteCondiviso(utenteTarget);
+        logger.info("Controller: Condivisione del ToDo '{}' revocata per l'utente '{}'.", toDoCondiviso.getTitolo(), usernameTarget);
+        return true;
+    }
+
 
     /**
      * Ricerca Task dell'utente corrente in base a una stringa di ricerca.
+     * Le pagine non ancora caricate delle bacheche vengono cercate nell'archivio colonnare dei Task non caricati.
      * @param searchTerm Termine di ricerca
      * @return Lista di Task che corrispondono alla ricerca
      */
     public List<ToDo> ricercaToDo(String searchTerm) {
         if (!isUserLoggedIn()) return Collections.emptyList();
-        return utenteCorrente.ricercaToDo(searchTerm);
+        String term = searchTerm == null ? "" : searchTerm.trim().toLowerCase();
+        Predicate<ToDo> corrisponde = term.isEmpty() ? _ -> true
+                : todo -> (todo.getTitolo() != null && todo.getTitolo().toLowerCase().contains(term))
+                        || (todo.getDescrizione() != null && todo.getDescrizione().toLowerCase().contains(term));
+        List<ToDo> risultati = new ArrayList<>(utenteCorrente.ricercaToDo(searchTerm));
+        risultati.addAll(filtraToDoNonCaricati(archivio -> archivio.cerca(term), corrisponde));
+        return risultati.stream().distinct().toList();
     }
 
     /**
      * Restituisce i Task in scadenza fino a una certa data.
+     * Le pagine non ancora caricate delle bacheche vengono cercate nell'archivio colonnare dei Task non caricati.
      * @param finoA Data limite
      * @return Lista di Task in scadenza
      */
     public List<ToDo> toDoInScadenza(LocalDate finoA) {
         if (!isUserLoggedIn()) return Collections.emptyList();
-        return utenteCorrente.toDoInScadenza(finoA);
+        LocalDate oggi = LocalDate.now();
+        LocalDate limite = finoA != null ? finoA : oggi.plusDays(7);
+        List<ToDo> risultati = new ArrayList<>(utenteCorrente.toDoInScadenza(finoA));
+        risultati.addAll(filtraToDoNonCaricati(archivio -> archivio.inScadenza(oggi, limite), todo -> todo.getScadenza() != null
+                && !todo.getScadenza().isBefore(oggi) && !todo.getScadenza().isAfter(limite)
+                && todo.getStato() == StatoToDo.NON_COMPLETATO));
+        return risultati.stream().distinct().sorted(Comparator.comparing(ToDo::getScadenza)).toList();
+    }
+
+    /**
+     * Esporta bacheche, Task e immagini dell'utente corrente in un archivio.
+     * L'archivio viene scritto in un file temporaneo e spostato sul file indicato solo a esportazione riuscita.
+     * Non modifica il modello, quindi può essere eseguito fuori dall'EDT.
+     * @param file File di destinazione
+     * @return true se l'esportazione ha successo, false altrimenti
+     */
+    public boolean esportaWorkspace(Path file) {
+        if (!isUserLoggedIn() || file == null) return false;
+        Path parziale = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(parziale))) {
+                workspaceDAO.esporta(utenteCorrente.getId(), out);
+            }
+            Files.move(parziale, file, StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Controller: Workspace di '{}' esportato in {}", utenteCorrente.getUsername(), file);
+            return true;
+        } catch (IOException | DatabaseConnectionException e) {
+            logger.error("Controller: Esportazione workspace fallita: {}", e.getMessage());
+            try {
+                Files.deleteIfExists(parziale);
+            } catch (IOException _) {
+                // il file parziale resta su disco, verrà sovrascritto al prossimo tentativo
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Importa un archivio esportato con {@link #esportaWorkspace(Path)} nel workspace dell'utente corrente.
+     * Non ricarica il modello: al termine va chiamato {@link #loadFullUtenteCorrente()} dal thread dell'interfaccia.
+     * @param file Archivio da importare
+     * @return Optional con l'esito dell'importazione, vuoto se fallisce
+     */
+    public Optional<WorkspaceDAO.RisultatoImportazione> importaWorkspace(Path file) {
+        if (!isUserLoggedIn() || file == null) return Optional.empty();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            WorkspaceDAO.RisultatoImportazione risultato = workspaceDAO.importa(utenteCorrente.getId(), in);
+            logger.info("Controller: Workspace importato da {} per '{}': {}", file, utenteCorrente.getUsername(), risultato);
+            return Optional.of(risultato);
+        } catch (IOException | DatabaseConnectionException e) {
+            logger.error("Controller: Importazione workspace fallita: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Legge in background le modifiche avvenute dall'ultima sincronizzazione (o dal caricamento completo):
+     * solo le righe cambiate e le eliminazioni, quindi il costo dipende dal numero di modifiche e non
+     * dalla dimensione del workspace. Prima della lettura vengono inviate le modifiche in sospeso nel journal.
+     * Va chiamato dal thread che possiede il modello e il risultato va applicato con
+     * {@link #applicaDelta(DeltaModifiche)} dallo stesso thread.
+     * @return Future con le modifiche lette, oppure con null se nessun utente è loggato
+     */
+    public CompletableFuture<DeltaModifiche> leggiDeltaAsync() {
+        if (!isUserLoggedIn()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int utenteId = utenteCorrente.getId();
+        long daVersione = versioneSincronizzazione;
+        StatoCaricamento caricati = statoCaricamento();
+        return CompletableFuture.supplyAsync(() -> leggiDelta(utenteId, daVersione, caricati), caricamentoPagine);
+    }
+
+    /**
+     * Invia le modifiche in sospeso e legge quelle avvenute dalla versione indicata. I Task che la paginazione
+     * delle bacheche non ha ancora raggiunto vengono scartati e le immagini lette solo per quelli che entrano nel
+     * modello o sono cambiati dopo la versione caricata. Se il database ha già cancellato eliminazioni successive
+     * alla versione indicata, il workspace viene riletto per intero.
+     * Non modifica il modello, quindi può essere eseguito fuori dall'EDT.
+     * @param caricati Stato del modello copiato con {@link #statoCaricamento()}
+     */
+    private DeltaModifiche leggiDelta(int utenteId, long daVersione, StatoCaricamento caricati) {
+        int conflitti = inviaScrittureInSospeso();
+        long versione = modificheDAO.versioneCorrente();
+        List<ModificheDAO.Eliminazione> eliminazioni = modificheDAO.findEliminazioniDa(utenteId, daVersione);
+        long orizzonte = modificheDAO.orizzonteEliminazioni();
+        if (orizzonte != 0 && daVersione <= orizzonte) {
+            logger.info("Controller: Eliminazioni successive alla versione {} già cancellate, il workspace viene ricaricato.", daVersione);
+            return new DeltaModifiche(daVersione, versione, List.of(), List.of(), List.of(), conflitti,
+                    leggiWorkspaceCompleto(utenteId));
+        }
+        List<Bacheca> bacheche = bachecaDAO.findModificateDa(utenteId, daVersione);
+        List<ToDo> todos = toDoDAO.findModificatiDa(utenteId, daVersione);
+        todos.removeIf(caricati::isNonRaggiunto);
+        List<Integer> conImmagine = todos.stream().filter(caricati::richiedeImmagine).map(ToDo::getId).toList();
+        if (!conImmagine.isEmpty()) {
+            Map<Integer, Image> immagini = toDoDAO.findImmaginiByIds(conImmagine);
+            for (ToDo todo : todos) {
+                if (caricati.richiedeImmagine(todo)) {
+                    todo.setImmagine(immagini.get(todo.getId()));
+                }
+            }
+        }
+        return new DeltaModifiche(daVersione, versione, bacheche, todos, eliminazioni, conflitti, null);
+    }
+
+    /**
+     * Copia le versioni dei Task caricati e i cursori delle bacheche lette a pagine.
+     * Va chiamato dal thread che possiede il modello.
+     */
+    private StatoCaricamento statoCaricamento() {
+        Map<Integer, Integer> versioni = new HashMap<>();
+        Map<Integer, int[]> cursori = new HashMap<>();
+        for (Bacheca bacheca : utenteCorrente.getBacheche()) {
+            if (!bacheca.isCaricamentoCompleto()) {
+                cursori.put(bacheca.getId(), new int[] {bacheca.getCursorePosizione(), bacheca.getCursoreId()});
+            }
+            for (ToDo todo : bacheca.getTodos()) {
+                versioni.put(todo.getId(), todo.getVersione());
+            }
+        }
+        return new StatoCaricamento(versioni, cursori);
+    }
+
+    /**
+     * Invia al database le operazioni accumulate nel journal, unite in poche chiamate: un inserimento in blocco
+     * per i Task creati, batch di UPDATE con controllo di versione, le condivisioni e un'unica DELETE.
+     * Le modifiche a Task cambiati da altri nel frattempo vengono scartate (vince la versione del database)
+     * e contate come conflitti; il modello viene riallineato dalla sincronizzazione incrementale successiva.
+     * L'invio usa una connessione dedicata: le sue transazioni non si mescolano con le operazioni che gli altri
+     * thread eseguono nello stesso momento sulla connessione condivisa.
+     * @return Numero di modifiche scartate per conflitto
+     * @throws DatabaseConnectionException se il database non è ancora raggiungibile (le operazioni restano nel journal)
+     * @throws UncheckedIOException se il journal non può essere aggiornato
+     */
+    private int inviaScrittureInSospeso() {
+        JournalScritture j = journal;
+        if (j == null || j.isVuoto()) {
+            return 0;
+        }
+        synchronized (invioJournal) {
+            JournalScritture.Lotto lotto = j.inSospeso();
+            if (lotto.isVuoto()) {
+                return 0;
+            }
+            j.sincronizzaSuDisco();
+            archivioNonCaricati = null;
+            try (Connection dedicata = ConnessioneDatabase.apriConnessioneDedicata()) {
+                ToDoDAO dao = DaoMetrics.strumenta(ToDoDAO.class, new ToDoPostgresDAOImpl(dedicata), "todo");
+                Map<Integer, Integer> idAssegnati = inviaCreazioni(dao, lotto.daCreare());
+                j.registraIdAssegnati(idAssegnati);
+                Map<Integer, Integer> nuoveVersioni = new HashMap<>();
+                int conflitti = inviaAggiornamenti(dao, lotto.daAggiornare(), nuoveVersioni);
+                for (JournalScritture.Operazione condivisione : lotto.condivisioni()) {
+                    ToDo todo = condivisione.todo();
+                    todo.setId(idAssegnati.getOrDefault(todo.getId(), todo.getId()));
+                    if (condivisione.tipo() == JournalScritture.Tipo.CONDIVIDI) {
+                        dao.addCondivisione(todo, condivisione.utente(), condivisione.bachecaDestinazioneId());
+                    } else {
+                        dao.removeCondivisione(todo, condivisione.utente());
+                    }
+                }
+                dao.deleteAll(lotto.daEliminare());
+                j.conferma(lotto.finoASequenza(), nuoveVersioni);
+                logger.info("Controller: Inviate {} operazioni in sospeso in {} creazioni, {} aggiornamenti ({} in conflitto), "
+                                + "{} condivisioni e {} eliminazioni.", lotto.operazioni(), lotto.daCreare().size(),
+                        lotto.daAggiornare().size(), conflitti, lotto.condivisioni().size(), lotto.daEliminare().size());
+                return conflitti;
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Connessione per l'invio delle operazioni in sospeso non disponibile", e);
+            } catch (IOException e) {
+                logger.error("Controller: Aggiornamento del journal delle modifiche fallito: {}", e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Inserisce in blocco i Task creati offline.
+     * @param dao DAO sulla connessione dedicata all'invio
+     * @return ID assegnato dal database per ID temporaneo
+     */
+    private Map<Integer, Integer> inviaCreazioni(ToDoDAO dao, List<ToDo> daCreare) {
+        if (daCreare.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Integer> temporanei = daCreare.stream().map(ToDo::getId).toList();
+        if (!dao.saveAll(daCreare)) {
+            throw new DatabaseConnectionException("Salvataggio dei ToDo creati offline fallito", null);
+        }
+        Map<Integer, Integer> idAssegnati = new HashMap<>();
+        for (int i = 0; i < temporanei.size(); i++) {
+            idAssegnati.put(temporanei.get(i), daCreare.get(i).getId());
+        }
+        return idAssegnati;
+    }
+
+    /**
+     * Invia gli aggiornamenti a batch con controllo di versione.
+     * @param dao DAO sulla connessione dedicata all'invio
+     * @param nuoveVersioni Riceve la versione sul database dei Task aggiornati
+     * @return Numero di aggiornamenti scartati per conflitto
+     */
+    private int inviaAggiornamenti(ToDoDAO dao, List<ToDo> daAggiornare, Map<Integer, Integer> nuoveVersioni) {
+        int conflitti = 0;
+        for (int inizio = 0; inizio < daAggiornare.size(); inizio += DIMENSIONE_LOTTO_JOURNAL) {
+            List<ToDo> batch = daAggiornare.subList(inizio, Math.min(inizio + DIMENSIONE_LOTTO_JOURNAL, daAggiornare.size()));
+            List<ToDoDAO.EsitoAggiornamento> esiti = dao.updateTuttiSeVersione(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                ToDo todo = batch.get(i);
+                switch (esiti.get(i)) {
+                    case AGGIORNATO -> nuoveVersioni.put(todo.getId(), todo.getVersione());
+                    case CONFLITTO -> {
+                        conflitti++;
+                        logger.warn("Controller: Modifica offline al ToDo '{}' scartata: modificato da un altro utente.", todo.getTitolo());
+                    }
+                    default -> logger.warn("Controller: Modifica offline al ToDo ID {} scartata: ToDo eliminato.", todo.getId());
+                }
+            }
+        }
+        return conflitti;
+    }
+
+    /**
+     * Applica al modello le modifiche lette con {@link #leggiDeltaAsync()}: prima le eliminazioni,
+     * poi le bacheche e infine i Task. Le modifiche vengono scartate se nel frattempo il modello
+     * è stato ricaricato o sincronizzato.
+     * @param delta Modifiche da applicare (può essere null)
+     * @return Bacheche interessate dalle modifiche
+     */
+    public EsitoSincronizzazione applicaDelta(DeltaModifiche delta) {
+        if (!isUserLoggedIn() || delta == null || delta.daVersione() != versioneSincronizzazione) {
+            return new EsitoSincronizzazione(Collections.emptySet(), false, 0);
+        }
+        archivioNonCaricati = null;
+        if (delta.workspaceCompleto() != null) {
+            return applicaWorkspaceCompleto(delta);
+        }
+        Set<String> modificate = new HashSet<>();
+        boolean bachecheCambiate = false;
+        riconciliaToDoCreatiOffline(modificate);
+        for (ModificheDAO.Eliminazione eliminazione : delta.eliminazioni()) {
+            bachecheCambiate |= applicaEliminazione(eliminazione, modificate);
+        }
+        for (Bacheca letta : delta.bacheche()) {
+            Optional<Bacheca> esistente = trovaBachecaPerId(letta.getId(), utenteCorrente.getBacheche());
+            if (esistente.isPresent()) {
+                if (!Objects.equals(esistente.get().getDescrizione(), letta.getDescrizione())) {
+                    esistente.get().setDescrizione(letta.getDescrizione());
+                    bachecheCambiate = true;
+                }
+            } else {
+                // Bacheca creata altrove: i suoi Task vengono letti a pagine come al caricamento
+                letta.iniziaPaginazione();
+                bachecheCambiate |= utenteCorrente.aggiungiBachecaCaricata(letta);
+            }
+        }
+        for (ToDo letto : delta.todos()) {
+            if (letto.getImmagine() == null) {
+                // Letto senza immagine perché non è cambiato dalla versione caricata
+                ToDo presente = trovaToDoCaricato(letto.getId());
+                if (presente != null && presente.getVersione() >= letto.getVersione()) {
+                    letto.setImmagine(presente.getImmagine());
+                }
+            }
+            applicaToDoModificato(letto.getId(), Optional.of(letto), letto.getBachecaDestinazioneId(), modificate);
+        }
+        versioneSincronizzazione = delta.versione();
+        logger.debug("Controller: Sincronizzazione incrementale: {} bacheche, {} ToDo, {} eliminazioni.",
+                delta.bacheche().size(), delta.todos().size(), delta.eliminazioni().size());
+        return new EsitoSincronizzazione(modificate, bachecheCambiate, delta.scrittureInConflitto());
+    }
+
+    /**
+     * Sostituisce le bacheche del modello con quelle rilette per intero e riapplica le operazioni rimaste nel journal.
+     * @return Esito con tutte le bacheche modificate
+     */
+    private EsitoSincronizzazione applicaWorkspaceCompleto(DeltaModifiche delta) {
+        utenteCorrente.setBacheche(delta.workspaceCompleto());
+        applicaOperazioniInSospeso();
+        versioneSincronizzazione = delta.versione();
+        Set<String> modificate = new HashSet<>();
+        for (Bacheca bacheca : delta.workspaceCompleto()) {
+            modificate.add(bacheca.getTitoloDisplayName());
+        }
+        return new EsitoSincronizzazione(modificate, true, delta.scrittureInConflitto());
+    }
+
+    /**
+     * Applica al modello un'eliminazione registrata dal database.
+     * @return true se è stata rimossa una bacheca
+     */
+    private boolean applicaEliminazione(ModificheDAO.Eliminazione eliminazione, Set<String> modificate) {
+        switch (eliminazione.tabella()) {
+            case ModificheDAO.Eliminazione.BACHECA -> {
+                Optional<Bacheca> bacheca = eliminazione.bachecaId() != null
+                        ? trovaBachecaPerId(eliminazione.bachecaId(), utenteCorrente.getBacheche())
+                        : Optional.empty();
+                return bacheca.isPresent() && utenteCorrente.eliminaBacheca(bacheca.get().getTitoloEnum());
+            }
+            case ModificheDAO.Eliminazione.TODO -> rimuoviToDoCaricato(eliminazione.todoId(), modificate);
+            case ModificheDAO.Eliminazione.CONDIVISIONE -> {
+                ToDo presente = trovaToDoCaricato(eliminazione.todoId());
+                if (presente == null) {
+                    return false;
+                }
+                if (eliminazione.utenteId() == utenteCorrente.getId()) {
+                    if (presente.getAutoreId() != utenteCorrente.getId()) {
+                        rimuoviToDoCaricato(eliminazione.todoId(), modificate);
+                    }
+                } else if (presente.rimuoviUtentiCondivisi(u -> u.getId() == eliminazione.utenteId())) {
+                    modificate.add(trovaBachecaConToDo(eliminazione.todoId()).getTitoloDisplayName());
+                }
+            }
+            default -> logger.warn("Controller: Eliminazione di tipo sconosciuto '{}' ignorata.", eliminazione.tabella());
+        }
+        return false;
+    }
+
+    /**
+     * Avvia la ricezione in tempo reale delle modifiche ai Task fatte da altri client
+     * (notifiche LISTEN/NOTIFY sul canale todo_modifiche).
+     * Le modifiche vengono applicate al modello in modo incrementale sul thread di {@code esecutoreModello}:
+     * i Task interessati vengono riletti in blocco in background e solo le bacheche effettivamente
+     * cambiate vengono segnalate. Le modifiche già note localmente (stessa versione) e quelle ai Task che la
+     * paginazione di una bacheca non ha ancora raggiunto vengono ignorate.
+     * @param esecutoreModello Esecutore del thread che possiede il modello (es. {@code SwingUtilities::invokeLater})
+     * @param bachecheModificate Riceve, su quel thread, l'effetto di ogni gruppo di modifiche applicato
+     */
+    public synchronized void avviaSincronizzazione(Executor esecutoreModello, Consumer<EsitoSincronizzazione> bachecheModificate) {
+        arrestaSincronizzazione();
+        if (!isUserLoggedIn()) return;
+        Utente utente = utenteCorrente;
+        ascoltatoreModifiche = AscoltatoreNotifiche.perDatabase(CANALE_MODIFICHE,
+                payload -> {
+                    List<EventoModifica> eventi = EventoModifica.daPayload(payload);
+                    if (!eventi.isEmpty()) {
+                        esecutoreModello.execute(() -> applicaEventiModifica(utente, eventi, esecutoreModello, bachecheModificate));
+                    }
+                },
+                () -> esecutoreModello.execute(() -> risincronizza(utente, esecutoreModello, bachecheModificate)));
+        ascoltatoreModifiche.avvia();
+        invioJournalPeriodico = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "todo-journal-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        invioJournalPeriodico.scheduleWithFixedDelay(() -> {
+            JournalScritture j = journal;
+            if (j == null) return;
+            try {
+                j.sincronizzaSuDisco();
+            } catch (RuntimeException e) {
+                logger.error("Controller: Scrittura su disco del journal delle modifiche fallita: {}", e.getMessage());
+            }
+            if (!j.isVuoto()) {
+                esecutoreModello.execute(() -> inviaJournal(utente, esecutoreModello, bachecheModificate));
+            }
+        }, INTERVALLO_INVIO_JOURNAL_MS, INTERVALLO_INVIO_JOURNAL_MS, TimeUnit.MILLISECONDS);
+        invioJournalPeriodico.scheduleWithFixedDelay(this::potaEliminazioni,
+                INTERVALLO_POTATURA_ELIMINAZIONI_MS, INTERVALLO_POTATURA_ELIMINAZIONI_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancella dal database le eliminazioni più vecchie del periodo di conservazione. Ogni client la esegue
+     * periodicamente: dopo la prima esecuzione le successive non trovano righe da cancellare.
+     */
+    private void potaEliminazioni() {
+        try {
+            int cancellate = modificheDAO.potaEliminazioni(CONSERVAZIONE_ELIMINAZIONI);
+            if (cancellate > 0) {
+                logger.info("Controller: Cancellate {} eliminazioni più vecchie di {} giorni.", cancellate, CONSERVAZIONE_ELIMINAZIONI.toDays());
+            }
+        } catch (DatabaseConnectionException e) {
+            logger.debug("Controller: Cancellazione delle eliminazioni scadute rimandata: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Arresta la ricezione delle modifiche in tempo reale, se attiva.
+     */
+    public synchronized void arrestaSincronizzazione() {
+        if (ascoltatoreModifiche != null) {
+            ascoltatoreModifiche.close();
+            ascoltatoreModifiche = null;
+        }
+        if (invioJournalPeriodico != null) {
+            invioJournalPeriodico.shutdownNow();
+            invioJournalPeriodico = null;
+        }
+    }
+
+    /**
+     * Invia in background le operazioni del journal e applica la sincronizzazione che segue.
+     * Con il database non raggiungibile i tentativi si diradano fino a {@link #ATTESA_MASSIMA_INVIO_JOURNAL_MS}.
+     */
+    private void inviaJournal(Utente utente, Executor esecutoreModello, Consumer<EsitoSincronizzazione> bachecheModificate) {
+        if (utenteCorrente != utente || invioJournalInCorso || System.currentTimeMillis() < prossimoInvioJournal) return;
+        invioJournalInCorso = true;
+        leggiDeltaAsync().whenComplete((delta, errore) -> esecutoreModello.execute(() -> {
+            invioJournalInCorso = false;
+            if (errore != null) {
+                attesaInvioJournalMs = Math.min(attesaInvioJournalMs * 2, ATTESA_MASSIMA_INVIO_JOURNAL_MS);
+                prossimoInvioJournal = System.currentTimeMillis() + attesaInvioJournalMs;
+                logger.debug("Controller: Invio del journal rimandato di {} ms: {}", attesaInvioJournalMs, errore.getMessage());
+                return;
+            }
+            attesaInvioJournalMs = INTERVALLO_INVIO_JOURNAL_MS;
+            prossimoInvioJournal = 0;
+            if (utenteCorrente == utente) {
+                EsitoSincronizzazione esito = applicaDelta(delta);
+                if (!esito.isVuoto()) {
+                    bachecheModificate.accept(esito);
+                }
+            }
+        }));
+    }
+
+    /**
+     * Applica un gruppo di modifiche notificate: le eliminazioni subito, il resto dopo aver riletto
+     * in background i soli Task interessati.
+     */
+    private void applicaEventiModifica(Utente utente, List<EventoModifica> eventi, Executor esecutoreModello,
+                                       Consumer<EsitoSincronizzazione> bachecheModificate) {
+        if (utenteCorrente != utente) return;
+        RiletturaModifiche piano = RiletturaModifiche.pianifica(utente, eventi);
+        Set<String> modificate = new HashSet<>();
+        for (int id : piano.daRimuovere()) {
+            rimuoviToDoCaricato(id, modificate);
+        }
+        segnalaBachecheModificate(modificate, bachecheModificate);
+        if (piano.daRileggere().isEmpty()) return;
+        int utenteId = utente.getId();
+        CompletableFuture.supplyAsync(() -> leggiToDoModificati(utenteId, piano), caricamentoPagine)
+                .whenComplete((letti, errore) -> esecutoreModello.execute(() -> {
+                    if (errore != null) {
+                        logger.warn("Controller: Lettura dei ToDo modificati fallita: {}", errore.getMessage());
+                        return;
+                    }
+                    if (utenteCorrente != utente) return;
+                    Set<String> aggiornate = new HashSet<>();
+                    letti.forEach((id, letto) -> {
+                        if (!piano.isConImmagine(id)) {
+                            letto.ifPresent(this::conservaImmagineCaricata);
+                        }
+                        applicaToDoModificato(id, letto, piano.bachecaNotificata(id), aggiornate);
+                    });
+                    segnalaBachecheModificate(aggiornate, bachecheModificate);
+                }));
+    }
+
+    /**
+     * Rilegge dal DB i Task del piano: le righe senza immagini con una query, gli utenti condivisi con una
+     * seconda e le sole immagini richieste dal piano con una terza.
+     * Non modifica il modello, quindi può essere eseguito fuori dall'EDT.
+     */
+    private Map<Integer, Optional<ToDo>> leggiToDoModificati(int utenteId, RiletturaModifiche piano) {
+        Map<Integer, ToDo> trovati = new HashMap<>();
+        for (ToDo letto : toDoDAO.findAllSenzaImmaginiByIds(utenteId, List.copyOf(piano.daRileggere()))) {
+            trovati.put(letto.getId(), letto);
+        }
+        List<Integer> conImmagine = trovati.keySet().stream().filter(piano::isConImmagine).toList();
+        if (!conImmagine.isEmpty()) {
+            Map<Integer, Image> immagini = toDoDAO.findImmaginiByIds(conImmagine);
+            for (Integer id : conImmagine) {
+                trovati.get(id).setImmagine(immagini.get(id));
+            }
+        }
+        Map<Integer, Optional<ToDo>> letti = new LinkedHashMap<>();
+        for (Integer id : piano.daRileggere()) {
+            letti.put(id, Optional.ofNullable(trovati.get(id)));
+        }
+        return letti;
+    }
+
+    /**
+     * Copia nel Task riletto senza immagine quella del Task già caricato, se presente.
+     */
+    private void conservaImmagineCaricata(ToDo letto) {
+        ToDo presente = trovaToDoCaricato(letto.getId());
+        if (presente != null) {
+            letto.setImmagine(presente.getImmagine());
+        }
+    }
+
+    /**
+     * Allinea il modello a un Task riletto dal DB: lo aggiorna sul posto, lo sposta di bacheca,
+     * lo aggiunge se è diventato visibile o lo rimuove se non lo è più.
+     */
+    private void applicaToDoModificato(int id, Optional<ToDo> lettoOpt, Integer bachecaNotificata, Set<String> modificate) {
+        Bacheca bachecaAttuale = trovaBachecaConToDo(id);
+        ToDo presente = bachecaAttuale != null ? trovaToDoCaricato(id) : null;
+        Bacheca destinazione = lettoOpt.map(letto -> bachecaPerToDoModificato(letto, bachecaAttuale, bachecaNotificata)).orElse(null);
+        if (destinazione == null) {
+            rimuoviToDoCaricato(id, modificate);
+            return;
+        }
+        ToDo letto = lettoOpt.get();
+        if (presente != null && bachecaAttuale == destinazione) {
+            if (presente.getVersione() > letto.getVersione()
+                    || (presente.getVersione() == letto.getVersione() && presente.getPosizione() == letto.getPosizione()
+                    && presente.getUtentiConAccessoCondiviso().equals(letto.getUtentiConAccessoCondiviso()))) {
+                return;
+            }
+            copiaCampiModificabili(letto, presente);
+            presente.setPosizione(letto.getPosizione());
+            presente.setUtentiConAccessoCondiviso(letto.getUtentiConAccessoCondiviso());
+        } else {
+            rimuoviToDoCaricato(id, modificate);
+            if (Objects.equals(letto.getBachecaId(), destinazione.getId())
+                    && destinazione.isOltreCursore(letto.getPosizione(), letto.getId())) {
+                // La paginazione della bacheca non l'ha ancora raggiunto: arriverà con le pagine successive
+                return;
+            }
+            destinazione.aggiungiToDo(letto);
+        }
+        modificate.add(destinazione.getTitoloDisplayName());
+        logger.debug("Controller: ToDo ID {} aggiornato da notifica nella bacheca '{}'.", id, destinazione.getTitoloDisplayName());
+    }
+
+    /**
+     * Determina la bacheca locale in cui deve comparire un Task riletto, oppure null se non è più visibile all'utente.
+     */
+    private Bacheca bachecaPerToDoModificato(ToDo letto, Bacheca bachecaAttuale, Integer bachecaNotificata) {
+        List<Bacheca> bacheche = utenteCorrente.getBacheche();
+        if (letto.getAutoreId() == utenteCorrente.getId()) {
+            return letto.getBachecaId() != null ? trovaBachecaPerId(letto.getBachecaId(), bacheche).orElse(null) : null;
+        }
+        if (!letto.getUtentiConAccessoCondiviso().contains(utenteCorrente)) {
+            return null;
+        }
+        if (bachecaAttuale != null) {
+            return bachecaAttuale;
+        }
+        if (bachecaNotificata != null) {
+            letto.setBachecaDestinazioneId(bachecaNotificata);
+        }
+        return trovaBachecaDestinazione(letto, bacheche).orElse(null);
+    }
+
+    /**
+     * Recupera con una sincronizzazione incrementale le modifiche avvenute durante una riconnessione
+     * dell'ascoltatore, le cui notifiche sono andate perse.
+     */
+    private void risincronizza(Utente utente, Executor esecutoreModello, Consumer<EsitoSincronizzazione> bachecheModificate) {
+        if (utenteCorrente != utente) return;
+        leggiDeltaAsync().whenComplete((delta, errore) -> esecutoreModello.execute(() -> {
+            if (errore != null) {
+                logger.warn("Controller: Risincronizzazione dopo la riconnessione fallita: {}", errore.getMessage());
+            } else if (utenteCorrente == utente) {
+                EsitoSincronizzazione esito = applicaDelta(delta);
+                if (!esito.isVuoto()) {
+                    bachecheModificate.accept(esito);
+                }
+            }
+        }));
+    }
+
+    private static void segnalaBachecheModificate(Set<String> modificate, Consumer<EsitoSincronizzazione> bachecheModificate) {
+        if (!modificate.isEmpty()) {
+            bachecheModificate.accept(new EsitoSincronizzazione(modificate, false, 0));
+        }
+    }
+
+    private Bacheca trovaBachecaConToDo(int todoId) {
+        for (Bacheca b : utenteCorrente.getBacheche()) {
+            for (ToDo t : b.getTodos()) {
+                if (t.getId() == todoId) return b;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Porta sull'ID del database i Task creati offline e già inviati. Quelli inviati prima dell'apertura
+     * del journal (ID non più noto) vengono rimossi: la sincronizzazione li rilegge con l'ID definitivo.
+     */
+    private void riconciliaToDoCreatiOffline(Set<String> modificate) {
+        JournalScritture j = journal;
+        for (Bacheca b : utenteCorrente.getBacheche()) {
+            for (ToDo t : new ArrayList<>(b.getTodos())) {
+                if (t.getId() >= 0) continue;
+                Integer assegnato = j != null ? j.getIdAssegnato(t.getId()) : null;
+                if (assegnato != null) {
+                    t.setId(assegnato);
+                } else if (j == null || !j.isCreazioneInSospeso(t.getId())) {
+                    b.eliminaToDo(t);
+                    modificate.add(b.getTitoloDisplayName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Riapplica al modello appena caricato le operazioni del journal non ancora inviate,
+     * ad esempio dopo una chiusura improvvisa che non ha salvato lo snapshot locale.
+     */
+    private void applicaOperazioniInSospeso() {
+        JournalScritture j = journal;
+        if (j == null || j.isVuoto()) return;
+        Set<String> modificate = new HashSet<>();
+        for (JournalScritture.Operazione op : j.getOperazioni()) {
+            ToDo todo = op.todo();
+            ToDo presente = trovaToDoCaricato(todo.getId());
+            switch (op.tipo()) {
+                case CREA -> {
+                    if (presente == null) {
+                        ToDo creato = copiaToDo(todo);
+                        creato.setAutore(utenteCorrente);
+                        trovaBachecaPerId(todo.getBachecaId(), utenteCorrente.getBacheche()).ifPresent(b -> b.aggiungiToDo(creato));
+                    }
+                }
+                case AGGIORNA, SPOSTA -> {
+                    if (presente == null) continue;
+                    copiaCampiModificabili(todo, presente);
+                    presente.setPosizione(todo.getPosizione());
+                    if (presente.getAutoreId() == utenteCorrente.getId() && !Objects.equals(presente.getBachecaId(), todo.getBachecaId())) {
+                        rimuoviToDoCaricato(presente.getId(), modificate);
+                        presente.setBachecaId(todo.getBachecaId());
+                        trovaBachecaPerId(todo.getBachecaId(), utenteCorrente.getBacheche()).ifPresent(b -> b.aggiungiToDo(presente));
+                    }
+                }
+                case CONDIVIDI -> {
+                    if (presente != null) presente.aggiungiUtenteCondiviso(op.utente());
+                }
+                case REVOCA -> {
+                    if (presente != null && presente.getAutoreId() == utenteCorrente.getId()) {
+                        // Revoca dell'autore verso un altro utente: il Task resta nel workspace
+                        presente.rimuoviUtenteCondiviso(op.utente());
+                    } else {
+                        rimuoviToDoCaricato(todo.getId(), modificate);
+                    }
+                }
+                case ELIMINA -> rimuoviToDoCaricato(todo.getId(), modificate);
+            }
+        }
+        logger.info("Controller: Riapplicate al workspace {} operazioni non ancora inviate.", j.getOperazioni().size());
+    }
+
+    private ToDo trovaToDoCaricato(int todoId) {
+        for (Bacheca b : utenteCorrente.getBacheche()) {
+            for (ToDo t : b.getTodos()) {
+                if (t.getId() == todoId) return t;
+            }
+        }
+        return null;
+    }
+
+    private void rimuoviToDoCaricato(int todoId, Set<String> modificate) {
+        for (Bacheca b : utenteCorrente.getBacheche()) {
+            for (ToDo t : b.getTodos()) {
+                if (t.getId() == todoId) {
+                    b.eliminaToDo(t);
+                    modificate.add(b.getTitoloDisplayName());
+                    break;
+                }
+            }
+        }
     }
 
     /**
@@ -1046,17 +2725,36 @@ public class Controller {
      * @return Lista delle bacheche dell'utente, o lista vuota se l'utente non esiste
      */
     public List<String> getBachecheUtenteByUsername(String username) {
-        Optional<Utente> utenteOpt = utenteDAO.findByUsername(username);
+        Optional<UtenteRef> utenteOpt = utenteDAO.findRefByUsername(username);
         if (utenteOpt.isEmpty()) {
             return Collections.emptyList();
         }
 
-        List<Bacheca> bacheche = bachecaDAO.findByUtenteId(utenteOpt.get().getId());
+        List<Bacheca> bacheche = bachecaDAO.findByUtenteId(utenteOpt.get().id());
         return bacheche.stream()
                 .map(Bacheca::getTitoloDisplayName)
                 .toList();
     }
 
+    /**
+     * Versione asincrona e con cache di {@link #getBachecheUtenteByUsername(String)}, da usare dall'interfaccia
+     * per non bloccare l'EDT durante la digitazione.
+     * @param username Username dell'utente
+     * @return Future con la lista delle bacheche dell'utente, vuota se l'utente non esiste
+     */
+    public CompletableFuture<List<String>> getBachecheUtenteByUsernameAsync(String username) {
+        return ricercaUtenti.bachecheDiUtente(username);
+    }
+
+    /**
+     * Suggerisce in modo asincrono gli username che iniziano con il prefisso indicato.
+     * @param prefisso Prefisso digitato
+     * @return Future con al massimo {@value #MAX_SUGGERIMENTI_USERNAME} username in ordine alfabetico
+     */
+    public CompletableFuture<List<String>> suggerisciUsername(String prefisso) {
+        return ricercaUtenti.suggerisciUsername(prefisso, MAX_SUGGERIMENTI_USERNAME);
+    }
+
     /**
      * Elimina completamente l'utente corrente e tutti i suoi dati correlati dal database.
      * @return true se l'eliminazione ha successo, false altrimenti
@@ -1086,6 +2784,12 @@ public class Controller {
             boolean success = utenteDAO.delete(utenteCorrente.getId());
             if (success) {
                 logger.info("Controller: Utente '{}' eliminato con successo dal database", utenteCorrente.getUsername());
+                arrestaSincronizzazione();
+                chiudiJournal();
+                if (snapshotLocale != null) {
+                    snapshotLocale.elimina(utenteCorrente.getId());
+                    JournalScritture.elimina(snapshotLocale.getCartella(), utenteCorrente.getId());
+                }
                 utenteCorrente = null; // Reset dell'utente corrente
                 return true;
             } else {
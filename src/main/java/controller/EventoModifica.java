@@ -0,0 +1,54 @@
+package controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Modifica notificata dal database sul canale todo_modifiche.
+ * @param operazione 'I', 'U' o 'D'
+ * @param tabella {@link #TODOS} o {@link #CONDIVISIONI}
+ * @param todoId ID del Task
+ * @param bachecaId Bacheca del Task, o bacheca di destinazione per le condivisioni (può essere null)
+ * @param utenteId Autore del Task, o destinatario per le condivisioni
+ * @param versione Versione del Task (0 per le condivisioni)
+ * @param posizione Posizione del Task nella bacheca (null per le condivisioni e per i payload che non la riportano)
+ * @param immagineCambiata true se l'immagine del Task è cambiata o non è noto se lo sia
+ */
+record EventoModifica(char operazione, char tabella, int todoId, Integer bachecaId, int utenteId, int versione,
+                      Integer posizione, boolean immagineCambiata) {
+    static final char TODOS = 'T';
+    static final char CONDIVISIONI = 'C';
+
+    private static final Logger logger = LoggerFactory.getLogger(EventoModifica.class);
+
+    /**
+     * Converte i payload in eventi, scartando quelli non validi e le notifiche identiche ripetute nello stesso gruppo.
+     * Ogni payload contiene una o più righe separate da ';' (i trigger per istruzione ne inviano fino a 100 per
+     * notifica) nel formato operazione|tabella|todo_id|bacheca_id|utente_id|versione|posizione|immagine.
+     * Gli ultimi due campi possono mancare nei payload dei trigger per riga di uno schema non aggiornato:
+     * in quel caso la posizione è null e l'immagine viene considerata cambiata.
+     */
+    static List<EventoModifica> daPayload(List<String> payload) {
+        Set<EventoModifica> eventi = new LinkedHashSet<>();
+        for (String p : payload) {
+            for (String riga : p.split(";")) {
+                String[] campi = riga.split("\\|", -1);
+                try {
+                    eventi.add(new EventoModifica(campi[0].charAt(0), campi[1].charAt(0), Integer.parseInt(campi[2]),
+                            campi[3].isEmpty() ? null : Integer.valueOf(campi[3]), Integer.parseInt(campi[4]),
+                            campi[5].isEmpty() ? 0 : Integer.parseInt(campi[5]),
+                            campi.length > 6 && !campi[6].isEmpty() ? Integer.valueOf(campi[6]) : null,
+                            campi.length <= 7 || !"0".equals(campi[7])));
+                } catch (RuntimeException e) {
+                    logger.warn("Controller: Notifica di modifica non valida ignorata: '{}'", riga);
+                }
+            }
+        }
+        return new ArrayList<>(eventi);
+    }
+}
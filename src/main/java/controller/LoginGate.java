@@ -0,0 +1,243 @@
+package controller;
+
+import metrics.MetricsRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita i tentativi di login prima che arrivino al database e al calcolo dell'hash della password.
+ * <p>
+ * Ogni tentativo che deve leggere l'utente dal database consuma un gettone dal secchio del proprio username e uno
+ * dal secchio globale: i secchi si ricaricano a velocità costante fino alla loro capacità, quindi una raffica su uno
+ * username si ferma dopo pochi tentativi e una raffica distribuita su molti username non supera il ritmo globale.
+ * Gli username inesistenti restano per poco in una cache negativa e i tentativi successivi vengono respinti senza
+ * interrogare il database.
+ * <p>
+ * Il secchio di uno username viene creato solo dopo aver preso il gettone globale, quindi i secchi crescono al più
+ * al ritmo globale; oltre {@link #MAX_SECCHI} viene eliminato quello usato meno di recente. Con i valori predefiniti
+ * riempire la mappa richiede più tempo di quanto ne serva a un secchio per ricaricarsi, quindi i secchi eliminati
+ * sono già pieni.
+ * <p>
+ * Le voci della cache negativa hanno tutte la stessa durata, quindi in ordine di inserimento scadono in ordine:
+ * ogni inserimento elimina quelle scadute in testa e, oltre {@link #MAX_SCONOSCIUTI}, la più vecchia. La cache
+ * non cresce quindi con gli username provati una sola volta.
+ * <p>
+ * I limiti sono configurabili con le proprietà di sistema todoapp.login.perUser (tentativi consecutivi per
+ * username, uno in più ogni todoapp.login.perUserRefillSec secondi), todoapp.login.global (tentativi al
+ * secondo per tutto il processo) e todoapp.login.unknownTtlSec (durata della cache negativa).
+ */
+public final class LoginGate {
+
+    /** Numero massimo di secchi per username, oltre il quale viene eliminato quello usato meno di recente. */
+    private static final int MAX_SECCHI = 10_000;
+    /** Numero massimo di username nella cache negativa, oltre il quale viene eliminato il più vecchio. */
+    private static final int MAX_SCONOSCIUTI = 10_000;
+
+    private static final MetricsRegistry.Contatore RESPINTI_UTENTE = MetricsRegistry.getInstance()
+            .contatore("login_rejected_total", "Tentativi di login respinti dal limitatore", "motivo", "utente");
+    private static final MetricsRegistry.Contatore RESPINTI_GLOBALE = MetricsRegistry.getInstance()
+            .contatore("login_rejected_total", "Tentativi di login respinti dal limitatore", "motivo", "globale");
+    private static final MetricsRegistry.StatisticheCache STATISTICHE_SCONOSCIUTI = MetricsRegistry.getInstance()
+            .cache("login_unknown_users");
+
+    private static final LoginGate ISTANZA = new LoginGate(
+            Math.max(1, Integer.getInteger("todoapp.login.perUser", 5)),
+            TimeUnit.SECONDS.toNanos(Math.max(1, Long.getLong("todoapp.login.perUserRefillSec", 12))),
+            Math.max(1, Integer.getInteger("todoapp.login.global", 50)),
+            TimeUnit.SECONDS.toNanos(Math.max(0, Long.getLong("todoapp.login.unknownTtlSec", 30))));
+
+    /**
+     * Tentativo di login respinto dal limitatore.
+     */
+    public static final class TroppiTentativiException extends RuntimeException {
+        private final long attesaMs;
+
+        /**
+         * Costruttore.
+         * @param messaggio Descrizione del limite superato
+         * @param attesaMs Attesa suggerita prima di riprovare, in millisecondi
+         */
+        public TroppiTentativiException(String messaggio, long attesaMs) {
+            super(messaggio);
+            this.attesaMs = attesaMs;
+        }
+
+        /**
+         * Restituisce l'attesa suggerita prima di riprovare.
+         * @return Attesa in millisecondi
+         */
+        public long getAttesaMs() {
+            return attesaMs;
+        }
+    }
+
+    /**
+     * Secchio di gettoni: si ricarica di un gettone ogni intervallo, fino alla capacità.
+     */
+    private static final class Secchio {
+        private final int capacita;
+        private final long intervalloNanos;
+        private double gettoni;
+        private long ultimaRicarica;
+
+        Secchio(int capacita, long intervalloNanos, long ora) {
+            this.capacita = capacita;
+            this.intervalloNanos = intervalloNanos;
+            this.gettoni = capacita;
+            this.ultimaRicarica = ora;
+        }
+
+        /**
+         * Prende un gettone se disponibile.
+         * @return 0 se il gettone è stato preso, altrimenti i nanosecondi che mancano al prossimo
+         */
+        synchronized long prendi(long ora) {
+            ricarica(ora);
+            if (gettoni >= 1) {
+                gettoni--;
+                return 0;
+            }
+            return (long) ((1 - gettoni) * intervalloNanos);
+        }
+
+        private void ricarica(long ora) {
+            gettoni = Math.min(capacita, gettoni + (double) (ora - ultimaRicarica) / intervalloNanos);
+            ultimaRicarica = ora;
+        }
+    }
+
+    private final int capacitaUtente;
+    private final long ricaricaUtenteNanos;
+    private final long durataSconosciutiNanos;
+    private final Secchio globale;
+    /** Secchi per username in ordine di accesso; ogni accesso avviene sincronizzato sulla mappa. */
+    private final Map<String, Secchio> perUtente = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Secchio> eldest) {
+            return size() > MAX_SECCHI;
+        }
+    };
+    /**
+     * Username inesistenti con la scadenza della voce (System.nanoTime), in ordine di inserimento e quindi di
+     * scadenza; ogni accesso avviene sincronizzato sulla mappa.
+     */
+    private final Map<String, Long> sconosciuti = new LinkedHashMap<>();
+
+    /**
+     * Costruttore.
+     * @param capacitaUtente Tentativi consecutivi consentiti per username
+     * @param ricaricaUtenteNanos Intervallo dopo cui uno username recupera un tentativo
+     * @param globaliAlSecondo Tentativi al secondo consentiti per tutti gli username insieme (anche come raffica)
+     * @param durataSconosciutiNanos Durata della cache negativa degli username inesistenti (0 per disattivarla)
+     */
+    public LoginGate(int capacitaUtente, long ricaricaUtenteNanos, int globaliAlSecondo, long durataSconosciutiNanos) {
+        this.capacitaUtente = capacitaUtente;
+        this.ricaricaUtenteNanos = ricaricaUtenteNanos;
+        this.durataSconosciutiNanos = durataSconosciutiNanos;
+        this.globale = new Secchio(globaliAlSecondo, TimeUnit.SECONDS.toNanos(1) / globaliAlSecondo, System.nanoTime());
+    }
+
+    /**
+     * Restituisce il limitatore condiviso dal processo, configurato con le proprietà di sistema.
+     * @return Istanza condivisa
+     */
+    public static LoginGate getInstance() {
+        return ISTANZA;
+    }
+
+    /**
+     * Registra un tentativo di login per lo username indicato, prima di leggerlo dal database.
+     * @param username Username del tentativo
+     * @return false se lo username è nella cache negativa (il tentativo fallisce senza interrogare il database),
+     *         true se il tentativo può proseguire
+     * @throws TroppiTentativiException se lo username o il processo hanno superato il limite di tentativi
+     */
+    public boolean consenti(String username) {
+        long ora = System.nanoTime();
+        synchronized (sconosciuti) {
+            Long scadenza = sconosciuti.get(username);
+            if (scadenza != null) {
+                if (ora - scadenza < 0) {
+                    STATISTICHE_SCONOSCIUTI.registraHit();
+                    return false;
+                }
+                sconosciuti.remove(username);
+            }
+        }
+        STATISTICHE_SCONOSCIUTI.registraMiss();
+        Secchio secchio;
+        synchronized (perUtente) {
+            secchio = perUtente.get(username);
+        }
+        if (secchio != null) {
+            verificaUtente(secchio.prendi(ora));
+        }
+        long attesa = globale.prendi(ora);
+        if (attesa > 0) {
+            RESPINTI_GLOBALE.incrementa();
+            throw new TroppiTentativiException("Troppi tentativi di accesso in corso", TimeUnit.NANOSECONDS.toMillis(attesa));
+        }
+        if (secchio == null) {
+            synchronized (perUtente) {
+                secchio = perUtente.computeIfAbsent(username, _ -> new Secchio(capacitaUtente, ricaricaUtenteNanos, ora));
+            }
+            verificaUtente(secchio.prendi(ora));
+        }
+        return true;
+    }
+
+    private static void verificaUtente(long attesa) {
+        if (attesa > 0) {
+            RESPINTI_UTENTE.incrementa();
+            throw new TroppiTentativiException("Troppi tentativi di accesso per l'utente", TimeUnit.NANOSECONDS.toMillis(attesa));
+        }
+    }
+
+    /**
+     * Ricorda per poco che lo username non esiste, eliminando le voci scadute e, oltre {@link #MAX_SCONOSCIUTI},
+     * la più vecchia.
+     * @param username Username non trovato nel database
+     */
+    public void utenteSconosciuto(String username) {
+        if (durataSconosciutiNanos <= 0) {
+            return;
+        }
+        long ora = System.nanoTime();
+        synchronized (sconosciuti) {
+            // Reinserita in coda, così l'ordine di inserimento resta quello di scadenza
+            sconosciuti.remove(username);
+            sconosciuti.put(username, ora + durataSconosciutiNanos);
+            Iterator<Long> scadenze = sconosciuti.values().iterator();
+            while (scadenze.hasNext()) {
+                long scadenza = scadenze.next();
+                if (ora - scadenza < 0 && sconosciuti.size() <= MAX_SCONOSCIUTI) {
+                    break;
+                }
+                scadenze.remove();
+            }
+        }
+    }
+
+    /**
+     * Segnala un login riuscito: lo username recupera tutti i tentativi.
+     * @param username Username autenticato
+     */
+    public void accessoRiuscito(String username) {
+        synchronized (perUtente) {
+            perUtente.remove(username);
+        }
+    }
+
+    /**
+     * Segnala la registrazione di un utente, che esce dalla cache negativa.
+     * @param username Username registrato
+     */
+    public void utenteRegistrato(String username) {
+        synchronized (sconosciuti) {
+            sconosciuti.remove(username);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package controller;
+
+import model.Bacheca;
+import model.ToDo;
+import model.Utente;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Effetto di un gruppo di notifiche sul modello di un utente, calcolato prima di rileggere i Task dal database:
+ * i Task da rimuovere subito, quelli da rileggere e, tra questi, quelli di cui serve anche l'immagine.
+ * <p>
+ * Le notifiche di Task non ancora caricati che seguono il cursore di una bacheca letta a pagine vengono scartate:
+ * quelle righe arriveranno, già aggiornate, con le pagine successive. Le immagini vengono rilette solo per i Task
+ * che entrano nel modello o la cui immagine è cambiata; gli altri mantengono quella già caricata.
+ */
+final class RiletturaModifiche {
+
+    private final Set<Integer> daRimuovere = new LinkedHashSet<>();
+    /** ID dei Task da rileggere -> bacheca di destinazione notificata per le nuove condivisioni. */
+    private final Map<Integer, Integer> daRileggere = new LinkedHashMap<>();
+    private final Set<Integer> conImmagine = new HashSet<>();
+
+    private RiletturaModifiche() {
+    }
+
+    /**
+     * Calcola l'effetto delle notifiche sul modello dell'utente. Va eseguito dal thread che possiede il modello.
+     * @param utente Utente corrente, con le bacheche caricate
+     * @param eventi Notifiche ricevute, nell'ordine di invio
+     * @return Task da rimuovere e da rileggere
+     */
+    static RiletturaModifiche pianifica(Utente utente, List<EventoModifica> eventi) {
+        Map<Integer, Bacheca> bacheche = new HashMap<>();
+        Map<Integer, ToDo> caricati = new HashMap<>();
+        for (Bacheca bacheca : utente.getBacheche()) {
+            bacheche.put(bacheca.getId(), bacheca);
+            for (ToDo todo : bacheca.getTodos()) {
+                caricati.put(todo.getId(), todo);
+            }
+        }
+        RiletturaModifiche piano = new RiletturaModifiche();
+        for (EventoModifica evento : eventi) {
+            int id = evento.todoId();
+            ToDo presente = caricati.get(id);
+            if (evento.tabella() == EventoModifica.TODOS) {
+                if (evento.operazione() == 'D') {
+                    piano.rimuovi(id, caricati);
+                } else if (presente != null) {
+                    if (presente.getVersione() < evento.versione()) {
+                        piano.rileggi(id, null, evento.immagineCambiata());
+                    }
+                } else if (isDaCaricare(bacheche.get(evento.bachecaId()), evento)) {
+                    piano.rileggi(id, null, true);
+                }
+            } else if (evento.utenteId() == utente.getId()) {
+                if (evento.operazione() != 'D') {
+                    piano.daRileggere.put(id, evento.bachecaId());
+                    if (presente == null) {
+                        piano.conImmagine.add(id);
+                    }
+                } else if (presente != null && presente.getAutoreId() != utente.getId()) {
+                    piano.rimuovi(id, caricati);
+                }
+            } else if (presente != null) {
+                // Condivisione di un Task visibile verso un altro utente: cambia solo l'elenco degli utenti
+                piano.rileggi(id, null, false);
+            }
+        }
+        return piano;
+    }
+
+    /**
+     * Indica se un Task non caricato di una bacheca dell'utente va letto: non se la bacheca è letta a pagine
+     * e il Task segue il cursore. Senza posizione nel payload la verifica è rimandata alla rilettura.
+     */
+    private static boolean isDaCaricare(Bacheca bacheca, EventoModifica evento) {
+        return bacheca != null && (evento.posizione() == null || !bacheca.isOltreCursore(evento.posizione(), evento.todoId()));
+    }
+
+    private void rileggi(int id, Integer bachecaNotificata, boolean immagine) {
+        daRileggere.putIfAbsent(id, bachecaNotificata);
+        if (immagine) {
+            conImmagine.add(id);
+        }
+    }
+
+    private void rimuovi(int id, Map<Integer, ToDo> caricati) {
+        daRimuovere.add(id);
+        daRileggere.remove(id);
+        conImmagine.remove(id);
+        caricati.remove(id);
+    }
+
+    /**
+     * @return ID dei Task da rimuovere subito dal modello
+     */
+    Set<Integer> daRimuovere() {
+        return Collections.unmodifiableSet(daRimuovere);
+    }
+
+    /**
+     * @return ID dei Task da rileggere, nell'ordine delle notifiche
+     */
+    Set<Integer> daRileggere() {
+        return Collections.unmodifiableSet(daRileggere.keySet());
+    }
+
+    /**
+     * @return Bacheca di destinazione notificata per la condivisione del Task con l'utente, oppure null
+     */
+    Integer bachecaNotificata(int id) {
+        return daRileggere.get(id);
+    }
+
+    /**
+     * @return true se del Task va riletta anche l'immagine
+     */
+    boolean isConImmagine(int id) {
+        return conImmagine.contains(id);
+    }
+
+    /**
+     * @return true se non c'è niente da rimuovere né da rileggere
+     */
+    boolean isVuoto() {
+        return daRimuovere.isEmpty() && daRileggere.isEmpty();
+    }
+}
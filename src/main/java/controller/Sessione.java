@@ -0,0 +1,119 @@
+package controller;
+
+import model.Utente;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sessione di un utente: il suo workspace (utente, bacheche e Task caricati) e la versione del database
+ * a cui è allineato. Il modello non è thread-safe, quindi è confinato a un solo scrittore: ogni operazione
+ * sulla sessione passa da {@link #esegui(Operazione)}, che le serializza con un ReentrantLock, e il
+ * workspace è accessibile solo a chi detiene il lock. Sessioni diverse non condividono oggetti del modello
+ * e lavorano in parallelo; le scritture concorrenti sugli stessi Task sono regolate dal controllo di versione
+ * del database.
+ * <p>
+ * Il lock va preso prima di ogni altra risorsa (ad es. la connessione del pool), così un'operazione che
+ * attende la sessione non trattiene risorse condivise.
+ */
+public final class Sessione {
+
+    /**
+     * Operazione eseguita con il lock della sessione.
+     * @param <T> Tipo del risultato
+     * @param <E> Eccezione controllata che l'operazione può lanciare
+     */
+    @FunctionalInterface
+    public interface Operazione<T, E extends Exception> {
+        /**
+         * Esegue l'operazione.
+         * @return Risultato dell'operazione
+         * @throws E in caso di errore
+         */
+        T esegui() throws E;
+    }
+
+    private final Utente utente;
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Versione del database a cui è allineato il workspace; negativa finché non viene caricato. */
+    private long versione = -1;
+    private volatile long ultimoAccesso = System.nanoTime();
+
+    /**
+     * Costruttore. Il workspace viene caricato alla prima operazione.
+     * @param utenteId ID dell'utente autenticato
+     * @param username Username dell'utente autenticato
+     */
+    public Sessione(int utenteId, String username) {
+        // L'hash della password non serve alla sessione e non viene conservato
+        this.utente = new Utente(utenteId, username, "");
+    }
+
+    /**
+     * Restituisce l'ID dell'utente della sessione.
+     * @return ID dell'utente
+     */
+    public int getUtenteId() {
+        return utente.getId();
+    }
+
+    /**
+     * Restituisce lo username dell'utente della sessione.
+     * @return Username
+     */
+    public String getUsername() {
+        return utente.getUsername();
+    }
+
+    /**
+     * Esegue un'operazione in esclusiva sulla sessione, attendendo le operazioni in corso sulla stessa sessione.
+     * @param operazione Operazione da eseguire
+     * @param <T> Tipo del risultato
+     * @param <E> Eccezione controllata dell'operazione
+     * @return Risultato dell'operazione
+     * @throws E se l'operazione fallisce
+     */
+    public <T, E extends Exception> T esegui(Operazione<T, E> operazione) throws E {
+        lock.lock();
+        try {
+            ultimoAccesso = System.nanoTime();
+            return operazione.esegui();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Indica se la sessione è inattiva da più della durata indicata.
+     * @param ora Istante corrente, da System.nanoTime()
+     * @param durataNanos Durata massima di inattività in nanosecondi
+     * @return true se la sessione è scaduta
+     */
+    public boolean isScaduta(long ora, long durataNanos) {
+        return !lock.isLocked() && ora - ultimoAccesso > durataNanos;
+    }
+
+    /**
+     * Restituisce il workspace della sessione; solo per il thread che detiene il lock.
+     * @throws IllegalStateException se chiamato fuori da {@link #esegui(Operazione)}
+     */
+    Utente getUtente() {
+        verificaLock();
+        return utente;
+    }
+
+    long getVersione() {
+        verificaLock();
+        return versione;
+    }
+
+    void setVersione(long versione) {
+        verificaLock();
+        this.versione = versione;
+    }
+
+    private void verificaLock() {
+        if (!lock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("Il workspace della sessione è accessibile solo dentro Sessione.esegui");
+        }
+    }
+}
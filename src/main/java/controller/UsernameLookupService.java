@@ -0,0 +1,145 @@
+package controller;
+
+import dao.BachecaDAO;
+import dao.UtenteDAO;
+import metrics.MetricsRegistry;
+import model.Bacheca;
+import model.UtenteRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Servizio di ricerca degli utenti destinatari di una condivisione.
+ * Esegue le query fuori dall'EDT e mantiene una cache a breve scadenza sia per
+ * le bacheche di un utente sia per i suggerimenti di username per prefisso.
+ * Richieste concorrenti per la stessa chiave condividono la stessa query.
+ */
+public class UsernameLookupService {
+    private static final Logger logger = LoggerFactory.getLogger(UsernameLookupService.class);
+
+    /** Durata di validità delle voci in cache. */
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+    /** Numero massimo di voci per cache, oltre il quale le voci scadute vengono ripulite. */
+    private static final int MAX_VOCI = 256;
+
+    private final UtenteDAO utenteDAO;
+    private final BachecaDAO bachecaDAO;
+    private final ExecutorService executor;
+    private final Map<String, Voce> cacheBacheche = new ConcurrentHashMap<>();
+    private final Map<String, Voce> cacheSuggerimenti = new ConcurrentHashMap<>();
+    private final MetricsRegistry.StatisticheCache statisticheBacheche;
+    private final MetricsRegistry.StatisticheCache statisticheSuggerimenti;
+
+    /**
+     * Voce della cache: il risultato (eventualmente ancora in corso) e la sua scadenza.
+     */
+    private record Voce(CompletableFuture<List<String>> risultato, long scadenza) {
+        boolean valida(long ora) {
+            return ora - scadenza < 0 && !risultato.isCompletedExceptionally();
+        }
+    }
+
+    /**
+     * Costruttore.
+     * @param utenteDAO DAO degli utenti
+     * @param bachecaDAO DAO delle bacheche
+     */
+    public UsernameLookupService(UtenteDAO utenteDAO, BachecaDAO bachecaDAO) {
+        this(utenteDAO, bachecaDAO, Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "username-lookup");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    /**
+     * Costruttore con un esecutore fornito dal chiamante, che resta responsabile di arrestarlo.
+     * @param utenteDAO DAO degli utenti
+     * @param bachecaDAO DAO delle bacheche
+     * @param executor Esecutore delle ricerche
+     */
+    public UsernameLookupService(UtenteDAO utenteDAO, BachecaDAO bachecaDAO, ExecutorService executor) {
+        this.utenteDAO = utenteDAO;
+        this.bachecaDAO = bachecaDAO;
+        this.executor = executor;
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        this.statisticheBacheche = registry.cache("username_boards");
+        this.statisticheSuggerimenti = registry.cache("username_prefix");
+    }
+
+    /**
+     * Restituisce in modo asincrono i nomi visualizzati delle bacheche dell'utente indicato.
+     * @param username Username esatto del destinatario
+     * @return Future con la lista delle bacheche, vuota se l'utente non esiste
+     */
+    public CompletableFuture<List<String>> bachecheDiUtente(String username) {
+        return cerca(cacheBacheche, statisticheBacheche, username, () -> caricaBacheche(username));
+    }
+
+    /**
+     * Restituisce in modo asincrono gli username che iniziano con il prefisso indicato.
+     * @param prefisso Prefisso digitato dall'utente
+     * @param limite Numero massimo di suggerimenti
+     * @return Future con gli username ordinati alfabeticamente
+     */
+    public CompletableFuture<List<String>> suggerisciUsername(String prefisso, int limite) {
+        if (prefisso == null || prefisso.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return cerca(cacheSuggerimenti, statisticheSuggerimenti, prefisso + '\u0000' + limite,
+                () -> utenteDAO.findByUsernamePrefix(prefisso, limite).stream().map(UtenteRef::username).toList());
+    }
+
+    /**
+     * Svuota entrambe le cache, ad esempio dopo la registrazione di un nuovo utente.
+     */
+    public void invalida() {
+        cacheBacheche.clear();
+        cacheSuggerimenti.clear();
+    }
+
+    private CompletableFuture<List<String>> cerca(Map<String, Voce> cache, MetricsRegistry.StatisticheCache statistiche,
+                                                 String chiave, Supplier<List<String>> query) {
+        long ora = System.nanoTime();
+        Voce voce = cache.get(chiave);
+        if (voce != null && voce.valida(ora)) {
+            statistiche.registraHit();
+            return voce.risultato();
+        }
+        statistiche.registraMiss();
+        if (cache.size() >= MAX_VOCI) {
+            cache.values().removeIf(v -> !v.valida(ora));
+        }
+        Voce nuova = cache.compute(chiave, (_, esistente) -> esistente != null && esistente.valida(ora)
+                ? esistente
+                : new Voce(CompletableFuture.supplyAsync(query, executor), ora + TTL_NANOS));
+        nuova.risultato().whenComplete((_, errore) -> {
+            if (errore != null) {
+                logger.warn("UsernameLookupService: ricerca '{}' fallita: {}", chiave, errore.getMessage());
+                cache.remove(chiave, nuova);
+            }
+        });
+        return nuova.risultato();
+    }
+
+    private List<String> caricaBacheche(String username) {
+        Optional<UtenteRef> utenteOpt = utenteDAO.findRefByUsername(username);
+        if (utenteOpt.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return bachecaDAO.findByUtenteId(utenteOpt.get().id()).stream()
+                .map(Bacheca::getTitoloDisplayName)
+                .toList();
+    }
+}
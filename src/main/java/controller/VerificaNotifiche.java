@@ -0,0 +1,153 @@
+package controller;
+
+import model.Bacheca;
+import model.StatoToDo;
+import model.TitoloBacheca;
+import model.ToDo;
+import model.Utente;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Verifica del percorso delle notifiche in tempo reale, senza database: interpreta i payload nel formato
+ * dei trigger per istruzione (più righe per notifica, separate da ';') e calcola su un modello in memoria
+ * quali Task rimuovere e quali rileggere, con e senza immagine.
+ * <p>
+ * Il modello ha una bacheca letta a pagine, con il cursore fermo a metà, e una caricata per intero. Oltre ai
+ * singoli casi viene simulata un'istruzione che modifica {@value #RIGHE_ISTRUZIONE} righe non ancora caricate:
+ * nessuna deve essere riletta. Termina con codice 1 al primo controllo fallito.
+ * <p>
+ * Uso: {@code VerificaNotifiche}
+ */
+public final class VerificaNotifiche {
+
+    private static final int UTENTE = 1;
+    private static final int BACHECA_A_PAGINE = 10;
+    private static final int BACHECA_COMPLETA = 20;
+    private static final int RIGHE_ISTRUZIONE = 50_000;
+
+    private VerificaNotifiche() {
+    }
+
+    /**
+     * Punto di ingresso della verifica.
+     * @param args Non usati
+     */
+    public static void main(String[] args) {
+        verificaPayload();
+        verificaCursore();
+        verificaPiano();
+        verificaIstruzioneEstesa();
+        System.out.println("Tutte le verifiche superate.");
+    }
+
+    private static void verificaPayload() {
+        List<EventoModifica> eventi = EventoModifica.daPayload(List.of(
+                "U|T|100|10|1|3|7|0;I|T|101|10|1|0|8|1",
+                "D|C|100|20|2|||0",
+                "U|T|100|10|1|3|7|0",
+                "U|T|102|10|1|4",
+                "non valido;U|T|x|10|1|4|0|0"));
+        controlla("payload: righe valide distinte", eventi.size() == 4);
+        EventoModifica primo = eventi.get(0);
+        controlla("payload: campi della prima riga", primo.operazione() == 'U' && primo.tabella() == EventoModifica.TODOS
+                && primo.todoId() == 100 && primo.bachecaId() == 10 && primo.utenteId() == 1 && primo.versione() == 3
+                && primo.posizione() == 7 && !primo.immagineCambiata());
+        EventoModifica condivisione = eventi.get(2);
+        controlla("payload: condivisione senza versione e posizione", condivisione.tabella() == EventoModifica.CONDIVISIONI
+                && condivisione.bachecaId() == 20 && condivisione.versione() == 0 && condivisione.posizione() == null);
+        EventoModifica vecchio = eventi.get(3);
+        controlla("payload: formato per riga senza posizione", vecchio.posizione() == null && vecchio.immagineCambiata());
+    }
+
+    private static void verificaCursore() {
+        Bacheca bacheca = new Bacheca(BACHECA_A_PAGINE, UTENTE, TitoloBacheca.LAVORO, "");
+        bacheca.iniziaPaginazione();
+        bacheca.aggiungiPagina(List.of(todo(1, BACHECA_A_PAGINE, 0), todo(2, BACHECA_A_PAGINE, 1)), false);
+        controlla("cursore: Task precedente", !bacheca.isOltreCursore(0, 5));
+        controlla("cursore: stessa posizione, ID minore", !bacheca.isOltreCursore(1, 1));
+        controlla("cursore: stessa posizione, ID maggiore", bacheca.isOltreCursore(1, 3));
+        controlla("cursore: posizione successiva", bacheca.isOltreCursore(2, 0));
+        bacheca.aggiungiPagina(List.of(), true);
+        controlla("cursore: bacheca completa", !bacheca.isOltreCursore(2, 0));
+    }
+
+    private static void verificaPiano() {
+        Utente utente = modello();
+        RiletturaModifiche piano = RiletturaModifiche.pianifica(utente, EventoModifica.daPayload(List.of(
+                "U|T|1|10|1|5|0|0;U|T|2|10|1|5|1|1",
+                "U|T|20|20|1|0|0|0",
+                "I|T|50|10|1|0|9|1;I|T|51|10|1|0|0|1;I|T|52|20|1|0|100|0",
+                "I|T|70|99|2|0|0|1",
+                "D|T|21|20|1|0|1|0",
+                "I|C|60|20|1|||0",
+                "I|C|20|20|2|||0")));
+        controlla("piano: Task caricato con versione nuova", piano.daRileggere().contains(1) && !piano.isConImmagine(1));
+        controlla("piano: immagine cambiata", piano.isConImmagine(2));
+        controlla("piano: condivisione verso altri di un Task caricato", piano.daRileggere().contains(20) && !piano.isConImmagine(20));
+        controlla("piano: Task oltre il cursore scartato", !piano.daRileggere().contains(50));
+        controlla("piano: Task prima del cursore", piano.daRileggere().contains(51) && piano.isConImmagine(51));
+        controlla("piano: Task nuovo in bacheca completa", piano.daRileggere().contains(52) && piano.isConImmagine(52));
+        controlla("piano: bacheca di un altro utente", !piano.daRileggere().contains(70));
+        controlla("piano: eliminazione", piano.daRimuovere().equals(Set.of(21)) && !piano.daRileggere().contains(21));
+        controlla("piano: nuova condivisione", piano.bachecaNotificata(60) == BACHECA_COMPLETA && piano.isConImmagine(60));
+
+        RiletturaModifiche stessaVersione = RiletturaModifiche.pianifica(utente, EventoModifica.daPayload(List.of(
+                "U|T|1|10|1|0|0|1", "U|T|20|20|1|0|0|1")));
+        controlla("piano: modifiche già note", stessaVersione.isVuoto());
+    }
+
+    private static void verificaIstruzioneEstesa() {
+        List<String> payload = new ArrayList<>();
+        StringBuilder notifica = new StringBuilder();
+        for (int i = 0; i < RIGHE_ISTRUZIONE; i++) {
+            if (i > 0 && i % 100 == 0) {
+                payload.add(notifica.toString());
+                notifica.setLength(0);
+            }
+            if (!notifica.isEmpty()) {
+                notifica.append(';');
+            }
+            notifica.append("U|T|").append(1000 + i).append('|').append(BACHECA_A_PAGINE).append("|1|1|").append(10 + i).append("|0");
+        }
+        payload.add(notifica.toString());
+        controlla("istruzione estesa: una notifica ogni 100 righe", payload.size() == RIGHE_ISTRUZIONE / 100);
+        controlla("istruzione estesa: dimensione del payload", payload.stream().allMatch(p -> p.length() < 8000));
+        long inizio = System.nanoTime();
+        RiletturaModifiche piano = RiletturaModifiche.pianifica(modello(), EventoModifica.daPayload(payload));
+        controlla("istruzione estesa: nessuna rilettura oltre il cursore", piano.isVuoto());
+        System.out.printf("Istruzione da %d righe pianificata in %.1f ms%n", RIGHE_ISTRUZIONE, (System.nanoTime() - inizio) / 1e6);
+    }
+
+    /**
+     * Utente con una bacheca letta fino al Task in posizione 1 e una caricata per intero.
+     */
+    private static Utente modello() {
+        Utente utente = new Utente(UTENTE, "verifica", "-");
+        Bacheca aPagine = new Bacheca(BACHECA_A_PAGINE, UTENTE, TitoloBacheca.LAVORO, "");
+        aPagine.iniziaPaginazione();
+        aPagine.aggiungiPagina(List.of(todo(1, BACHECA_A_PAGINE, 0), todo(2, BACHECA_A_PAGINE, 1)), false);
+        Bacheca completa = new Bacheca(BACHECA_COMPLETA, UTENTE, TitoloBacheca.UNIVERSITA, "");
+        completa.aggiungiToDos(List.of(todo(20, BACHECA_COMPLETA, 0), todo(21, BACHECA_COMPLETA, 1)));
+        utente.setBacheche(List.of(aPagine, completa));
+        return utente;
+    }
+
+    private static ToDo todo(int id, int bachecaId, int posizione) {
+        ToDo todo = new ToDo(id, bachecaId, UTENTE, "Task " + id, "", null, null, null, posizione,
+                StatoToDo.NON_COMPLETATO, LocalDate.now(), null);
+        todo.setVersione(id < 10 ? 1 : 0);
+        return todo;
+    }
+
+    private static void controlla(String descrizione, boolean esito) {
+        if (!esito) {
+            System.err.println("FALLITO: " + descrizione);
+            System.exit(1);
+        }
+        System.out.println("ok  " + descrizione);
+    }
+}
@@ -77,4 +77,12 @@ public interface BachecaDAO {
      * @return true se l'eliminazione ha successo, false altrimenti
      */
     boolean deleteByUtenteAndTitolo(Utente utente, TitoloBacheca titolo);
+
+    /**
+     * Restituisce le bacheche di un utente create o modificate dalla versione indicata.
+     * @param utenteId ID dell'utente
+     * @param daVersione Versione restituita da {@link ModificheDAO#versioneCorrente()} alla lettura precedente
+     * @return Bacheche modificate
+     */
+    List<Bacheca> findModificateDa(int utenteId, long daVersione);
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package dao;
+
+import model.Bacheca;
+import model.TitoloBacheca;
+import model.Utente;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Variante asincrona di {@link BachecaDAO}: le stesse operazioni, con lo stesso risultato, restituite come
+ * CompletableFuture. Il thread chiamante non si blocca; gli errori completano il future in modo eccezionale
+ * con una DatabaseConnectionException.
+ */
+public interface BachecaDAOAsincrono {
+    /**
+     * Vedi {@link BachecaDAO#findById(int)}.
+     * @param id ID della bacheca
+     * @return Future con la bacheca, se trovata
+     */
+    CompletableFuture<Optional<Bacheca>> findById(int id);
+
+    /**
+     * Vedi {@link BachecaDAO#findByUtente(Utente)}.
+     * @param utente Utente di cui recuperare le bacheche
+     * @return Future con le bacheche dell'utente
+     */
+    CompletableFuture<List<Bacheca>> findByUtente(Utente utente);
+
+    /**
+     * Vedi {@link BachecaDAO#findByUtenteId(int)}.
+     * @param utenteId ID dell'utente
+     * @return Future con le bacheche dell'utente
+     */
+    CompletableFuture<List<Bacheca>> findByUtenteId(int utenteId);
+
+    /**
+     * Vedi {@link BachecaDAO#findByUtenteAndTitolo(Utente, TitoloBacheca)}.
+     * @param utente Utente proprietario
+     * @param titolo Titolo della bacheca
+     * @return Future con la bacheca, se trovata
+     */
+    CompletableFuture<Optional<Bacheca>> findByUtenteAndTitolo(Utente utente, TitoloBacheca titolo);
+
+    /**
+     * Vedi {@link BachecaDAO#findByUtenteIdAndTitolo(int, TitoloBacheca)}.
+     * @param utenteId ID dell'utente
+     * @param titolo Titolo della bacheca
+     * @return Future con la bacheca, se trovata
+     */
+    CompletableFuture<Optional<Bacheca>> findByUtenteIdAndTitolo(int utenteId, TitoloBacheca titolo);
+
+    /**
+     * Vedi {@link BachecaDAO#save(Bacheca, int)}.
+     * @param bacheca Bacheca da salvare
+     * @param utenteId ID dell'utente proprietario
+     * @return Future con l'esito del salvataggio
+     */
+    CompletableFuture<Boolean> save(Bacheca bacheca, int utenteId);
+
+    /**
+     * Vedi {@link BachecaDAO#update(Bacheca)}.
+     * @param bacheca Bacheca da aggiornare
+     * @return Future con l'esito dell'aggiornamento
+     */
+    CompletableFuture<Boolean> update(Bacheca bacheca);
+
+    /**
+     * Vedi {@link BachecaDAO#delete(int)}.
+     * @param id ID della bacheca da eliminare
+     * @return Future con l'esito dell'eliminazione
+     */
+    CompletableFuture<Boolean> delete(int id);
+
+    /**
+     * Vedi {@link BachecaDAO#deleteByUtenteAndTitolo(Utente, TitoloBacheca)}.
+     * @param utente Utente proprietario
+     * @param titolo Titolo della bacheca
+     * @return Future con l'esito dell'eliminazione
+     */
+    CompletableFuture<Boolean> deleteByUtenteAndTitolo(Utente utente, TitoloBacheca titolo);
+
+    /**
+     * Vedi {@link BachecaDAO#findModificateDa(int, long)}.
+     * @param utenteId ID dell'utente
+     * @param daVersione Versione della lettura precedente
+     * @return Future con le bacheche modificate
+     */
+    CompletableFuture<List<Bacheca>> findModificateDa(int utenteId, long daVersione);
+}
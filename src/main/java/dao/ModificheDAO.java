@@ -0,0 +1,61 @@
+package dao;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Interfaccia DAO per la sincronizzazione incrementale.
+ * Una versione identifica un istante del database: le righe scritte da transazioni non ancora
+ * concluse in quell'istante vengono restituite anche alla lettura successiva, quindi applicare
+ * più volte la stessa modifica deve essere innocuo.
+ */
+public interface ModificheDAO {
+
+    /**
+     * Eliminazione registrata dal database.
+     * @param tabella {@link #TODO}, {@link #CONDIVISIONE} o {@link #BACHECA}
+     * @param todoId ID del Task (null per le bacheche)
+     * @param bachecaId Bacheca del Task, bacheca di destinazione della condivisione o bacheca eliminata
+     * @param utenteId Autore del Task, destinatario della condivisione o proprietario della bacheca
+     */
+    record Eliminazione(char tabella, Integer todoId, Integer bachecaId, int utenteId) {
+        /** Eliminazione di un Task. */
+        public static final char TODO = 'T';
+        /** Revoca di una condivisione. */
+        public static final char CONDIVISIONE = 'C';
+        /** Eliminazione di una bacheca. */
+        public static final char BACHECA = 'B';
+    }
+
+    /**
+     * Restituisce la versione corrente, da leggere prima dei dati a cui si riferisce.
+     * @return Versione da passare alla lettura delle modifiche successive
+     */
+    long versioneCorrente();
+
+    /**
+     * Restituisce le eliminazioni che riguardano un utente avvenute dalla versione indicata:
+     * i suoi Task e bacheche, le condivisioni revocate verso di lui e quelle dei Task che vede.
+     * @param utenteId ID dell'utente
+     * @param daVersione Versione della lettura precedente
+     * @return Eliminazioni nell'ordine in cui sono avvenute
+     */
+    List<Eliminazione> findEliminazioniDa(int utenteId, long daVersione);
+
+    /**
+     * Restituisce la versione fino alla quale le eliminazioni registrate sono state cancellate.
+     * Una lettura da una versione non successiva potrebbe non vedere alcune eliminazioni e va sostituita
+     * da un caricamento completo. Va letta dopo le eliminazioni, così una cancellazione avvenuta nel
+     * frattempo non passa inosservata.
+     * @return Versione dell'ultima eliminazione cancellata, oppure 0 se non ne è mai stata cancellata nessuna
+     */
+    long orizzonteEliminazioni();
+
+    /**
+     * Cancella le eliminazioni registrate prima del periodo di conservazione e avanza l'orizzonte
+     * restituito da {@link #orizzonteEliminazioni()}.
+     * @param conservazione Periodo per cui le eliminazioni vengono conservate
+     * @return Numero di eliminazioni cancellate
+     */
+    int potaEliminazioni(Duration conservazione);
+}
@@ -2,15 +2,58 @@ package dao;
 
 import model.ToDo;
 import model.Bacheca;
+import model.TitoloBacheca;
 import model.Utente;
+import java.awt.Image;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interfaccia DAO per la gestione dei Task.
  * Definisce le operazioni CRUD, di ricerca e di condivisione per i Task nel database.
  */
 public interface ToDoDAO {
+    /**
+     * Esito di un aggiornamento condizionato alla versione del Task.
+     */
+    enum EsitoAggiornamento {
+        /** Il Task è stato aggiornato e la sua versione incrementata. */
+        AGGIORNATO,
+        /** Il Task è stato modificato da altri dopo la lettura: nessuna modifica applicata. */
+        CONFLITTO,
+        /** Il Task non esiste più. */
+        NON_TROVATO
+    }
+
+    /**
+     * Esito di una condivisione per username.
+     */
+    enum EsitoCondivisione {
+        /** La condivisione è stata aggiunta. */
+        CONDIVISO,
+        /** Il Task era già condiviso con l'utente: nessuna modifica applicata. */
+        GIA_CONDIVISO,
+        /** L'utente destinatario è l'autore del Task. */
+        AUTORE,
+        /** Nessun utente con lo username indicato. */
+        UTENTE_NON_TROVATO,
+        /** Il destinatario non ha la bacheca di destinazione indicata. */
+        BACHECA_NON_TROVATA,
+        /** Il Task non esiste più. */
+        TASK_NON_TROVATO
+    }
+
+    /**
+     * Risultato di una condivisione per username.
+     * @param esito Esito della condivisione
+     * @param destinatario Utente destinatario, null se non trovato
+     * @param bachecaDestinazioneId ID della bacheca di destinazione, null se non trovata
+     */
+    record RisultatoCondivisione(EsitoCondivisione esito, Utente destinatario, Integer bachecaDestinazioneId) {
+    }
+
     /**
      * Cerca un Task tramite ID.
      * @param id ID del Task
@@ -18,6 +61,29 @@ public interface ToDoDAO {
      */
     Optional<ToDo> findById(int id);
 
+    /**
+     * Restituisce i Task con gli ID indicati, con un'unica query.
+     * @param ids ID dei Task (gli ID inesistenti sono ignorati)
+     * @return Task trovati, ordinati per ID
+     */
+    List<ToDo> findAllByIds(List<Integer> ids);
+
+    /**
+     * Restituisce i Task con gli ID indicati senza immagini, con una query per le righe (con l'autore) e una
+     * per gli utenti condivisi. Le immagini che servono si leggono con {@link #findImmaginiByIds(List)}.
+     * @param utenteId Utente di cui impostare bachecaDestinazioneId per i Task condivisi con lui
+     * @param ids ID dei Task (gli ID inesistenti sono ignorati)
+     * @return Task trovati, ordinati per ID, con autore e utenti condivisi impostati
+     */
+    List<ToDo> findAllSenzaImmaginiByIds(int utenteId, List<Integer> ids);
+
+    /**
+     * Restituisce le immagini dei Task indicati, con un'unica query.
+     * @param ids ID dei Task
+     * @return Immagine per ID del Task; i Task senza immagine o inesistenti non compaiono
+     */
+    Map<Integer, Image> findImmaginiByIds(List<Integer> ids);
+
     /**
      * Restituisce tutti i Task associati a una bacheca.
      * @param bacheca Oggetto Bacheca
@@ -32,6 +98,48 @@ public interface ToDoDAO {
      */
     List<ToDo> findAllByBachecaId(int bachecaId);
 
+    /**
+     * Restituisce una pagina di Task di una bacheca con paginazione keyset su (posizione, id).
+     * Vengono restituiti solo i Task successivi alla coppia (afterPosizione, afterId), nell'ordine
+     * della bacheca; per la prima pagina si usa Integer.MIN_VALUE per entrambi i valori.
+     * @param bachecaId ID della bacheca
+     * @param afterPosizione Posizione dell'ultimo Task della pagina precedente
+     * @param afterId ID dell'ultimo Task della pagina precedente
+     * @param limit Numero massimo di Task da restituire
+     * @return Lista di Task della pagina, vuota se non ce ne sono altri
+     */
+    List<ToDo> findPageByBachecaId(int bachecaId, int afterPosizione, int afterId, int limit);
+
+    /**
+     * Legge in streaming i Task di una bacheca successivi alla coppia (afterPosizione, afterId),
+     * nell'ordine (posizione, id). Le righe vengono lette dal database a blocchi durante il consumo,
+     * quindi la memoria occupata non dipende dal numero di Task. L'autore non viene risolto
+     * (è disponibile solo autoreId). Lo stream va chiuso, ad esempio con try-with-resources.
+     * @param bachecaId ID della bacheca
+     * @param afterPosizione Posizione da cui iniziare (esclusa); Integer.MIN_VALUE per l'intera bacheca
+     * @param afterId ID da cui iniziare (escluso); Integer.MIN_VALUE per l'intera bacheca
+     * @return Stream dei Task, da chiudere dopo l'uso
+     */
+    Stream<ToDo> streamByBachecaId(int bachecaId, int afterPosizione, int afterId);
+
+    /**
+     * Come {@link #streamByBachecaId(int, int, int)}, ma senza leggere le immagini: adatto a scorrere molti Task
+     * quando servono solo i campi testuali e di stato, ad es. per riempire un {@link model.ArchivioToDo}.
+     * @param bachecaId ID della bacheca
+     * @param afterPosizione Posizione da cui iniziare (esclusa); Integer.MIN_VALUE per l'intera bacheca
+     * @param afterId ID da cui iniziare (escluso); Integer.MIN_VALUE per l'intera bacheca
+     * @return Stream dei Task senza immagine, da chiudere dopo l'uso
+     */
+    Stream<ToDo> streamSenzaImmaginiByBachecaId(int bachecaId, int afterPosizione, int afterId);
+
+    /**
+     * Legge in streaming tutti i Task creati da un autore, ordinati per ID.
+     * Come per {@link #streamByBachecaId(int, int, int)} l'autore non viene risolto e lo stream va chiuso.
+     * @param autoreId ID dell'autore
+     * @return Stream dei Task, da chiudere dopo l'uso
+     */
+    Stream<ToDo> streamAllByAutoreId(int autoreId);
+
     /**
      * Restituisce tutti i Task creati da un autore.
      * @param autore Oggetto Utente autore
@@ -60,6 +168,17 @@ public interface ToDoDAO {
      */
     List<ToDo> findAllSharedWithUserAndDestination(Utente utente);
 
+    /**
+     * Restituisce i Task visibili a un utente (delle sue bacheche o condivisi con lui) modificati
+     * dalla versione indicata, compresi quelli di cui è cambiato l'elenco delle condivisioni.
+     * I Task sono letti senza immagini: quelle che servono si leggono con {@link #findImmaginiByIds(List)}.
+     * Ogni Task ha autore e utenti condivisi impostati; quelli condivisi con l'utente anche bachecaDestinazioneId.
+     * @param utenteId ID dell'utente
+     * @param daVersione Versione restituita da {@link ModificheDAO#versioneCorrente()} alla lettura precedente
+     * @return Task modificati
+     */
+    List<ToDo> findModificatiDa(int utenteId, long daVersione);
+
     /**
      * Salva un nuovo Task nel database.
      * @param todo Oggetto Task da salvare
@@ -68,12 +187,47 @@ public interface ToDoDAO {
     boolean save(ToDo todo);
 
     /**
-     * Aggiorna un Task esistente nel database.
+     * Salva più Task nuovi in un'unica operazione, assegnando a ciascuno l'ID generato.
+     * L'inserimento è atomico: o vengono salvati tutti o nessuno. La transazione non usa una connessione
+     * condivisa con altri thread.
+     * @param todos Task da salvare
+     * @return true se tutti i Task sono stati salvati, false altrimenti
+     */
+    boolean saveAll(List<ToDo> todos);
+
+    /**
+     * Aggiorna un Task esistente nel database, se la sua versione corrisponde a quella letta.
      * @param todo Oggetto Task da aggiornare
-     * @return true se l'aggiornamento ha successo, false altrimenti
+     * @return true se l'aggiornamento ha successo, false altrimenti (anche in caso di conflitto)
      */
     boolean update(ToDo todo);
 
+    /**
+     * Aggiorna un Task solo se la versione sul database è ancora quella del Task indicato;
+     * in caso di successo imposta sul Task la nuova versione.
+     * @param todo Task da aggiornare, con la versione letta in precedenza
+     * @return Esito dell'aggiornamento
+     */
+    EsitoAggiornamento updateSeVersione(ToDo todo);
+
+    /**
+     * Aggiorna più Task in un'unica operazione, ciascuno solo se la versione sul database è ancora
+     * quella del Task indicato; ai Task aggiornati imposta la nuova versione. Gli aggiornamenti avvengono
+     * in un'unica transazione, che non usa una connessione condivisa con altri thread.
+     * @param todos Task da aggiornare, con la versione letta in precedenza
+     * @return Esito di ogni aggiornamento, nello stesso ordine dei Task
+     */
+    List<EsitoAggiornamento> updateTuttiSeVersione(List<ToDo> todos);
+
+    /**
+     * Segna come completati, con un'unica istruzione, tutti i Task non completati di una bacheca
+     * e gli eventuali Task condivisi indicati.
+     * @param bachecaId ID della bacheca
+     * @param idCondivisi ID dei Task di altre bacheche condivisi e mostrati nella bacheca (può essere vuota)
+     * @return Nuova versione di ciascun Task effettivamente modificato, per ID
+     */
+    Map<Integer, Integer> completaTutti(int bachecaId, List<Integer> idCondivisi);
+
     /**
      * Elimina un Task tramite ID.
      * @param id ID del Task da eliminare
@@ -81,6 +235,13 @@ public interface ToDoDAO {
      */
     boolean delete(int id);
 
+    /**
+     * Elimina più Task con un'unica istruzione.
+     * @param ids ID dei Task da eliminare (gli ID inesistenti sono ignorati)
+     * @return Numero di Task eliminati
+     */
+    int deleteAll(List<Integer> ids);
+
     /**
      * Aggiunge una condivisione di un Task con un altro utente.
      * @param todo Task da condividere
@@ -104,4 +265,23 @@ public interface ToDoDAO {
      * @return Lista di utenti con cui il Task è condiviso
      */
     List<Utente> getUtentiCondivisione(ToDo todo);
+
+    /**
+     * Condivide un Task con l'utente indicato per username, sulla sua bacheca con il titolo indicato.
+     * Ricerca del destinatario e della bacheca, verifica della condivisione esistente e inserimento
+     * avvengono in un'unica istruzione, quindi con un solo round trip verso il database.
+     * @param todoId ID del Task da condividere
+     * @param username Username del destinatario
+     * @param titoloBacheca Titolo della bacheca di destinazione del destinatario
+     * @return Risultato della condivisione
+     */
+    RisultatoCondivisione condividiConUsername(int todoId, String username, TitoloBacheca titoloBacheca);
+
+    /**
+     * Rimuove la condivisione di un Task per l'utente indicato per username, con un'unica istruzione.
+     * @param todoId ID del Task condiviso
+     * @param username Username dell'utente da rimuovere dalla condivisione
+     * @return Optional con l'utente rimosso, vuoto se l'utente non esiste o il Task non era condiviso con lui
+     */
+    Optional<Utente> removeCondivisioneByUsername(int todoId, String username);
 }
\ No newline at end of file
@@ -0,0 +1,217 @@
+package dao;
+
+import model.Bacheca;
+import model.TitoloBacheca;
+import model.ToDo;
+import model.Utente;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Variante asincrona di {@link ToDoDAO}: le stesse operazioni, con lo stesso risultato, restituite come
+ * CompletableFuture; le letture in streaming diventano {@link Flow.Publisher} con contropressione.
+ * Il thread chiamante non si blocca; gli errori completano il future (o il publisher) in modo eccezionale
+ * con una DatabaseConnectionException.
+ */
+public interface ToDoDAOAsincrono {
+    /**
+     * Vedi {@link ToDoDAO#findById(int)}.
+     * @param id ID del Task
+     * @return Future con il Task, se trovato
+     */
+    CompletableFuture<Optional<ToDo>> findById(int id);
+
+    /**
+     * Vedi {@link ToDoDAO#findAllByIds(List)}.
+     * @param ids ID dei Task
+     * @return Future con i Task trovati, ordinati per ID
+     */
+    CompletableFuture<List<ToDo>> findAllByIds(List<Integer> ids);
+
+    /**
+     * Vedi {@link ToDoDAO#findAllByBacheca(Bacheca)}.
+     * @param bacheca Bacheca dei Task
+     * @return Future con i Task della bacheca
+     */
+    CompletableFuture<List<ToDo>> findAllByBacheca(Bacheca bacheca);
+
+    /**
+     * Vedi {@link ToDoDAO#findAllByBachecaId(int)}.
+     * @param bachecaId ID della bacheca
+     * @return Future con i Task della bacheca
+     */
+    CompletableFuture<List<ToDo>> findAllByBachecaId(int bachecaId);
+
+    /**
+     * Vedi {@link ToDoDAO#findPageByBachecaId(int, int, int, int)}.
+     * @param bachecaId ID della bacheca
+     * @param afterPosizione Posizione dell'ultimo Task della pagina precedente
+     * @param afterId ID dell'ultimo Task della pagina precedente
+     * @param limit Numero massimo di Task da restituire
+     * @return Future con i Task della pagina
+     */
+    CompletableFuture<List<ToDo>> findPageByBachecaId(int bachecaId, int afterPosizione, int afterId, int limit);
+
+    /**
+     * Versione a publisher di {@link ToDoDAO#streamByBachecaId(int, int, int)}: ogni sottoscrizione esegue
+     * la query e consegna i Task man mano che vengono letti, al ritmo richiesto dal sottoscrittore.
+     * @param bachecaId ID della bacheca
+     * @param afterPosizione Posizione da cui iniziare (esclusa)
+     * @param afterId ID da cui iniziare (escluso)
+     * @return Publisher dei Task
+     */
+    Flow.Publisher<ToDo> publishByBachecaId(int bachecaId, int afterPosizione, int afterId);
+
+    /**
+     * Versione a publisher di {@link ToDoDAO#streamSenzaImmaginiByBachecaId(int, int, int)}.
+     * @param bachecaId ID della bacheca
+     * @param afterPosizione Posizione da cui iniziare (esclusa)
+     * @param afterId ID da cui iniziare (escluso)
+     * @return Publisher dei Task senza immagine
+     */
+    Flow.Publisher<ToDo> publishSenzaImmaginiByBachecaId(int bachecaId, int afterPosizione, int afterId);
+
+    /**
+     * Versione a publisher di {@link ToDoDAO#streamAllByAutoreId(int)}.
+     * @param autoreId ID dell'autore
+     * @return Publisher dei Task
+     */
+    Flow.Publisher<ToDo> publishAllByAutoreId(int autoreId);
+
+    /**
+     * Vedi {@link ToDoDAO#findAllByAutore(Utente)}.
+     * @param autore Utente autore
+     * @return Future con i Task creati dall'autore
+     */
+    CompletableFuture<List<ToDo>> findAllByAutore(Utente autore);
+
+    /**
+     * Vedi {@link ToDoDAO#findAllByAutoreId(int)}.
+     * @param autoreId ID dell'autore
+     * @return Future con i Task creati dall'autore
+     */
+    CompletableFuture<List<ToDo>> findAllByAutoreId(int autoreId);
+
+    /**
+     * Vedi {@link ToDoDAO#findAllSharedWithUser(Utente)}.
+     * @param utente Utente destinatario della condivisione
+     * @return Future con i Task condivisi con l'utente
+     */
+    CompletableFuture<List<ToDo>> findAllSharedWithUser(Utente utente);
+
+    /**
+     * Vedi {@link ToDoDAO#findAllSharedWithUserAndDestination(Utente)}.
+     * @param utente Utente destinatario della condivisione
+     * @return Future con i Task condivisi con l'utente, con bachecaDestinazioneId impostato
+     */
+    CompletableFuture<List<ToDo>> findAllSharedWithUserAndDestination(Utente utente);
+
+    /**
+     * Vedi {@link ToDoDAO#findModificatiDa(int, long)}.
+     * @param utenteId ID dell'utente
+     * @param daVersione Versione della lettura precedente
+     * @return Future con i Task modificati
+     */
+    CompletableFuture<List<ToDo>> findModificatiDa(int utenteId, long daVersione);
+
+    /**
+     * Vedi {@link ToDoDAO#save(ToDo)}.
+     * @param todo Task da salvare
+     * @return Future con l'esito del salvataggio
+     */
+    CompletableFuture<Boolean> save(ToDo todo);
+
+    /**
+     * Vedi {@link ToDoDAO#saveAll(List)}.
+     * @param todos Task da salvare
+     * @return Future con l'esito del salvataggio
+     */
+    CompletableFuture<Boolean> saveAll(List<ToDo> todos);
+
+    /**
+     * Vedi {@link ToDoDAO#update(ToDo)}.
+     * @param todo Task da aggiornare
+     * @return Future con l'esito dell'aggiornamento
+     */
+    CompletableFuture<Boolean> update(ToDo todo);
+
+    /**
+     * Vedi {@link ToDoDAO#updateSeVersione(ToDo)}.
+     * @param todo Task da aggiornare, con la versione letta in precedenza
+     * @return Future con l'esito dell'aggiornamento
+     */
+    CompletableFuture<ToDoDAO.EsitoAggiornamento> updateSeVersione(ToDo todo);
+
+    /**
+     * Vedi {@link ToDoDAO#updateTuttiSeVersione(List)}.
+     * @param todos Task da aggiornare, con la versione letta in precedenza
+     * @return Future con l'esito di ogni aggiornamento
+     */
+    CompletableFuture<List<ToDoDAO.EsitoAggiornamento>> updateTuttiSeVersione(List<ToDo> todos);
+
+    /**
+     * Vedi {@link ToDoDAO#completaTutti(int, List)}.
+     * @param bachecaId ID della bacheca
+     * @param idCondivisi ID dei Task condivisi mostrati nella bacheca
+     * @return Future con la nuova versione di ciascun Task modificato
+     */
+    CompletableFuture<Map<Integer, Integer>> completaTutti(int bachecaId, List<Integer> idCondivisi);
+
+    /**
+     * Vedi {@link ToDoDAO#delete(int)}.
+     * @param id ID del Task da eliminare
+     * @return Future con l'esito dell'eliminazione
+     */
+    CompletableFuture<Boolean> delete(int id);
+
+    /**
+     * Vedi {@link ToDoDAO#deleteAll(List)}.
+     * @param ids ID dei Task da eliminare
+     * @return Future con il numero di Task eliminati
+     */
+    CompletableFuture<Integer> deleteAll(List<Integer> ids);
+
+    /**
+     * Vedi {@link ToDoDAO#addCondivisione(ToDo, Utente, Integer)}.
+     * @param todo Task da condividere
+     * @param utenteConCuiCondividere Utente destinatario
+     * @param bachecaDestinazioneId ID della bacheca di destinazione del destinatario
+     * @return Future con l'esito della condivisione
+     */
+    CompletableFuture<Boolean> addCondivisione(ToDo todo, Utente utenteConCuiCondividere, Integer bachecaDestinazioneId);
+
+    /**
+     * Vedi {@link ToDoDAO#removeCondivisione(ToDo, Utente)}.
+     * @param todo Task condiviso
+     * @param utenteDaRimuovere Utente da rimuovere dalla condivisione
+     * @return Future con l'esito della rimozione
+     */
+    CompletableFuture<Boolean> removeCondivisione(ToDo todo, Utente utenteDaRimuovere);
+
+    /**
+     * Vedi {@link ToDoDAO#getUtentiCondivisione(ToDo)}.
+     * @param todo Task di interesse
+     * @return Future con gli utenti con cui il Task è condiviso
+     */
+    CompletableFuture<List<Utente>> getUtentiCondivisione(ToDo todo);
+
+    /**
+     * Vedi {@link ToDoDAO#condividiConUsername(int, String, TitoloBacheca)}.
+     * @param todoId ID del Task da condividere
+     * @param username Username del destinatario
+     * @param titoloBacheca Titolo della bacheca di destinazione del destinatario
+     * @return Future con il risultato della condivisione
+     */
+    CompletableFuture<ToDoDAO.RisultatoCondivisione> condividiConUsername(int todoId, String username, TitoloBacheca titoloBacheca);
+
+    /**
+     * Vedi {@link ToDoDAO#removeCondivisioneByUsername(int, String)}.
+     * @param todoId ID del Task condiviso
+     * @param username Username dell'utente da rimuovere dalla condivisione
+     * @return Future con l'utente rimosso, se la condivisione esisteva
+     */
+    CompletableFuture<Optional<Utente>> removeCondivisioneByUsername(int todoId, String username);
+}
@@ -1,6 +1,7 @@
 package dao;
 
 import model.Utente;
+import model.UtenteRef;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,10 +25,33 @@ public interface UtenteDAO {
     Optional<Utente> findByUsername(String username);
 
     /**
-     * Restituisce la lista di tutti gli utenti presenti nel database.
-     * @return Lista di utenti
+     * Cerca ID e username di un utente tramite ID, senza leggere l'hash della password.
+     * @param id ID dell'utente
+     * @return Optional contenente il riferimento se trovato, altrimenti Optional vuoto
+     */
+    Optional<UtenteRef> findRefById(int id);
+
+    /**
+     * Cerca ID e username di un utente tramite username, senza leggere l'hash della password.
+     * Da usare in tutte le ricerche che non autenticano l'utente.
+     * @param username Username da cercare
+     * @return Optional contenente il riferimento se trovato, altrimenti Optional vuoto
+     */
+    Optional<UtenteRef> findRefByUsername(String username);
+
+    /**
+     * Cerca gli utenti il cui username inizia con il prefisso indicato, in ordine alfabetico.
+     * @param prefisso Prefisso dello username (i caratteri jolly di LIKE vengono trattati come letterali)
+     * @param limite Numero massimo di utenti restituiti
+     * @return Lista di riferimenti (ID e username), vuota se nessuno corrisponde
+     */
+    List<UtenteRef> findByUsernamePrefix(String prefisso, int limite);
+
+    /**
+     * Restituisce la lista di tutti gli utenti presenti nel database, senza hash delle password.
+     * @return Lista di riferimenti (ID e username)
      */
-    List<Utente> findAll();
+    List<UtenteRef> findAll();
 
     /**
      * Salva un nuovo utente nel database (insert).
@@ -0,0 +1,84 @@
+package dao;
+
+import model.Utente;
+import model.UtenteRef;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Variante asincrona di {@link UtenteDAO}: le stesse operazioni, con lo stesso risultato, restituite come
+ * CompletableFuture. Il thread chiamante non si blocca; gli errori completano il future in modo eccezionale
+ * con una DatabaseConnectionException.
+ */
+public interface UtenteDAOAsincrono {
+    /**
+     * Vedi {@link UtenteDAO#findById(int)}.
+     * @param id ID dell'utente
+     * @return Future con l'utente, se trovato
+     */
+    CompletableFuture<Optional<Utente>> findById(int id);
+
+    /**
+     * Vedi {@link UtenteDAO#findByUsername(String)}.
+     * @param username Username da cercare
+     * @return Future con l'utente, se trovato
+     */
+    CompletableFuture<Optional<Utente>> findByUsername(String username);
+
+    /**
+     * Vedi {@link UtenteDAO#findRefById(int)}.
+     * @param id ID dell'utente
+     * @return Future con il riferimento, se trovato
+     */
+    CompletableFuture<Optional<UtenteRef>> findRefById(int id);
+
+    /**
+     * Vedi {@link UtenteDAO#findRefByUsername(String)}.
+     * @param username Username da cercare
+     * @return Future con il riferimento, se trovato
+     */
+    CompletableFuture<Optional<UtenteRef>> findRefByUsername(String username);
+
+    /**
+     * Vedi {@link UtenteDAO#findByUsernamePrefix(String, int)}.
+     * @param prefisso Prefisso dello username
+     * @param limite Numero massimo di utenti restituiti
+     * @return Future con gli utenti in ordine alfabetico
+     */
+    CompletableFuture<List<UtenteRef>> findByUsernamePrefix(String prefisso, int limite);
+
+    /**
+     * Vedi {@link UtenteDAO#findAll()}.
+     * @return Future con tutti gli utenti
+     */
+    CompletableFuture<List<UtenteRef>> findAll();
+
+    /**
+     * Vedi {@link UtenteDAO#save(Utente)}.
+     * @param utente Utente da salvare
+     * @return Future con l'esito del salvataggio
+     */
+    CompletableFuture<Boolean> save(Utente utente);
+
+    /**
+     * Vedi {@link UtenteDAO#update(Utente)}.
+     * @param utente Utente da aggiornare
+     * @return Future con l'esito dell'aggiornamento
+     */
+    CompletableFuture<Boolean> update(Utente utente);
+
+    /**
+     * Vedi {@link UtenteDAO#delete(int)}.
+     * @param id ID dell'utente da eliminare
+     * @return Future con l'esito dell'eliminazione
+     */
+    CompletableFuture<Boolean> delete(int id);
+
+    /**
+     * Vedi {@link UtenteDAO#deleteByUsername(String)}.
+     * @param username Username dell'utente da eliminare
+     * @return Future con l'esito dell'eliminazione
+     */
+    CompletableFuture<Boolean> deleteByUsername(String username);
+}
@@ -0,0 +1,38 @@
+package dao;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Interfaccia DAO per l'esportazione e l'importazione in blocco del workspace di un utente
+ * (bacheche, Task e relative immagini).
+ */
+public interface WorkspaceDAO {
+
+    /**
+     * Esito di un'importazione.
+     * @param bacheche Numero di bacheche create (quelle già esistenti con lo stesso titolo vengono riusate)
+     * @param todos Numero di Task importati
+     * @param immagini Numero di immagini importate
+     */
+    record RisultatoImportazione(int bacheche, int todos, int immagini) {
+    }
+
+    /**
+     * Scrive il workspace dell'utente nello stream indicato, come archivio ZIP.
+     * Lo stream non viene chiuso.
+     * @param utenteId ID dell'utente
+     * @param out Stream di destinazione
+     */
+    void esporta(int utenteId, OutputStream out);
+
+    /**
+     * Importa nel workspace dell'utente un archivio prodotto da {@link #esporta(int, OutputStream)}.
+     * I Task vengono accodati alle bacheche con lo stesso titolo, creandole se non esistono.
+     * L'importazione avviene in un'unica transazione: in caso di errore non viene importato nulla.
+     * @param utenteId ID dell'utente di destinazione
+     * @param in Stream dell'archivio
+     * @return Esito dell'importazione
+     */
+    RisultatoImportazione importa(int utenteId, InputStream in);
+}
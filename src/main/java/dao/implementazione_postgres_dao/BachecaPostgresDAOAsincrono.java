@@ -0,0 +1,86 @@
+package dao.implementazione_postgres_dao;
+
+import dao.BachecaDAO;
+import dao.BachecaDAOAsincrono;
+import metrics.DaoMetrics;
+import model.Bacheca;
+import model.TitoloBacheca;
+import model.Utente;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Implementazione Postgres di {@link BachecaDAOAsincrono}. Ogni operazione esegue la corrispondente
+ * operazione di {@link BachecaPostgresDAOImpl} su un virtual thread, con una connessione del pool:
+ * query e mappatura sono le stesse, quindi i risultati coincidono con quelli del DAO bloccante.
+ */
+public class BachecaPostgresDAOAsincrono implements BachecaDAOAsincrono {
+
+    private final EsecutoreJdbc jdbc;
+
+    /**
+     * Costruttore.
+     * @param jdbc Esecutore delle operazioni JDBC
+     */
+    public BachecaPostgresDAOAsincrono(EsecutoreJdbc jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    private <T> CompletableFuture<T> esegui(Function<BachecaDAO, T> operazione) {
+        return jdbc.esegui(conn -> operazione.apply(
+                DaoMetrics.strumenta(BachecaDAO.class, new BachecaPostgresDAOImpl(conn), "bacheca")));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Bacheca>> findById(int id) {
+        return esegui(dao -> dao.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<List<Bacheca>> findByUtente(Utente utente) {
+        return esegui(dao -> dao.findByUtente(utente));
+    }
+
+    @Override
+    public CompletableFuture<List<Bacheca>> findByUtenteId(int utenteId) {
+        return esegui(dao -> dao.findByUtenteId(utenteId));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Bacheca>> findByUtenteAndTitolo(Utente utente, TitoloBacheca titolo) {
+        return esegui(dao -> dao.findByUtenteAndTitolo(utente, titolo));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Bacheca>> findByUtenteIdAndTitolo(int utenteId, TitoloBacheca titolo) {
+        return esegui(dao -> dao.findByUtenteIdAndTitolo(utenteId, titolo));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> save(Bacheca bacheca, int utenteId) {
+        return esegui(dao -> dao.save(bacheca, utenteId));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> update(Bacheca bacheca) {
+        return esegui(dao -> dao.update(bacheca));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> delete(int id) {
+        return esegui(dao -> dao.delete(id));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteByUtenteAndTitolo(Utente utente, TitoloBacheca titolo) {
+        return esegui(dao -> dao.deleteByUtenteAndTitolo(utente, titolo));
+    }
+
+    @Override
+    public CompletableFuture<List<Bacheca>> findModificateDa(int utenteId, long daVersione) {
+        return esegui(dao -> dao.findModificateDa(utenteId, daVersione));
+    }
+}
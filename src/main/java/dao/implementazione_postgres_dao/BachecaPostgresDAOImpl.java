@@ -21,6 +21,13 @@ public class BachecaPostgresDAOImpl implements BachecaDAO {
 
     private Connection conn;
     private static final Logger LOGGER = Logger.getLogger(BachecaPostgresDAOImpl.class.getName());
+    private static final String SQL_FIND_BY_ID = "SELECT id, utente_id, titolo_bacheca, descrizione FROM bacheche WHERE id = ?";
+    private static final String SQL_FIND_BY_UTENTE_ID = "SELECT id, utente_id, titolo_bacheca, descrizione FROM bacheche WHERE utente_id = ?";
+    private static final String SQL_FIND_BY_UTENTE_ID_AND_TITOLO = "SELECT id, utente_id, titolo_bacheca, descrizione FROM bacheche WHERE utente_id = ? AND titolo_bacheca = ?";
+    private static final String SQL_SAVE = "INSERT INTO bacheche (utente_id, titolo_bacheca, descrizione) VALUES (?, ?, ?) RETURNING id";
+    private static final String SQL_UPDATE = "UPDATE bacheche SET titolo_bacheca = ?, descrizione = ? WHERE id = ? AND utente_id = ?";
+    private static final String SQL_DELETE = "DELETE FROM bacheche WHERE id = ?";
+    private static final String SQL_FIND_MODIFICATE_DA = "SELECT id, utente_id, titolo_bacheca, descrizione FROM bacheche WHERE xid_modifica >= ?::text::xid8 AND utente_id = ?";
 
     /**
      * Costruttore. Inizializza la connessione al database tramite il singleton ConnessioneDatabase.
@@ -36,6 +43,15 @@ public class BachecaPostgresDAOImpl implements BachecaDAO {
         }
     }
 
+    /**
+     * Costruttore che usa la connessione indicata, ad es. presa da un pool.
+     * La connessione resta del chiamante, che la chiude o la restituisce al pool.
+     * @param conn Connessione da usare
+     */
+    public BachecaPostgresDAOImpl(Connection conn) {
+        this.conn = conn;
+    }
+
     /**
      * Cerca una bacheca tramite ID.
      * @param id ID della bacheca
@@ -48,8 +64,7 @@ public class BachecaPostgresDAOImpl implements BachecaDAO {
             LOGGER.severe("findById Bacheca fallito: connessione DB non disponibile.");
             return Optional.empty();
         }
-        String query = "SELECT id, utente_id, titolo_bacheca, descrizione FROM bacheche WHERE id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_BY_ID)) {
             ps.setInt(1, id);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
@@ -89,8 +104,7 @@ public class BachecaPostgresDAOImpl implements BachecaDAO {
             LOGGER.severe("findByUtenteId Bacheche fallito: connessione DB non disponibile.");
             return bacheche;
         }
-        String query = "SELECT id, utente_id, titolo_bacheca, descrizione FROM bacheche WHERE utente_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_BY_UTENTE_ID)) {
             ps.setInt(1, utenteId);
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
@@ -131,8 +145,7 @@ public class BachecaPostgresDAOImpl implements BachecaDAO {
             LOGGER.severe("findByUtenteIdAndTitolo Bacheca fallito: connessione DB non disponibile.");
             return Optional.empty();
         }
-        String query = "SELECT id, utente_id, titolo_bacheca, descrizione FROM bacheche WHERE utente_id = ? AND titolo_bacheca = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_BY_UTENTE_ID_AND_TITOLO)) {
             ps.setInt(1, utenteId);
             ps.setString(2, titolo.name());
             ResultSet rs = ps.executeQuery();
@@ -159,8 +172,7 @@ public class BachecaPostgresDAOImpl implements BachecaDAO {
             LOGGER.severe("save Bacheca fallito: connessione DB non disponibile.");
             return false;
         }
-        String query = "INSERT INTO bacheche (utente_id, titolo_bacheca, descrizione) VALUES (?, ?, ?) RETURNING id";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_SAVE)) {
             ps.setInt(1, utenteId);
             ps.setString(2, bacheca.getTitoloEnum().name());
             ps.setString(3, bacheca.getDescrizione());
@@ -198,8 +210,7 @@ public class BachecaPostgresDAOImpl implements BachecaDAO {
             LOGGER.severe("Impossibile aggiornare bacheca senza ID.");
             return false;
         }
-        String query = "UPDATE bacheche SET titolo_bacheca = ?, descrizione = ? WHERE id = ? AND utente_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_UPDATE)) {
             ps.setString(1, bacheca.getTitoloEnum().name());
             ps.setString(2, bacheca.getDescrizione());
             ps.setInt(3, bacheca.getId());
@@ -225,8 +236,7 @@ public class BachecaPostgresDAOImpl implements BachecaDAO {
             LOGGER.severe("delete Bacheca fallito: connessione DB non disponibile.");
             return false;
         }
-        String query = "DELETE FROM bacheche WHERE id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_DELETE)) {
             ps.setInt(1, id);
             int affectedRows = ps.executeUpdate();
             return affectedRows > 0;
@@ -255,6 +265,34 @@ public class BachecaPostgresDAOImpl implements BachecaDAO {
         return false;
     }
 
+    /**
+     * Restituisce le bacheche di un utente create o modificate dalla versione indicata.
+     * @param utenteId ID dell'utente
+     * @param daVersione Versione della lettura precedente
+     * @return Bacheche modificate
+     * @throws DatabaseConnectionException in caso di errore SQL
+     */
+    @Override
+    public List<Bacheca> findModificateDa(int utenteId, long daVersione) {
+        List<Bacheca> bacheche = new ArrayList<>();
+        if (conn == null) {
+            LOGGER.severe("findModificateDa Bacheche fallito: connessione DB non disponibile.");
+            return bacheche;
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_MODIFICATE_DA)) {
+            ps.setLong(1, daVersione);
+            ps.setInt(2, utenteId);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                bacheche.add(mapRowToBacheca(rs));
+            }
+        } catch (SQLException e) {
+            LOGGER.severe("Errore findModificateDa Bacheche: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore findModificateDa Bacheche", e);
+        }
+        return bacheche;
+    }
+
     /**
      * Mappa una riga del ResultSet a un oggetto Bacheca.
      * @param rs ResultSet posizionato sulla riga da mappare
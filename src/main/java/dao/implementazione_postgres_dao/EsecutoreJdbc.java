@@ -0,0 +1,125 @@
+package dao.implementazione_postgres_dao;
+
+import database.PoolConnessioni;
+import metrics.MetricsRegistry;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.stream.Stream;
+
+/**
+ * Esegue operazioni JDBC bloccanti su virtual thread, per i DAO asincroni.
+ * Ogni operazione gira sul proprio virtual thread e prende una connessione dal {@link PoolConnessioni}:
+ * il semaforo del pool limita le operazioni che usano il database contemporaneamente, mentre le altre
+ * restano in attesa su virtual thread parcheggiati, senza occupare thread di piattaforma.
+ * Gli errori vengono consegnati al future come {@link DatabaseConnectionException}, come nei DAO bloccanti.
+ */
+public class EsecutoreJdbc implements AutoCloseable {
+
+    private static final MetricsRegistry.Contatore OPERAZIONI = MetricsRegistry.getInstance()
+            .contatore("dao_async_operations_total", "Operazioni eseguite dai DAO asincroni");
+
+    /**
+     * Operazione da eseguire con una connessione del pool.
+     * @param <T> Tipo del risultato
+     */
+    @FunctionalInterface
+    public interface OperazioneJdbc<T> {
+        /**
+         * Esegue l'operazione.
+         * @param connessione Connessione presa dal pool, da non chiudere
+         * @return Risultato dell'operazione
+         * @throws SQLException in caso di errore SQL
+         */
+        T esegui(Connection connessione) throws SQLException;
+    }
+
+    private final PoolConnessioni pool;
+    private final long attesaConnessioneMs;
+    private final ExecutorService virtualThread = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Costruttore.
+     * @param pool Pool delle connessioni, non chiuso da questo esecutore
+     * @param attesaConnessioneMs Attesa massima di una connessione libera per ogni operazione
+     */
+    public EsecutoreJdbc(PoolConnessioni pool, long attesaConnessioneMs) {
+        this.pool = pool;
+        this.attesaConnessioneMs = attesaConnessioneMs;
+    }
+
+    /**
+     * Esegue un'operazione su un virtual thread con una connessione del pool.
+     * @param operazione Operazione da eseguire
+     * @param <T> Tipo del risultato
+     * @return Future completato con il risultato, oppure con una DatabaseConnectionException
+     */
+    public <T> CompletableFuture<T> esegui(OperazioneJdbc<T> operazione) {
+        return CompletableFuture.supplyAsync(() -> {
+            OPERAZIONI.incrementa();
+            try {
+                return conConnessione(operazione);
+            } catch (SQLException e) {
+                throw new CompletionException(new DatabaseConnectionException("Errore nell'operazione asincrona", e));
+            }
+        }, virtualThread);
+    }
+
+    /**
+     * Crea un publisher che a ogni sottoscrizione apre lo stream indicato su un virtual thread e ne
+     * consegna gli elementi rispettando le richieste del sottoscrittore: quando il buffer è pieno il
+     * virtual thread produttore si ferma. La lettura si interrompe se il sottoscrittore annulla.
+     * @param apertura Apre lo stream, che viene chiuso al termine della consegna
+     * @param <T> Tipo degli elementi
+     * @return Publisher a freddo degli elementi dello stream
+     */
+    public <T> Flow.Publisher<T> pubblica(OperazioneJdbc<Stream<T>> apertura) {
+        return sottoscrittore -> {
+            SubmissionPublisher<T> editore = new SubmissionPublisher<>(virtualThread, Flow.defaultBufferSize());
+            editore.subscribe(sottoscrittore);
+            virtualThread.execute(() -> {
+                OPERAZIONI.incrementa();
+                try {
+                    conConnessione(connessione -> {
+                        try (Stream<T> elementi = apertura.esegui(connessione)) {
+                            Iterator<T> it = elementi.iterator();
+                            while (it.hasNext() && editore.hasSubscribers()) {
+                                editore.submit(it.next());
+                            }
+                        }
+                        return null;
+                    });
+                    editore.close();
+                } catch (SQLException e) {
+                    editore.closeExceptionally(new DatabaseConnectionException("Errore nella lettura asincrona", e));
+                } catch (RuntimeException e) {
+                    editore.closeExceptionally(e);
+                }
+            });
+        };
+    }
+
+    /**
+     * Arresta il virtual thread executor; le operazioni già avviate vengono completate.
+     */
+    @Override
+    public void close() {
+        virtualThread.shutdown();
+    }
+
+    private <T> T conConnessione(OperazioneJdbc<T> operazione) throws SQLException {
+        Connection connessione = pool.ottieni(attesaConnessioneMs);
+        try {
+            return operazione.esegui(connessione);
+        } finally {
+            pool.rilascia(connessione);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package dao.implementazione_postgres_dao;
+
+import dao.ModificheDAO;
+import database.ConnessioneDatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Implementazione Postgres del DAO per la sincronizzazione incrementale.
+ * La versione è lo xmin dello snapshot corrente: tutte le transazioni con ID inferiore sono concluse,
+ * quindi le righe con xid_modifica minore sono già state lette, mentre quelle con xid_modifica
+ * maggiore o uguale vengono restituite alla lettura successiva.
+ */
+@SuppressWarnings("java:S2139")
+public class ModifichePostgresDAOImpl implements ModificheDAO {
+
+    private Connection conn;
+    private static final Logger LOGGER = Logger.getLogger(ModifichePostgresDAOImpl.class.getName());
+    private static final String SQL_VERSIONE_CORRENTE = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+    private static final String SQL_FIND_ELIMINAZIONI_DA = "SELECT tabella, todo_id, bacheca_id, utente_id FROM eliminazioni " +
+            "WHERE xid_modifica >= ?::text::xid8 AND (utente_id = ? " +
+            "OR (tabella = 'C' AND (todo_id IN (SELECT id FROM todos WHERE autore_id = ?) " +
+            "OR todo_id IN (SELECT todo_id FROM todo_condivisioni WHERE utente_id = ?)))) " +
+            "ORDER BY xid_modifica, eliminato_il";
+    private static final String SQL_ORIZZONTE_ELIMINAZIONI = "SELECT xid_modifica::text::bigint FROM orizzonte_eliminazioni";
+    private static final String SQL_POTA_ELIMINAZIONI = "SELECT pota_eliminazioni(make_interval(secs => ?))";
+
+    /**
+     * Costruttore. Inizializza la connessione al database tramite il singleton ConnessioneDatabase.
+     * @throws DatabaseConnectionException se la connessione fallisce
+     */
+    public ModifichePostgresDAOImpl() {
+        try {
+            conn = ConnessioneDatabase.getInstance().getConnection();
+        } catch (SQLException e) {
+            LOGGER.severe("Errore nel costruttore di ModifichePostgresDAOImpl: " + e.getMessage());
+            throw new DatabaseConnectionException(
+                    "Impossibile connettersi al database nel costruttore di ModifichePostgresDAOImpl", e);
+        }
+    }
+
+    /**
+     * Costruttore che usa la connessione indicata, ad es. presa da un pool.
+     * La connessione resta del chiamante, che la chiude o la restituisce al pool.
+     * @param conn Connessione da usare
+     */
+    public ModifichePostgresDAOImpl(Connection conn) {
+        this.conn = conn;
+    }
+
+    @Override
+    public long versioneCorrente() {
+        if (conn == null) {
+            // Versione 0: la lettura successiva restituisce tutte le modifiche
+            LOGGER.severe("versioneCorrente fallito: connessione DB non disponibile.");
+            return 0;
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_VERSIONE_CORRENTE);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            LOGGER.severe("Errore versioneCorrente: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore versioneCorrente", e);
+        }
+    }
+
+    @Override
+    public List<Eliminazione> findEliminazioniDa(int utenteId, long daVersione) {
+        List<Eliminazione> eliminazioni = new ArrayList<>();
+        if (conn == null) {
+            LOGGER.severe("findEliminazioniDa fallito: connessione DB non disponibile.");
+            return eliminazioni;
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_ELIMINAZIONI_DA)) {
+            ps.setLong(1, daVersione);
+            ps.setInt(2, utenteId);
+            ps.setInt(3, utenteId);
+            ps.setInt(4, utenteId);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                eliminazioni.add(new Eliminazione(rs.getString("tabella").charAt(0),
+                        rs.getObject("todo_id", Integer.class), rs.getObject("bacheca_id", Integer.class),
+                        rs.getInt("utente_id")));
+            }
+        } catch (SQLException e) {
+            LOGGER.severe("Errore findEliminazioniDa: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore findEliminazioniDa", e);
+        }
+        return eliminazioni;
+    }
+
+    @Override
+    public long orizzonteEliminazioni() {
+        if (conn == null) {
+            LOGGER.severe("orizzonteEliminazioni fallito: connessione DB non disponibile.");
+            throw new DatabaseConnectionException("Connessione DB non disponibile", null);
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_ORIZZONTE_ELIMINAZIONI);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            LOGGER.severe("Errore orizzonteEliminazioni: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore orizzonteEliminazioni", e);
+        }
+    }
+
+    @Override
+    public int potaEliminazioni(Duration conservazione) {
+        if (conn == null) {
+            LOGGER.severe("potaEliminazioni fallito: connessione DB non disponibile.");
+            return 0;
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_POTA_ELIMINAZIONI)) {
+            ps.setLong(1, conservazione.toSeconds());
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            LOGGER.severe("Errore potaEliminazioni: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore potaEliminazioni", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package dao.implementazione_postgres_dao;
+
+import database.ConnessioneDatabase;
+import metrics.MetricsRegistry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Cache per connessione delle istruzioni SQL fisse dei DAO.
+ * <p>
+ * Le istruzioni preparate lato server restano nel driver, che per ogni connessione le indicizza con il testo SQL
+ * (vedi {@link ConnessioneDatabase#getPrepareThreshold()} e {@link ConnessioneDatabase#getStatementCacheSize()}):
+ * chiudere il PreparedStatement lo restituisce a quella cache, e una nuova {@code prepareStatement} con lo stesso
+ * testo riusa l'istruzione già analizzata e pianificata dal server. Per questo i DAO passano qui solo costanti
+ * statiche, così ogni chiave resta la stessa a ogni chiamata e il numero di chiavi è limitato.
+ * <p>
+ * Questa classe tiene, per ogni connessione, un elenco LRU con il numero di esecuzioni di ogni istruzione e lo usa
+ * per stimare quante esecuzioni trovano l'istruzione già preparata lato server. È solo una stima: il driver non
+ * espone lo stato della propria cache, che può scartare istruzioni per dimensione in byte o invalidarle dopo una
+ * modifica dello schema, e l'elenco non vede le istruzioni preparate fuori da questa classe. Per questo la stima è
+ * pubblicata come contatore {@code sql_statement_executions_estimated_total} e non come rapporto di hit di una cache.
+ */
+final class StatementCache {
+
+    private static final int PREPARE_THRESHOLD = ConnessioneDatabase.getPrepareThreshold();
+    private static final int DIMENSIONE = ConnessioneDatabase.getStatementCacheSize();
+    private static final String DESCRIZIONE_STIMA =
+            "Esecuzioni delle istruzioni fisse dei DAO per stato stimato (non misurato) della cache del driver";
+    private static final MetricsRegistry.Contatore STIMATE_PREPARATE = MetricsRegistry.getInstance()
+            .contatore("sql_statement_executions_estimated_total", DESCRIZIONE_STIMA, "stato", "preparata");
+    private static final MetricsRegistry.Contatore STIMATE_DA_PREPARARE = MetricsRegistry.getInstance()
+            .contatore("sql_statement_executions_estimated_total", DESCRIZIONE_STIMA, "stato", "da_preparare");
+    /** Esecuzioni di ogni istruzione per connessione; le connessioni chiuse e non più referenziate vengono rimosse. */
+    private static final Map<Connection, Map<String, Integer>> ESECUZIONI = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private StatementCache() {
+    }
+
+    /**
+     * Prepara un'istruzione SQL fissa sulla connessione indicata, riusando quella preparata lato server se presente.
+     * Il chiamante chiude il PreparedStatement come di consueto.
+     * @param conn Connessione su cui preparare l'istruzione
+     * @param sql Testo SQL, una costante statica del DAO
+     * @return PreparedStatement pronto per l'esecuzione
+     * @throws SQLException in caso di errore del driver
+     */
+    static PreparedStatement prepara(Connection conn, String sql) throws SQLException {
+        stimaEsecuzione(conn, sql);
+        return conn.prepareStatement(sql);
+    }
+
+    private static void stimaEsecuzione(Connection conn, String sql) {
+        Map<String, Integer> esecuzioni = ESECUZIONI.computeIfAbsent(conn, _ -> Collections.synchronizedMap(
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                        return size() > DIMENSIONE;
+                    }
+                }));
+        int precedenti = esecuzioni.merge(sql, 1, Integer::sum) - 1;
+        if (precedenti >= PREPARE_THRESHOLD) {
+            STIMATE_PREPARATE.incrementa();
+        } else {
+            STIMATE_DA_PREPARARE.incrementa();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package dao.implementazione_postgres_dao;
+
+import dao.ToDoDAO;
+import dao.ToDoDAOAsincrono;
+import metrics.DaoMetrics;
+import model.Bacheca;
+import model.TitoloBacheca;
+import model.ToDo;
+import model.Utente;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+
+/**
+ * Implementazione Postgres di {@link ToDoDAOAsincrono}. Ogni operazione esegue la corrispondente
+ * operazione di {@link ToDoPostgresDAOImpl} su un virtual thread, con una connessione del pool:
+ * query e mappatura sono le stesse, quindi i risultati coincidono con quelli del DAO bloccante.
+ * Le letture in streaming usano, come nel DAO bloccante, una connessione dedicata con cursore lato server.
+ */
+public class ToDoPostgresDAOAsincrono implements ToDoDAOAsincrono {
+
+    private final EsecutoreJdbc jdbc;
+
+    /**
+     * Costruttore.
+     * @param jdbc Esecutore delle operazioni JDBC
+     */
+    public ToDoPostgresDAOAsincrono(EsecutoreJdbc jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    private static ToDoDAO dao(Connection conn) {
+        return DaoMetrics.strumenta(ToDoDAO.class, new ToDoPostgresDAOImpl(conn), "todo");
+    }
+
+    private <T> CompletableFuture<T> esegui(Function<ToDoDAO, T> operazione) {
+        return jdbc.esegui(conn -> operazione.apply(dao(conn)));
+    }
+
+    @Override
+    public CompletableFuture<Optional<ToDo>> findById(int id) {
+        return esegui(dao -> dao.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<List<ToDo>> findAllByIds(List<Integer> ids) {
+        return esegui(dao -> dao.findAllByIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<List<ToDo>> findAllByBacheca(Bacheca bacheca) {
+        return esegui(dao -> dao.findAllByBacheca(bacheca));
+    }
+
+    @Override
+    public CompletableFuture<List<ToDo>> findAllByBachecaId(int bachecaId) {
+        return esegui(dao -> dao.findAllByBachecaId(bachecaId));
+    }
+
+    @Override
+    public CompletableFuture<List<ToDo>> findPageByBachecaId(int bachecaId, int afterPosizione, int afterId, int limit) {
+        return esegui(dao -> dao.findPageByBachecaId(bachecaId, afterPosizione, afterId, limit));
+    }
+
+    @Override
+    public Flow.Publisher<ToDo> publishByBachecaId(int bachecaId, int afterPosizione, int afterId) {
+        return jdbc.pubblica(conn -> dao(conn).streamByBachecaId(bachecaId, afterPosizione, afterId));
+    }
+
+    @Override
+    public Flow.Publisher<ToDo> publishSenzaImmaginiByBachecaId(int bachecaId, int afterPosizione, int afterId) {
+        return jdbc.pubblica(conn -> dao(conn).streamSenzaImmaginiByBachecaId(bachecaId, afterPosizione, afterId));
+    }
+
+    @Override
+    public Flow.Publisher<ToDo> publishAllByAutoreId(int autoreId) {
+        return jdbc.pubblica(conn -> dao(conn).streamAllByAutoreId(autoreId));
+    }
+
+    @Override
+    public CompletableFuture<List<ToDo>> findAllByAutore(Utente autore) {
+        return esegui(dao -> dao.findAllByAutore(autore));
+    }
+
+    @Override
+    public CompletableFuture<List<ToDo>> findAllByAutoreId(int autoreId) {
+        return esegui(dao -> dao.findAllByAutoreId(autoreId));
+    }
+
+    @Override
+    public CompletableFuture<List<ToDo>> findAllSharedWithUser(Utente utente) {
+        return esegui(dao -> dao.findAllSharedWithUser(utente));
+    }
+
+    @Override
+    public CompletableFuture<List<ToDo>> findAllSharedWithUserAndDestination(Utente utente) {
+        return esegui(dao -> dao.findAllSharedWithUserAndDestination(utente));
+    }
+
+    @Override
+    public CompletableFuture<List<ToDo>> findModificatiDa(int utenteId, long daVersione) {
+        return esegui(dao -> dao.findModificatiDa(utenteId, daVersione));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> save(ToDo todo) {
+        return esegui(dao -> dao.save(todo));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> saveAll(List<ToDo> todos) {
+        return esegui(dao -> dao.saveAll(todos));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> update(ToDo todo) {
+        return esegui(dao -> dao.update(todo));
+    }
+
+    @Override
+    public CompletableFuture<ToDoDAO.EsitoAggiornamento> updateSeVersione(ToDo todo) {
+        return esegui(dao -> dao.updateSeVersione(todo));
+    }
+
+    @Override
+    public CompletableFuture<List<ToDoDAO.EsitoAggiornamento>> updateTuttiSeVersione(List<ToDo> todos) {
+        return esegui(dao -> dao.updateTuttiSeVersione(todos));
+    }
+
+    @Override
+    public CompletableFuture<Map<Integer, Integer>> completaTutti(int bachecaId, List<Integer> idCondivisi) {
+        return esegui(dao -> dao.completaTutti(bachecaId, idCondivisi));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> delete(int id) {
+        return esegui(dao -> dao.delete(id));
+    }
+
+    @Override
+    public CompletableFuture<Integer> deleteAll(List<Integer> ids) {
+        return esegui(dao -> dao.deleteAll(ids));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> addCondivisione(ToDo todo, Utente utenteConCuiCondividere, Integer bachecaDestinazioneId) {
+        return esegui(dao -> dao.addCondivisione(todo, utenteConCuiCondividere, bachecaDestinazioneId));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> removeCondivisione(ToDo todo, Utente utenteDaRimuovere) {
+        return esegui(dao -> dao.removeCondivisione(todo, utenteDaRimuovere));
+    }
+
+    @Override
+    public CompletableFuture<List<Utente>> getUtentiCondivisione(ToDo todo) {
+        return esegui(dao -> dao.getUtentiCondivisione(todo));
+    }
+
+    @Override
+    public CompletableFuture<ToDoDAO.RisultatoCondivisione> condividiConUsername(int todoId, String username, TitoloBacheca titoloBacheca) {
+        return esegui(dao -> dao.condividiConUsername(todoId, username, titoloBacheca));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Utente>> removeCondivisioneByUsername(int todoId, String username) {
+        return esegui(dao -> dao.removeCondivisioneByUsername(todoId, username));
+    }
+}
@@ -3,10 +3,15 @@ package dao.implementazione_postgres_dao;
 import dao.ToDoDAO;
 import dao.UtenteDAO;
 import database.ConnessioneDatabase;
+import metrics.DaoMetrics;
+import metrics.ImageMemoryTracker;
 import model.ToDo;
 import model.Bacheca;
+import model.RiferimentiUtenti;
 import model.Utente;
 import model.StatoToDo;
+import model.ColoreToDo;
+import model.TitoloBacheca;
 
 import javax.imageio.ImageIO;
 import java.awt.Image;
@@ -18,10 +23,18 @@ import java.io.IOException;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementazione Postgres del DAO per la gestione dei Task.
@@ -31,12 +44,81 @@ import java.util.logging.Logger;
 public class ToDoPostgresDAOImpl implements ToDoDAO {
 
     private Connection conn;
+    /** true se conn è la connessione condivisa del processo, che le transazioni non devono usare. */
+    private final boolean connessioneCondivisa;
     private UtenteDAO utenteDAO; // Per risolvere l'autore e gli utenti condivisi
+    /** Istanze canoniche degli autori e degli utenti condivisi letti da questo DAO. */
+    private final RiferimentiUtenti riferimenti = new RiferimentiUtenti();
     private static final Logger LOGGER = Logger.getLogger(ToDoPostgresDAOImpl.class.getName());
 
+    /** Colonne lette da mapRowToToDo. */
+    private static final String COLONNE_TODO = "id, bacheca_id, autore_id, titolo, descrizione, url, scadenza, immagine, posizione, stato, data_creazione, colore, versione";
+    /** Colonne lette da mapRowToToDo per i Task senza immagine. */
+    private static final String COLONNE_TODO_SENZA_IMMAGINE = "id, bacheca_id, autore_id, titolo, descrizione, url, scadenza, posizione, stato, data_creazione, colore, versione";
+    /** Colonne lette da mapRowToToDo, qualificate con l'alias t. */
+    private static final String COLONNE_TODO_T = "t.id, t.bacheca_id, t.autore_id, t.titolo, t.descrizione, t.url, t.scadenza, t.immagine, t.posizione, t.stato, t.data_creazione, t.colore, t.versione";
+    /** Colonne lette da mapRowToToDo per i Task senza immagine, qualificate con l'alias t. */
+    private static final String COLONNE_TODO_SENZA_IMMAGINE_T = "t.id, t.bacheca_id, t.autore_id, t.titolo, t.descrizione, t.url, t.scadenza, t.posizione, t.stato, t.data_creazione, t.colore, t.versione";
+
+    /** Aggiornamento di un Task condizionato alla versione; i parametri sono impostati da bindUpdateSeVersione. */
+    private static final String UPDATE_TODO_SE_VERSIONE = "UPDATE todos SET bacheca_id = ?, titolo = ?, descrizione = ?, url = ?, scadenza = ?, immagine = ?, " +
+            "posizione = ?, stato = ?, colore = ?, versione = versione + 1 WHERE id = ? AND versione = ?";
+
+    /** Inserimento di un Task; i parametri sono impostati da bindInsert. */
+    private static final String INSERT_TODO = "INSERT INTO todos (bacheca_id, autore_id, titolo, descrizione, url, scadenza, immagine, posizione, stato, data_creazione, colore) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     /** Costante per il nome della colonna bacheca_destinazione_id. */
     private static final String COLONNA_BACHECA_DESTINAZIONE_ID = "bacheca_destinazione_id";
 
+    /** Istruzioni fisse, preparate tramite {@link StatementCache}. */
+    private static final String SQL_FIND_BY_ID = "SELECT " + COLONNE_TODO + " FROM todos WHERE id = ?";
+    private static final String SQL_FIND_ALL_BY_BACHECA_ID = "SELECT " + COLONNE_TODO + " FROM todos WHERE bacheca_id = ? ORDER BY posizione ASC, data_creazione DESC";
+    private static final String SQL_FIND_PAGE_BY_BACHECA_ID = "SELECT " + COLONNE_TODO + " FROM todos WHERE bacheca_id = ? AND (posizione, id) > (?, ?) ORDER BY posizione ASC, id ASC LIMIT ?";
+    private static final String SQL_FIND_ALL_BY_IDS = "SELECT " + COLONNE_TODO + " FROM todos WHERE id = ANY (?) ORDER BY id ASC";
+    private static final String SQL_FIND_ALL_SENZA_IMMAGINI_BY_IDS = "SELECT " + COLONNE_TODO_SENZA_IMMAGINE_T + ", a.username AS autore_username, tc." + COLONNA_BACHECA_DESTINAZIONE_ID + " FROM todos t " +
+            "LEFT JOIN utenti a ON a.id = t.autore_id " +
+            "LEFT JOIN todo_condivisioni tc ON tc.todo_id = t.id AND tc.utente_id = ? " +
+            "WHERE t.id = ANY (?) ORDER BY t.id ASC";
+    private static final String SQL_FIND_IMMAGINI_BY_IDS = "SELECT id, immagine FROM todos WHERE id = ANY (?) AND immagine IS NOT NULL";
+    private static final String SQL_FIND_ALL_BY_AUTORE_ID = "SELECT " + COLONNE_TODO + " FROM todos WHERE autore_id = ? ORDER BY data_creazione DESC";
+    private static final String SQL_FIND_ALL_SHARED_WITH_USER = "SELECT " + COLONNE_TODO_T + " FROM todos t " +
+            "JOIN todo_condivisioni tc ON t.id = tc.todo_id " +
+            "WHERE tc.utente_id = ? " +
+            "ORDER BY t.data_creazione DESC";
+    private static final String SQL_FIND_ALL_SHARED_WITH_USER_AND_DESTINATION = "SELECT " + COLONNE_TODO_T + ", tc." + COLONNA_BACHECA_DESTINAZIONE_ID + " FROM todos t " +
+            "JOIN todo_condivisioni tc ON t.id = tc.todo_id " +
+            "WHERE tc.utente_id = ? " +
+            "ORDER BY t.data_creazione DESC";
+    private static final String SQL_FIND_MODIFICATI_DA = "WITH cambiati AS (" +
+            "SELECT id FROM todos WHERE xid_modifica >= ?::text::xid8 " +
+            "UNION SELECT todo_id FROM todo_condivisioni WHERE xid_modifica >= ?::text::xid8) " +
+            "SELECT " + COLONNE_TODO_SENZA_IMMAGINE_T + ", a.username AS autore_username, tc." + COLONNA_BACHECA_DESTINAZIONE_ID + " FROM cambiati m " +
+            "JOIN todos t ON t.id = m.id " +
+            "LEFT JOIN utenti a ON a.id = t.autore_id " +
+            "LEFT JOIN todo_condivisioni tc ON tc.todo_id = t.id AND tc.utente_id = ? " +
+            "WHERE t.bacheca_id IN (SELECT id FROM bacheche WHERE utente_id = ?) OR tc.utente_id IS NOT NULL";
+    private static final String SQL_UPDATE_SE_VERSIONE = UPDATE_TODO_SE_VERSIONE + " RETURNING versione";
+    private static final String SQL_ESISTE = "SELECT 1 FROM todos WHERE id = ?";
+    private static final String SQL_SAVE = INSERT_TODO + " RETURNING id";
+    private static final String SQL_COMPLETA_TUTTI = "UPDATE todos SET stato = ?, versione = versione + 1 WHERE stato <> ? AND (bacheca_id = ? OR id = ANY (?)) RETURNING id, versione";
+    private static final String SQL_DELETE = "DELETE FROM todos WHERE id = ?";
+    private static final String SQL_DELETE_ALL = "DELETE FROM todos WHERE id = ANY (?)";
+    private static final String SQL_ADD_CONDIVISIONE = "INSERT INTO todo_condivisioni (todo_id, utente_id, bacheca_destinazione_id) VALUES (?, ?, ?) ON CONFLICT (todo_id, utente_id) DO UPDATE SET bacheca_destinazione_id = ?";
+    private static final String SQL_ADD_CONDIVISIONE_LEGACY = "INSERT INTO todo_condivisioni (todo_id, utente_id) VALUES (?, ?) ON CONFLICT (todo_id, utente_id) DO NOTHING";
+    private static final String SQL_REMOVE_CONDIVISIONE = "DELETE FROM todo_condivisioni WHERE todo_id = ? AND utente_id = ?";
+    private static final String SQL_GET_UTENTI_CONDIVISIONE = "SELECT u.id, u.username FROM utenti u " +
+            "JOIN todo_condivisioni tc ON u.id = tc.utente_id " +
+            "WHERE tc.todo_id = ?";
+    private static final String SQL_GET_UTENTI_CONDIVISIONE_BY_TODO_IDS = "SELECT tc.todo_id, u.id, u.username FROM utenti u " +
+            "JOIN todo_condivisioni tc ON u.id = tc.utente_id " +
+            "WHERE tc.todo_id = ANY (?)";
+    private static final String SQL_CONDIVIDI_CON_USERNAME = queryCondivisione(true);
+    private static final String SQL_CONDIVIDI_CON_USERNAME_LEGACY = queryCondivisione(false);
+    private static final String SQL_REMOVE_CONDIVISIONE_BY_USERNAME = "DELETE FROM todo_condivisioni tc USING utenti u " +
+            "WHERE tc.utente_id = u.id AND tc.todo_id = ? AND u.username = ? " +
+            "RETURNING u.id, u.username";
+
     /**
      * Costruttore. Inizializza la connessione al database e l'istanza di UtenteDAO.
      * @throws DatabaseConnectionException se la connessione fallisce
@@ -44,13 +126,52 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
     public ToDoPostgresDAOImpl() {
         try {
             conn = ConnessioneDatabase.getInstance().getConnection();
-            this.utenteDAO = new UtentePostgresDAOImpl(); // Crea un'istanza di UtenteDAO
+            this.connessioneCondivisa = true;
+            this.utenteDAO = DaoMetrics.strumenta(UtenteDAO.class, new UtentePostgresDAOImpl(), "utente"); // Crea un'istanza di UtenteDAO
         } catch (SQLException e) {
             LOGGER.severe("Errore nel costruttore di ToDoPostgresDAOImpl: " + e.getMessage());
             throw new DatabaseConnectionException("Impossibile connettersi al database nel costruttore di ToDoPostgresDAOImpl", e);
         }
     }
 
+    /**
+     * Costruttore che usa la connessione indicata, ad es. presa da un pool; anche l'UtenteDAO interno la condivide.
+     * La connessione resta del chiamante, che la chiude o la restituisce al pool.
+     * @param conn Connessione da usare
+     */
+    public ToDoPostgresDAOImpl(Connection conn) {
+        this.conn = conn;
+        this.connessioneCondivisa = false;
+        this.utenteDAO = DaoMetrics.strumenta(UtenteDAO.class, new UtentePostgresDAOImpl(conn), "utente");
+    }
+
+    /**
+     * Restituisce la connessione su cui eseguire una transazione.
+     * La connessione condivisa del processo è usata nello stesso momento da altri thread, quindi il suo autocommit
+     * non viene mai modificato: in quel caso si apre una connessione dedicata, da rilasciare con
+     * {@link #rilasciaConnessioneTransazione(Connection)}. Una connessione passata dal chiamante viene usata
+     * direttamente, e il chiamante non deve condividerla con altri thread per la durata della chiamata.
+     * @return Connessione per la transazione
+     * @throws SQLException se la connessione dedicata non può essere aperta
+     */
+    private Connection connessionePerTransazione() throws SQLException {
+        return connessioneCondivisa ? ConnessioneDatabase.apriConnessioneDedicata() : conn;
+    }
+
+    /**
+     * Chiude la connessione restituita da {@link #connessionePerTransazione()} se è una connessione dedicata.
+     */
+    private void rilasciaConnessioneTransazione(Connection c) {
+        if (c == null || c == conn) {
+            return;
+        }
+        try {
+            c.close();
+        } catch (SQLException e) {
+            LOGGER.warning("Errore chiusura connessione dedicata: " + e.getMessage());
+        }
+    }
+
     /**
      * Converte un oggetto Image in un array di byte PNG.
      * @param image Immagine da convertire
@@ -83,7 +204,7 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
     private Image bytesToImage(byte[] bytes) throws IOException {
         if (bytes == null || bytes.length == 0) return null;
         ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-        return ImageIO.read(bais);
+        return ImageMemoryTracker.traccia(ImageIO.read(bais));
     }
 
     /**
@@ -98,13 +219,12 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
             LOGGER.severe("findById Task fallito: connessione DB non disponibile.");
             return Optional.empty();
         }
-        String query = "SELECT id, bacheca_id, autore_id, titolo, descrizione, url, scadenza, immagine, posizione, stato, data_creazione, colore FROM todos WHERE id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_BY_ID)) {
             ps.setInt(1, id);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
                 ToDo todo = mapRowToToDo(rs);
-                utenteDAO.findById(todo.getAutoreId()).ifPresent(todo::setAutore);
+                utenteDAO.findRefById(todo.getAutoreId()).map(riferimenti::riferimento).ifPresent(todo::setAutore);
                 todo.setUtentiConAccessoCondiviso(new HashSet<>(getUtentiCondivisione(todo)));
                 return Optional.of(todo);
             }
@@ -115,6 +235,142 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
         return Optional.empty();
     }
 
+    /**
+     * Restituisce i Task con gli ID indicati, con un'unica query.
+     * @param ids ID dei Task (gli ID inesistenti sono ignorati)
+     * @return Task trovati, ordinati per ID
+     * @throws DatabaseConnectionException in caso di errore SQL
+     */
+    @Override
+    public List<ToDo> findAllByIds(List<Integer> ids) {
+        List<ToDo> todos = new ArrayList<>();
+        if (ids == null || ids.isEmpty()) {
+            return todos;
+        }
+        if (conn == null) {
+            LOGGER.severe("findAllByIds Tasks fallito: connessione DB non disponibile.");
+            return todos;
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_ALL_BY_IDS)) {
+            ps.setArray(1, conn.createArrayOf("integer", ids.toArray()));
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                todos.add(mapRowToToDo(rs));
+            }
+        } catch (SQLException | IOException e) {
+            LOGGER.severe("Errore findAllByIds Tasks: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore findAllByIds Tasks", e);
+        }
+        return todos;
+    }
+
+    /**
+     * Restituisce i Task con gli ID indicati senza immagini: l'autore viene letto con la stessa query
+     * e gli utenti condivisi di tutti i Task con una seconda query.
+     * @param utenteId Utente di cui impostare bachecaDestinazioneId per i Task condivisi con lui
+     * @param ids ID dei Task (gli ID inesistenti sono ignorati)
+     * @return Task trovati, ordinati per ID
+     * @throws DatabaseConnectionException in caso di errore SQL
+     */
+    @Override
+    public List<ToDo> findAllSenzaImmaginiByIds(int utenteId, List<Integer> ids) {
+        List<ToDo> todos = new ArrayList<>();
+        if (ids == null || ids.isEmpty()) {
+            return todos;
+        }
+        if (conn == null) {
+            LOGGER.severe("findAllSenzaImmaginiByIds Tasks fallito: connessione DB non disponibile.");
+            return todos;
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_ALL_SENZA_IMMAGINI_BY_IDS)) {
+            ps.setInt(1, utenteId);
+            ps.setArray(2, conn.createArrayOf("integer", ids.toArray()));
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                todos.add(mapRowConAutore(rs));
+            }
+        } catch (SQLException | IOException e) {
+            LOGGER.severe("Errore findAllSenzaImmaginiByIds Tasks: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore findAllSenzaImmaginiByIds Tasks", e);
+        }
+        impostaUtentiCondivisione(todos);
+        return todos;
+    }
+
+    /**
+     * Mappa una riga senza immagine che riporta anche lo username dell'autore (autore_username)
+     * e la bacheca di destinazione della condivisione con l'utente.
+     */
+    private ToDo mapRowConAutore(ResultSet rs) throws SQLException, IOException {
+        ToDo todo = mapRowToToDo(rs, false);
+        String autore = rs.getString("autore_username");
+        if (autore != null) {
+            todo.setAutore(riferimenti.riferimento(todo.getAutoreId(), autore));
+        }
+        todo.setBachecaDestinazioneId(rs.getObject(COLONNA_BACHECA_DESTINAZIONE_ID, Integer.class));
+        return todo;
+    }
+
+    /**
+     * Imposta gli utenti condivisi dei Task indicati, letti con un'unica query.
+     * @param todos Task già letti
+     * @throws DatabaseConnectionException in caso di errore SQL
+     */
+    private void impostaUtentiCondivisione(List<ToDo> todos) {
+        if (todos.isEmpty()) {
+            return;
+        }
+        Map<Integer, Set<Utente>> perToDo = new HashMap<>();
+        for (ToDo todo : todos) {
+            perToDo.put(todo.getId(), new HashSet<>());
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_GET_UTENTI_CONDIVISIONE_BY_TODO_IDS)) {
+            ps.setArray(1, conn.createArrayOf("integer", perToDo.keySet().toArray()));
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                perToDo.get(rs.getInt("todo_id")).add(riferimenti.riferimento(rs.getInt("id"), rs.getString("username")));
+            }
+        } catch (SQLException e) {
+            LOGGER.severe("Errore lettura utenti condivisi: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore lettura utenti condivisi", e);
+        }
+        for (ToDo todo : todos) {
+            todo.setUtentiConAccessoCondiviso(perToDo.get(todo.getId()));
+        }
+    }
+
+    /**
+     * Restituisce le immagini dei Task indicati, con un'unica query.
+     * @param ids ID dei Task
+     * @return Immagine per ID del Task; i Task senza immagine o inesistenti non compaiono
+     * @throws DatabaseConnectionException in caso di errore SQL
+     */
+    @Override
+    public Map<Integer, Image> findImmaginiByIds(List<Integer> ids) {
+        Map<Integer, Image> immagini = new HashMap<>();
+        if (ids == null || ids.isEmpty()) {
+            return immagini;
+        }
+        if (conn == null) {
+            LOGGER.severe("findImmaginiByIds fallito: connessione DB non disponibile.");
+            return immagini;
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_IMMAGINI_BY_IDS)) {
+            ps.setArray(1, conn.createArrayOf("integer", ids.toArray()));
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                Image immagine = bytesToImage(rs.getBytes("immagine"));
+                if (immagine != null) {
+                    immagini.put(rs.getInt("id"), immagine);
+                }
+            }
+        } catch (SQLException | IOException e) {
+            LOGGER.severe("Errore findImmaginiByIds: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore findImmaginiByIds", e);
+        }
+        return immagini;
+    }
+
     /**
      * Restituisce tutti i Task associati a una bacheca.
      * @param bacheca Oggetto Bacheca
@@ -141,13 +397,12 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
             LOGGER.severe("findAllByBachecaId Tasks fallito: connessione DB non disponibile.");
             return todos;
         }
-        String query = "SELECT id, bacheca_id, autore_id, titolo, descrizione, url, scadenza, immagine, posizione, stato, data_creazione, colore FROM todos WHERE bacheca_id = ? ORDER BY posizione ASC, data_creazione DESC";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_ALL_BY_BACHECA_ID)) {
             ps.setInt(1, bachecaId);
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
                 ToDo todo = mapRowToToDo(rs);
-                utenteDAO.findById(todo.getAutoreId()).ifPresent(todo::setAutore);
+                utenteDAO.findRefById(todo.getAutoreId()).map(riferimenti::riferimento).ifPresent(todo::setAutore);
                 todos.add(todo);
             }
         } catch (SQLException | IOException e) {
@@ -157,6 +412,160 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
         return todos;
     }
 
+    /**
+     * Restituisce una pagina di Task di una bacheca con paginazione keyset su (posizione, id).
+     * La condizione sulla coppia (posizione, id) usa l'indice idx_todos_bacheca_posizione_id,
+     * quindi il costo di ogni pagina non dipende da quante pagine sono già state lette.
+     * @param bachecaId ID della bacheca
+     * @param afterPosizione Posizione dell'ultimo Task della pagina precedente
+     * @param afterId ID dell'ultimo Task della pagina precedente
+     * @param limit Numero massimo di Task da restituire
+     * @return Lista di Task della pagina
+     * @throws DatabaseConnectionException in caso di errore SQL
+     */
+    @Override
+    public List<ToDo> findPageByBachecaId(int bachecaId, int afterPosizione, int afterId, int limit) {
+        List<ToDo> todos = new ArrayList<>();
+        if (conn == null) {
+            LOGGER.severe("findPageByBachecaId Tasks fallito: connessione DB non disponibile.");
+            return todos;
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_PAGE_BY_BACHECA_ID)) {
+            ps.setInt(1, bachecaId);
+            ps.setInt(2, afterPosizione);
+            ps.setInt(3, afterId);
+            ps.setInt(4, limit);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                ToDo todo = mapRowToToDo(rs);
+                utenteDAO.findRefById(todo.getAutoreId()).map(riferimenti::riferimento).ifPresent(todo::setAutore);
+                todos.add(todo);
+            }
+        } catch (SQLException | IOException e) {
+            LOGGER.severe("Errore findPageByBachecaId Tasks: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore findPageByBachecaId Tasks", e);
+        }
+        return todos;
+    }
+
+    /**
+     * Legge in streaming i Task di una bacheca successivi alla coppia (afterPosizione, afterId).
+     * @param bachecaId ID della bacheca
+     * @param afterPosizione Posizione da cui iniziare (esclusa)
+     * @param afterId ID da cui iniziare (escluso)
+     * @return Stream dei Task, da chiudere dopo l'uso
+     * @throws DatabaseConnectionException in caso di errore SQL
+     */
+    @Override
+    public Stream<ToDo> streamByBachecaId(int bachecaId, int afterPosizione, int afterId) {
+        String query = "SELECT " + COLONNE_TODO + " FROM todos WHERE bacheca_id = ? AND (posizione, id) > (?, ?) ORDER BY posizione ASC, id ASC";
+        return streamQuery(query, "streamByBachecaId", true, bachecaId, afterPosizione, afterId);
+    }
+
+    /**
+     * Legge in streaming i Task di una bacheca successivi alla coppia (afterPosizione, afterId), senza la colonna
+     * dell'immagine: nessuna immagine viene trasferita né decodificata.
+     * @param bachecaId ID della bacheca
+     * @param afterPosizione Posizione da cui iniziare (esclusa)
+     * @param afterId ID da cui iniziare (escluso)
+     * @return Stream dei Task senza immagine, da chiudere dopo l'uso
+     * @throws DatabaseConnectionException in caso di errore SQL
+     */
+    @Override
+    public Stream<ToDo> streamSenzaImmaginiByBachecaId(int bachecaId, int afterPosizione, int afterId) {
+        String query = "SELECT " + COLONNE_TODO_SENZA_IMMAGINE + " FROM todos WHERE bacheca_id = ? AND (posizione, id) > (?, ?) ORDER BY posizione ASC, id ASC";
+        return streamQuery(query, "streamSenzaImmaginiByBachecaId", false, bachecaId, afterPosizione, afterId);
+    }
+
+    /**
+     * Legge in streaming tutti i Task creati da un autore, ordinati per ID.
+     * @param autoreId ID dell'autore
+     * @return Stream dei Task, da chiudere dopo l'uso
+     * @throws DatabaseConnectionException in caso di errore SQL
+     */
+    @Override
+    public Stream<ToDo> streamAllByAutoreId(int autoreId) {
+        String query = "SELECT " + COLONNE_TODO + " FROM todos WHERE autore_id = ? ORDER BY id ASC";
+        return streamQuery(query, "streamAllByAutoreId", true, autoreId);
+    }
+
+    /**
+     * Esegue una query in streaming su una connessione dedicata.
+     * Con l'autocommit disattivato e un fetch size impostato il driver PostgreSQL usa un cursore
+     * lato server e trasferisce le righe a blocchi, invece di materializzare l'intero risultato.
+     * Connessione, statement e ResultSet vengono chiusi alla chiusura dello stream.
+     * @param query Query SQL con parametri interi
+     * @param operazione Nome dell'operazione per i messaggi di log
+     * @param conImmagine true se la query legge la colonna immagine
+     * @param parametri Valori dei parametri, nell'ordine
+     * @return Stream dei Task
+     * @throws DatabaseConnectionException se la query non può essere avviata
+     */
+    private Stream<ToDo> streamQuery(String query, String operazione, boolean conImmagine, int... parametri) {
+        Connection dedicata = null;
+        PreparedStatement ps = null;
+        try {
+            dedicata = ConnessioneDatabase.apriConnessioneDedicata();
+            dedicata.setAutoCommit(false);
+            dedicata.setReadOnly(true);
+            ps = dedicata.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(ConnessioneDatabase.getFetchSize());
+            for (int i = 0; i < parametri.length; i++) {
+                ps.setInt(i + 1, parametri[i]);
+            }
+            ResultSet rs = ps.executeQuery();
+            final Connection c = dedicata;
+            final PreparedStatement st = ps;
+            return StreamSupport.stream(new Spliterators.AbstractSpliterator<ToDo>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super ToDo> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(mapRowToToDo(rs, conImmagine));
+                        return true;
+                    } catch (SQLException | IOException e) {
+                        LOGGER.severe("Errore " + operazione + " Tasks: " + e.getMessage());
+                        throw new DatabaseConnectionException("Errore " + operazione + " Tasks", e);
+                    }
+                }
+            }, false).onClose(() -> chiudiStream(rs, st, c));
+        } catch (SQLException e) {
+            chiudiStream(null, ps, dedicata);
+            LOGGER.severe("Errore " + operazione + " Tasks: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore " + operazione + " Tasks", e);
+        }
+    }
+
+    /**
+     * Chiude le risorse di una query in streaming terminando la transazione di sola lettura.
+     */
+    private static void chiudiStream(ResultSet rs, PreparedStatement ps, Connection dedicata) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (ps != null) {
+                ps.close();
+            }
+            if (dedicata != null && !dedicata.getAutoCommit()) {
+                dedicata.rollback();
+            }
+        } catch (SQLException e) {
+            LOGGER.warning("Errore chiusura stream Tasks: " + e.getMessage());
+        } finally {
+            if (dedicata != null) {
+                try {
+                    dedicata.close();
+                } catch (SQLException e) {
+                    LOGGER.warning("Errore chiusura connessione dello stream Tasks: " + e.getMessage());
+                }
+            }
+        }
+    }
+
     /**
      * Restituisce tutti i Task creati da un autore.
      * @param autore Oggetto Utente autore
@@ -183,13 +592,12 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
             LOGGER.severe("findAllByAutoreId Tasks fallito: connessione DB non disponibile.");
             return todos;
         }
-        String query = "SELECT id, bacheca_id, autore_id, titolo, descrizione, url, scadenza, immagine, posizione, stato, data_creazione, colore FROM todos WHERE autore_id = ? ORDER BY data_creazione DESC";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_ALL_BY_AUTORE_ID)) {
             ps.setInt(1, autoreId);
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
                 ToDo todo = mapRowToToDo(rs);
-                utenteDAO.findById(todo.getAutoreId()).ifPresent(todo::setAutore);
+                utenteDAO.findRefById(todo.getAutoreId()).map(riferimenti::riferimento).ifPresent(todo::setAutore);
                 todo.setUtentiConAccessoCondiviso(new HashSet<>(getUtentiCondivisione(todo)));
                 todos.add(todo);
             }
@@ -213,16 +621,12 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
             LOGGER.severe("findAllSharedWithUser Tasks fallito: connessione DB non disponibile o utente non valido.");
             return todosCondivisi;
         }
-        String query = "SELECT t.id, t.bacheca_id, t.autore_id, t.titolo, t.descrizione, t.url, t.scadenza, t.immagine, t.posizione, t.stato, t.data_creazione, t.colore FROM todos t " +
-                "JOIN todo_condivisioni tc ON t.id = tc.todo_id " +
-                "WHERE tc.utente_id = ? " +
-                "ORDER BY t.data_creazione DESC";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_ALL_SHARED_WITH_USER)) {
             ps.setInt(1, utente.getId());
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
                 ToDo todo = mapRowToToDo(rs);
-                utenteDAO.findById(todo.getAutoreId()).ifPresent(todo::setAutore);
+                utenteDAO.findRefById(todo.getAutoreId()).map(riferimenti::riferimento).ifPresent(todo::setAutore);
                 todosCondivisi.add(todo);
             }
         } catch (SQLException | IOException e) {
@@ -241,18 +645,14 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
         }
 
         // Prova prima con la nuova colonna bacheca_destinazione_id
-        String query = "SELECT t.id, t.bacheca_id, t.autore_id, t.titolo, t.descrizione, t.url, t.scadenza, t.immagine, t.posizione, t.stato, t.data_creazione, t.colore, tc." + COLONNA_BACHECA_DESTINAZIONE_ID + " FROM todos t " +
-                "JOIN todo_condivisioni tc ON t.id = tc.todo_id " +
-                "WHERE tc.utente_id = ? " +
-                "ORDER BY t.data_creazione DESC";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_ALL_SHARED_WITH_USER_AND_DESTINATION)) {
             ps.setInt(1, utente.getId());
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
                 ToDo todo = mapRowToToDo(rs);
                 Integer bachecaDestinazioneId = rs.getObject(COLONNA_BACHECA_DESTINAZIONE_ID, Integer.class);
                 todo.setBachecaDestinazioneId(bachecaDestinazioneId);
-                utenteDAO.findById(todo.getAutoreId()).ifPresent(todo::setAutore);
+                utenteDAO.findRefById(todo.getAutoreId()).map(riferimenti::riferimento).ifPresent(todo::setAutore);
                 todosCondivisi.add(todo);
             }
         } catch (SQLException e) {
@@ -271,6 +671,39 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
         return todosCondivisi;
     }
 
+    /**
+     * Restituisce i Task visibili all'utente modificati dalla versione indicata, senza immagini.
+     * Le righe cambiate vengono cercate prima tramite gli indici su xid_modifica di todos e todo_condivisioni,
+     * quindi il costo dipende dal numero di modifiche e non dalla dimensione del workspace.
+     * L'autore viene letto con la stessa query e gli utenti condivisi di tutti i Task con una seconda query.
+     * @param utenteId ID dell'utente
+     * @param daVersione Versione della lettura precedente
+     * @return Task modificati, con autore, condivisioni e bacheca di destinazione
+     */
+    @Override
+    public List<ToDo> findModificatiDa(int utenteId, long daVersione) {
+        List<ToDo> modificati = new ArrayList<>();
+        if (conn == null) {
+            LOGGER.severe("findModificatiDa Tasks fallito: connessione DB non disponibile.");
+            return modificati;
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_MODIFICATI_DA)) {
+            ps.setLong(1, daVersione);
+            ps.setLong(2, daVersione);
+            ps.setInt(3, utenteId);
+            ps.setInt(4, utenteId);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                modificati.add(mapRowConAutore(rs));
+            }
+        } catch (SQLException | IOException e) {
+            LOGGER.severe("Errore findModificatiDa Tasks: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore findModificatiDa Tasks", e);
+        }
+        impostaUtentiCondivisione(modificati);
+        return modificati;
+    }
+
     /**
      * Salva un nuovo Task nel database.
      * @param todo Oggetto Task da salvare
@@ -283,32 +716,8 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
             LOGGER.severe("save Task fallito: connessione DB non disponibile.");
             return false;
         }
-        String query = "INSERT INTO todos (bacheca_id, autore_id, titolo, descrizione, url, scadenza, immagine, posizione, stato, data_creazione, colore) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING id";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
-            if (todo.getBachecaId() != null) {
-                ps.setInt(1, todo.getBachecaId());
-            } else {
-                ps.setNull(1, Types.INTEGER);
-            }
-            ps.setInt(2, todo.getAutoreId());
-            ps.setString(3, todo.getTitolo());
-            ps.setString(4, todo.getDescrizione());
-            ps.setString(5, todo.getUrl());
-            ps.setDate(6, todo.getScadenza() != null ? Date.valueOf(todo.getScadenza()) : null);
-
-            byte[] imageBytes = imageToBytes(todo.getImmagine());
-            if (imageBytes != null) {
-                ps.setBytes(7, imageBytes);
-            } else {
-                ps.setNull(7, Types.BINARY);
-            }
-
-            ps.setInt(8, todo.getPosizione());
-            ps.setString(9, todo.getStato().name());
-            ps.setDate(10, Date.valueOf(todo.getCreazione()));
-            ps.setString(11, todo.getColore());
-
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_SAVE)) {
+            bindInsert(ps, todo);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
                 todo.setId(rs.getInt(1));
@@ -322,54 +731,267 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
     }
 
     /**
-     * Aggiorna un Task esistente nel database.
+     * Salva più Task nuovi con un batch JDBC in un'unica transazione.
+     * Il driver invia il batch in pochi round-trip e restituisce le chiavi generate nello stesso
+     * ordine degli inserimenti, che vengono assegnate ai Task.
+     * La transazione richiede una connessione non usata da altri thread: quella passata al costruttore
+     * oppure, con la connessione condivisa, una connessione dedicata aperta per la chiamata.
+     * @param todos Task da salvare
+     * @return true se tutti i Task sono stati salvati, false altrimenti
+     * @throws DatabaseConnectionException in caso di errore SQL (la transazione viene annullata)
+     */
+    @Override
+    public boolean saveAll(List<ToDo> todos) {
+        if (todos == null || todos.isEmpty()) {
+            return true;
+        }
+        if (conn == null) {
+            LOGGER.severe("saveAll Tasks fallito: connessione DB non disponibile.");
+            return false;
+        }
+        Connection c = null;
+        try {
+            c = connessionePerTransazione();
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(INSERT_TODO, new String[] {"id"})) {
+                for (ToDo todo : todos) {
+                    bindInsert(ps, todo);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                int[] ids = new int[todos.size()];
+                int letti = 0;
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next() && letti < ids.length) {
+                        ids[letti++] = keys.getInt(1);
+                    }
+                }
+                if (letti != ids.length) {
+                    c.rollback();
+                    LOGGER.severe("saveAll Tasks: chiavi generate " + letti + " su " + ids.length + ", transazione annullata.");
+                    return false;
+                }
+                c.commit();
+                for (int i = 0; i < ids.length; i++) {
+                    todos.get(i).setId(ids[i]);
+                }
+                return true;
+            } catch (SQLException | IOException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException | IOException e) {
+            LOGGER.severe("Errore saveAll Tasks: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore saveAll Tasks", e);
+        } finally {
+            rilasciaConnessioneTransazione(c);
+        }
+    }
+
+    /**
+     * Imposta i parametri di {@link #INSERT_TODO} per un Task.
+     */
+    private void bindInsert(PreparedStatement ps, ToDo todo) throws SQLException, IOException {
+        if (todo.getBachecaId() != null) {
+            ps.setInt(1, todo.getBachecaId());
+        } else {
+            ps.setNull(1, Types.INTEGER);
+        }
+        ps.setInt(2, todo.getAutoreId());
+        ps.setString(3, todo.getTitolo());
+        ps.setString(4, todo.getDescrizione());
+        ps.setString(5, todo.getUrl());
+        ps.setDate(6, todo.getScadenza() != null ? Date.valueOf(todo.getScadenza()) : null);
+
+        byte[] imageBytes = imageToBytes(todo.getImmagine());
+        if (imageBytes != null) {
+            ps.setBytes(7, imageBytes);
+        } else {
+            ps.setNull(7, Types.BINARY);
+        }
+
+        ps.setInt(8, todo.getPosizione());
+        ps.setString(9, todo.getStato().name());
+        ps.setDate(10, Date.valueOf(todo.getCreazione()));
+        ps.setString(11, todo.getColore());
+    }
+
+    /**
+     * Aggiorna un Task esistente nel database solo se la versione non è cambiata dalla lettura.
+     * In caso di successo la versione del Task viene aggiornata con quella nuova.
      * @param todo Oggetto Task da aggiornare
-     * @return true se l'aggiornamento ha successo, false altrimenti
+     * @return true se l'aggiornamento ha successo, false se il Task non esiste o è stato modificato da altri
      * @throws DatabaseConnectionException in caso di errore SQL
      */
     @Override
     public boolean update(ToDo todo) {
+        return updateSeVersione(todo) == EsitoAggiornamento.AGGIORNATO;
+    }
+
+    /**
+     * Aggiorna un Task con un UPDATE condizionato alla versione (controllo di concorrenza ottimistico).
+     * Solo se nessuna riga viene aggiornata si esegue una seconda query per distinguere il conflitto
+     * dal Task eliminato.
+     * @param todo Task da aggiornare, con la versione letta in precedenza
+     * @return Esito dell'aggiornamento
+     * @throws DatabaseConnectionException in caso di errore SQL
+     */
+    @Override
+    public EsitoAggiornamento updateSeVersione(ToDo todo) {
         if (conn == null) {
             LOGGER.severe("update Task fallito: connessione DB non disponibile.");
-            return false;
+            return EsitoAggiornamento.NON_TROVATO;
         }
         if (todo.getId() == 0) {
             LOGGER.severe("Impossibile aggiornare Task senza ID.");
-            return false;
+            return EsitoAggiornamento.NON_TROVATO;
         }
-        String query = "UPDATE todos SET bacheca_id = ?, titolo = ?, descrizione = ?, url = ?, scadenza = ?, immagine = ?, " +
-                "posizione = ?, stato = ?, colore = ? WHERE id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
-            if (todo.getBachecaId() != null) {
-                ps.setInt(1, todo.getBachecaId());
-            } else {
-                ps.setNull(1, Types.INTEGER);
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_UPDATE_SE_VERSIONE)) {
+            bindUpdateSeVersione(ps, todo);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    todo.setVersione(rs.getInt(1));
+                    return EsitoAggiornamento.AGGIORNATO;
+                }
             }
-            ps.setString(2, todo.getTitolo());
-            ps.setString(3, todo.getDescrizione());
-            ps.setString(4, todo.getUrl());
-            ps.setDate(5, todo.getScadenza() != null ? Date.valueOf(todo.getScadenza()) : null);
-
-            byte[] imageBytes = imageToBytes(todo.getImmagine());
-            if (imageBytes != null) {
-                ps.setBytes(6, imageBytes);
-            } else {
-                ps.setNull(6, Types.BINARY);
+        } catch (SQLException | IOException e) {
+            LOGGER.severe("Errore update Task: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore update Task", e);
+        }
+        return esisteToDo(conn, todo.getId()) ? EsitoAggiornamento.CONFLITTO : EsitoAggiornamento.NON_TROVATO;
+    }
+
+    /**
+     * Aggiorna più Task in un unico batch JDBC, ciascuno condizionato alla propria versione.
+     * Il batch è eseguito in una transazione; per i Task aggiornati imposta la nuova versione.
+     * La transazione richiede una connessione non usata da altri thread: quella passata al costruttore
+     * oppure, con la connessione condivisa, una connessione dedicata aperta per la chiamata.
+     * @param todos Task da aggiornare, con la versione letta in precedenza
+     * @return Esito di ogni aggiornamento, nello stesso ordine dei Task
+     * @throws DatabaseConnectionException in caso di errore SQL
+     */
+    @Override
+    public List<EsitoAggiornamento> updateTuttiSeVersione(List<ToDo> todos) {
+        List<EsitoAggiornamento> esiti = new ArrayList<>(todos.size());
+        if (todos.isEmpty()) {
+            return esiti;
+        }
+        if (conn == null) {
+            LOGGER.severe("updateTuttiSeVersione Tasks fallito: connessione DB non disponibile.");
+            throw new DatabaseConnectionException("updateTuttiSeVersione Tasks: connessione DB non disponibile", null);
+        }
+        Connection c = null;
+        try {
+            c = connessionePerTransazione();
+            boolean autoCommit = c.getAutoCommit();
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = StatementCache.prepara(c, UPDATE_TODO_SE_VERSIONE)) {
+                for (ToDo todo : todos) {
+                    bindUpdateSeVersione(ps, todo);
+                    ps.addBatch();
+                }
+                int[] aggiornati = ps.executeBatch();
+                for (int i = 0; i < todos.size(); i++) {
+                    esiti.add(aggiornati[i] > 0 ? EsitoAggiornamento.AGGIORNATO
+                            : esisteToDo(c, todos.get(i).getId()) ? EsitoAggiornamento.CONFLITTO : EsitoAggiornamento.NON_TROVATO);
+                }
+                c.commit();
+                // Le versioni in memoria cambiano solo a transazione confermata
+                for (int i = 0; i < todos.size(); i++) {
+                    if (esiti.get(i) == EsitoAggiornamento.AGGIORNATO) {
+                        todos.get(i).setVersione(todos.get(i).getVersione() + 1);
+                    }
+                }
+                return esiti;
+            } catch (SQLException | IOException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(autoCommit);
             }
+        } catch (SQLException | IOException e) {
+            LOGGER.severe("Errore updateTuttiSeVersione Tasks: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore updateTuttiSeVersione Tasks", e);
+        } finally {
+            rilasciaConnessioneTransazione(c);
+        }
+    }
+
+    /**
+     * Imposta i parametri di {@link #UPDATE_TODO_SE_VERSIONE} per il Task indicato.
+     */
+    private void bindUpdateSeVersione(PreparedStatement ps, ToDo todo) throws SQLException, IOException {
+        if (todo.getBachecaId() != null) {
+            ps.setInt(1, todo.getBachecaId());
+        } else {
+            ps.setNull(1, Types.INTEGER);
+        }
+        ps.setString(2, todo.getTitolo());
+        ps.setString(3, todo.getDescrizione());
+        ps.setString(4, todo.getUrl());
+        ps.setDate(5, todo.getScadenza() != null ? Date.valueOf(todo.getScadenza()) : null);
 
-            ps.setInt(7, todo.getPosizione());
-            ps.setString(8, todo.getStato().name());
-            ps.setString(9, todo.getColore());
-            ps.setInt(10, todo.getId());
+        byte[] imageBytes = imageToBytes(todo.getImmagine());
+        if (imageBytes != null) {
+            ps.setBytes(6, imageBytes);
+        } else {
+            ps.setNull(6, Types.BINARY);
+        }
 
-            int affectedRows = ps.executeUpdate();
-            return affectedRows > 0;
-        } catch (SQLException | IOException e) {
+        ps.setInt(7, todo.getPosizione());
+        ps.setString(8, todo.getStato().name());
+        ps.setString(9, todo.getColore());
+        ps.setInt(10, todo.getId());
+        ps.setInt(11, todo.getVersione());
+    }
+
+    private boolean esisteToDo(Connection c, int id) {
+        try (PreparedStatement ps = StatementCache.prepara(c, SQL_ESISTE)) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
             LOGGER.severe("Errore update Task: " + e.getMessage());
             throw new DatabaseConnectionException("Errore update Task", e);
         }
     }
 
+    /**
+     * Segna come completati tutti i Task non completati di una bacheca e i Task condivisi indicati,
+     * con un solo UPDATE ... RETURNING invece di una lettura e un aggiornamento completo per Task.
+     * @param bachecaId ID della bacheca
+     * @param idCondivisi ID dei Task condivisi mostrati nella bacheca
+     * @return Nuova versione di ciascun Task modificato, per ID
+     * @throws DatabaseConnectionException in caso di errore SQL
+     */
+    @Override
+    public Map<Integer, Integer> completaTutti(int bachecaId, List<Integer> idCondivisi) {
+        Map<Integer, Integer> modificati = new HashMap<>();
+        if (conn == null) {
+            LOGGER.severe("completaTutti Tasks fallito: connessione DB non disponibile.");
+            return modificati;
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_COMPLETA_TUTTI)) {
+            ps.setString(1, StatoToDo.COMPLETATO.name());
+            ps.setString(2, StatoToDo.COMPLETATO.name());
+            ps.setInt(3, bachecaId);
+            ps.setArray(4, conn.createArrayOf("integer", idCondivisi.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    modificati.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.severe("Errore completaTutti Tasks: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore completaTutti Tasks", e);
+        }
+        return modificati;
+    }
+
     /**
      * Elimina un Task tramite ID.
      * @param id ID del Task da eliminare
@@ -382,8 +1004,7 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
             LOGGER.severe("delete Task fallito: connessione DB non disponibile.");
             return false;
         }
-        String query = "DELETE FROM todos WHERE id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_DELETE)) {
             ps.setInt(1, id);
             int affectedRows = ps.executeUpdate();
             return affectedRows > 0;
@@ -393,6 +1014,30 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
         }
     }
 
+    /**
+     * Elimina più Task con un'unica istruzione.
+     * @param ids ID dei Task da eliminare (gli ID inesistenti sono ignorati)
+     * @return Numero di Task eliminati
+     * @throws DatabaseConnectionException in caso di errore SQL o se la connessione non è disponibile
+     */
+    @Override
+    public int deleteAll(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        if (conn == null) {
+            LOGGER.severe("deleteAll Tasks fallito: connessione DB non disponibile.");
+            throw new DatabaseConnectionException("deleteAll Tasks: connessione DB non disponibile", null);
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_DELETE_ALL)) {
+            ps.setArray(1, conn.createArrayOf("integer", ids.toArray()));
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            LOGGER.severe("Errore deleteAll Tasks: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore deleteAll Tasks", e);
+        }
+    }
+
     /**
      * Aggiunge una condivisione di un Task con un altro utente.
      * @param todo Task da condividere
@@ -413,8 +1058,7 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
         }
 
         // Prova prima con la nuova colonna bacheca_destinazione_id
-        String query = "INSERT INTO todo_condivisioni (todo_id, utente_id, bacheca_destinazione_id) VALUES (?, ?, ?) ON CONFLICT (todo_id, utente_id) DO UPDATE SET bacheca_destinazione_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_ADD_CONDIVISIONE)) {
             ps.setInt(1, todo.getId());
             ps.setInt(2, utenteConCuiCondividere.getId());
             if (bachecaDestinazioneId != null) {
@@ -430,8 +1074,7 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
             // Se la colonna bacheca_destinazione_id non esiste, usa la query vecchia
             if (e.getMessage().contains(COLONNA_BACHECA_DESTINAZIONE_ID)) {
                 LOGGER.warning("Colonna " + COLONNA_BACHECA_DESTINAZIONE_ID + " non trovata, uso query legacy per addCondivisione");
-                String legacyQuery = "INSERT INTO todo_condivisioni (todo_id, utente_id) VALUES (?, ?) ON CONFLICT (todo_id, utente_id) DO NOTHING";
-                try (PreparedStatement ps = conn.prepareStatement(legacyQuery)) {
+                try (PreparedStatement ps = StatementCache.prepara(conn, SQL_ADD_CONDIVISIONE_LEGACY)) {
                     ps.setInt(1, todo.getId());
                     ps.setInt(2, utenteConCuiCondividere.getId());
                     int affectedRows = ps.executeUpdate();
@@ -464,8 +1107,7 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
             LOGGER.severe("removeCondivisione Task fallito: Task o Utente non persistiti.");
             return false;
         }
-        String query = "DELETE FROM todo_condivisioni WHERE todo_id = ? AND utente_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_REMOVE_CONDIVISIONE)) {
             ps.setInt(1, todo.getId());
             ps.setInt(2, utenteDaRimuovere.getId());
             int affectedRows = ps.executeUpdate();
@@ -489,14 +1131,11 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
             LOGGER.severe("getUtentiCondivisione fallito: connessione DB non disponibile o Task non valido.");
             return utenti;
         }
-        String query = "SELECT u.id, u.username, u.password_hash FROM utenti u " +
-                "JOIN todo_condivisioni tc ON u.id = tc.utente_id " +
-                "WHERE tc.todo_id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_GET_UTENTI_CONDIVISIONE)) {
             ps.setInt(1, todo.getId());
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
-                utenti.add(new Utente(rs.getInt("id"), rs.getString("username"), rs.getString("password_hash")));
+                utenti.add(riferimenti.riferimento(rs.getInt("id"), rs.getString("username")));
             }
         } catch (SQLException e) {
             LOGGER.severe("Errore getUtentiCondivisione: " + e.getMessage());
@@ -505,6 +1144,121 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
         return utenti;
     }
 
+    /**
+     * Condivide un Task per username con un'unica istruzione: le CTE cercano destinatario, autore del Task,
+     * bacheca di destinazione e condivisione esistente, e l'INSERT usa i loro risultati. La catena di query
+     * dipendenti (utente, bacheche, condivisioni, inserimento) costa così un solo round trip.
+     * @param todoId ID del Task da condividere
+     * @param username Username del destinatario
+     * @param titoloBacheca Titolo della bacheca di destinazione del destinatario
+     * @return Risultato della condivisione
+     * @throws DatabaseConnectionException in caso di errore SQL o se la connessione non è disponibile
+     */
+    @Override
+    public RisultatoCondivisione condividiConUsername(int todoId, String username, TitoloBacheca titoloBacheca) {
+        if (conn == null) {
+            LOGGER.severe("condividiConUsername Task fallito: connessione DB non disponibile.");
+            throw new DatabaseConnectionException("condividiConUsername Task: connessione DB non disponibile", null);
+        }
+        try {
+            return eseguiCondivisione(SQL_CONDIVIDI_CON_USERNAME, todoId, username, titoloBacheca);
+        } catch (SQLException e) {
+            // Se la colonna bacheca_destinazione_id non esiste, la bacheca viene solo verificata
+            if (e.getMessage().contains(COLONNA_BACHECA_DESTINAZIONE_ID)) {
+                LOGGER.warning("Colonna " + COLONNA_BACHECA_DESTINAZIONE_ID + " non trovata, uso query legacy per condividiConUsername");
+                try {
+                    return eseguiCondivisione(SQL_CONDIVIDI_CON_USERNAME_LEGACY, todoId, username, titoloBacheca);
+                } catch (SQLException e2) {
+                    LOGGER.severe("Errore condividiConUsername Task (legacy): " + e2.getMessage());
+                    throw new DatabaseConnectionException("Errore condividiConUsername Task (legacy)", e2);
+                }
+            }
+            LOGGER.severe("Errore condividiConUsername Task: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore condividiConUsername Task", e);
+        }
+    }
+
+    private static String queryCondivisione(boolean conBachecaDestinazione) {
+        return "WITH destinatario AS (SELECT id, username FROM utenti WHERE username = ?), " +
+                "autore AS (SELECT autore_id FROM todos WHERE id = ?), " +
+                "bacheca AS (SELECT b.id FROM bacheche b JOIN destinatario d ON b.utente_id = d.id " +
+                "WHERE b.titolo_bacheca = ? ORDER BY b.id LIMIT 1), " +
+                "esistente AS (SELECT 1 FROM todo_condivisioni tc JOIN destinatario d ON tc.utente_id = d.id WHERE tc.todo_id = ?), " +
+                "inserita AS (INSERT INTO todo_condivisioni (todo_id, utente_id" +
+                (conBachecaDestinazione ? ", " + COLONNA_BACHECA_DESTINAZIONE_ID + ") SELECT ?, d.id, b.id " : ") SELECT ?, d.id ") +
+                "FROM destinatario d JOIN bacheca b ON TRUE JOIN autore a ON a.autore_id <> d.id " +
+                "WHERE NOT EXISTS (SELECT 1 FROM esistente) " +
+                "ON CONFLICT (todo_id, utente_id) DO NOTHING RETURNING utente_id) " +
+                "SELECT d.id, d.username, (SELECT id FROM bacheca) AS bacheca_id, " +
+                "EXISTS (SELECT 1 FROM autore) AS task_esiste, " +
+                "EXISTS (SELECT 1 FROM autore a WHERE a.autore_id = d.id) AS autore, " +
+                "EXISTS (SELECT 1 FROM esistente) AS gia_condiviso, " +
+                "EXISTS (SELECT 1 FROM inserita) AS inserita " +
+                "FROM destinatario d";
+    }
+
+    private RisultatoCondivisione eseguiCondivisione(String query, int todoId, String username,
+                                                     TitoloBacheca titoloBacheca) throws SQLException {
+        try (PreparedStatement ps = StatementCache.prepara(conn, query)) {
+            ps.setString(1, username);
+            ps.setInt(2, todoId);
+            ps.setString(3, titoloBacheca.name());
+            ps.setInt(4, todoId);
+            ps.setInt(5, todoId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return new RisultatoCondivisione(EsitoCondivisione.UTENTE_NON_TROVATO, null, null);
+                }
+                Utente destinatario = riferimenti.riferimento(rs.getInt("id"), rs.getString("username"));
+                int bachecaId = rs.getInt("bacheca_id");
+                Integer bachecaDestinazioneId = rs.wasNull() ? null : bachecaId;
+                EsitoCondivisione esito;
+                if (!rs.getBoolean("task_esiste")) {
+                    esito = EsitoCondivisione.TASK_NON_TROVATO;
+                } else if (rs.getBoolean("autore")) {
+                    esito = EsitoCondivisione.AUTORE;
+                } else if (bachecaDestinazioneId == null) {
+                    esito = EsitoCondivisione.BACHECA_NON_TROVATA;
+                } else if (rs.getBoolean("inserita")) {
+                    esito = EsitoCondivisione.CONDIVISO;
+                } else {
+                    // Condivisione già presente, oppure inserita nel frattempo da un'altra transazione
+                    esito = EsitoCondivisione.GIA_CONDIVISO;
+                }
+                return new RisultatoCondivisione(esito, destinatario, bachecaDestinazioneId);
+            }
+        }
+    }
+
+    /**
+     * Rimuove la condivisione di un Task per username con un'unica istruzione DELETE ... USING ... RETURNING,
+     * senza cercare prima l'utente.
+     * @param todoId ID del Task condiviso
+     * @param username Username dell'utente da rimuovere dalla condivisione
+     * @return Optional con l'utente rimosso, vuoto se l'utente non esiste o il Task non era condiviso con lui
+     * @throws DatabaseConnectionException in caso di errore SQL
+     */
+    @Override
+    public Optional<Utente> removeCondivisioneByUsername(int todoId, String username) {
+        if (conn == null) {
+            LOGGER.severe("removeCondivisioneByUsername Task fallito: connessione DB non disponibile.");
+            return Optional.empty();
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_REMOVE_CONDIVISIONE_BY_USERNAME)) {
+            ps.setInt(1, todoId);
+            ps.setString(2, username);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(riferimenti.riferimento(rs.getInt("id"), rs.getString("username")));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.severe("Errore removeCondivisioneByUsername Task: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore removeCondivisioneByUsername Task", e);
+        }
+        return Optional.empty();
+    }
+
     /**
      * Mappa una riga del ResultSet a un oggetto Task.
      * @param rs ResultSet posizionato sulla riga da mappare
@@ -513,6 +1267,15 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
      * @throws IOException in caso di errore di conversione immagine
      */
     private ToDo mapRowToToDo(ResultSet rs) throws SQLException, IOException {
+        return mapRowToToDo(rs, true);
+    }
+
+    /**
+     * Mappa una riga del ResultSet a un oggetto Task.
+     * @param rs ResultSet posizionato sulla riga da mappare
+     * @param conImmagine false per le query che non leggono la colonna immagine
+     */
+    private ToDo mapRowToToDo(ResultSet rs, boolean conImmagine) throws SQLException, IOException {
         int id = rs.getInt("id");
         Integer bachecaId = rs.getObject("bacheca_id", Integer.class);
         int autoreId = rs.getInt("autore_id");
@@ -522,14 +1285,15 @@ public class ToDoPostgresDAOImpl implements ToDoDAO {
         Date scadenzaSql = rs.getDate("scadenza");
         LocalDate scadenza = (scadenzaSql != null) ? scadenzaSql.toLocalDate() : null;
 
-        byte[] imageBytes = rs.getBytes("immagine");
-        Image immagine = bytesToImage(imageBytes);
+        Image immagine = conImmagine ? bytesToImage(rs.getBytes("immagine")) : null;
 
         int posizione = rs.getInt("posizione");
         StatoToDo stato = StatoToDo.valueOf(rs.getString("stato"));
         LocalDate creazione = rs.getDate("data_creazione").toLocalDate();
-        String colore = rs.getString("colore");
+        String colore = ColoreToDo.canonico(rs.getString("colore"));
 
-        return new ToDo(id, bachecaId, autoreId, titolo, descrizione, url, scadenza, immagine, posizione, stato, creazione, colore);
+        ToDo todo = new ToDo(id, bachecaId, autoreId, titolo, descrizione, url, scadenza, immagine, posizione, stato, creazione, colore);
+        todo.setVersione(rs.getInt("versione"));
+        return todo;
     }
 }
\ No newline at end of file
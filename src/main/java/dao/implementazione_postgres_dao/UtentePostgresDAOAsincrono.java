@@ -0,0 +1,85 @@
+package dao.implementazione_postgres_dao;
+
+import dao.UtenteDAO;
+import dao.UtenteDAOAsincrono;
+import metrics.DaoMetrics;
+import model.Utente;
+import model.UtenteRef;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Implementazione Postgres di {@link UtenteDAOAsincrono}. Ogni operazione esegue la corrispondente
+ * operazione di {@link UtentePostgresDAOImpl} su un virtual thread, con una connessione del pool:
+ * query e mappatura sono le stesse, quindi i risultati coincidono con quelli del DAO bloccante.
+ */
+public class UtentePostgresDAOAsincrono implements UtenteDAOAsincrono {
+
+    private final EsecutoreJdbc jdbc;
+
+    /**
+     * Costruttore.
+     * @param jdbc Esecutore delle operazioni JDBC
+     */
+    public UtentePostgresDAOAsincrono(EsecutoreJdbc jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    private <T> CompletableFuture<T> esegui(Function<UtenteDAO, T> operazione) {
+        return jdbc.esegui(conn -> operazione.apply(
+                DaoMetrics.strumenta(UtenteDAO.class, new UtentePostgresDAOImpl(conn), "utente")));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Utente>> findById(int id) {
+        return esegui(dao -> dao.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Utente>> findByUsername(String username) {
+        return esegui(dao -> dao.findByUsername(username));
+    }
+
+    @Override
+    public CompletableFuture<Optional<UtenteRef>> findRefById(int id) {
+        return esegui(dao -> dao.findRefById(id));
+    }
+
+    @Override
+    public CompletableFuture<Optional<UtenteRef>> findRefByUsername(String username) {
+        return esegui(dao -> dao.findRefByUsername(username));
+    }
+
+    @Override
+    public CompletableFuture<List<UtenteRef>> findByUsernamePrefix(String prefisso, int limite) {
+        return esegui(dao -> dao.findByUsernamePrefix(prefisso, limite));
+    }
+
+    @Override
+    public CompletableFuture<List<UtenteRef>> findAll() {
+        return esegui(UtenteDAO::findAll);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> save(Utente utente) {
+        return esegui(dao -> dao.save(utente));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> update(Utente utente) {
+        return esegui(dao -> dao.update(utente));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> delete(int id) {
+        return esegui(dao -> dao.delete(id));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteByUsername(String username) {
+        return esegui(dao -> dao.deleteByUsername(username));
+    }
+}
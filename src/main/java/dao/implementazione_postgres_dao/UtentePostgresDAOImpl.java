@@ -3,6 +3,7 @@ package dao.implementazione_postgres_dao;
 import dao.UtenteDAO;
 import database.ConnessioneDatabase;
 import model.Utente;
+import model.UtenteRef;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -22,6 +23,16 @@ public class UtentePostgresDAOImpl implements UtenteDAO {
     private static final String USERNAME = "username";
     private static final String PASSWORD_HASH = "password_hash";
     private static final String SELECT_ID = "SELECT id, ";
+    private static final String SQL_FIND_BY_ID = SELECT_ID + USERNAME + ", " + PASSWORD_HASH + " FROM utenti WHERE id = ?";
+    private static final String SQL_FIND_BY_USERNAME = SELECT_ID + USERNAME + ", " + PASSWORD_HASH + " FROM utenti WHERE username = ?";
+    private static final String SQL_FIND_REF_BY_ID = SELECT_ID + USERNAME + " FROM utenti WHERE id = ?";
+    private static final String SQL_FIND_REF_BY_USERNAME = SELECT_ID + USERNAME + " FROM utenti WHERE username = ?";
+    private static final String SQL_FIND_BY_USERNAME_PREFIX = SELECT_ID + USERNAME + " FROM utenti WHERE " + USERNAME + " LIKE ? ESCAPE '\\' ORDER BY " + USERNAME + " LIMIT ?";
+    private static final String SQL_FIND_ALL = SELECT_ID + USERNAME + " FROM utenti ORDER BY username";
+    private static final String SQL_SAVE = "INSERT INTO utenti (" + USERNAME + ", " + PASSWORD_HASH + ") VALUES (?, ?) RETURNING id";
+    private static final String SQL_UPDATE = "UPDATE utenti SET " + USERNAME + " = ?, " + PASSWORD_HASH + " = ? WHERE id = ?";
+    private static final String SQL_DELETE = "DELETE FROM utenti WHERE id = ?";
+    private static final String SQL_DELETE_BY_USERNAME = "DELETE FROM utenti WHERE username = ?";
 
     /**
      * Costruttore. Inizializza la connessione al database tramite il singleton ConnessioneDatabase.
@@ -36,6 +47,15 @@ public class UtentePostgresDAOImpl implements UtenteDAO {
         }
     }
 
+    /**
+     * Costruttore che usa la connessione indicata, ad es. presa da un pool.
+     * La connessione resta del chiamante, che la chiude o la restituisce al pool.
+     * @param conn Connessione da usare
+     */
+    public UtentePostgresDAOImpl(Connection conn) {
+        this.conn = conn;
+    }
+
     /**
      * Cerca un utente tramite ID.
      * @param id ID dell'utente
@@ -47,8 +67,7 @@ public class UtentePostgresDAOImpl implements UtenteDAO {
             LOGGER.severe("findById Utente fallito: connessione DB non disponibile.");
             return Optional.empty();
         }
-        String query = SELECT_ID + USERNAME + ", " + PASSWORD_HASH + " FROM utenti WHERE id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_BY_ID)) {
             ps.setInt(1, id);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
@@ -75,8 +94,7 @@ public class UtentePostgresDAOImpl implements UtenteDAO {
             LOGGER.severe("findByUsername Utente fallito: connessione DB non disponibile.");
             return Optional.empty();
         }
-        String query = SELECT_ID + USERNAME + ", " + PASSWORD_HASH + " FROM utenti WHERE username = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_BY_USERNAME)) {
             ps.setString(1, username);
             ResultSet rs = ps.executeQuery();
             if (rs.next()) {
@@ -93,25 +111,105 @@ public class UtentePostgresDAOImpl implements UtenteDAO {
     }
 
     /**
-     * Restituisce la lista di tutti gli utenti presenti nel database.
-     * @return Lista di utenti
+     * Cerca ID e username di un utente tramite ID, senza leggere l'hash della password.
+     * @param id ID dell'utente
+     * @return Optional contenente il riferimento se trovato, altrimenti Optional vuoto
+     */
+    @Override
+    public Optional<UtenteRef> findRefById(int id) {
+        if (conn == null) {
+            LOGGER.severe("findRefById Utente fallito: connessione DB non disponibile.");
+            return Optional.empty();
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_REF_BY_ID)) {
+            ps.setInt(1, id);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                return Optional.of(new UtenteRef(rs.getInt("id"), rs.getString(USERNAME)));
+            }
+        } catch (SQLException e) {
+            LOGGER.severe("Errore findRefById Utente: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Cerca ID e username di un utente tramite username, senza leggere l'hash della password.
+     * @param username Username da cercare
+     * @return Optional contenente il riferimento se trovato, altrimenti Optional vuoto
+     */
+    @Override
+    public Optional<UtenteRef> findRefByUsername(String username) {
+        if (conn == null) {
+            LOGGER.severe("findRefByUsername Utente fallito: connessione DB non disponibile.");
+            return Optional.empty();
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_REF_BY_USERNAME)) {
+            ps.setString(1, username);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                return Optional.of(new UtenteRef(rs.getInt("id"), rs.getString(USERNAME)));
+            }
+        } catch (SQLException e) {
+            LOGGER.severe("Errore findRefByUsername Utente: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Cerca gli utenti il cui username inizia con il prefisso indicato, in ordine alfabetico.
+     * La query usa l'indice idx_utenti_username_pattern (text_pattern_ops) per il LIKE con prefisso.
+     * @param prefisso Prefisso dello username
+     * @param limite Numero massimo di utenti restituiti
+     * @return Lista di riferimenti (ID e username), vuota se nessuno corrisponde
+     */
+    @Override
+    public List<UtenteRef> findByUsernamePrefix(String prefisso, int limite) {
+        List<UtenteRef> utenti = new ArrayList<>();
+        if (conn == null) {
+            LOGGER.severe("findByUsernamePrefix Utenti fallito: connessione DB non disponibile.");
+            return utenti;
+        }
+        if (prefisso == null || prefisso.isEmpty() || limite <= 0) {
+            return utenti;
+        }
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_BY_USERNAME_PREFIX)) {
+            ps.setString(1, escapeLike(prefisso) + "%");
+            ps.setInt(2, limite);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                utenti.add(new UtenteRef(rs.getInt("id"), rs.getString(USERNAME)));
+            }
+        } catch (SQLException e) {
+            LOGGER.severe("Errore findByUsernamePrefix Utenti: " + e.getMessage());
+        }
+        return utenti;
+    }
+
+    /**
+     * Effettua l'escape dei caratteri speciali di LIKE (%, _ e backslash).
+     * @param testo Testo da usare come letterale
+     * @return Testo con i caratteri speciali preceduti da backslash
+     */
+    private static String escapeLike(String testo) {
+        return testo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Restituisce la lista di tutti gli utenti presenti nel database, senza hash delle password.
+     * @return Lista di riferimenti (ID e username)
      */
     @Override
-    public List<Utente> findAll() {
-        List<Utente> utenti = new ArrayList<>();
+    public List<UtenteRef> findAll() {
+        List<UtenteRef> utenti = new ArrayList<>();
         if (conn == null) {
             LOGGER.severe("findAll Utenti fallito: connessione DB non disponibile.");
             return utenti;
         }
-        String query = SELECT_ID + USERNAME + ", " + PASSWORD_HASH + " FROM utenti ORDER BY username";
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_FIND_ALL);
+             ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
-                utenti.add(new Utente(
-                        rs.getInt("id"),
-                        rs.getString(USERNAME),
-                        rs.getString(PASSWORD_HASH)
-                ));
+                utenti.add(new UtenteRef(rs.getInt("id"), rs.getString(USERNAME)));
             }
         } catch (SQLException e) {
             LOGGER.severe("Errore findAll Utenti: " + e.getMessage());
@@ -134,8 +232,7 @@ public class UtentePostgresDAOImpl implements UtenteDAO {
             return update(utente); // Se l'ID è già impostato, esegui un update
         }
 
-        String query = "INSERT INTO utenti (" + USERNAME + ", " + PASSWORD_HASH + ") VALUES (?, ?) RETURNING id";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_SAVE)) {
             ps.setString(1, utente.getUsername());
             ps.setString(2, utente.getPasswordHash());
 
@@ -169,8 +266,7 @@ public class UtentePostgresDAOImpl implements UtenteDAO {
             LOGGER.severe("Impossibile aggiornare utente senza ID.");
             return false;
         }
-        String query = "UPDATE utenti SET " + USERNAME + " = ?, " + PASSWORD_HASH + " = ? WHERE id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_UPDATE)) {
             ps.setString(1, utente.getUsername());
             ps.setString(2, utente.getPasswordHash());
             ps.setInt(3, utente.getId());
@@ -193,8 +289,7 @@ public class UtentePostgresDAOImpl implements UtenteDAO {
             LOGGER.severe("delete Utente fallito: connessione DB non disponibile.");
             return false;
         }
-        String query = "DELETE FROM utenti WHERE id = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_DELETE)) {
             ps.setInt(1, id);
             int affectedRows = ps.executeUpdate();
             return affectedRows > 0;
@@ -215,8 +310,7 @@ public class UtentePostgresDAOImpl implements UtenteDAO {
             LOGGER.severe("delete Utente by Username fallito: connessione DB non disponibile.");
             return false;
         }
-        String query = "DELETE FROM utenti WHERE username = ?";
-        try (PreparedStatement ps = conn.prepareStatement(query)) {
+        try (PreparedStatement ps = StatementCache.prepara(conn, SQL_DELETE_BY_USERNAME)) {
             ps.setString(1, username);
             int affectedRows = ps.executeUpdate();
             return affectedRows > 0;
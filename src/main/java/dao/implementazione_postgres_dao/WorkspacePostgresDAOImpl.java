@@ -0,0 +1,271 @@
+package dao.implementazione_postgres_dao;
+
+import dao.WorkspaceDAO;
+import database.ConnessioneDatabase;
+import model.StatoToDo;
+import model.TitoloBacheca;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Implementazione Postgres del DAO di esportazione/importazione del workspace.
+ * Bacheche e Task viaggiano come CSV prodotti e consumati con COPY ... TO STDOUT / FROM STDIN
+ * tramite il CopyManager del driver; le immagini sono voci separate dell'archivio, lette e scritte
+ * una alla volta. L'archivio contiene, in quest'ordine:
+ * manifest.properties, bacheche.csv, todos.csv e immagini/&lt;id Task&gt;.png.
+ */
+@SuppressWarnings("java:S2139")
+public class WorkspacePostgresDAOImpl implements WorkspaceDAO {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkspacePostgresDAOImpl.class.getName());
+
+    private static final String VOCE_MANIFEST = "manifest.properties";
+    private static final String VOCE_BACHECHE = "bacheche.csv";
+    private static final String VOCE_TODOS = "todos.csv";
+    private static final String PREFISSO_IMMAGINI = "immagini/";
+    private static final String ESTENSIONE_IMMAGINI = ".png";
+    private static final String FORMATO = "1";
+    /** Immagini accumulate prima di inviare il batch di UPDATE. */
+    private static final int BATCH_IMMAGINI = 50;
+
+    private static final String COLONNE_TODOS_CSV = "id, bacheca_id, titolo, descrizione, url, scadenza, posizione, stato, data_creazione, colore";
+
+    /**
+     * Esporta il workspace dell'utente come archivio ZIP.
+     * @param utenteId ID dell'utente
+     * @param out Stream di destinazione (non viene chiuso)
+     * @throws DatabaseConnectionException in caso di errore SQL o di scrittura
+     */
+    @Override
+    public void esporta(int utenteId, OutputStream out) {
+        try (Connection dedicata = ConnessioneDatabase.apriConnessioneDedicata()) {
+            // Snapshot coerente fra le tre letture
+            dedicata.setAutoCommit(false);
+            dedicata.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            dedicata.setReadOnly(true);
+            CopyManager copy = dedicata.unwrap(PGConnection.class).getCopyAPI();
+            ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+
+            zip.putNextEntry(new ZipEntry(VOCE_MANIFEST));
+            Properties manifest = new Properties();
+            manifest.setProperty("formato", FORMATO);
+            manifest.store(zip, "Workspace ToDo");
+            zip.closeEntry();
+
+            // COPY non accetta parametri: utenteId è un intero, quindi l'interpolazione è sicura
+            zip.putNextEntry(new ZipEntry(VOCE_BACHECHE));
+            copy.copyOut("COPY (SELECT id, titolo_bacheca, descrizione FROM bacheche WHERE utente_id = " + utenteId
+                    + " ORDER BY id) TO STDOUT WITH (FORMAT csv, HEADER true)", zip);
+            zip.closeEntry();
+
+            zip.putNextEntry(new ZipEntry(VOCE_TODOS));
+            copy.copyOut("COPY (SELECT t.id, t.bacheca_id, t.titolo, t.descrizione, t.url, t.scadenza, t.posizione, t.stato, t.data_creazione, t.colore"
+                    + " FROM todos t JOIN bacheche b ON b.id = t.bacheca_id WHERE b.utente_id = " + utenteId
+                    + " ORDER BY t.bacheca_id, t.posizione, t.id) TO STDOUT WITH (FORMAT csv, HEADER true)", zip);
+            zip.closeEntry();
+
+            int immagini = esportaImmagini(dedicata, utenteId, zip);
+            zip.finish();
+            dedicata.rollback();
+            LOGGER.info("Workspace dell'utente " + utenteId + " esportato (" + immagini + " immagini).");
+        } catch (SQLException | IOException e) {
+            LOGGER.severe("Errore esportazione workspace: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore esportazione workspace", e);
+        }
+    }
+
+    /**
+     * Scrive un'immagine per voce, leggendo i byte in streaming con un cursore lato server.
+     */
+    private static int esportaImmagini(Connection dedicata, int utenteId, ZipOutputStream zip) throws SQLException, IOException {
+        String query = "SELECT t.id, t.immagine FROM todos t JOIN bacheche b ON b.id = t.bacheca_id WHERE b.utente_id = ? AND t.immagine IS NOT NULL";
+        int scritte = 0;
+        try (PreparedStatement ps = dedicata.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Math.min(ConnessioneDatabase.getFetchSize(), 64));
+            ps.setInt(1, utenteId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    zip.putNextEntry(new ZipEntry(PREFISSO_IMMAGINI + rs.getInt("id") + ESTENSIONE_IMMAGINI));
+                    try (InputStream immagine = rs.getBinaryStream("immagine")) {
+                        immagine.transferTo(zip);
+                    }
+                    zip.closeEntry();
+                    scritte++;
+                }
+            }
+        }
+        return scritte;
+    }
+
+    /**
+     * Importa un archivio nel workspace dell'utente.
+     * Le righe vengono caricate con COPY in tabelle temporanee; gli ID dei nuovi Task sono
+     * preallocati dalla sequenza, così le immagini possono essere associate senza rileggere i Task.
+     * @param utenteId ID dell'utente di destinazione
+     * @param in Stream dell'archivio
+     * @return Esito dell'importazione
+     * @throws DatabaseConnectionException in caso di errore SQL, di lettura o di archivio non valido
+     */
+    @Override
+    public RisultatoImportazione importa(int utenteId, InputStream in) {
+        try (Connection dedicata = ConnessioneDatabase.apriConnessioneDedicata()) {
+            dedicata.setAutoCommit(false);
+            try {
+                RisultatoImportazione risultato = importaInTransazione(dedicata, utenteId, in);
+                dedicata.commit();
+                LOGGER.info("Workspace importato per l'utente " + utenteId + ": " + risultato);
+                return risultato;
+            } catch (SQLException | IOException | RuntimeException e) {
+                dedicata.rollback();
+                throw e;
+            }
+        } catch (SQLException | IOException e) {
+            LOGGER.severe("Errore importazione workspace: " + e.getMessage());
+            throw new DatabaseConnectionException("Errore importazione workspace", e);
+        }
+    }
+
+    private static RisultatoImportazione importaInTransazione(Connection dedicata, int utenteId, InputStream in) throws SQLException, IOException {
+        CopyManager copy = dedicata.unwrap(PGConnection.class).getCopyAPI();
+        ZipInputStream zip = new ZipInputStream(in, StandardCharsets.UTF_8);
+        int bacheche = 0;
+        int todos = 0;
+        int immagini = 0;
+        boolean manifestLetto = false;
+        boolean todosCaricati = false;
+        try (PreparedStatement psImmagine = dedicata.prepareStatement(
+                "UPDATE todos t SET immagine = ? FROM imp_todos i WHERE i.id = ? AND t.id = i.nuovo_id")) {
+            int inBatch = 0;
+            for (ZipEntry voce = zip.getNextEntry(); voce != null; voce = zip.getNextEntry()) {
+                String nome = voce.getName();
+                if (VOCE_MANIFEST.equals(nome)) {
+                    verificaManifest(zip);
+                    manifestLetto = true;
+                } else if (VOCE_BACHECHE.equals(nome) && manifestLetto) {
+                    bacheche = importaBacheche(dedicata, copy, utenteId, zip);
+                } else if (VOCE_TODOS.equals(nome) && manifestLetto) {
+                    todos = importaToDo(dedicata, copy, utenteId, zip);
+                    todosCaricati = true;
+                } else if (nome.startsWith(PREFISSO_IMMAGINI) && nome.endsWith(ESTENSIONE_IMMAGINI) && todosCaricati) {
+                    psImmagine.setBytes(1, zip.readAllBytes());
+                    psImmagine.setInt(2, idDaVoceImmagine(nome));
+                    psImmagine.addBatch();
+                    immagini++;
+                    if (++inBatch == BATCH_IMMAGINI) {
+                        psImmagine.executeBatch();
+                        inBatch = 0;
+                    }
+                } else {
+                    throw new IOException("Voce dell'archivio inattesa o fuori ordine: " + nome);
+                }
+                zip.closeEntry();
+            }
+            if (inBatch > 0) {
+                psImmagine.executeBatch();
+            }
+        }
+        if (!todosCaricati) {
+            throw new IOException("Archivio del workspace incompleto: " + VOCE_TODOS + " mancante.");
+        }
+        return new RisultatoImportazione(bacheche, todos, immagini);
+    }
+
+    private static void verificaManifest(InputStream voce) throws IOException {
+        Properties manifest = new Properties();
+        manifest.load(voce);
+        if (!FORMATO.equals(manifest.getProperty("formato"))) {
+            throw new IOException("Formato del workspace non supportato: " + manifest.getProperty("formato"));
+        }
+    }
+
+    /**
+     * Carica le bacheche dell'archivio e crea quelle che l'utente non ha ancora.
+     * Produce la tabella temporanea imp_mappa_bacheche (vecchio ID, nuovo ID).
+     * @return Numero di bacheche create
+     */
+    private static int importaBacheche(Connection dedicata, CopyManager copy, int utenteId, InputStream voce) throws SQLException, IOException {
+        try (Statement st = dedicata.createStatement()) {
+            st.execute("CREATE TEMP TABLE imp_bacheche (id integer, titolo_bacheca character varying(50), descrizione text) ON COMMIT DROP");
+        }
+        copy.copyIn("COPY imp_bacheche FROM STDIN WITH (FORMAT csv, HEADER true)", voce);
+
+        int create;
+        Array titoliValidi = dedicata.createArrayOf("varchar",
+                Arrays.stream(TitoloBacheca.values()).map(Enum::name).toArray());
+        try (PreparedStatement ps = dedicata.prepareStatement(
+                "INSERT INTO bacheche (utente_id, titolo_bacheca, descrizione) SELECT ?, titolo_bacheca, descrizione FROM imp_bacheche"
+                        + " WHERE titolo_bacheca = ANY (?) ON CONFLICT (utente_id, titolo_bacheca) DO NOTHING")) {
+            ps.setInt(1, utenteId);
+            ps.setArray(2, titoliValidi);
+            create = ps.executeUpdate();
+        }
+        try (PreparedStatement ps = dedicata.prepareStatement(
+                "CREATE TEMP TABLE imp_mappa_bacheche ON COMMIT DROP AS SELECT i.id AS vecchio_id, b.id AS nuovo_id"
+                        + " FROM imp_bacheche i JOIN bacheche b ON b.utente_id = ? AND b.titolo_bacheca = i.titolo_bacheca")) {
+            ps.setInt(1, utenteId);
+            ps.execute();
+        }
+        return create;
+    }
+
+    /**
+     * Carica i Task dell'archivio, prealloca i nuovi ID e li inserisce in coda alle bacheche di destinazione.
+     * @return Numero di Task importati
+     */
+    private static int importaToDo(Connection dedicata, CopyManager copy, int utenteId, InputStream voce) throws SQLException, IOException {
+        try (Statement st = dedicata.createStatement()) {
+            st.execute("CREATE TEMP TABLE imp_todos (id integer, bacheca_id integer, titolo character varying(255), descrizione text,"
+                    + " url character varying(255), scadenza date, posizione integer, stato character varying(20),"
+                    + " data_creazione date, colore character varying(7), nuovo_id integer) ON COMMIT DROP");
+        }
+        copy.copyIn("COPY imp_todos (" + COLONNE_TODOS_CSV + ") FROM STDIN WITH (FORMAT csv, HEADER true)", voce);
+        try (Statement st = dedicata.createStatement()) {
+            st.execute("UPDATE imp_todos SET nuovo_id = nextval('public.todos_id_seq')");
+            st.execute("CREATE INDEX ON imp_todos (id)");
+            st.execute("ANALYZE imp_todos");
+        }
+        Array statiValidi = dedicata.createArrayOf("varchar",
+                Arrays.stream(StatoToDo.values()).map(Enum::name).toArray());
+        try (PreparedStatement ps = dedicata.prepareStatement(
+                "INSERT INTO todos (id, bacheca_id, autore_id, titolo, descrizione, url, scadenza, posizione, stato, data_creazione, colore)"
+                        + " SELECT i.nuovo_id, m.nuovo_id, ?, i.titolo, COALESCE(i.descrizione, ''), i.url, i.scadenza,"
+                        + " COALESCE(i.posizione, 0) + COALESCE(o.base, 0),"
+                        + " CASE WHEN i.stato = ANY (?) THEN i.stato ELSE 'NON_COMPLETATO' END,"
+                        + " COALESCE(i.data_creazione, CURRENT_DATE), COALESCE(i.colore, '#FFFFFF')"
+                        + " FROM imp_todos i JOIN imp_mappa_bacheche m ON m.vecchio_id = i.bacheca_id"
+                        + " LEFT JOIN (SELECT bacheca_id, MAX(posizione) + 1 AS base FROM todos"
+                        + " WHERE bacheca_id IN (SELECT nuovo_id FROM imp_mappa_bacheche) GROUP BY bacheca_id) o"
+                        + " ON o.bacheca_id = m.nuovo_id"
+                        + " WHERE i.titolo IS NOT NULL")) {
+            ps.setInt(1, utenteId);
+            ps.setArray(2, statiValidi);
+            return ps.executeUpdate();
+        }
+    }
+
+    private static int idDaVoceImmagine(String nome) throws IOException {
+        String id = nome.substring(PREFISSO_IMMAGINI.length(), nome.length() - ESTENSIONE_IMMAGINI.length());
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            throw new IOException("Nome immagine non valido nell'archivio: " + nome, e);
+        }
+    }
+}
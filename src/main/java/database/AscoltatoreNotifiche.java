@@ -0,0 +1,211 @@
+package database;
+
+import metrics.MetricsRegistry;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Ascoltatore delle notifiche PostgreSQL (LISTEN/NOTIFY) su un canale.
+ * Usa una connessione dedicata e un thread daemon che attende le notifiche con
+ * {@link PGConnection#getNotifications(int)}; i payload ricevuti insieme vengono consegnati
+ * in un'unica lista al destinatario, sul thread dell'ascoltatore.
+ * Se la connessione cade viene riaperta con attesa crescente e viene invocata la callback
+ * di riconnessione, perché le notifiche inviate nel frattempo sono andate perse.
+ * <p>
+ * La connessione è fornita dall'esterno, quindi l'ascoltatore può essere provato contro
+ * un qualsiasi PostgreSQL locale: si avvia, si attende {@link #attendiAscolto(long)} e si
+ * esegue {@code NOTIFY canale, 'payload'} da un'altra connessione.
+ */
+public class AscoltatoreNotifiche implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AscoltatoreNotifiche.class);
+
+    /** Attesa massima di ogni chiamata a getNotifications, dopo la quale si verifica la richiesta di arresto. */
+    private static final int ATTESA_NOTIFICHE_MS = 1_000;
+    /** Attesa iniziale e massima prima di riaprire una connessione caduta. */
+    private static final long ATTESA_RICONNESSIONE_MIN_MS = 500;
+    private static final long ATTESA_RICONNESSIONE_MAX_MS = 30_000;
+
+    private static final MetricsRegistry.Contatore NOTIFICHE_RICEVUTE = MetricsRegistry.getInstance()
+            .contatore("db_notifications_received_total", "Notifiche LISTEN/NOTIFY ricevute");
+    private static final MetricsRegistry.Contatore RICONNESSIONI = MetricsRegistry.getInstance()
+            .contatore("db_listener_reconnects_total", "Riconnessioni dell'ascoltatore LISTEN/NOTIFY");
+
+    /**
+     * Fornitore della connessione dedicata all'ascolto.
+     */
+    @FunctionalInterface
+    public interface FornitoreConnessione {
+        /**
+         * Apre una nuova connessione, che verrà chiusa dall'ascoltatore.
+         * @return Connessione PostgreSQL
+         * @throws SQLException se la connessione fallisce
+         */
+        Connection apri() throws SQLException;
+    }
+
+    private final String canale;
+    private final FornitoreConnessione fornitore;
+    private final Consumer<List<String>> destinatario;
+    private final Runnable allaRiconnessione;
+    private final CountDownLatch primoAscolto = new CountDownLatch(1);
+    private volatile boolean attivo;
+    private volatile Connection connessione;
+    private Thread thread;
+
+    /**
+     * Costruttore.
+     * @param canale Nome del canale (solo lettere minuscole, cifre e underscore)
+     * @param fornitore Fornitore della connessione dedicata
+     * @param destinatario Riceve i payload di ogni gruppo di notifiche, nell'ordine di invio
+     * @param allaRiconnessione Invocata dopo ogni riconnessione riuscita (può essere null)
+     */
+    public AscoltatoreNotifiche(String canale, FornitoreConnessione fornitore,
+                                Consumer<List<String>> destinatario, Runnable allaRiconnessione) {
+        if (canale == null || !canale.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Nome del canale non valido: " + canale);
+        }
+        this.canale = canale;
+        this.fornitore = fornitore;
+        this.destinatario = destinatario;
+        this.allaRiconnessione = allaRiconnessione;
+    }
+
+    /**
+     * Crea un ascoltatore che usa le connessioni dedicate di {@link ConnessioneDatabase}.
+     * @param canale Nome del canale
+     * @param destinatario Riceve i payload di ogni gruppo di notifiche
+     * @param allaRiconnessione Invocata dopo ogni riconnessione riuscita (può essere null)
+     * @return Ascoltatore non ancora avviato
+     */
+    public static AscoltatoreNotifiche perDatabase(String canale, Consumer<List<String>> destinatario, Runnable allaRiconnessione) {
+        return new AscoltatoreNotifiche(canale, ConnessioneDatabase::apriConnessioneDedicata, destinatario, allaRiconnessione);
+    }
+
+    /**
+     * Avvia il thread di ascolto. Le chiamate successive alla prima non hanno effetto.
+     */
+    public synchronized void avvia() {
+        if (thread != null) {
+            return;
+        }
+        attivo = true;
+        thread = new Thread(this::ciclo, "db-listen-" + canale);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Attende che il primo LISTEN sia stato eseguito.
+     * @param timeoutMs Attesa massima in millisecondi
+     * @return true se l'ascoltatore è in ascolto, false allo scadere dell'attesa
+     * @throws InterruptedException se il thread viene interrotto durante l'attesa
+     */
+    public boolean attendiAscolto(long timeoutMs) throws InterruptedException {
+        return primoAscolto.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Arresta l'ascolto e chiude la connessione dedicata.
+     */
+    @Override
+    public synchronized void close() {
+        attivo = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        chiudiConnessione();
+    }
+
+    private void ciclo() {
+        long attesa = ATTESA_RICONNESSIONE_MIN_MS;
+        boolean riconnessione = false;
+        while (attivo) {
+            try {
+                connessione = fornitore.apri();
+                try (Statement st = connessione.createStatement()) {
+                    st.execute("LISTEN " + canale);
+                }
+                logger.info("AscoltatoreNotifiche: in ascolto sul canale '{}'.", canale);
+                primoAscolto.countDown();
+                attesa = ATTESA_RICONNESSIONE_MIN_MS;
+                if (riconnessione) {
+                    RICONNESSIONI.incrementa();
+                    if (allaRiconnessione != null) {
+                        allaRiconnessione.run();
+                    }
+                }
+                ricevi(connessione.unwrap(PGConnection.class));
+            } catch (SQLException e) {
+                if (attivo) {
+                    logger.warn("AscoltatoreNotifiche: connessione sul canale '{}' persa: {}. Nuovo tentativo tra {} ms.",
+                            canale, e.getMessage(), attesa);
+                }
+            } finally {
+                chiudiConnessione();
+            }
+            riconnessione = true;
+            if (!dormi(attesa)) {
+                break;
+            }
+            attesa = Math.min(attesa * 2, ATTESA_RICONNESSIONE_MAX_MS);
+        }
+        logger.info("AscoltatoreNotifiche: ascolto sul canale '{}' terminato.", canale);
+    }
+
+    private void ricevi(PGConnection pg) throws SQLException {
+        while (attivo) {
+            PGNotification[] notifiche = pg.getNotifications(ATTESA_NOTIFICHE_MS);
+            if (notifiche == null || notifiche.length == 0) {
+                continue;
+            }
+            List<String> payload = new ArrayList<>(notifiche.length);
+            for (PGNotification n : notifiche) {
+                payload.add(n.getParameter());
+            }
+            NOTIFICHE_RICEVUTE.aggiungi(payload.size());
+            try {
+                destinatario.accept(payload);
+            } catch (RuntimeException e) {
+                // Un errore del destinatario non deve far perdere la connessione e le notifiche successive
+                logger.error("AscoltatoreNotifiche: errore nella consegna delle notifiche del canale '{}'", canale, e);
+            }
+        }
+    }
+
+    private boolean dormi(long millis) {
+        if (!attivo) {
+            return false;
+        }
+        try {
+            Thread.sleep(millis);
+            return attivo;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void chiudiConnessione() {
+        Connection c = connessione;
+        connessione = null;
+        if (c != null) {
+            try {
+                c.close();
+            } catch (SQLException e) {
+                logger.debug("AscoltatoreNotifiche: chiusura connessione fallita: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -3,6 +3,8 @@ package database;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
+import metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,6 +30,34 @@ public class ConnessioneDatabase {
     private static ConnessioneDatabase instance;
     private Connection connection;
 
+    private static final MetricsRegistry.Contatore CONNESSIONI_APERTE = MetricsRegistry.getInstance()
+            .contatore("db_connections_opened_total", "Connessioni JDBC aperte dall'avvio");
+    private static final MetricsRegistry.Contatore CONNESSIONI_FALLITE = MetricsRegistry.getInstance()
+            .contatore("db_connection_failures_total", "Tentativi di connessione falliti");
+    /**
+     * Numero di righe lette per ogni round-trip dalle query in streaming.
+     * Configurabile con la proprietà di sistema todoapp.db.fetchSize.
+     */
+    private static final int FETCH_SIZE = Math.max(1, Integer.getInteger("todoapp.db.fetchSize", 500));
+    /**
+     * Esecuzioni di una stessa istruzione dopo le quali il driver la prepara lato server (parse e piano una
+     * sola volta per connessione). Configurabile con la proprietà di sistema todoapp.db.prepareThreshold.
+     */
+    private static final int PREPARE_THRESHOLD = Math.max(1, Integer.getInteger("todoapp.db.prepareThreshold", 1));
+    /**
+     * Numero di istruzioni preparate che il driver conserva per ogni connessione.
+     * Configurabile con la proprietà di sistema todoapp.db.statementCacheSize.
+     */
+    private static final int STATEMENT_CACHE_SIZE = Math.max(1, Integer.getInteger("todoapp.db.statementCacheSize", 256));
+
+    private static final MetricsRegistry.Timer TEMPO_CONNESSIONE = MetricsRegistry.getInstance()
+            .timer("db_connect_seconds", "Tempo necessario ad aprire una connessione JDBC");
+
+    static {
+        MetricsRegistry.getInstance().gauge("db_connection_open", "1 se la connessione condivisa è aperta, 0 altrimenti",
+                ConnessioneDatabase::statoConnessioneCondivisa);
+    }
+
     /**
      * Costruttore privato. Inizializza la connessione al database.
      * @throws SQLException se la connessione fallisce o le variabili d'ambiente non sono valorizzate
@@ -42,9 +72,13 @@ public class ConnessioneDatabase {
                 throw new SQLException(msg);
             }
             // Class.forName("org.postgresql.Driver"); // NON SERVE più con JDBC 4.0+
-            this.connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+            long inizio = System.nanoTime();
+            this.connection = DriverManager.getConnection(DB_URL, proprietaConnessione());
+            TEMPO_CONNESSIONE.registra(System.nanoTime() - inizio);
+            CONNESSIONI_APERTE.incrementa();
             logger.info("Connessione al database PostgreSQL stabilita con successo.");
         } catch (SQLException e) {
+            CONNESSIONI_FALLITE.incrementa();
             String msg = String.format(
                     "Errore durante la connessione al database: %s [SQLState: %s, ErrorCode: %d]",
                     e.getMessage(), e.getSQLState(), e.getErrorCode());
@@ -79,6 +113,76 @@ public class ConnessioneDatabase {
         return instance;
     }
 
+    /**
+     * Apre una nuova connessione dedicata, indipendente da quella condivisa.
+     * Usata dalle query in streaming, che disattivano l'autocommit per tutta la durata della lettura
+     * e non devono quindi interferire con le altre operazioni. Il chiamante deve chiuderla.
+     * @return Nuova connessione JDBC
+     * @throws SQLException se la connessione fallisce
+     */
+    public static Connection apriConnessioneDedicata() throws SQLException {
+        try {
+            long inizio = System.nanoTime();
+            Connection dedicata = DriverManager.getConnection(DB_URL, proprietaConnessione());
+            TEMPO_CONNESSIONE.registra(System.nanoTime() - inizio);
+            CONNESSIONI_APERTE.incrementa();
+            return dedicata;
+        } catch (SQLException e) {
+            CONNESSIONI_FALLITE.incrementa();
+            throw e;
+        }
+    }
+
+    /**
+     * Restituisce il fetch size da usare per le query in streaming.
+     * @return Numero di righe per round-trip
+     */
+    public static int getFetchSize() {
+        return FETCH_SIZE;
+    }
+
+    /**
+     * Restituisce la soglia di esecuzioni oltre la quale il driver usa un'istruzione preparata lato server.
+     * @return Numero di esecuzioni
+     */
+    public static int getPrepareThreshold() {
+        return PREPARE_THRESHOLD;
+    }
+
+    /**
+     * Restituisce il numero di istruzioni preparate conservate dal driver per ogni connessione.
+     * @return Dimensione della cache delle istruzioni
+     */
+    public static int getStatementCacheSize() {
+        return STATEMENT_CACHE_SIZE;
+    }
+
+    /**
+     * Proprietà comuni a tutte le connessioni: credenziali e preparazione lato server delle istruzioni.
+     * Il driver conserva per ogni connessione le istruzioni preparate, indicizzate dal testo SQL.
+     */
+    private static Properties proprietaConnessione() {
+        Properties proprieta = new Properties();
+        proprieta.setProperty("user", DB_USER);
+        proprieta.setProperty("password", DB_PASSWORD);
+        proprieta.setProperty("prepareThreshold", Integer.toString(PREPARE_THRESHOLD));
+        proprieta.setProperty("preparedStatementCacheQueries", Integer.toString(STATEMENT_CACHE_SIZE));
+        return proprieta;
+    }
+
+    /**
+     * Restituisce lo stato della connessione condivisa per la gauge delle metriche.
+     * @return 1 se la connessione è aperta, 0 se chiusa o mai creata
+     */
+    private static double statoConnessioneCondivisa() {
+        ConnessioneDatabase corrente = instance;
+        try {
+            return corrente != null && corrente.connection != null && !corrente.connection.isClosed() ? 1 : 0;
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+
     /**
      * Chiude la connessione al database, se attiva.
      */
@@ -0,0 +1,177 @@
+package database;
+
+import metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool limitato di connessioni dedicate, usato dalla modalità server dove più richieste
+ * vengono servite in parallelo e non possono condividere la connessione singleton.
+ * Le connessioni sono aperte al primo bisogno con {@link ConnessioneDatabase#apriConnessioneDedicata()}
+ * e riusate; un semaforo limita quelle in uso, quindi le richieste in eccesso attendono
+ * (al massimo il timeout indicato) invece di aprire connessioni oltre la dimensione del pool.
+ * <p>
+ * Le connessioni libere sono riusate a partire dall'ultima rilasciata, così sotto carico restano in uso sempre le
+ * stesse. Una connessione viene verificata con {@link Connection#isValid(int)}, che costa un giro sul server, solo
+ * se è rimasta inattiva oltre la soglia: quelle appena rilasciate erano valide all'ultimo uso. Una connessione che
+ * si rivela chiusa durante l'uso viene scartata al rilascio.
+ * <p>
+ * La dimensione predefinita è configurabile con la proprietà di sistema todoapp.db.poolSize, la soglia di
+ * inattività oltre cui verificare le connessioni con todoapp.db.validateAfterIdleMs.
+ */
+public class PoolConnessioni implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(PoolConnessioni.class);
+
+    /** Secondi concessi a Connection.isValid prima di scartare una connessione inattiva. */
+    private static final int TIMEOUT_VALIDAZIONE_S = 2;
+    /** Inattività oltre la quale una connessione libera viene verificata prima di essere riusata (default 30 s). */
+    private static final long SOGLIA_VALIDAZIONE_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Math.max(0, Long.getLong("todoapp.db.validateAfterIdleMs", 30_000)));
+
+    private static final MetricsRegistry.Timer ATTESA_CONNESSIONE = MetricsRegistry.getInstance()
+            .timer("db_pool_wait_seconds", "Attesa per ottenere una connessione dal pool");
+    private static final MetricsRegistry.Contatore ATTESE_SCADUTE = MetricsRegistry.getInstance()
+            .contatore("db_pool_timeouts_total", "Richieste di connessione al pool scadute");
+
+    private final int dimensione;
+    private final Semaphore permessi;
+    /** Connessioni libere, la più recente in testa. */
+    private final BlockingDeque<Libera> libere;
+    private final AtomicInteger inUso = new AtomicInteger();
+    private volatile boolean chiuso;
+
+    /**
+     * Connessione libera con l'istante del rilascio (System.nanoTime).
+     */
+    private record Libera(Connection connessione, long rilasciataNanos) {
+    }
+
+    /**
+     * Costruttore.
+     * @param dimensione Numero massimo di connessioni aperte contemporaneamente
+     */
+    public PoolConnessioni(int dimensione) {
+        if (dimensione < 1) {
+            throw new IllegalArgumentException("La dimensione del pool deve essere positiva: " + dimensione);
+        }
+        this.dimensione = dimensione;
+        this.permessi = new Semaphore(dimensione, true);
+        this.libere = new LinkedBlockingDeque<>(dimensione);
+        MetricsRegistry.getInstance().gauge("db_pool_in_use", "Connessioni del pool attualmente in uso", inUso::get);
+    }
+
+    /**
+     * Crea un pool della dimensione configurata (predefinita: due connessioni per core).
+     * @return Nuovo pool, ancora senza connessioni aperte
+     */
+    public static PoolConnessioni predefinito() {
+        return new PoolConnessioni(Math.max(1, Integer.getInteger("todoapp.db.poolSize",
+                Runtime.getRuntime().availableProcessors() * 2)));
+    }
+
+    /**
+     * Restituisce il numero massimo di connessioni del pool.
+     * @return Dimensione del pool
+     */
+    public int getDimensione() {
+        return dimensione;
+    }
+
+    /**
+     * Ottiene una connessione, attendendo che se ne liberi una se il pool è esaurito.
+     * La connessione va restituita con {@link #rilascia(Connection)}.
+     * @param timeoutMs Attesa massima in millisecondi
+     * @return Connessione valida con autocommit attivo
+     * @throws SQLException se l'attesa scade, il pool è chiuso o l'apertura della connessione fallisce
+     */
+    public Connection ottieni(long timeoutMs) throws SQLException {
+        if (chiuso) {
+            throw new SQLException("Pool di connessioni chiuso");
+        }
+        long inizio = System.nanoTime();
+        try {
+            if (!permessi.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                ATTESE_SCADUTE.incrementa();
+                throw new SQLException("Nessuna connessione libera entro " + timeoutMs + " ms (pool di " + dimensione + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attesa della connessione interrotta", e);
+        }
+        ATTESA_CONNESSIONE.registra(System.nanoTime() - inizio);
+        try {
+            Connection connessione = null;
+            Libera libera;
+            while (connessione == null && (libera = libere.pollFirst()) != null) {
+                connessione = libera.connessione();
+                if (System.nanoTime() - libera.rilasciataNanos() >= SOGLIA_VALIDAZIONE_NANOS
+                        && !connessione.isValid(TIMEOUT_VALIDAZIONE_S)) {
+                    chiudi(connessione);
+                    connessione = null;
+                }
+            }
+            if (connessione == null) {
+                connessione = ConnessioneDatabase.apriConnessioneDedicata();
+            }
+            inUso.incrementAndGet();
+            return connessione;
+        } catch (SQLException | RuntimeException e) {
+            permessi.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Restituisce una connessione al pool. Una transazione lasciata aperta viene annullata;
+     * una connessione chiusa o in errore viene scartata e sarà riaperta alla prossima richiesta.
+     * @param connessione Connessione ottenuta da {@link #ottieni(long)}
+     */
+    public void rilascia(Connection connessione) {
+        if (connessione == null) {
+            return;
+        }
+        inUso.decrementAndGet();
+        try {
+            if (!connessione.isClosed() && !connessione.getAutoCommit()) {
+                connessione.rollback();
+                connessione.setAutoCommit(true);
+            }
+            if (chiuso || connessione.isClosed() || !libere.offerFirst(new Libera(connessione, System.nanoTime()))) {
+                chiudi(connessione);
+            }
+        } catch (SQLException e) {
+            logger.warn("PoolConnessioni: connessione scartata al rilascio: {}", e.getMessage());
+            chiudi(connessione);
+        } finally {
+            permessi.release();
+        }
+    }
+
+    /**
+     * Chiude le connessioni libere; quelle in uso vengono chiuse al rilascio.
+     */
+    @Override
+    public void close() {
+        chiuso = true;
+        Libera libera;
+        while ((libera = libere.pollFirst()) != null) {
+            chiudi(libera.connessione());
+        }
+    }
+
+    private static void chiudi(Connection connessione) {
+        try {
+            connessione.close();
+        } catch (SQLException e) {
+            logger.debug("PoolConnessioni: chiusura connessione fallita: {}", e.getMessage());
+        }
+    }
+}
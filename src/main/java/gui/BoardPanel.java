@@ -3,6 +3,7 @@ package gui;
 
 import controller.Controller;
 import model.Bacheca;
+import model.ColoreToDo;
 import model.StatoToDo;
 import model.ToDo;
 import model.TitoloBacheca;
@@ -52,6 +53,8 @@ public class BoardPanel extends JPanel {
     private transient Image immagineSelezionataGlobal = null;
 
     private static final int TODO_IMAGE_SQUARE_SIZE = 140;
+    /** Attesa dopo l'ultimo tasto prima di cercare lo username digitato nella condivisione. */
+    private static final int USERNAME_LOOKUP_DEBOUNCE_MS = 250;
 
     private static final DateTimeFormatter ITALIAN_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
 
@@ -62,16 +65,12 @@ public class BoardPanel extends JPanel {
             BorderFactory.createLineBorder(Color.RED, 2),
             BorderFactory.createEmptyBorder(4, 7, 4, 7));
 
-    private static final String BIANCO = "Bianco";
+    private static final String BIANCO = ColoreToDo.BIANCO.getDisplayName();
     private static final Map<String, String> COLOR_PALETTE = new LinkedHashMap<>();
     static {
-        COLOR_PALETTE.put(BIANCO, "#FFFFFF");
-        COLOR_PALETTE.put("Grigio Chiaro", "#F0F0F0");
-        COLOR_PALETTE.put("Azzurro", "#ADD8E6");
-        COLOR_PALETTE.put("Verde Chiaro", "#90EE90");
-        COLOR_PALETTE.put("Rosa", "#FFC0CB");
-        COLOR_PALETTE.put("Arancione", "#FFA500");
-        COLOR_PALETTE.put("Rosso", "#FF0000");
+        for (ColoreToDo colore : ColoreToDo.values()) {
+            COLOR_PALETTE.put(colore.getDisplayName(), colore.getEsadecimale());
+        }
     }
     private static final String ANNULLA = "Annulla";
     private static final String TITOLO_FIELD = "titoloField";
@@ -86,10 +85,58 @@ public class BoardPanel extends JPanel {
     private static final String CONFIRMING = "confirming";
     private static final String ELIMINA = "Elimina";
     private static final String CONDIVIDI = "Condividi";
+    private static final String POSITION_LABEL = "positionLabel";
 
     private boolean showCompleted = false;
+    private final transient ToDoListReconciler todoListReconciler = new ToDoListReconciler();
+    private ToDoVirtualList virtualList;
+    private JButton virtualToggleCompletedButton;
+
+    /**
+     * Numero di Task oltre il quale la bacheca usa la lista virtualizzata al posto dei pannelli completi.
+     * Configurabile con la proprietà di sistema todoapp.board.virtualThreshold.
+     */
+    private static final int VIRTUAL_LIST_THRESHOLD = Integer.getInteger("todoapp.board.virtualThreshold", 200);
+
+    /** Righe dalla fine della lista entro cui viene richiesta la pagina successiva di Task. */
+    private static final int PAGE_PREFETCH_ROWS = 20;
+
+    /** false finché la bacheca ha ancora pagine di Task da leggere dal DB. */
+    private boolean boardFullyLoaded = true;
+    private boolean pageLoading = false;
+
+    // Inner classes (SquareWrapperPanel, ImagePreviewLabel, LargeColorIcon, FormFields, ToDoRowState)
+    /**
+     * Istantanea dei dati visualizzati nel pannello di un Task, usata dal reconciler per decidere
+     * se il pannello esistente può essere riusato. Il Task e l'immagine sono confrontati per identità,
+     * perché i pulsanti del pannello agiscono sull'istanza catturata.
+     */
+    private static final class ToDoRowState {
+        private final ToDo todo;
+        private final Image immagine;
+        private final List<Object> values;
+
+        ToDoRowState(ToDo todo, LocalDate oggi) {
+            this.todo = todo;
+            this.immagine = todo.getImmagine();
+            this.values = java.util.Arrays.asList(todo.getTitolo(), todo.getDescrizione(), todo.getUrl(),
+                    todo.getColore(), todo.getScadenza(), todo.getStato(),
+                    todo.getAutore() != null ? todo.getAutore().getUsername() : null,
+                    todo.getBachecaDestinazioneId(), oggi);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ToDoRowState other && todo == other.todo && immagine == other.immagine
+                    && values.equals(other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(todo) * 31 + values.hashCode();
+        }
+    }
 
-    // Inner classes (SquareWrapperPanel, ImagePreviewLabel, LargeColorIcon, FormFields)
     /**
      * Pannello quadrato per il layout delle immagini Task.
      */
@@ -276,6 +323,15 @@ public class BoardPanel extends JPanel {
         styleActionButton(addToDoButton);
         addToDoButton.addActionListener(_ -> addNewToDo());
         southButtonPanel.add(addToDoButton, BorderLayout.CENTER);
+        JButton addChecklistButton = new JButton("+ Checklist");
+        styleActionButton(addChecklistButton);
+        addChecklistButton.setToolTipText("Crea un ToDo per ogni riga di una checklist");
+        addChecklistButton.addActionListener(_ -> addChecklist());
+        JPanel checklistButtonWrapper = new JPanel(new BorderLayout());
+        checklistButtonWrapper.setOpaque(false);
+        checklistButtonWrapper.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
+        checklistButtonWrapper.add(addChecklistButton, BorderLayout.CENTER);
+        southButtonPanel.add(checklistButtonWrapper, BorderLayout.EAST);
 
         todoListPanel = new JPanel();
         todoListPanel.setBackground(Color.WHITE);
@@ -332,6 +388,63 @@ public class BoardPanel extends JPanel {
         newToDoDialog.setVisible(true);
     }
 
+    /**
+     * Apre la finestra di dialogo per creare più Task incollando una checklist, una voce per riga.
+     * Tutti i Task vengono salvati con un'unica operazione in blocco.
+     */
+    public void addChecklist() {
+        if (!controller.isUserLoggedIn()) return;
+
+        JDialog checklistDialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this), true);
+        checklistDialog.setUndecorated(true);
+        ((JComponent) checklistDialog.getContentPane()).setBorder(BorderFactory.createLineBorder(Color.BLACK, 1));
+        checklistDialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+
+        JLabel hintLabel = new JLabel("<html>Una voce per riga. Le righe con [x] vengono create già completate.</html>");
+        hintLabel.setFont(FontManager.getRegular(12f));
+        hintLabel.setBorder(BorderFactory.createEmptyBorder(10, 10, 5, 10));
+
+        JTextArea checklistArea = new JTextArea();
+        checklistArea.setFont(FontManager.getRegular(13f));
+        checklistArea.setLineWrap(false);
+        JScrollPane checklistScroll = new JScrollPane(checklistArea);
+        checklistScroll.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createEmptyBorder(0, 10, 5, 10), BORDER_NORMAL));
+
+        JButton saveButton = new JButton("Crea");
+        styleActionButton(saveButton);
+        JButton cancelButton = new JButton(ANNULLA);
+        styleActionButton(cancelButton);
+
+        saveButton.addActionListener(_ -> {
+            List<ToDo> creati = controller.creaToDoDaChecklist(this.boardDisplayName, checklistArea.getText(), null,
+                    COLOR_PALETTE.get(BIANCO));
+            if (creati.isEmpty()) {
+                checklistScroll.setBorder(BorderFactory.createCompoundBorder(
+                        BorderFactory.createEmptyBorder(0, 10, 5, 10), BORDER_ERROR));
+                return;
+            }
+            refreshToDoList();
+            checklistDialog.dispose();
+        });
+        cancelButton.addActionListener(_ -> checklistDialog.dispose());
+
+        JPanel buttonPanel = new JPanel(new GridLayout(1, 2, 10, 0));
+        buttonPanel.setOpaque(false);
+        buttonPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 10, 10));
+        buttonPanel.add(cancelButton);
+        buttonPanel.add(saveButton);
+
+        checklistDialog.getContentPane().setLayout(new BorderLayout());
+        checklistDialog.getContentPane().setBackground(Color.WHITE);
+        checklistDialog.add(hintLabel, BorderLayout.NORTH);
+        checklistDialog.add(checklistScroll, BorderLayout.CENTER);
+        checklistDialog.add(buttonPanel, BorderLayout.SOUTH);
+
+        checklistDialog.setBounds(this.getLocationOnScreen().x, this.getLocationOnScreen().y, this.getWidth(), this.getHeight());
+        checklistDialog.setVisible(true);
+    }
+
     private void handleSaveNewToDo(JPanel formPanel, JDialog dialog) {
         JTextField titoloField = (JTextField) findComponentByName(formPanel, TITOLO_FIELD);
         JTextField descrizioneField = (JTextField) findComponentByName(formPanel, DESCRIZIONE_AREA);
@@ -423,16 +536,21 @@ public class BoardPanel extends JPanel {
      * Mantiene la posizione dello scroll.
      */
     private void refreshToDoListDisplay() {
+        if (!boardFullyLoaded || (todosCache != null && todosCache.size() > VIRTUAL_LIST_THRESHOLD)) {
+            setupVirtualToDoList();
+            return;
+        }
+        if (scrollPane.getViewport().getView() != todoListPanel) {
+            scrollPane.setViewportView(todoListPanel);
+            scrollPane.setColumnHeaderView(null);
+        }
         int scrollPosition = this.scrollPane.getVerticalScrollBar().getValue();
-        todoListPanel.removeAll();
 
         if (todosCache == null || todosCache.isEmpty()) {
             setupEmptyToDoListPanel();
         } else {
             setupFilledToDoListPanel();
         }
-        todoListPanel.revalidate();
-        todoListPanel.repaint();
         this.scrollPane.getVerticalScrollBar().setValue(scrollPosition);
     }
 
@@ -440,28 +558,224 @@ public class BoardPanel extends JPanel {
      * Imposta la visualizzazione per una lista Task vuota.
      */
     private void setupEmptyToDoListPanel() {
+        todoListReconciler.clear();
+        todoListPanel.removeAll();
         todoListPanel.setLayout(new GridBagLayout());
         JLabel emptyLabel = new JLabel("Nessun ToDo in questa bacheca.");
         emptyLabel.setFont(FontManager.getRegular(13f));
         emptyLabel.setForeground(Color.BLACK);
         todoListPanel.add(emptyLabel);
+        todoListPanel.revalidate();
+        todoListPanel.repaint();
     }
 
     /**
      * Imposta la visualizzazione per una lista Task piena.
-     * Gestisce la suddivisione tra completati e non completati.
+     * Gestisce la suddivisione tra completati e non completati e riconcilia i pannelli
+     * già presenti, ricreando solo quelli dei Task aggiunti o modificati.
      */
     private void setupFilledToDoListPanel() {
-        todoListPanel.setLayout(new BoxLayout(todoListPanel, BoxLayout.Y_AXIS));
-        todoListPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
+        if (!(todoListPanel.getLayout() instanceof BoxLayout)) {
+            todoListReconciler.clear();
+            todoListPanel.removeAll();
+            todoListPanel.setLayout(new BoxLayout(todoListPanel, BoxLayout.Y_AXIS));
+            todoListPanel.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
+        }
         final LocalDate oggi = LocalDate.now();
         
         List<ToDo> nonCompletati = new ArrayList<>();
         List<ToDo> completati = new ArrayList<>();
         separateCompletedAndNonCompletedTasks(nonCompletati, completati);
-        
-        addNonCompletedTasks(nonCompletati, oggi);
-        addCompletedTasksSection(completati, oggi);
+
+        List<ToDoListReconciler.Slot> slots = new ArrayList<>();
+        addNonCompletedTasks(slots, nonCompletati, oggi);
+        addCompletedTasksSection(slots, completati, oggi);
+        todoListReconciler.reconcile(todoListPanel, slots);
+        logger.debug("BoardPanel '{}': {} pannelli creati, {} riusati", boardDisplayName,
+                todoListReconciler.getCreated(), todoListReconciler.getReused());
+    }
+
+    /**
+     * Mostra i Task nella lista virtualizzata, usata per le bacheche con più di
+     * VIRTUAL_LIST_THRESHOLD Task o non ancora caricate del tutto: vengono disegnate solo le righe visibili
+     * e la pagina successiva viene richiesta quando lo scroll si avvicina alla fine.
+     * Le azioni sono disponibili dal menu contestuale (tasto destro) e con il doppio click (modifica).
+     */
+    private void setupVirtualToDoList() {
+        if (virtualList == null) {
+            virtualList = new ToDoVirtualList(this::getVirtualRowDetails);
+            virtualList.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    maybeShowVirtualListMenu(e);
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    maybeShowVirtualListMenu(e);
+                }
+
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    ToDo todo = virtualList.getToDoAt(e.getPoint());
+                    if (e.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(e) && todo != null && isOwnedByCurrentUser(todo)) {
+                        showEditToDoDialog(todo);
+                    }
+                }
+            });
+            virtualToggleCompletedButton = new JButton();
+            styleActionButton(virtualToggleCompletedButton);
+            virtualToggleCompletedButton.addActionListener(_ -> {
+                showCompleted = !showCompleted;
+                refreshToDoListDisplay();
+            });
+            scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+                if (!e.getValueIsAdjusting()) {
+                    maybeLoadNextPage();
+                }
+            });
+        }
+        if (scrollPane.getViewport().getView() != virtualList) {
+            scrollPane.setViewportView(virtualList);
+        }
+
+        List<ToDo> nonCompletati = new ArrayList<>();
+        List<ToDo> completati = new ArrayList<>();
+        separateCompletedAndNonCompletedTasks(nonCompletati, completati);
+        List<ToDo> visibili = nonCompletati;
+        if (showCompleted) {
+            visibili = new ArrayList<>(nonCompletati.size() + completati.size());
+            visibili.addAll(nonCompletati);
+            visibili.addAll(completati);
+        }
+        virtualList.setItems(visibili);
+
+        if (completati.isEmpty()) {
+            scrollPane.setColumnHeaderView(null);
+        } else {
+            virtualToggleCompletedButton.setText((showCompleted ? "Nascondi completati" : "Mostra completati")
+                    + " (" + completati.size() + ")");
+            if (scrollPane.getColumnHeader() == null || scrollPane.getColumnHeader().getView() != virtualToggleCompletedButton) {
+                scrollPane.setColumnHeaderView(virtualToggleCompletedButton);
+            }
+        }
+        if (!boardFullyLoaded) {
+            // Se le righe caricate non riempiono il viewport non ci sarà scroll: la pagina va chiesta subito
+            SwingUtilities.invokeLater(this::maybeLoadNextPage);
+        }
+    }
+
+    /**
+     * Richiede in background la pagina successiva di Task se la lista virtualizzata è visibile,
+     * la bacheca non è completa e lo scroll è entro PAGE_PREFETCH_ROWS righe dalla fine.
+     * La pagina viene applicata al modello sull'EDT e la lista aggiornata mantenendo lo scroll.
+     */
+    private void maybeLoadNextPage() {
+        if (boardFullyLoaded || pageLoading || virtualList == null || boardTitleEnum == null
+                || scrollPane.getViewport().getView() != virtualList || !controller.isUserLoggedIn()) {
+            return;
+        }
+        JScrollBar bar = scrollPane.getVerticalScrollBar();
+        if (bar.getValue() + bar.getVisibleAmount() < bar.getMaximum() - PAGE_PREFETCH_ROWS * ToDoVirtualList.ROW_HEIGHT) {
+            return;
+        }
+        Optional<Bacheca> bachecaOpt = controller.getUtenteCorrente().getBachecaByTitolo(boardTitleEnum);
+        if (bachecaOpt.isEmpty()) {
+            return;
+        }
+        Bacheca bacheca = bachecaOpt.get();
+        pageLoading = true;
+        controller.caricaPaginaToDoAsync(bacheca).whenComplete((pagina, error) -> SwingUtilities.invokeLater(() -> {
+            pageLoading = false;
+            if (error != null) {
+                logger.error("BoardPanel: Caricamento pagina di ToDo fallito per la bacheca '{}': {}",
+                        boardDisplayName, error.getMessage());
+                return;
+            }
+            if (controller.applicaPaginaToDo(bacheca, pagina)) {
+                refreshToDoList();
+            }
+        }));
+    }
+
+    /**
+     * Restituisce la riga di dettaglio mostrata nella lista virtualizzata.
+     * @param todo Task di riferimento
+     * @return Testo con scadenza, priorità, autore ed eventuale immagine
+     */
+    private String getVirtualRowDetails(ToDo todo) {
+        String scadenza = todo.getScadenza() != null ? todo.getScadenza().format(ITALIAN_DATE_FORMATTER) : "N/D";
+        String autore;
+        if (todo.getAutore() == null) {
+            autore = "N/D";
+        } else if (isOwnedByCurrentUser(todo)) {
+            autore = "Tu";
+        } else {
+            autore = "@" + todo.getAutore().getUsername();
+        }
+        return "Scadenza: " + scadenza + "  ·  Priorità: " + getPrioritaText(todo.getScadenza(), LocalDate.now())
+                + "  ·  Autore: " + autore + (todo.getImmagine() != null ? "  ·  Immagine" : "");
+    }
+
+    /**
+     * Mostra il menu contestuale con le azioni del Task sotto il puntatore, se l'evento è un trigger di popup.
+     * Le azioni disponibili rispettano gli stessi permessi dei pulsanti dei pannelli completi.
+     * @param e Evento del mouse
+     */
+    private void maybeShowVirtualListMenu(MouseEvent e) {
+        if (!e.isPopupTrigger()) {
+            return;
+        }
+        ToDo todo = virtualList.getToDoAt(e.getPoint());
+        if (todo == null) {
+            return;
+        }
+        virtualList.setSelectedValue(todo, false);
+        boolean owned = isOwnedByCurrentUser(todo);
+        if (!owned && todo.getBachecaDestinazioneId() == null) {
+            return;
+        }
+        JPopupMenu menu = new JPopupMenu();
+        boolean completed = todo.getStato() == StatoToDo.COMPLETATO;
+        JMenuItem toggleItem = new JMenuItem(completed ? "Ripristina" : "Completa");
+        toggleItem.addActionListener(_ -> {
+            StatoToDo nuovoStato = completed ? StatoToDo.NON_COMPLETATO : StatoToDo.COMPLETATO;
+            controller.modificaToDo(todo, new Controller.ToDoUpdateParams(null, null, null, nuovoStato, null, null, null));
+            refreshToDoList();
+        });
+        menu.add(toggleItem);
+        if (owned) {
+            JMenuItem editItem = new JMenuItem("Modifica");
+            editItem.addActionListener(_ -> showEditToDoDialog(todo));
+            menu.add(editItem);
+            JMenuItem shareItem = new JMenuItem(CONDIVIDI);
+            shareItem.addActionListener(_ -> showShareToDoDialog(todo));
+            menu.add(shareItem);
+        }
+        JMenuItem deleteItem = new JMenuItem(ELIMINA);
+        deleteItem.addActionListener(_ -> {
+            int scelta = JOptionPane.showConfirmDialog(this, "Eliminare il ToDo \"" + todo.getTitolo() + "\"?",
+                    ELIMINA, JOptionPane.YES_NO_OPTION);
+            if (scelta != JOptionPane.YES_OPTION) {
+                return;
+            }
+            if (controller.eliminaToDo(todo)) {
+                refreshToDoList();
+            } else {
+                JOptionPane.showMessageDialog(this, "Impossibile eliminare il ToDo. Controlla i permessi o il log.", ERRORE, JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        menu.add(deleteItem);
+        menu.show(virtualList, e.getX(), e.getY());
+    }
+
+    /**
+     * Indica se il Task è stato creato dall'utente corrente.
+     * @param todo Task di riferimento
+     * @return true se l'autore è l'utente corrente
+     */
+    private boolean isOwnedByCurrentUser(ToDo todo) {
+        return todo.getAutore() != null && todo.getAutore().getUsername().equalsIgnoreCase(currentUsername);
     }
 
     /**
@@ -480,41 +794,81 @@ public class BoardPanel extends JPanel {
     }
 
     /**
-     * Aggiunge i Task non completati al pannello.
+     * Aggiunge gli slot dei Task non completati.
+     * @param slots Lista degli slot da riconciliare
      * @param nonCompletati Lista dei Task non completati
      * @param oggi Data odierna per il calcolo priorità
      */
-    private void addNonCompletedTasks(List<ToDo> nonCompletati, LocalDate oggi) {
+    private void addNonCompletedTasks(List<ToDoListReconciler.Slot> slots, List<ToDo> nonCompletati, LocalDate oggi) {
         int pos = 1;
         for (int i = 0; i < nonCompletati.size(); i++) {
             ToDo t = nonCompletati.get(i);
-            JPanel todoItemPanel = createToDoItemPanel(t, pos++, oggi);
-            todoListPanel.add(todoItemPanel);
+            slots.add(createToDoSlot(t, pos++, oggi));
             if (i < nonCompletati.size() - 1) {
-                todoListPanel.add(Box.createVerticalStrut(8));
+                slots.add(createStrutSlot("gap:" + t.getId(), 8));
+            }
         }
     }
-    }
 
     /**
-     * Aggiunge la sezione dei Task completati al pannello.
+     * Aggiunge gli slot della sezione dei Task completati.
+     * @param slots Lista degli slot da riconciliare
      * @param completati Lista dei Task completati
      * @param oggi Data odierna per il calcolo priorità
      */
-    private void addCompletedTasksSection(List<ToDo> completati, LocalDate oggi) {
+    private void addCompletedTasksSection(List<ToDoListReconciler.Slot> slots, List<ToDo> completati, LocalDate oggi) {
         if (completati.isEmpty()) {
             return;
         }
         
-        JButton toggleCompletedButton = createToggleCompletedButton();
-        todoListPanel.add(Box.createVerticalStrut(10));
-        todoListPanel.add(toggleCompletedButton);
+        slots.add(createStrutSlot("gap:toggle", 10));
+        slots.add(new ToDoListReconciler.Slot("toggle", showCompleted, this::createToggleCompletedButton, null));
         
         if (showCompleted) {
-            addCompletedTasksList(completati, oggi);
+            addCompletedTasksList(slots, completati, oggi);
         }
     }
 
+    /**
+     * Crea lo slot di un Task: il pannello viene riusato finché il Task (stessa istanza) e i dati
+     * visualizzati non cambiano; la posizione viene aggiornata direttamente sull'etichetta.
+     * @param todo Task da visualizzare
+     * @param position Posizione nella lista
+     * @param oggi Data odierna per il calcolo priorità
+     * @return Slot per il reconciler
+     */
+    private ToDoListReconciler.Slot createToDoSlot(ToDo todo, int position, LocalDate oggi) {
+        return new ToDoListReconciler.Slot("todo:" + todo.getId(), new ToDoRowState(todo, oggi),
+                () -> createToDoItemPanel(todo, position, oggi),
+                panel -> {
+                    if (panel.getClientProperty(POSITION_LABEL) instanceof JLabel posLabel) {
+                        String text = formatPositionText(position);
+                        if (!text.equals(posLabel.getText())) {
+                            posLabel.setText(text);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Crea lo slot di uno spaziatore verticale.
+     * @param key Chiave dello spaziatore
+     * @param height Altezza in pixel
+     * @return Slot per il reconciler
+     */
+    private static ToDoListReconciler.Slot createStrutSlot(String key, int height) {
+        return new ToDoListReconciler.Slot(key, height, () -> (JComponent) Box.createVerticalStrut(height), null);
+    }
+
+    /**
+     * Formatta il testo dell'etichetta della posizione.
+     * @param position Posizione nella lista
+     * @return Testo HTML dell'etichetta
+     */
+    private static String formatPositionText(int position) {
+        return "<html><b>Posizione:</b>&nbsp;" + position + HTML_CLOSE;
+    }
+
     /**
      * Crea il pulsante per mostrare/nascondere i Task completati.
      * @return JButton configurato
@@ -532,21 +886,21 @@ public class BoardPanel extends JPanel {
     }
 
     /**
-     * Aggiunge la lista dei Task completati al pannello.
+     * Aggiunge gli slot della lista dei Task completati.
+     * @param slots Lista degli slot da riconciliare
      * @param completati Lista dei Task completati
      * @param oggi Data odierna per il calcolo priorità
      */
-    private void addCompletedTasksList(List<ToDo> completati, LocalDate oggi) {
+    private void addCompletedTasksList(List<ToDoListReconciler.Slot> slots, List<ToDo> completati, LocalDate oggi) {
         if (!completati.isEmpty()) {
-            todoListPanel.add(Box.createVerticalStrut(8));
+            slots.add(createStrutSlot("gap:completed", 8));
         }
         int completedPos = 1;
         for (int i = 0; i < completati.size(); i++) {
             ToDo t = completati.get(i);
-            JPanel todoItemPanel = createToDoItemPanel(t, completedPos++, oggi);
-            todoListPanel.add(todoItemPanel);
+            slots.add(createToDoSlot(t, completedPos++, oggi));
             if (i < completati.size() - 1) {
-                todoListPanel.add(Box.createVerticalStrut(8));
+                slots.add(createStrutSlot("gap:" + t.getId(), 8));
             }
         }
     }
@@ -577,6 +931,7 @@ public class BoardPanel extends JPanel {
         JPanel imagePanel = createImagePanel(currentTodo);
         topContentPanel.add(imagePanel, BorderLayout.WEST);
         JPanel detailsTextPanel = createDetailsTextPanel(currentTodo, position, oggi);
+        todoItemPanel.putClientProperty(POSITION_LABEL, findComponentByName(detailsTextPanel, POSITION_LABEL));
         topContentPanel.add(detailsTextPanel, BorderLayout.CENTER);
         todoItemPanel.add(topContentPanel, BorderLayout.NORTH);
 
@@ -754,7 +1109,8 @@ public class BoardPanel extends JPanel {
         urlLabel.setFont(FontManager.getRegular(12f));
         detailsTextPanel.add(urlLabel, gbc);
 
-        JLabel posLabel = new JLabel("<html><b>Posizione:</b>&nbsp;" + position + HTML_CLOSE);
+        JLabel posLabel = new JLabel(formatPositionText(position));
+        posLabel.setName(POSITION_LABEL);
         posLabel.setFont(FontManager.getRegular(12f));
         detailsTextPanel.add(posLabel, gbc);
 
@@ -1106,26 +1462,38 @@ public class BoardPanel extends JPanel {
         JComboBox<String> boardCombo = new JComboBox<>();
         boardCombo.setName("boardCombo");
         boardCombo.addItem("Seleziona un utente prima");
-        
+
+        // La ricerca parte solo quando l'utente smette di digitare per USERNAME_LOOKUP_DEBOUNCE_MS
+        JPopupMenu suggestionsPopup = new JPopupMenu();
+        suggestionsPopup.setFocusable(false);
+        Timer debounceTimer = new Timer(USERNAME_LOOKUP_DEBOUNCE_MS, _ -> {
+            updateBoardComboItems(userField, boardCombo);
+            updateUsernameSuggestions(userField, suggestionsPopup);
+        });
+        debounceTimer.setRepeats(false);
+
         userField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
             @Override
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { updateBachecheCombo(); }
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { debounceTimer.restart(); }
             @Override
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { updateBachecheCombo(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { debounceTimer.restart(); }
             @Override
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { updateBachecheCombo(); }
-            
-            private void updateBachecheCombo() {
-                updateBoardComboItems(userField, boardCombo);
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { debounceTimer.restart(); }
+        });
+        userField.addFocusListener(new java.awt.event.FocusAdapter() {
+            @Override
+            public void focusLost(java.awt.event.FocusEvent e) {
+                suggestionsPopup.setVisible(false);
             }
         });
-        
+
         setupBoardComboBoxStyle(boardCombo);
         return boardCombo;
     }
 
     /**
      * Aggiorna gli elementi della combo box bacheche.
+     * La ricerca avviene fuori dall'EDT; il risultato viene scartato se nel frattempo lo username è cambiato.
      * @param userField Campo username
      * @param boardCombo Combo box da aggiornare
      */
@@ -1142,15 +1510,64 @@ public class BoardPanel extends JPanel {
             boardCombo.addItem("Non puoi condividere un ToDo con te stesso");
             return;
         }
-        
-        List<String> bachecheUtente = controller.getBachecheUtenteByUsername(username);
-        if (bachecheUtente.isEmpty()) {
-            boardCombo.addItem("Utente non trovato o senza bacheche");
-        } else {
-            for (String bacheca : bachecheUtente) {
-                boardCombo.addItem(bacheca);
-            }
+
+        boardCombo.addItem("Ricerca in corso...");
+        controller.getBachecheUtenteByUsernameAsync(username).whenComplete((bachecheUtente, errore) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (!username.equals(userField.getText().trim())) {
+                        return; // risposta superata da una digitazione successiva
+                    }
+                    boardCombo.removeAllItems();
+                    if (errore != null) {
+                        logger.error("BoardPanel: Errore nella ricerca delle bacheche di '{}': {}", username, errore.getMessage());
+                        boardCombo.addItem("Errore nella ricerca dell'utente");
+                    } else if (bachecheUtente.isEmpty()) {
+                        boardCombo.addItem("Utente non trovato o senza bacheche");
+                    } else {
+                        for (String bacheca : bachecheUtente) {
+                            boardCombo.addItem(bacheca);
+                        }
+                    }
+                }));
+    }
+
+    /**
+     * Mostra sotto il campo username i suggerimenti di autocompletamento per il prefisso digitato.
+     * @param userField Campo username
+     * @param suggestionsPopup Popup in cui mostrare i suggerimenti
+     */
+    private void updateUsernameSuggestions(JTextField userField, JPopupMenu suggestionsPopup) {
+        String prefix = userField.getText().trim();
+        if (prefix.isEmpty()) {
+            suggestionsPopup.setVisible(false);
+            return;
         }
+        controller.suggerisciUsername(prefix).whenComplete((usernames, errore) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (!prefix.equals(userField.getText().trim())) {
+                        return;
+                    }
+                    List<String> suggestions = errore != null ? Collections.emptyList() : usernames.stream()
+                            .filter(u -> !u.equalsIgnoreCase(currentUsername))
+                            .toList();
+                    suggestionsPopup.setVisible(false);
+                    suggestionsPopup.removeAll();
+                    if (suggestions.isEmpty() || (suggestions.size() == 1 && suggestions.get(0).equals(prefix))
+                            || !userField.isShowing() || !userField.hasFocus()) {
+                        return;
+                    }
+                    for (String suggestion : suggestions) {
+                        JMenuItem item = new JMenuItem(suggestion);
+                        item.setFont(FontManager.getRegular(13f));
+                        item.addActionListener(_ -> {
+                            userField.setText(suggestion);
+                            userField.requestFocusInWindow();
+                        });
+                        suggestionsPopup.add(item);
+                    }
+                    suggestionsPopup.setPopupSize(userField.getWidth(), suggestionsPopup.getPreferredSize().height);
+                    suggestionsPopup.show(userField, 0, userField.getHeight());
+                }));
     }
 
     /**
@@ -1488,10 +1905,18 @@ public class BoardPanel extends JPanel {
                 if (nuovaScadenza == null) return;
 
                 String coloreHex = COLOR_PALETTE.get(nuovoColore);
-                boolean success = controller.modificaToDo(todoToEdit, new Controller.ToDoUpdateParams(nuovoTitolo, nuovaDescrizione, nuovaScadenza,
+                Controller.EsitoModifica esito = controller.modificaToDoConEsito(todoToEdit, new Controller.ToDoUpdateParams(nuovoTitolo, nuovaDescrizione, nuovaScadenza,
                         todoToEdit.getStato(), coloreHex, nuovoUrl,
                         immagineSelezionataGlobal));
-                if (success) {
+                if (esito == Controller.EsitoModifica.MODIFICATO || esito == Controller.EsitoModifica.NESSUNA_MODIFICA) {
+                    refreshToDoList();
+                    editToDoDialog.dispose();
+                } else if (esito == Controller.EsitoModifica.IN_CODA) {
+                    JOptionPane.showMessageDialog(editToDoDialog, "Database non raggiungibile: la modifica è stata salvata in locale\ne verrà inviata alla prossima sincronizzazione.", "Modifica salvata offline", JOptionPane.INFORMATION_MESSAGE);
+                    refreshToDoList();
+                    editToDoDialog.dispose();
+                } else if (esito == Controller.EsitoModifica.CONFLITTO) {
+                    JOptionPane.showMessageDialog(editToDoDialog, "Il ToDo è stato modificato da un altro utente nel frattempo.\nLe tue modifiche non sono state salvate: il ToDo è stato aggiornato alla versione più recente.", ERRORE + " Modifica", JOptionPane.WARNING_MESSAGE);
                     refreshToDoList();
                     editToDoDialog.dispose();
                 } else {
@@ -1923,15 +2348,16 @@ public class BoardPanel extends JPanel {
      */
     public void completaTuttiITasks() {
         if (!controller.isUserLoggedIn()) return;
-        if (todosCache == null) return;
-        boolean changed = false;
-        for (ToDo todo : this.todosCache) {
-            if (todo.getStato() != StatoToDo.COMPLETATO && controller.modificaToDo(todo,
-                    new Controller.ToDoUpdateParams(null, null, null, StatoToDo.COMPLETATO, null, null, null))) {
-                changed = true;
-            }
+        if (todosCache == null || boardTitleEnum == null) return;
+        Optional<Bacheca> bachecaOpt = controller.getUtenteCorrente().getBachecaByTitolo(boardTitleEnum);
+        int completati;
+        try {
+            completati = bachecaOpt.isPresent() ? controller.completaTutti(bachecaOpt.get()) : 0;
+        } catch (IllegalStateException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), ERRORE, JOptionPane.WARNING_MESSAGE);
+            return;
         }
-        if (changed) {
+        if (completati > 0) {
             refreshToDoList();
         } else {
             JOptionPane.showMessageDialog(this, "Nessun ToDo da completare in questa bacheca.", ERRORE,
@@ -1990,13 +2416,19 @@ public class BoardPanel extends JPanel {
         Optional<Bacheca> bachecaAggiornataOpt = controller.getUtenteCorrente().getBachecaByTitolo(this.boardTitleEnum);
         if (bachecaAggiornataOpt.isPresent()) {
             this.todosCache = new ArrayList<>(bachecaAggiornataOpt.get().getTodos());
-            sortTodosCacheByPriorityAndDate();
+            this.boardFullyLoaded = bachecaAggiornataOpt.get().isCaricamentoCompleto();
+            // Finché mancano pagine si mantiene l'ordine della bacheca: ordinare il solo prefisso
+            // caricato sposterebbe le righe a ogni nuova pagina
+            if (boardFullyLoaded) {
+                sortTodosCacheByPriorityAndDate();
+            }
             refreshToDoListDisplay();
         } else {
             logger.error(
                     "BoardPanel: Impossibile trovare la bacheca '{}' nel modello del controller durante il refresh.",
                     this.boardDisplayName);
             this.todosCache = Collections.emptyList();
+            this.boardFullyLoaded = true;
             refreshToDoListDisplay();
         }
     }
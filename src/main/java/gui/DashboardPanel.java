@@ -6,16 +6,20 @@ import model.Bacheca;
 import model.ToDo;
 import model.TitoloBacheca;
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.plaf.basic.BasicComboBoxUI;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.File;
+import java.nio.file.Path;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import model.Utente;
 
@@ -190,6 +194,14 @@ public class DashboardPanel extends JPanel {
         infoMenuItem.setFont(FontManager.getRegular(14f));
         infoMenuItem.addActionListener(_ -> showAccountInfoDialog());
         accountMenu.add(infoMenuItem);
+        JMenuItem esportaMenuItem = new JMenuItem("Esporta workspace...");
+        esportaMenuItem.setFont(FontManager.getRegular(14f));
+        esportaMenuItem.addActionListener(_ -> esportaWorkspace());
+        accountMenu.add(esportaMenuItem);
+        JMenuItem importaMenuItem = new JMenuItem("Importa workspace...");
+        importaMenuItem.setFont(FontManager.getRegular(14f));
+        importaMenuItem.addActionListener(_ -> importaWorkspace());
+        accountMenu.add(importaMenuItem);
         accountMenu.addSeparator();
         JMenuItem logoutMenuItem = new JMenuItem("Esci");
         logoutMenuItem.setFont(FontManager.getRegular(14f));
@@ -201,6 +213,75 @@ public class DashboardPanel extends JPanel {
         return accountMenu;
     }
 
+    /**
+     * Crea il selettore di file per gli archivi del workspace.
+     * @param titolo Titolo della finestra
+     * @return JFileChooser configurato
+     */
+    private JFileChooser createWorkspaceFileChooser(String titolo) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle(titolo);
+        fileChooser.setAcceptAllFileFilterUsed(false);
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("Workspace ToDo (ZIP)", "zip"));
+        return fileChooser;
+    }
+
+    /**
+     * Esporta il workspace dell'utente in un archivio scelto dall'utente.
+     * L'esportazione avviene in background; al termine viene mostrato l'esito.
+     */
+    private void esportaWorkspace() {
+        JFileChooser fileChooser = createWorkspaceFileChooser("Esporta workspace");
+        fileChooser.setSelectedFile(new File(controller.getUtenteCorrente().getUsername() + "-workspace.zip"));
+        if (fileChooser.showSaveDialog(mainFrame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = fileChooser.getSelectedFile().toPath();
+        if (!file.getFileName().toString().toLowerCase().endsWith(".zip")) {
+            file = file.resolveSibling(file.getFileName() + ".zip");
+        }
+        final Path destinazione = file;
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        CompletableFuture.supplyAsync(() -> controller.esportaWorkspace(destinazione))
+                .whenComplete((successo, _) -> SwingUtilities.invokeLater(() -> {
+                    setCursor(Cursor.getDefaultCursor());
+                    if (Boolean.TRUE.equals(successo)) {
+                        JOptionPane.showMessageDialog(this, "Workspace esportato in " + destinazione, INFORMAZIONI,
+                                JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Esportazione del workspace non riuscita.", ERRORE,
+                                JOptionPane.ERROR_MESSAGE);
+                    }
+                }));
+    }
+
+    /**
+     * Importa nel workspace dell'utente un archivio scelto dall'utente.
+     * L'importazione avviene in background; al termine il modello viene ricaricato sull'EDT.
+     */
+    private void importaWorkspace() {
+        JFileChooser fileChooser = createWorkspaceFileChooser("Importa workspace");
+        if (fileChooser.showOpenDialog(mainFrame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = fileChooser.getSelectedFile().toPath();
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        CompletableFuture.supplyAsync(() -> controller.importaWorkspace(file))
+                .whenComplete((esito, _) -> SwingUtilities.invokeLater(() -> {
+                    setCursor(Cursor.getDefaultCursor());
+                    if (esito != null && esito.isPresent()) {
+                        controller.loadFullUtenteCorrente();
+                        loadUserBoards();
+                        JOptionPane.showMessageDialog(this, "Importazione completata: " + esito.get().bacheche()
+                                + " bacheche create, " + esito.get().todos() + " Task, " + esito.get().immagini()
+                                + " immagini.", INFORMAZIONI, JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Importazione del workspace non riuscita.", ERRORE,
+                                JOptionPane.ERROR_MESSAGE);
+                    }
+                }));
+    }
+
     /**
      * Mostra la finestra di dialogo per la creazione/modifica/eliminazione/completamento bacheca.
      * @param actionType Tipo di azione (CREA, MODIFICA, ELIMINA, COMPLETA)
@@ -920,6 +1001,24 @@ public class DashboardPanel extends JPanel {
         }
     }
 
+    /**
+     * Aggiorna l'interfaccia dopo una sincronizzazione: ricrea le bacheche se ne sono state
+     * aggiunte o rimosse, altrimenti aggiorna solo quelle il cui contenuto è cambiato.
+     * @param esito Effetto della sincronizzazione sul modello
+     */
+    public void applicaSincronizzazione(Controller.EsitoSincronizzazione esito) {
+        if (esito.bachecheCambiate()) {
+            loadUserBoards();
+        } else {
+            esito.bachecheModificate().forEach(this::refreshSelectedBoardPanel);
+        }
+        if (esito.scrittureInConflitto() > 0) {
+            JOptionPane.showMessageDialog(this, esito.scrittureInConflitto() + " modifiche fatte offline non sono state salvate:\n"
+                    + "i ToDo erano stati modificati da altri utenti e sono stati aggiornati alla versione più recente.",
+                    "Modifiche offline", JOptionPane.WARNING_MESSAGE);
+        }
+    }
+
     /**
      * Ricarica e visualizza tutte le bacheche dell'utente corrente.
      */
@@ -0,0 +1,254 @@
+package gui;
+
+import metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watchdog dell'Event Dispatch Thread.
+ * Sostituisce la coda eventi di sistema con una che misura la durata di ogni evento: un thread
+ * campionatore cattura lo stack dell'EDT mentre un evento supera la soglia, e al termine l'evento
+ * viene registrato nelle metriche e in un report a rotazione sotto ~/.todoapp.
+ * <p>
+ * Il tempo trascorso da un evento in attesa dentro un loop secondario (ad es. un dialog modale)
+ * non viene conteggiato, così l'apertura di un JOptionPane non viene scambiata per un blocco.
+ */
+public final class EdtWatchdog extends EventQueue {
+    private static final Logger logger = LoggerFactory.getLogger(EdtWatchdog.class);
+
+    /** Proprietà di sistema con la soglia, in millisecondi, oltre la quale un evento è considerato un blocco. */
+    public static final String PROPRIETA_SOGLIA_MS = "todoapp.edt.stallThresholdMs";
+
+    private static final long SOGLIA_DEFAULT_MS = 200;
+    private static final long INTERVALLO_CAMPIONAMENTO_MS = 50;
+    private static final int MAX_CAMPIONI = 5;
+    private static final int PROFONDITA_STACK = 40;
+    private static final long DIMENSIONE_MAX_REPORT = 1024L * 1024L;
+    private static final int REPORT_CONSERVATI = 3;
+
+    private static EdtWatchdog installato;
+
+    private final long sogliaNanos;
+    private final Path fileReport;
+    private final MetricsRegistry.Timer durataBlocchi;
+    private final ScheduledExecutorService campionatore;
+    private final ExecutorService scrittoreReport;
+
+    /** Evento in esecuzione più interno; scritto solo dall'EDT, letto dal campionatore. */
+    private volatile Frame corrente;
+
+    /**
+     * Stato di un evento in corso di dispatch.
+     */
+    private static final class Frame {
+        private final AWTEvent evento;
+        private final Frame padre;
+        private final Thread thread;
+        private final List<StackTraceElement[]> campioni = new ArrayList<>();
+        /** Tempo attivo accumulato nei segmenti già chiusi. */
+        private volatile long attivoNanos;
+        /** Inizio del segmento attivo corrente, oppure -1 se l'evento è in attesa di eventi annidati. */
+        private volatile long inizioSegmento;
+
+        private Frame(AWTEvent evento, Frame padre, long ora) {
+            this.evento = evento;
+            this.padre = padre;
+            this.thread = Thread.currentThread();
+            this.inizioSegmento = ora;
+        }
+
+        private long tempoAttivo(long ora) {
+            long segmento = inizioSegmento;
+            return attivoNanos + (segmento >= 0 ? ora - segmento : 0);
+        }
+    }
+
+    private EdtWatchdog(long sogliaMs, Path fileReport) {
+        this.sogliaNanos = TimeUnit.MILLISECONDS.toNanos(sogliaMs);
+        this.fileReport = fileReport;
+        this.durataBlocchi = MetricsRegistry.getInstance().timer("edt_stall_seconds",
+                "Durata degli eventi EDT che hanno superato la soglia di blocco");
+        this.campionatore = Executors.newSingleThreadScheduledExecutor(r -> creaThreadDemone(r, "edt-watchdog"));
+        this.scrittoreReport = Executors.newSingleThreadExecutor(r -> creaThreadDemone(r, "edt-watchdog-report"));
+    }
+
+    /**
+     * Installa il watchdog sulla coda eventi di sistema, se non già installato.
+     * La soglia è letta dalla proprietà {@value #PROPRIETA_SOGLIA_MS}; un valore minore o uguale a zero lo disattiva.
+     */
+    public static synchronized void installa() {
+        if (installato != null) {
+            return;
+        }
+        long sogliaMs = Long.getLong(PROPRIETA_SOGLIA_MS, SOGLIA_DEFAULT_MS);
+        if (sogliaMs <= 0) {
+            logger.info("Watchdog EDT disattivato ({} = {}).", PROPRIETA_SOGLIA_MS, sogliaMs);
+            return;
+        }
+        Path report = Paths.get(System.getProperty("user.home"), ".todoapp", "edt-stalls.log");
+        installato = new EdtWatchdog(sogliaMs, report);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(installato);
+        installato.campionatore.scheduleAtFixedRate(installato::campiona,
+                INTERVALLO_CAMPIONAMENTO_MS, INTERVALLO_CAMPIONAMENTO_MS, TimeUnit.MILLISECONDS);
+        logger.info("Watchdog EDT attivo: soglia {} ms, report in {}", sogliaMs, report);
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        long ora = System.nanoTime();
+        Frame padre = corrente;
+        if (padre != null) {
+            chiudiSegmento(padre, ora);
+        }
+        Frame frame = new Frame(event, padre, ora);
+        corrente = frame;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long fine = System.nanoTime();
+            corrente = padre;
+            if (padre != null) {
+                padre.inizioSegmento = fine;
+            }
+            long attivo = frame.tempoAttivo(fine);
+            if (attivo >= sogliaNanos) {
+                registraBlocco(frame, attivo);
+            }
+        }
+    }
+
+    @Override
+    public AWTEvent getNextEvent() throws InterruptedException {
+        // Un loop secondario (dialog modale) sta aspettando eventi: l'evento esterno non è attivo.
+        Frame frame = corrente;
+        if (frame != null && Thread.currentThread() == frame.thread) {
+            chiudiSegmento(frame, System.nanoTime());
+        }
+        return super.getNextEvent();
+    }
+
+    private static void chiudiSegmento(Frame frame, long ora) {
+        long segmento = frame.inizioSegmento;
+        if (segmento >= 0) {
+            frame.attivoNanos += ora - segmento;
+            frame.inizioSegmento = -1;
+        }
+    }
+
+    /**
+     * Eseguito dal thread campionatore: se l'evento corrente è oltre soglia ne cattura lo stack.
+     */
+    private void campiona() {
+        Frame frame = corrente;
+        if (frame == null || frame.inizioSegmento < 0 || frame.tempoAttivo(System.nanoTime()) < sogliaNanos) {
+            return;
+        }
+        StackTraceElement[] stack = frame.thread.getStackTrace();
+        synchronized (frame.campioni) {
+            if (frame.campioni.size() < MAX_CAMPIONI) {
+                frame.campioni.add(stack);
+            }
+        }
+    }
+
+    private void registraBlocco(Frame frame, long attivoNanos) {
+        durataBlocchi.registra(attivoNanos);
+        List<StackTraceElement[]> campioni;
+        synchronized (frame.campioni) {
+            campioni = new ArrayList<>(frame.campioni);
+        }
+        String descrizione = descriviEvento(frame.evento);
+        long durataMs = TimeUnit.NANOSECONDS.toMillis(attivoNanos);
+        logger.warn("EDT bloccato per {} ms durante {}", durataMs, descrizione);
+        String voce = formattaVoce(Instant.now(), durataMs, descrizione, campioni, frame.padre != null);
+        scrittoreReport.execute(() -> scriviReport(voce));
+    }
+
+    private static String descriviEvento(AWTEvent evento) {
+        Object sorgente = evento.getSource();
+        String tipo = evento.getClass().getSimpleName();
+        String origine = sorgente != null ? sorgente.getClass().getName() : "null";
+        if (evento instanceof java.awt.event.InvocationEvent) {
+            return tipo + " (invokeLater/invokeAndWait)";
+        }
+        return tipo + " id=" + evento.getID() + " su " + origine;
+    }
+
+    private static String formattaVoce(Instant quando, long durataMs, String descrizione,
+                                       List<StackTraceElement[]> campioni, boolean annidato) {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("=== ").append(quando).append(" blocco EDT di ").append(durataMs).append(" ms")
+                .append(annidato ? " (evento annidato)" : "").append('\n');
+        sb.append("Evento: ").append(descrizione).append('\n');
+        if (campioni.isEmpty()) {
+            sb.append("Nessun campione di stack catturato.\n");
+        }
+        for (int i = 0; i < campioni.size(); i++) {
+            sb.append("--- campione ").append(i + 1).append('/').append(campioni.size()).append('\n');
+            StackTraceElement[] stack = campioni.get(i);
+            int limite = Math.min(stack.length, PROFONDITA_STACK);
+            for (int j = 0; j < limite; j++) {
+                sb.append("\tat ").append(stack[j]).append('\n');
+            }
+            if (stack.length > limite) {
+                sb.append("\t... ").append(stack.length - limite).append(" frame omessi\n");
+            }
+        }
+        return sb.append('\n').toString();
+    }
+
+    /**
+     * Accoda la voce al report, ruotando i file quando si supera la dimensione massima.
+     * @param voce Testo da scrivere
+     */
+    private void scriviReport(String voce) {
+        try {
+            Files.createDirectories(fileReport.getParent());
+            if (Files.exists(fileReport) && Files.size(fileReport) >= DIMENSIONE_MAX_REPORT) {
+                ruotaReport();
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(fileReport, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(voce);
+            }
+        } catch (IOException e) {
+            logger.error("Impossibile scrivere il report dei blocchi EDT: {}", e.getMessage());
+        }
+    }
+
+    private void ruotaReport() throws IOException {
+        for (int i = REPORT_CONSERVATI - 1; i >= 1; i--) {
+            Path sorgente = fileReport.resolveSibling(fileReport.getFileName() + "." + i);
+            if (Files.exists(sorgente)) {
+                Files.move(sorgente, fileReport.resolveSibling(fileReport.getFileName() + "." + (i + 1)),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(fileReport, fileReport.resolveSibling(fileReport.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Thread creaThreadDemone(Runnable r, String nome) {
+        Thread t = new Thread(r, nome);
+        t.setDaemon(true);
+        return t;
+    }
+}
@@ -2,12 +2,18 @@
 package gui;
 
 import controller.Controller;
+import controller.LoginGate;
+import model.Utente;
 
 import javax.swing.*;
 import javax.swing.border.Border;
 import java.awt.*;
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Pannello Swing per la gestione della schermata di login dell'applicazione Task.
@@ -222,17 +228,38 @@ public class LoginPanel extends JPanel {
                 return;
             }
 
-            if (controller.login(username, password)) {
-                messageLabel.setForeground(new Color(0, 128, 0));
-                messageLabel.setText("Accesso effettuato con successo! Accesso in corso...");
-
-            Timer timer = new Timer(2000, _ -> mainFrame.showDashboard());
-                timer.setRepeats(false);
-                timer.start();
-            } else {
-                messageLabel.setForeground(Color.RED);
-                messageLabel.setText("Credenziali errate o utente non trovato.");
+            // La verifica della password è lenta per scelta: gira fuori dall'EDT
+            loginButton.setEnabled(false);
+            messageLabel.setForeground(Color.DARK_GRAY);
+            messageLabel.setText("Verifica delle credenziali...");
+            CompletableFuture<Optional<Utente>> autenticazione;
+            try {
+                autenticazione = controller.autenticaAsync(username, password, SwingUtilities::invokeLater);
+            } catch (RejectedExecutionException e) {
+                autenticazione = CompletableFuture.failedFuture(e);
             }
+            autenticazione.whenComplete((utente, errore) -> SwingUtilities.invokeLater(() -> {
+                loginButton.setEnabled(true);
+                Throwable causa = errore instanceof CompletionException ? errore.getCause() : errore;
+                if (causa instanceof LoginGate.TroppiTentativiException troppi) {
+                    messageLabel.setForeground(Color.RED);
+                    messageLabel.setText("Troppi tentativi, riprova tra " + Math.max(1, (troppi.getAttesaMs() + 999) / 1000) + " secondi.");
+                } else if (causa != null) {
+                    messageLabel.setForeground(Color.RED);
+                    messageLabel.setText("Accesso non riuscito, riprova tra qualche istante.");
+                } else if (utente.isPresent()) {
+                    controller.apriSessione(utente.get());
+                    messageLabel.setForeground(new Color(0, 128, 0));
+                    messageLabel.setText("Accesso effettuato con successo! Accesso in corso...");
+
+                    Timer timer = new Timer(2000, _ -> mainFrame.showDashboard());
+                    timer.setRepeats(false);
+                    timer.start();
+                } else {
+                    messageLabel.setForeground(Color.RED);
+                    messageLabel.setText("Credenziali errate o utente non trovato.");
+                }
+            }));
     }
 
     /**
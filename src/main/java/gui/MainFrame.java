@@ -1,6 +1,7 @@
 package gui;
 
 import controller.Controller;
+import metrics.EdtLatencyProbe;
 import javax.swing.*;
 import java.awt.*;
 import java.net.URL; // Importa URL
@@ -15,6 +16,9 @@ public class MainFrame extends JFrame {
     private JPanel cardPanel;
     private LoginPanel loginPanel;
     private RegistrationPanel registrationPanel;
+    private DashboardPanel dashboardPanel;
+    /** true mentre è in corso una sincronizzazione incrementale avviata dal focus della finestra. */
+    private boolean sincronizzazioneInCorso;
 
     private final transient Controller controller;
 
@@ -56,6 +60,23 @@ public class MainFrame extends JFrame {
         cardPanel.add(loginPanel, "login");
         cardPanel.add(registrationPanel, "register");
 
+        // Al ritorno sulla finestra vengono lette solo le modifiche avvenute nel frattempo
+        addWindowFocusListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowGainedFocus(java.awt.event.WindowEvent e) {
+                sincronizzaDashboard();
+            }
+        });
+        // Alla chiusura il workspace viene salvato in locale, per ripartire da esso al prossimo avvio
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                controller.salvaStatoLocale();
+            }
+        });
+
+        EdtLatencyProbe.avvia();
+        EdtWatchdog.installa();
         showLogin();
     }
 
@@ -72,6 +93,7 @@ public class MainFrame extends JFrame {
      * Mostra la schermata di login e pulisce i campi.
      */
     public void showLogin() {
+        dashboardPanel = null;
         clearContentPane();
         getContentPane().add(cardPanel, BorderLayout.CENTER);
         cardLayout.show(cardPanel, "login");
@@ -91,12 +113,38 @@ public class MainFrame extends JFrame {
             return;
         }
         clearContentPane();
-        DashboardPanel dashboardPanel = new DashboardPanel(this);
-        getContentPane().add(dashboardPanel, BorderLayout.CENTER);
+        DashboardPanel dashboard = new DashboardPanel(this);
+        dashboardPanel = dashboard;
+        getContentPane().add(dashboard, BorderLayout.CENTER);
+        // Le modifiche degli altri utenti aggiornano solo le bacheche interessate
+        controller.avviaSincronizzazione(SwingUtilities::invokeLater, dashboard::applicaSincronizzazione);
         revalidate();
         repaint();
     }
 
+    /**
+     * Legge in background le modifiche avvenute dall'ultima sincronizzazione e aggiorna
+     * le sole bacheche interessate della dashboard visualizzata.
+     */
+    private void sincronizzaDashboard() {
+        DashboardPanel dashboard = dashboardPanel;
+        if (dashboard == null || sincronizzazioneInCorso || !controller.isUserLoggedIn()) {
+            return;
+        }
+        sincronizzazioneInCorso = true;
+        controller.leggiDeltaAsync().whenComplete((delta, error) -> SwingUtilities.invokeLater(() -> {
+            sincronizzazioneInCorso = false;
+            if (error != null) {
+                logger.warn("Sincronizzazione incrementale fallita: {}", error.getMessage());
+                return;
+            }
+            Controller.EsitoSincronizzazione esito = controller.applicaDelta(delta);
+            if (dashboard == dashboardPanel && !esito.isVuoto()) {
+                dashboard.applicaSincronizzazione(esito);
+            }
+        }));
+    }
+
     /**
      * Mostra la schermata di registrazione e pulisce i campi.
      */
@@ -2,12 +2,17 @@
 package gui;
 
 import controller.Controller;
+import model.Utente;
 
 import javax.swing.*;
 import javax.swing.border.Border;
 import java.awt.*;
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Pannello Swing per la gestione della schermata di registrazione dell'applicazione Task.
@@ -286,33 +291,41 @@ public class RegistrationPanel extends JPanel {
                 return;
             }
 
+            // L'hash della password è lento per scelta: viene calcolato fuori dall'EDT
+            registerButton.setEnabled(false);
+            messageLabel.setForeground(Color.DARK_GRAY);
+            messageLabel.setText("Registrazione in corso...");
+            CompletableFuture<Optional<Utente>> registrazione;
             try {
-                if (controller.registraUtente(username, password)) {
-                    if (controller.login(username, password)) {
-                        messageLabel.setForeground(new Color(0, 128, 0));
-                        messageLabel.setText("Registrazione effettuata con successo! Accesso in corso...");
-
-                        Timer timer = new Timer(2000, _ -> {
-                            mainFrame.showDashboard();
-                            clearFields();
-                        });
-                        timer.setRepeats(false);
-                        timer.start();
-                    } else {
-                        messageLabel.setForeground(Color.RED);
-                        messageLabel.setText("Registrazione riuscita, ma accesso automatico fallito. Riprova il login.");
-                    }
+                registrazione = controller.registraUtenteAsync(username, password, SwingUtilities::invokeLater);
+            } catch (RejectedExecutionException e) {
+                registrazione = CompletableFuture.failedFuture(e);
+            }
+            registrazione.whenComplete((utente, errore) -> SwingUtilities.invokeLater(() -> {
+                registerButton.setEnabled(true);
+                Throwable causa = errore instanceof CompletionException ? errore.getCause() : errore;
+                if (causa instanceof IllegalArgumentException) {
+                    messageLabel.setForeground(Color.RED);
+                    messageLabel.setText("Errore di registrazione: username già esistente o dati non validi.");
+                } else if (causa != null) {
+                    messageLabel.setForeground(Color.RED);
+                    messageLabel.setText("Errore sconosciuto durante la registrazione.");
+                } else if (utente.isPresent()) {
+                    controller.apriSessione(utente.get());
+                    messageLabel.setForeground(new Color(0, 128, 0));
+                    messageLabel.setText("Registrazione effettuata con successo! Accesso in corso...");
+
+                    Timer timer = new Timer(2000, _ -> {
+                        mainFrame.showDashboard();
+                        clearFields();
+                    });
+                    timer.setRepeats(false);
+                    timer.start();
                 } else {
                     messageLabel.setForeground(Color.RED);
                     messageLabel.setText("Registrazione fallita (username già esistente o dati non validi).");
                 }
-            } catch (IllegalArgumentException _) {
-                messageLabel.setForeground(Color.RED);
-                messageLabel.setText("Errore di registrazione: username già esistente o dati non validi.");
-            } catch (Exception _) {
-                messageLabel.setForeground(Color.RED);
-                messageLabel.setText("Errore sconosciuto durante la registrazione.");
-            }
+            }));
     }
 
     /**
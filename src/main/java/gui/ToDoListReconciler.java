@@ -0,0 +1,129 @@
+package gui;
+
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Riconciliazione per chiave dei componenti di una lista Swing.
+ * A ogni aggiornamento riceve l'elenco desiderato di slot (chiave, stato, factory) e riusa i componenti
+ * già presenti la cui chiave e il cui stato non sono cambiati; crea solo i componenti nuovi o modificati,
+ * rimuove quelli spariti e sposta gli altri senza ricrearli. Il contenitore viene rivalidato solo se cambia.
+ */
+class ToDoListReconciler {
+
+    /**
+     * Elemento desiderato della lista.
+     * @param key Chiave stabile dell'elemento (es. ID del Task)
+     * @param state Stato da cui dipende il contenuto del componente; se uguale al precedente il componente viene riusato
+     * @param factory Crea il componente quando non è riusabile
+     * @param patch Aggiornamento leggero applicato anche ai componenti riusati (può essere null)
+     */
+    record Slot(Object key, Object state, Supplier<? extends JComponent> factory, Consumer<JComponent> patch) {
+    }
+
+    private record Mounted(Object state, JComponent component) {
+    }
+
+    private Map<Object, Mounted> mounted = new HashMap<>();
+    private int created;
+    private int reused;
+
+    /**
+     * Applica al contenitore l'elenco desiderato di slot.
+     * @param container Contenitore gestito esclusivamente da questo reconciler
+     * @param slots Slot nell'ordine di visualizzazione
+     * @return true se la struttura o almeno un componente è cambiato
+     */
+    boolean reconcile(JPanel container, List<Slot> slots) {
+        Map<Object, Mounted> next = new HashMap<>(slots.size() * 2);
+        List<JComponent> ordered = new ArrayList<>(slots.size());
+        created = 0;
+        reused = 0;
+        for (Slot slot : slots) {
+            Object key = slot.key();
+            for (int n = 1; next.containsKey(key); n++) {
+                key = List.of(slot.key(), n); // chiave ripetuta: la rende univoca mantenendo l'ordine
+            }
+            Mounted previous = mounted.get(key);
+            Mounted current;
+            if (previous != null && Objects.equals(previous.state(), slot.state())) {
+                current = previous;
+                reused++;
+            } else {
+                current = new Mounted(slot.state(), slot.factory().get());
+                created++;
+            }
+            if (slot.patch() != null) {
+                slot.patch().accept(current.component());
+            }
+            next.put(key, current);
+            ordered.add(current.component());
+        }
+        mounted = next;
+        return applyOrder(container, ordered);
+    }
+
+    /**
+     * Dimentica i componenti montati, ad esempio quando il contenitore viene svuotato dall'esterno.
+     */
+    void clear() {
+        mounted = new HashMap<>();
+    }
+
+    /**
+     * Restituisce il numero di componenti creati nell'ultima riconciliazione.
+     * @return Componenti creati
+     */
+    int getCreated() {
+        return created;
+    }
+
+    /**
+     * Restituisce il numero di componenti riusati nell'ultima riconciliazione.
+     * @return Componenti riusati
+     */
+    int getReused() {
+        return reused;
+    }
+
+    /**
+     * Porta i figli del contenitore nell'ordine indicato con il minimo di rimozioni e inserimenti.
+     */
+    private static boolean applyOrder(JPanel container, List<JComponent> ordered) {
+        boolean changed = false;
+        Set<Component> wanted = new HashSet<>(ordered);
+        for (int i = container.getComponentCount() - 1; i >= 0; i--) {
+            if (!wanted.contains(container.getComponent(i))) {
+                container.remove(i);
+                changed = true;
+            }
+        }
+        for (int i = 0; i < ordered.size(); i++) {
+            JComponent component = ordered.get(i);
+            if (i < container.getComponentCount() && container.getComponent(i) == component) {
+                continue;
+            }
+            if (component.getParent() == container) {
+                container.setComponentZOrder(component, i);
+            } else {
+                container.add(component, i);
+            }
+            changed = true;
+        }
+        if (changed) {
+            container.revalidate();
+            container.repaint();
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,154 @@
+package gui;
+
+import model.StatoToDo;
+import model.ToDo;
+
+import javax.swing.AbstractListModel;
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.ListCellRenderer;
+import javax.swing.ListSelectionModel;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.Point;
+import java.awt.font.TextAttribute;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Lista virtualizzata dei Task per le bacheche molto grandi.
+ * Usa un unico componente di rendering con altezza di riga fissa, quindi memoria e tempo di layout
+ * non dipendono dal numero di Task: vengono disegnate solo le righe visibili nel viewport.
+ */
+class ToDoVirtualList extends JList<ToDo> {
+
+    /** Altezza fissa di ogni riga in pixel. */
+    static final int ROW_HEIGHT = 54;
+
+    private final ToDoListModel listModel;
+
+    /**
+     * Crea la lista.
+     * @param detailsText Funzione che produce la riga di dettaglio (scadenza, priorità, autore) di un Task
+     */
+    ToDoVirtualList(Function<ToDo, String> detailsText) {
+        this.listModel = new ToDoListModel();
+        setModel(listModel);
+        setCellRenderer(new ToDoCellRenderer(detailsText));
+        setFixedCellHeight(ROW_HEIGHT);
+        // Larghezza fissa: evita che la JList misuri tutte le righe per calcolare la larghezza preferita
+        setFixedCellWidth(120);
+        setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        setBackground(Color.WHITE);
+    }
+
+    /**
+     * Sostituisce i Task visualizzati mantenendo la posizione di scroll.
+     * @param todos Task nell'ordine di visualizzazione
+     */
+    void setItems(List<ToDo> todos) {
+        listModel.setItems(todos);
+    }
+
+    /**
+     * Restituisce il Task sotto il punto indicato, se presente.
+     * @param point Punto in coordinate della lista
+     * @return Task sotto il punto, oppure null
+     */
+    ToDo getToDoAt(Point point) {
+        int index = locationToIndex(point);
+        if (index < 0 || !getCellBounds(index, index).contains(point)) {
+            return null;
+        }
+        return listModel.getElementAt(index);
+    }
+
+    /**
+     * Modello della lista basato su una lista di Task sostituibile in blocco.
+     */
+    private static final class ToDoListModel extends AbstractListModel<ToDo> {
+        private List<ToDo> items = Collections.emptyList();
+
+        void setItems(List<ToDo> todos) {
+            int oldSize = items.size();
+            items = new ArrayList<>(todos);
+            int newSize = items.size();
+            if (newSize < oldSize) {
+                fireIntervalRemoved(this, newSize, oldSize - 1);
+            } else if (newSize > oldSize) {
+                fireIntervalAdded(this, oldSize, newSize - 1);
+            }
+            int common = Math.min(oldSize, newSize);
+            if (common > 0) {
+                fireContentsChanged(this, 0, common - 1);
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return items.size();
+        }
+
+        @Override
+        public ToDo getElementAt(int index) {
+            return items.get(index);
+        }
+    }
+
+    /**
+     * Renderer riusato per tutte le righe: titolo su una riga e dettagli sulla seconda,
+     * con lo sfondo del colore del Task e il titolo barrato se completato.
+     */
+    private static final class ToDoCellRenderer extends JPanel implements ListCellRenderer<ToDo> {
+        private final JLabel titleLabel = new JLabel();
+        private final JLabel detailsLabel = new JLabel();
+        private final Function<ToDo, String> detailsText;
+        private final Font titleFont = FontManager.getBold(13f);
+        private final Font completedTitleFont;
+        private final Map<String, Color> colorCache = new HashMap<>();
+
+        ToDoCellRenderer(Function<ToDo, String> detailsText) {
+            super(new BorderLayout(0, 2));
+            this.detailsText = detailsText;
+            this.completedTitleFont = titleFont.deriveFont(Map.of(TextAttribute.STRIKETHROUGH, TextAttribute.STRIKETHROUGH_ON));
+            titleLabel.setForeground(Color.BLACK);
+            detailsLabel.setFont(FontManager.getRegular(11f));
+            detailsLabel.setForeground(Color.DARK_GRAY);
+            add(titleLabel, BorderLayout.CENTER);
+            add(detailsLabel, BorderLayout.SOUTH);
+            setBorder(BorderFactory.createCompoundBorder(
+                    BorderFactory.createMatteBorder(0, 0, 1, 0, Color.BLACK),
+                    BorderFactory.createEmptyBorder(6, 10, 6, 10)));
+            setOpaque(true);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends ToDo> list, ToDo todo, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            boolean completed = todo.getStato() == StatoToDo.COMPLETATO;
+            titleLabel.setFont(completed ? completedTitleFont : titleFont);
+            titleLabel.setText(todo.getTitolo());
+            detailsLabel.setText(detailsText.apply(todo));
+            Color background = colorFor(todo.getColore());
+            setBackground(isSelected ? background.darker() : background);
+            return this;
+        }
+
+        private Color colorFor(String hexColor) {
+            if (hexColor == null) {
+                return Color.WHITE;
+            }
+            return colorCache.computeIfAbsent(hexColor, h -> h.matches("^#?([A-Fa-f0-9]{6}|[A-Fa-f0-9]{3})$")
+                    ? Color.decode(h.startsWith("#") ? h : "#" + h)
+                    : Color.WHITE);
+        }
+    }
+}
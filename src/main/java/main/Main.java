@@ -2,7 +2,12 @@ package main;
 
 import gui.MainFrame;
 import controller.Controller;
+import metrics.MetricsMBean;
+import metrics.PrometheusEndpoint;
+import database.PoolConnessioni;
+import server.ServerToDo;
 import javax.swing.*;
+import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,9 +21,16 @@ public class Main {
     /**
      * Metodo main. Punto di ingresso dell'applicazione.
      * Avvia l'interfaccia grafica Swing e gestisce le eccezioni critiche.
-     * @param args Argomenti da linea di comando (non usati)
+     * Con l'argomento --server avvia invece la modalità server senza interfaccia grafica (vedi {@link ServerToDo}).
+     * @param args Argomenti da linea di comando: --server per la modalità server
      */
     public static void main(String[] args) {
+        MetricsMBean.registra();
+        PrometheusEndpoint.avviaSeConfigurato();
+        if (args.length > 0 && "--server".equals(args[0])) {
+            avviaServer();
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             try {
                 Controller controller = new Controller(); // La connessione al DB avviene qui
@@ -33,4 +45,20 @@ public class Main {
             }
         });
     }
+
+    /**
+     * Avvia l'API HTTP della modalità server sulla porta configurata; il processo resta attivo finché
+     * non viene terminato, e alla chiusura arresta il server e le connessioni del pool.
+     */
+    private static void avviaServer() {
+        System.setProperty("java.awt.headless", "true");
+        try {
+            ServerToDo server = ServerToDo.avvia(Integer.getInteger(ServerToDo.PROPRIETA_PORTA, ServerToDo.PORTA_PREDEFINITA),
+                    PoolConnessioni.predefinito());
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close, "todo-server-shutdown"));
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, String.format("Impossibile avviare la modalità server: %s", e.getMessage()), e);
+            System.exit(1);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Strumentazione dei DAO: avvolge un'implementazione in un proxy che misura
+ * la latenza e conta gli errori di ogni metodo dell'interfaccia.
+ */
+public final class DaoMetrics {
+
+    private DaoMetrics() {
+    }
+
+    /**
+     * Restituisce un proxy dell'interfaccia DAO che registra latenza ed errori di ogni chiamata.
+     * @param interfaccia Interfaccia del DAO (es. ToDoDAO.class)
+     * @param implementazione Implementazione reale a cui delegare
+     * @param nomeDao Nome del DAO usato come etichetta (es. "todo")
+     * @param <T> Tipo dell'interfaccia
+     * @return Proxy strumentato
+     */
+    public static <T> T strumenta(Class<T> interfaccia, T implementazione, String nomeDao) {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        Map<Method, MetricsRegistry.Timer> timers = new ConcurrentHashMap<>();
+        InvocationHandler handler = (_, metodo, args) -> {
+            if (metodo.getDeclaringClass() == Object.class) {
+                return invoca(metodo, implementazione, args);
+            }
+            MetricsRegistry.Timer timer = timers.computeIfAbsent(metodo, m -> registry.timer("dao_latency_seconds",
+                    "Latenza delle chiamate ai DAO", "dao", nomeDao, "method", m.getName()));
+            long inizio = System.nanoTime();
+            try {
+                return invoca(metodo, implementazione, args);
+            } catch (RuntimeException e) {
+                registry.contatore("dao_errors_total", "Chiamate ai DAO terminate con eccezione",
+                        "dao", nomeDao, "method", metodo.getName()).incrementa();
+                throw e;
+            } finally {
+                timer.registra(System.nanoTime() - inizio);
+            }
+        };
+        return interfaccia.cast(Proxy.newProxyInstance(interfaccia.getClassLoader(), new Class<?>[]{interfaccia}, handler));
+    }
+
+    private static Object invoca(Method metodo, Object destinatario, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destinatario, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package metrics;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sonda che misura periodicamente il ritardo con cui l'Event Dispatch Thread
+ * esegue un task accodato: un valore alto indica che l'interfaccia è bloccata.
+ */
+public final class EdtLatencyProbe {
+
+    private static final long INTERVALLO_MS = 1000;
+
+    private static ScheduledExecutorService scheduler;
+
+    private EdtLatencyProbe() {
+    }
+
+    /**
+     * Avvia la sonda, se non già attiva.
+     */
+    public static synchronized void avvia() {
+        if (scheduler != null) {
+            return;
+        }
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        MetricsRegistry.Timer timer = registry.timer("edt_queue_latency_seconds",
+                "Ritardo tra l'accodamento di un evento e la sua esecuzione sull'EDT");
+        AtomicLong ultimoRitardoNanos = new AtomicLong();
+        registry.gauge("edt_queue_latency_last_seconds", "Ultimo ritardo misurato sull'EDT",
+                () -> ultimoRitardoNanos.get() / 1e9);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "edt-latency-probe");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            long accodato = System.nanoTime();
+            SwingUtilities.invokeLater(() -> {
+                long ritardo = System.nanoTime() - accodato;
+                ultimoRitardoNanos.set(ritardo);
+                timer.registra(ritardo);
+            });
+        }, INTERVALLO_MS, INTERVALLO_MS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,52 @@
+package metrics;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.lang.ref.Cleaner;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stima la memoria heap occupata dalle immagini decodificate ancora raggiungibili.
+ * Ogni immagine tracciata aggiunge la dimensione del proprio raster, che viene sottratta
+ * quando il garbage collector la rilascia.
+ */
+public final class ImageMemoryTracker {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final AtomicLong BYTES = new AtomicLong();
+    private static final AtomicLong IMMAGINI = new AtomicLong();
+
+    static {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge("decoded_images_heap_bytes", "Stima dei byte di heap occupati dalle immagini decodificate vive", BYTES::get);
+        registry.gauge("decoded_images", "Numero di immagini decodificate ancora raggiungibili", IMMAGINI::get);
+    }
+
+    private ImageMemoryTracker() {
+    }
+
+    /**
+     * Registra un'immagine appena decodificata.
+     * @param immagine Immagine da tracciare; null viene ignorato
+     * @return La stessa immagine, per poterla usare inline
+     */
+    public static BufferedImage traccia(BufferedImage immagine) {
+        if (immagine == null) {
+            return null;
+        }
+        long dimensione = stimaByte(immagine);
+        BYTES.addAndGet(dimensione);
+        IMMAGINI.incrementAndGet();
+        CLEANER.register(immagine, () -> {
+            BYTES.addAndGet(-dimensione);
+            IMMAGINI.decrementAndGet();
+        });
+        return immagine;
+    }
+
+    private static long stimaByte(BufferedImage immagine) {
+        DataBuffer buffer = immagine.getRaster().getDataBuffer();
+        long bytePerElemento = Math.max(1, DataBuffer.getDataTypeSize(buffer.getDataType()) / 8);
+        return (long) buffer.getSize() * buffer.getNumBanks() * bytePerElemento;
+    }
+}
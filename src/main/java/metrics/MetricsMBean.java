@@ -0,0 +1,125 @@
+package metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MBean dinamico che pubblica su JMX tutte le serie del {@link MetricsRegistry}.
+ * Ogni serie diventa un attributo in sola lettura; i timer producono gli attributi _count, _sum e _max.
+ */
+public final class MetricsMBean implements DynamicMBean {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsMBean.class);
+
+    /** Nome JMX con cui viene registrato l'MBean. */
+    public static final String OBJECT_NAME = "todoapp:type=Metrics";
+
+    private final MetricsRegistry registry;
+
+    private MetricsMBean(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Registra l'MBean sul platform MBean server, se non già presente.
+     */
+    public static synchronized void registra() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nome = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(nome)) {
+                server.registerMBean(new MetricsMBean(MetricsRegistry.getInstance()), nome);
+                logger.info("Metriche registrate su JMX come {}", OBJECT_NAME);
+            }
+        } catch (JMException e) {
+            logger.error("Impossibile registrare le metriche su JMX: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Calcola la vista piatta attributo → valore di tutte le metriche correnti.
+     * @return Mappa ordinata degli attributi
+     */
+    private Map<String, Object> valori() {
+        Map<String, Object> valori = new LinkedHashMap<>();
+        for (MetricsRegistry.Famiglia famiglia : registry.getFamiglie()) {
+            for (Map.Entry<String, Object> serie : famiglia.getSerie().entrySet()) {
+                String nome = famiglia.getNome() + serie.getKey();
+                switch (serie.getValue()) {
+                    case MetricsRegistry.Contatore c -> valori.put(nome, c.getValore());
+                    case MetricsRegistry.Gauge g -> valori.put(nome, g.getValore());
+                    case MetricsRegistry.Timer t -> {
+                        valori.put(famiglia.getNome() + "_count" + serie.getKey(), t.getConteggio());
+                        valori.put(famiglia.getNome() + "_sum" + serie.getKey(), t.getSommaSecondi());
+                        valori.put(famiglia.getNome() + "_max" + serie.getKey(), t.getMassimoSecondi());
+                    }
+                    default -> { /* tipo non esportabile */ }
+                }
+            }
+        }
+        return valori;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Object valore = valori().get(attribute);
+        if (valore == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return valore;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Le metriche sono in sola lettura: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Object> valori = valori();
+        AttributeList lista = new AttributeList();
+        for (String nome : attributes) {
+            Object valore = valori.get(nome);
+            if (valore != null) {
+                lista.add(new Attribute(nome, valore));
+            }
+        }
+        return lista;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName), "Nessuna operazione disponibile: " + actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributi = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : valori().entrySet()) {
+            attributi.add(new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                    entry.getKey(), true, false, false));
+        }
+        return new MBeanInfo(MetricsMBean.class.getName(), "Metriche runtime di ToDoApp",
+                attributi.toArray(new MBeanAttributeInfo[0]), null, null, null);
+    }
+}
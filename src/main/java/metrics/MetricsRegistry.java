@@ -0,0 +1,328 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Registro centralizzato delle metriche di runtime dell'applicazione.
+ * Raccoglie contatori, gauge e timer, esposti poi tramite JMX e tramite l'endpoint Prometheus.
+ */
+public final class MetricsRegistry {
+
+    /** Prefisso comune a tutte le metriche pubblicate. */
+    public static final String PREFISSO = "todoapp_";
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final Map<String, Famiglia> famiglie = new ConcurrentSkipListMap<>();
+
+    /**
+     * Tipo di una famiglia di metriche, con il nome usato nel formato Prometheus.
+     */
+    public enum Tipo {
+        COUNTER("counter"),
+        GAUGE("gauge"),
+        SUMMARY("summary");
+
+        private final String nomePrometheus;
+
+        Tipo(String nomePrometheus) {
+            this.nomePrometheus = nomePrometheus;
+        }
+
+        /**
+         * Restituisce il nome del tipo nel formato di esposizione Prometheus.
+         * @return Nome del tipo
+         */
+        public String getNomePrometheus() {
+            return nomePrometheus;
+        }
+    }
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Restituisce l'istanza singleton del registro.
+     * @return Registro delle metriche
+     */
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Restituisce (creandolo se necessario) un contatore monotono.
+     * @param nome Nome della metrica, senza prefisso
+     * @param descrizione Descrizione della metrica
+     * @param etichette Coppie chiave/valore delle etichette
+     * @return Contatore registrato
+     */
+    public Contatore contatore(String nome, String descrizione, String... etichette) {
+        return (Contatore) famiglia(nome, descrizione, Tipo.COUNTER).serie.computeIfAbsent(formattaEtichette(etichette), _ -> new Contatore());
+    }
+
+    /**
+     * Restituisce (creandolo se necessario) un timer che accumula numero, somma e massimo delle durate.
+     * @param nome Nome della metrica, senza prefisso
+     * @param descrizione Descrizione della metrica
+     * @param etichette Coppie chiave/valore delle etichette
+     * @return Timer registrato
+     */
+    public Timer timer(String nome, String descrizione, String... etichette) {
+        return (Timer) famiglia(nome, descrizione, Tipo.SUMMARY).serie.computeIfAbsent(formattaEtichette(etichette), _ -> new Timer());
+    }
+
+    /**
+     * Registra una gauge il cui valore viene letto al momento dell'esportazione.
+     * Una seconda registrazione con lo stesso nome ed etichette sostituisce la precedente.
+     * @param nome Nome della metrica, senza prefisso
+     * @param descrizione Descrizione della metrica
+     * @param valore Funzione che fornisce il valore corrente
+     * @param etichette Coppie chiave/valore delle etichette
+     */
+    public void gauge(String nome, String descrizione, DoubleSupplier valore, String... etichette) {
+        famiglia(nome, descrizione, Tipo.GAUGE).serie.put(formattaEtichette(etichette), new Gauge(valore));
+    }
+
+    /**
+     * Registra le metriche di una cache (hit, miss e rapporto di hit) e restituisce l'oggetto per aggiornarle.
+     * @param nomeCache Nome della cache, usato come etichetta
+     * @return Statistiche della cache
+     */
+    public StatisticheCache cache(String nomeCache) {
+        Contatore hit = contatore("cache_hits_total", "Accessi alla cache serviti senza interrogare la sorgente", "cache", nomeCache);
+        Contatore miss = contatore("cache_misses_total", "Accessi alla cache che hanno richiesto la sorgente", "cache", nomeCache);
+        StatisticheCache statistiche = new StatisticheCache(hit, miss);
+        gauge("cache_hit_ratio", "Rapporto tra hit e accessi totali della cache", statistiche::getHitRatio, "cache", nomeCache);
+        return statistiche;
+    }
+
+    /**
+     * Restituisce una fotografia di tutte le famiglie di metriche registrate, ordinate per nome.
+     * @return Lista immutabile delle famiglie
+     */
+    public List<Famiglia> getFamiglie() {
+        return Collections.unmodifiableList(new ArrayList<>(famiglie.values()));
+    }
+
+    private Famiglia famiglia(String nome, String descrizione, Tipo tipo) {
+        Famiglia famiglia = famiglie.computeIfAbsent(PREFISSO + nome, n -> new Famiglia(n, descrizione, tipo));
+        if (famiglia.tipo != tipo) {
+            throw new IllegalArgumentException("La metrica " + nome + " è già registrata con tipo " + famiglia.tipo);
+        }
+        return famiglia;
+    }
+
+    private static String formattaEtichette(String... etichette) {
+        if (etichette.length % 2 != 0) {
+            throw new IllegalArgumentException("Le etichette devono essere coppie chiave/valore");
+        }
+        if (etichette.length == 0) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < etichette.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(etichette[i]).append("=\"")
+                    .append(etichette[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Insieme di serie che condividono nome, descrizione e tipo, distinte dalle etichette.
+     */
+    public static final class Famiglia {
+        private final String nome;
+        private final String descrizione;
+        private final Tipo tipo;
+        private final Map<String, Object> serie = new ConcurrentHashMap<>();
+
+        private Famiglia(String nome, String descrizione, Tipo tipo) {
+            this.nome = nome;
+            this.descrizione = descrizione;
+            this.tipo = tipo;
+        }
+
+        /**
+         * Restituisce il nome completo della famiglia, prefisso incluso.
+         * @return Nome della famiglia
+         */
+        public String getNome() {
+            return nome;
+        }
+
+        /**
+         * Restituisce la descrizione della famiglia.
+         * @return Descrizione
+         */
+        public String getDescrizione() {
+            return descrizione;
+        }
+
+        /**
+         * Restituisce il tipo della famiglia.
+         * @return Tipo di metrica
+         */
+        public Tipo getTipo() {
+            return tipo;
+        }
+
+        /**
+         * Restituisce le serie della famiglia, indicizzate per etichette già formattate (es. {dao="todo"}).
+         * @return Mappa etichette → metrica (Contatore, Gauge o Timer)
+         */
+        public Map<String, Object> getSerie() {
+            return new TreeMap<>(serie);
+        }
+    }
+
+    /**
+     * Contatore monotono thread-safe.
+     */
+    public static final class Contatore {
+        private final LongAdder valore = new LongAdder();
+
+        /** Incrementa il contatore di uno. */
+        public void incrementa() {
+            valore.increment();
+        }
+
+        /**
+         * Incrementa il contatore della quantità indicata.
+         * @param delta Quantità da aggiungere
+         */
+        public void aggiungi(long delta) {
+            valore.add(delta);
+        }
+
+        /**
+         * Restituisce il valore corrente del contatore.
+         * @return Valore del contatore
+         */
+        public long getValore() {
+            return valore.sum();
+        }
+    }
+
+    /**
+     * Gauge letta su richiesta tramite una funzione fornita al momento della registrazione.
+     */
+    public static final class Gauge {
+        private final DoubleSupplier valore;
+
+        private Gauge(DoubleSupplier valore) {
+            this.valore = valore;
+        }
+
+        /**
+         * Restituisce il valore corrente della gauge.
+         * @return Valore della gauge
+         */
+        public double getValore() {
+            return valore.getAsDouble();
+        }
+    }
+
+    /**
+     * Timer che accumula numero di osservazioni, durata totale e durata massima in nanosecondi.
+     */
+    public static final class Timer {
+        private final LongAdder conteggio = new LongAdder();
+        private final LongAdder sommaNanos = new LongAdder();
+        private final AtomicLong massimoNanos = new AtomicLong();
+
+        /**
+         * Registra una durata.
+         * @param nanos Durata in nanosecondi
+         */
+        public void registra(long nanos) {
+            conteggio.increment();
+            sommaNanos.add(nanos);
+            massimoNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * Esegue l'operazione misurandone la durata, anche in caso di eccezione.
+         * @param operazione Operazione da misurare
+         * @param <T> Tipo del risultato
+         * @return Risultato dell'operazione
+         */
+        public <T> T misura(Supplier<T> operazione) {
+            long inizio = System.nanoTime();
+            try {
+                return operazione.get();
+            } finally {
+                registra(System.nanoTime() - inizio);
+            }
+        }
+
+        /**
+         * Restituisce il numero di durate registrate.
+         * @return Numero di osservazioni
+         */
+        public long getConteggio() {
+            return conteggio.sum();
+        }
+
+        /**
+         * Restituisce la somma delle durate registrate.
+         * @return Durata totale in secondi
+         */
+        public double getSommaSecondi() {
+            return sommaNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1);
+        }
+
+        /**
+         * Restituisce la durata massima registrata.
+         * @return Durata massima in secondi
+         */
+        public double getMassimoSecondi() {
+            return massimoNanos.get() / (double) TimeUnit.SECONDS.toNanos(1);
+        }
+    }
+
+    /**
+     * Statistiche di hit/miss di una cache.
+     */
+    public static final class StatisticheCache {
+        private final Contatore hit;
+        private final Contatore miss;
+
+        private StatisticheCache(Contatore hit, Contatore miss) {
+            this.hit = hit;
+            this.miss = miss;
+        }
+
+        /** Registra un accesso servito dalla cache. */
+        public void registraHit() {
+            hit.incrementa();
+        }
+
+        /** Registra un accesso che ha richiesto la sorgente. */
+        public void registraMiss() {
+            miss.incrementa();
+        }
+
+        /**
+         * Restituisce il rapporto tra hit e accessi totali, oppure 0 se non ci sono stati accessi.
+         * @return Rapporto di hit tra 0 e 1
+         */
+        public double getHitRatio() {
+            long h = hit.getValore();
+            long totale = h + miss.getValore();
+            return totale == 0 ? 0.0 : (double) h / totale;
+        }
+    }
+}
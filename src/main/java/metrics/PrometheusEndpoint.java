@@ -0,0 +1,126 @@
+package metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Endpoint HTTP locale che espone le metriche nel formato testuale di Prometheus.
+ * Viene avviato solo se la proprietà di sistema {@value #PROPRIETA_PORTA} è valorizzata.
+ */
+public final class PrometheusEndpoint {
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusEndpoint.class);
+
+    /** Proprietà di sistema con la porta di ascolto dell'endpoint. */
+    public static final String PROPRIETA_PORTA = "todoapp.metrics.port";
+
+    private static HttpServer server;
+
+    private PrometheusEndpoint() {
+    }
+
+    /**
+     * Avvia l'endpoint /metrics su 127.0.0.1 se è configurata la porta.
+     * Chiamate successive non hanno effetto.
+     */
+    public static synchronized void avviaSeConfigurato() {
+        String porta = System.getProperty(PROPRIETA_PORTA);
+        if (server != null || porta == null || porta.isBlank()) {
+            return;
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(porta.trim())), 0);
+            server.createContext("/metrics", PrometheusEndpoint::gestisciRichiesta);
+            server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "metrics-http");
+                t.setDaemon(true);
+                return t;
+            }));
+            server.start();
+            logger.info("Endpoint metriche Prometheus in ascolto su http://127.0.0.1:{}/metrics", porta.trim());
+        } catch (IOException | NumberFormatException e) {
+            server = null;
+            logger.error("Impossibile avviare l'endpoint metriche sulla porta '{}': {}", porta, e.getMessage());
+        }
+    }
+
+    /**
+     * Arresta l'endpoint, se attivo.
+     */
+    public static synchronized void arresta() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private static void gestisciRichiesta(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] corpo = formatta(MetricsRegistry.getInstance()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, corpo.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(corpo);
+            }
+        }
+    }
+
+    /**
+     * Produce la rappresentazione testuale Prometheus di tutte le metriche del registro.
+     * I timer sono esposti come summary (_count e _sum in secondi) più una gauge _max.
+     * @param registry Registro da esportare
+     * @return Testo nel formato di esposizione Prometheus 0.0.4
+     */
+    public static String formatta(MetricsRegistry registry) {
+        StringBuilder sb = new StringBuilder(4096);
+        for (MetricsRegistry.Famiglia famiglia : registry.getFamiglie()) {
+            String nome = famiglia.getNome();
+            sb.append("# HELP ").append(nome).append(' ').append(famiglia.getDescrizione().replace("\n", " ")).append('\n');
+            sb.append("# TYPE ").append(nome).append(' ').append(famiglia.getTipo().getNomePrometheus()).append('\n');
+            for (Map.Entry<String, Object> serie : famiglia.getSerie().entrySet()) {
+                String etichette = serie.getKey();
+                switch (serie.getValue()) {
+                    case MetricsRegistry.Contatore c -> riga(sb, nome, etichette, c.getValore());
+                    case MetricsRegistry.Gauge g -> riga(sb, nome, etichette, g.getValore());
+                    case MetricsRegistry.Timer t -> {
+                        riga(sb, nome + "_count", etichette, t.getConteggio());
+                        riga(sb, nome + "_sum", etichette, t.getSommaSecondi());
+                    }
+                    default -> { /* tipo non esportabile */ }
+                }
+            }
+            if (famiglia.getTipo() == MetricsRegistry.Tipo.SUMMARY) {
+                sb.append("# TYPE ").append(nome).append("_max gauge\n");
+                for (Map.Entry<String, Object> serie : famiglia.getSerie().entrySet()) {
+                    riga(sb, nome + "_max", serie.getKey(), ((MetricsRegistry.Timer) serie.getValue()).getMassimoSecondi());
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void riga(StringBuilder sb, String nome, String etichette, double valore) {
+        sb.append(nome).append(etichette).append(' ');
+        if (Double.isNaN(valore)) {
+            sb.append("NaN");
+        } else if (valore == Math.rint(valore) && !Double.isInfinite(valore) && Math.abs(valore) < 1e15) {
+            sb.append((long) valore);
+        } else {
+            sb.append(valore);
+        }
+        sb.append('\n');
+    }
+}
@@ -0,0 +1,157 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Archivio colonnare dei Task non ancora caricati nelle bacheche, per ricerche e scadenze sui workspace grandi.
+ * <p>
+ * Ogni campo è una colonna: ID, bacheca e posizione in array di int, la scadenza come giorno epoch, lo stato
+ * come byte (ordinale di {@link StatoToDo}). Dei testi si tengono solo titolo e descrizione, gli unici usati
+ * dalle ricerche; URL, immagine, autore e condivisioni restano nel database e si leggono quando un Task trovato
+ * viene caricato. Una riga occupa così qualche decina di byte più i testi, invece delle centinaia di un ToDo
+ * completo con date, ID e insiemi propri.
+ * <p>
+ * Non è thread-safe.
+ */
+public final class ArchivioToDo {
+
+    private static final int CAPACITA_INIZIALE = 256;
+
+    private int dimensione;
+    private int[] id = new int[CAPACITA_INIZIALE];
+    private int[] bachecaId = new int[CAPACITA_INIZIALE];
+    private int[] posizione = new int[CAPACITA_INIZIALE];
+    private int[] scadenza = new int[CAPACITA_INIZIALE];
+    private byte[] stato = new byte[CAPACITA_INIZIALE];
+    private String[] titolo = new String[CAPACITA_INIZIALE];
+    private String[] descrizione = new String[CAPACITA_INIZIALE];
+
+    /**
+     * Aggiunge in coda una riga con i campi del Task indicato.
+     * @param todo Task da archiviare
+     */
+    public void aggiungi(ToDo todo) {
+        if (dimensione == id.length) {
+            int capacita = dimensione + (dimensione >> 1);
+            id = Arrays.copyOf(id, capacita);
+            bachecaId = Arrays.copyOf(bachecaId, capacita);
+            posizione = Arrays.copyOf(posizione, capacita);
+            scadenza = Arrays.copyOf(scadenza, capacita);
+            stato = Arrays.copyOf(stato, capacita);
+            titolo = Arrays.copyOf(titolo, capacita);
+            descrizione = Arrays.copyOf(descrizione, capacita);
+        }
+        int riga = dimensione++;
+        id[riga] = todo.getId();
+        Integer bacheca = todo.getBachecaId();
+        bachecaId[riga] = bacheca != null ? bacheca : ToDo.NESSUN_VALORE;
+        posizione[riga] = todo.getPosizione();
+        scadenza[riga] = todo.getGiornoScadenza();
+        stato[riga] = (byte) todo.getStato().ordinal();
+        titolo[riga] = todo.getTitolo();
+        descrizione[riga] = todo.getDescrizione();
+    }
+
+    /**
+     * Restituisce il numero di righe.
+     * @return Numero di Task archiviati
+     */
+    public int dimensione() {
+        return dimensione;
+    }
+
+    /**
+     * Restituisce l'ID del Task di una riga.
+     * @param riga Indice della riga
+     * @return ID del Task
+     */
+    public int getId(int riga) {
+        return id[riga];
+    }
+
+    /**
+     * Restituisce l'ID della bacheca del Task di una riga.
+     * @param riga Indice della riga
+     * @return ID della bacheca
+     */
+    public int getBachecaId(int riga) {
+        return bachecaId[riga];
+    }
+
+    /**
+     * Indica se la riga segue il cursore di paginazione (posizione, ID) indicato, cioè se il Task non è
+     * ancora stato caricato in una bacheca che ha letto le pagine fino a quel cursore.
+     * @param riga Indice della riga
+     * @param cursorePosizione Posizione dell'ultimo Task caricato
+     * @param cursoreId ID dell'ultimo Task caricato
+     * @return true se la riga viene dopo il cursore
+     */
+    public boolean isDopo(int riga, int cursorePosizione, int cursoreId) {
+        return posizione[riga] > cursorePosizione || (posizione[riga] == cursorePosizione && id[riga] > cursoreId);
+    }
+
+    /**
+     * Cerca le righe il cui titolo o la cui descrizione contengono il termine, senza distinguere maiuscole e minuscole.
+     * I testi vengono confrontati sul posto, senza creare copie in minuscolo.
+     * @param termine Termine da cercare; se vuoto corrispondono tutte le righe
+     * @return Indici delle righe trovate, in ordine
+     */
+    public int[] cerca(String termine) {
+        int[] trovate = new int[Math.min(dimensione, CAPACITA_INIZIALE)];
+        int n = 0;
+        for (int riga = 0; riga < dimensione; riga++) {
+            if (contiene(titolo[riga], termine) || contiene(descrizione[riga], termine)) {
+                if (n == trovate.length) {
+                    trovate = Arrays.copyOf(trovate, n * 2);
+                }
+                trovate[n++] = riga;
+            }
+        }
+        return Arrays.copyOf(trovate, n);
+    }
+
+    /**
+     * Restituisce le righe dei Task non completati con scadenza compresa tra le date indicate (estremi inclusi),
+     * ordinate per scadenza.
+     * @param da Prima data dell'intervallo
+     * @param a Ultima data dell'intervallo
+     * @return Indici delle righe trovate
+     */
+    public int[] inScadenza(LocalDate da, LocalDate a) {
+        int primo = ToDo.giorno(da);
+        int ultimo = ToDo.giorno(a);
+        byte nonCompletato = (byte) StatoToDo.NON_COMPLETATO.ordinal();
+        // Chiave di ordinamento: giorno di scadenza nei 32 bit alti, indice della riga in quelli bassi
+        long[] chiavi = new long[Math.min(dimensione, CAPACITA_INIZIALE)];
+        int n = 0;
+        for (int riga = 0; riga < dimensione; riga++) {
+            int giorno = scadenza[riga];
+            if (giorno != ToDo.NESSUN_VALORE && giorno >= primo && giorno <= ultimo && stato[riga] == nonCompletato) {
+                if (n == chiavi.length) {
+                    chiavi = Arrays.copyOf(chiavi, n * 2);
+                }
+                chiavi[n++] = ((long) giorno << 32) | riga;
+            }
+        }
+        Arrays.sort(chiavi, 0, n);
+        int[] trovate = new int[n];
+        for (int i = 0; i < n; i++) {
+            trovate[i] = (int) chiavi[i];
+        }
+        return trovate;
+    }
+
+    private static boolean contiene(String testo, String termine) {
+        if (testo == null) {
+            return false;
+        }
+        int ultimoInizio = testo.length() - termine.length();
+        for (int i = 0; i <= ultimoInizio; i++) {
+            if (testo.regionMatches(true, i, termine, 0, termine.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
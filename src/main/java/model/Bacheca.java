@@ -2,8 +2,10 @@ package model;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.logging.Logger;
 
 /**
@@ -18,6 +20,10 @@ public class Bacheca {
     private TitoloBacheca titolo;
     private String descrizione;
     private List<ToDo> todos;
+    /** Stato della paginazione: false finché non sono state lette tutte le pagine dal DB. */
+    private boolean caricamentoCompleto = true;
+    private int cursorePosizione = Integer.MIN_VALUE;
+    private int cursoreId = Integer.MIN_VALUE;
 
     /**
      * Costruttore base. Crea una bacheca con titolo e descrizione.
@@ -105,6 +111,90 @@ public class Bacheca {
         this.todos = new ArrayList<>(todos);
     }
 
+    /**
+     * Indica se tutti i Task della bacheca sono stati caricati dal database.
+     * @return true se la lista è completa, false se restano pagine da leggere
+     */
+    public boolean isCaricamentoCompleto() { return caricamentoCompleto; }
+
+    /**
+     * Imposta lo stato di completezza del caricamento.
+     * @param caricamentoCompleto true se la lista è completa
+     */
+    public void setCaricamentoCompleto(boolean caricamentoCompleto) { this.caricamentoCompleto = caricamentoCompleto; }
+
+    /**
+     * Restituisce la posizione dell'ultimo Task letto (cursore della paginazione).
+     * @return Posizione dell'ultimo Task letto, oppure Integer.MIN_VALUE se nessuna pagina è stata letta
+     */
+    public int getCursorePosizione() { return cursorePosizione; }
+
+    /**
+     * Restituisce l'ID dell'ultimo Task letto (cursore della paginazione).
+     * @return ID dell'ultimo Task letto, oppure Integer.MIN_VALUE se nessuna pagina è stata letta
+     */
+    public int getCursoreId() { return cursoreId; }
+
+    /**
+     * Indica se un Task della bacheca segue il cursore della paginazione, cioè verrà letto con una delle pagine
+     * successive e non va quindi aggiunto prima al modello.
+     * @param posizione Posizione del Task
+     * @param id ID del Task
+     * @return true se il caricamento non è completo e (posizione, id) segue il cursore
+     */
+    public boolean isOltreCursore(int posizione, int id) {
+        return !caricamentoCompleto && (posizione > cursorePosizione || (posizione == cursorePosizione && id > cursoreId));
+    }
+
+    /**
+     * Svuota la lista dei Task e riporta il cursore all'inizio, in attesa della prima pagina.
+     */
+    public void iniziaPaginazione() {
+        this.todos = new ArrayList<>();
+        this.cursorePosizione = Integer.MIN_VALUE;
+        this.cursoreId = Integer.MIN_VALUE;
+        this.caricamentoCompleto = false;
+    }
+
+    /**
+     * Ripristina Task e stato della paginazione salvati in precedenza (ad es. da uno snapshot locale).
+     * @param todos Task caricati
+     * @param cursorePosizione Posizione dell'ultimo Task letto dal database
+     * @param cursoreId ID dell'ultimo Task letto dal database
+     * @param completo true se tutti i Task della bacheca erano stati caricati
+     */
+    public void ripristina(List<ToDo> todos, int cursorePosizione, int cursoreId, boolean completo) {
+        this.todos = new ArrayList<>(todos);
+        this.cursorePosizione = cursorePosizione;
+        this.cursoreId = cursoreId;
+        this.caricamentoCompleto = completo;
+    }
+
+    /**
+     * Accoda una pagina di Task letta dal database e avanza il cursore all'ultimo Task della pagina.
+     * I Task già presenti (ad es. aggiunti localmente nel frattempo) non vengono duplicati.
+     * @param pagina Task della pagina, nell'ordine (posizione, id)
+     * @param ultima true se non ci sono altre pagine da leggere
+     * @return Numero di Task effettivamente aggiunti
+     */
+    public int aggiungiPagina(List<ToDo> pagina, boolean ultima) {
+        int aggiunti = 0;
+        Set<ToDo> presenti = new HashSet<>(todos);
+        for (ToDo todo : pagina) {
+            if (presenti.add(todo)) {
+                todos.add(todo);
+                aggiunti++;
+            }
+        }
+        if (!pagina.isEmpty()) {
+            ToDo ultimo = pagina.getLast();
+            this.cursorePosizione = ultimo.getPosizione();
+            this.cursoreId = ultimo.getId();
+        }
+        this.caricamentoCompleto = ultima;
+        return aggiunti;
+    }
+
     /**
      * Aggiunge un Task alla bacheca se non già presente.
      * @param todo Task da aggiungere
@@ -121,6 +211,24 @@ public class Bacheca {
         return true;
     }
 
+    /**
+     * Aggiunge più Task alla bacheca, ignorando quelli già presenti.
+     * @param nuovi Task da aggiungere
+     * @return Numero di Task effettivamente aggiunti
+     */
+    public int aggiungiToDos(List<ToDo> nuovi) {
+        Set<ToDo> presenti = new HashSet<>(todos);
+        int aggiunti = 0;
+        for (ToDo todo : nuovi) {
+            if (presenti.add(Objects.requireNonNull(todo, "Il Task da aggiungere non può essere nullo."))) {
+                todos.add(todo);
+                aggiunti++;
+            }
+        }
+        LOGGER.info(aggiunti + " Task aggiunti alla bacheca '" + getTitoloDisplayName() + "' (localmente).");
+        return aggiunti;
+    }
+
     /**
      * Rimuove un Task dalla bacheca.
      * @param todo Task da rimuovere
@@ -0,0 +1,73 @@
+package model;
+
+/**
+ * Enum che rappresenta i colori della palette dei Task, con nome visualizzato e codice esadecimale.
+ * Il colore di un Task resta memorizzato come codice esadecimale; i codici della palette letti dal
+ * database vengono sostituiti con le costanti di questo enum, così tutti i Task dello stesso colore
+ * condividono la stessa stringa.
+ */
+public enum ColoreToDo {
+    /** Bianco, colore predefinito. */
+    BIANCO("Bianco", "#FFFFFF"),
+    /** Grigio chiaro. */
+    GRIGIO_CHIARO("Grigio Chiaro", "#F0F0F0"),
+    /** Azzurro. */
+    AZZURRO("Azzurro", "#ADD8E6"),
+    /** Verde chiaro. */
+    VERDE_CHIARO("Verde Chiaro", "#90EE90"),
+    /** Rosa. */
+    ROSA("Rosa", "#FFC0CB"),
+    /** Arancione. */
+    ARANCIONE("Arancione", "#FFA500"),
+    /** Rosso. */
+    ROSSO("Rosso", "#FF0000");
+
+    private static final ColoreToDo[] VALORI = values();
+
+    private final String displayName;
+    private final String esadecimale;
+
+    /**
+     * Costruttore dell'enum.
+     * @param displayName Nome visualizzato del colore
+     * @param esadecimale Codice esadecimale del colore (#RRGGBB)
+     */
+    ColoreToDo(String displayName, String esadecimale) {
+        this.displayName = displayName;
+        this.esadecimale = esadecimale;
+    }
+
+    /**
+     * Restituisce il nome visualizzato del colore.
+     * @return Nome visualizzato
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Restituisce il codice esadecimale del colore.
+     * @return Codice esadecimale (#RRGGBB)
+     */
+    public String getEsadecimale() {
+        return esadecimale;
+    }
+
+    /**
+     * Restituisce l'istanza canonica di un codice colore: la costante della palette se il codice vi appartiene
+     * (senza distinguere maiuscole e minuscole), altrimenti il codice stesso.
+     * @param esadecimale Codice esadecimale letto (può essere null)
+     * @return Stringa della palette o il codice originale
+     */
+    public static String canonico(String esadecimale) {
+        if (esadecimale == null) {
+            return null;
+        }
+        for (ColoreToDo c : VALORI) {
+            if (c.esadecimale.equalsIgnoreCase(esadecimale)) {
+                return c.esadecimale;
+            }
+        }
+        return esadecimale;
+    }
+}
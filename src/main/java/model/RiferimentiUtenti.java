@@ -0,0 +1,38 @@
+package model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Istanze canoniche degli utenti senza credenziali letti per un workspace (autori dei Task e destinatari delle
+ * condivisioni): tutte le righe che citano lo stesso utente usano lo stesso oggetto.
+ * <p>
+ * Ogni workspace ha la propria istanza, tenuta da chi lo carica (il DAO del Controller, la lettura di uno snapshot
+ * o di un journal), quindi sessioni diverse non condividono gli oggetti Utente e le istanze vengono rilasciate
+ * insieme al workspace.
+ */
+public final class RiferimentiUtenti {
+
+    private final Map<Integer, Utente> perId = new ConcurrentHashMap<>();
+
+    /**
+     * Restituisce l'istanza canonica dell'utente, creandola se manca o se lo username è cambiato.
+     * L'istanza non va modificata né usata per l'autenticazione.
+     * @param id ID utente
+     * @param username Username
+     * @return Istanza canonica dell'utente
+     */
+    public Utente riferimento(int id, String username) {
+        return perId.compute(id, (_, esistente) -> esistente != null && esistente.getUsername().equals(username)
+                ? esistente : Utente.riferimento(id, username));
+    }
+
+    /**
+     * Restituisce l'istanza canonica dell'utente indicato.
+     * @param ref Riferimento all'utente
+     * @return Istanza canonica dell'utente
+     */
+    public Utente riferimento(UtenteRef ref) {
+        return riferimento(ref.id(), ref.username());
+    }
+}
@@ -2,31 +2,40 @@ package model;
 
 import java.awt.Image;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 /**
  * Modello che rappresenta un singolo Task.
  * Contiene titolo, descrizione, autore, scadenza, stato, colore, immagine, posizione e informazioni di condivisione.
+ * <p>
+ * Per contenere l'occupazione di memoria con molti Task caricati, ID facoltativi e date sono conservati come
+ * interi (le date come giorno epoch) e l'insieme delle condivisioni viene creato solo alla prima condivisione.
  */
 public class ToDo {
+    /** Valore dei campi interi facoltativi (ID e date) quando non impostati. */
+    static final int NESSUN_VALORE = Integer.MIN_VALUE;
+
     private int id;
-    private Integer bachecaId;
+    private int bachecaId = NESSUN_VALORE;
     private String titolo;
     private String url;
     private String descrizione;
-    private LocalDate scadenza;
+    private int scadenza = NESSUN_VALORE; // Giorno epoch
     private Image immagine;
     private int posizione;
     private StatoToDo stato;
-    private LocalDate creazione;
+    private int creazione = NESSUN_VALORE; // Giorno epoch
     private String colore;
     private Utente autore; // L'oggetto Utente completo
     private int autoreId; // L'ID dell'autore, per la persistenza
-    private Integer bachecaDestinazioneId; // ID della bacheca di destinazione per Task condivisi
+    private int bachecaDestinazioneId = NESSUN_VALORE; // ID della bacheca di destinazione per Task condivisi
+    private int versione; // Versione della riga nel DB, per il controllo di concorrenza ottimistico
 
-    private Set<Utente> utentiConAccessoCondiviso = new HashSet<>(); // Utenti con cui è stato condiviso
+    private Set<Utente> utentiConAccessoCondiviso; // Utenti con cui è stato condiviso, null finché vuoto
 
     /**
      * Costruttore principale. Crea un nuovo Task con i dati essenziali.
@@ -41,15 +50,14 @@ public class ToDo {
         this.descrizione = Objects.requireNonNull(descrizione, "La descrizione non può essere nulla");
         this.autore = Objects.requireNonNull(autore, "L'autore non può essere nullo");
         this.autoreId = autore.getId(); // Prende l'ID dell'autore
-        this.scadenza = scadenza;
+        this.scadenza = giorno(scadenza);
         this.colore = colore;
-        this.creazione = LocalDate.now();
+        this.creazione = giorno(LocalDate.now());
         this.stato = StatoToDo.NON_COMPLETATO;
         this.url = "";
         this.immagine = null;
         this.posizione = 0; // Posizione iniziale
         this.id = 0; // Inizializza a 0 per indicare non persistito
-        this.bachecaId = null; // Inizializza a null
     }
 
     /**
@@ -71,18 +79,18 @@ public class ToDo {
     public ToDo(int id, Integer bachecaId, int autoreId, String titolo, String descrizione, String url,
                 LocalDate scadenza, Image immagine, int posizione, StatoToDo stato, LocalDate creazione, String colore) {
         this.id = id;
-        this.bachecaId = bachecaId;
+        this.bachecaId = intero(bachecaId);
         this.autoreId = autoreId;
         this.titolo = Objects.requireNonNull(titolo);
         this.descrizione = descrizione;
         this.url = url;
-        this.scadenza = scadenza;
+        this.scadenza = giorno(scadenza);
         this.immagine = immagine;
         this.posizione = posizione;
         this.stato = Objects.requireNonNull(stato);
-        this.creazione = Objects.requireNonNull(creazione);
+        this.creazione = giorno(Objects.requireNonNull(creazione));
         this.colore = colore;
-        this.utentiConAccessoCondiviso = new HashSet<>(); // Inizializzato vuoto, verrà popolato a parte dal DAO
+        // Condivisioni popolate a parte dal DAO
         this.autore = null; // Autore sarà impostato dopo con utenteDAO.findById(autoreId)
     }
 
@@ -104,7 +112,7 @@ public class ToDo {
         private LocalDate creazione = LocalDate.now();
         private String colore;
         private Utente autore;
-        private Set<Utente> utentiConAccessoCondiviso = new HashSet<>();
+        private Set<Utente> utentiConAccessoCondiviso;
 
         /**
          * Costruttore di default per il Builder.
@@ -218,20 +226,20 @@ public class ToDo {
      */
     private ToDo(Builder builder) {
         this.id = builder.id;
-        this.bachecaId = builder.bachecaId;
+        this.bachecaId = intero(builder.bachecaId);
         this.autoreId = builder.autoreId;
         this.titolo = builder.titolo;
         this.descrizione = builder.descrizione;
         this.url = builder.url;
-        this.scadenza = builder.scadenza;
+        this.scadenza = giorno(builder.scadenza);
         this.immagine = builder.immagine;
         this.posizione = builder.posizione;
         this.stato = builder.stato;
-        this.creazione = builder.creazione;
+        this.creazione = giorno(builder.creazione);
         this.colore = builder.colore;
-        this.bachecaDestinazioneId = builder.bachecaDestinazioneId;
+        this.bachecaDestinazioneId = intero(builder.bachecaDestinazioneId);
         this.autore = builder.autore;
-        this.utentiConAccessoCondiviso = builder.utentiConAccessoCondiviso;
+        setUtentiConAccessoCondiviso(builder.utentiConAccessoCondiviso);
     }
 
     // Getters e Setters
@@ -246,11 +254,11 @@ public class ToDo {
     /** * Restituisce l'ID della bacheca.
      * @return ID bacheca
      */
-    public Integer getBachecaId() { return bachecaId; }
+    public Integer getBachecaId() { return bachecaId != NESSUN_VALORE ? bachecaId : null; }
     /** * Imposta l'ID della bacheca.
      * @param bachecaId Nuovo ID bacheca
      */
-    public void setBachecaId(Integer bachecaId) { this.bachecaId = bachecaId; }
+    public void setBachecaId(Integer bachecaId) { this.bachecaId = intero(bachecaId); }
     /** * Restituisce l'ID dell'autore.
      * @return ID autore
      */
@@ -286,11 +294,11 @@ public class ToDo {
     /** * Restituisce la data di scadenza.
      * @return Data di scadenza
      */
-    public LocalDate getScadenza() { return scadenza; }
+    public LocalDate getScadenza() { return data(scadenza); }
     /** * Imposta la data di scadenza.
      * @param scadenza Nuova data di scadenza
      */
-    public void setScadenza(LocalDate scadenza) { this.scadenza = scadenza; }
+    public void setScadenza(LocalDate scadenza) { this.scadenza = giorno(scadenza); }
     /** * Restituisce l'immagine associata.
      * @return Immagine
      */
@@ -315,14 +323,22 @@ public class ToDo {
      * @param stato Nuovo stato
      */
     public void setStato(StatoToDo stato) { this.stato = stato; }
+    /** * Restituisce la versione della riga letta dal database.
+     * @return Versione
+     */
+    public int getVersione() { return versione; }
+    /** * Imposta la versione della riga letta dal database.
+     * @param versione Nuova versione
+     */
+    public void setVersione(int versione) { this.versione = versione; }
     /** * Restituisce la data di creazione.
      * @return Data creazione
      */
-    public LocalDate getCreazione() { return creazione; }
+    public LocalDate getCreazione() { return data(creazione); }
     /** * Imposta la data di creazione.
      * @param creazione Nuova data creazione
      */
-    public void setCreazione(LocalDate creazione) { this.creazione = creazione; }
+    public void setCreazione(LocalDate creazione) { this.creazione = giorno(creazione); }
     /** * Restituisce il colore associato.
      * @return Colore
      */
@@ -336,13 +352,13 @@ public class ToDo {
      * Restituisce l'ID della bacheca di destinazione per la condivisione.
      * @return ID bacheca destinazione
      */
-    public Integer getBachecaDestinazioneId() { return bachecaDestinazioneId; }
+    public Integer getBachecaDestinazioneId() { return bachecaDestinazioneId != NESSUN_VALORE ? bachecaDestinazioneId : null; }
 
     /**
      * Imposta l'ID della bacheca di destinazione per la condivisione.
      * @param bachecaDestinazioneId ID bacheca destinazione
      */
-    public void setBachecaDestinazioneId(Integer bachecaDestinazioneId) { this.bachecaDestinazioneId = bachecaDestinazioneId; }
+    public void setBachecaDestinazioneId(Integer bachecaDestinazioneId) { this.bachecaDestinazioneId = intero(bachecaDestinazioneId); }
 
     /** * Restituisce l'autore (oggetto Utente).
      * @return Autore
@@ -359,11 +375,11 @@ public class ToDo {
     }
 
     /**
-     * Restituisce l'insieme degli utenti con cui il Task è condiviso.
+     * Restituisce l'insieme degli utenti con cui il Task è condiviso (non modificabile).
      * @return Set di utenti
      */
     public Set<Utente> getUtentiConAccessoCondiviso() {
-        return utentiConAccessoCondiviso;
+        return utentiConAccessoCondiviso != null ? Collections.unmodifiableSet(utentiConAccessoCondiviso) : Set.of();
     }
 
     /**
@@ -371,7 +387,7 @@ public class ToDo {
      * @param utenti Set di utenti
      */
     public void setUtentiConAccessoCondiviso(Set<Utente> utenti) {
-        this.utentiConAccessoCondiviso = utenti != null ? new HashSet<>(utenti) : new HashSet<>();
+        this.utentiConAccessoCondiviso = utenti != null && !utenti.isEmpty() ? new HashSet<>(utenti) : null;
     }
 
     /**
@@ -379,6 +395,9 @@ public class ToDo {
      * @param utente Utente da aggiungere
      */
     public void aggiungiUtenteCondiviso(Utente utente) {
+        if (this.utentiConAccessoCondiviso == null) {
+            this.utentiConAccessoCondiviso = new HashSet<>(4);
+        }
         this.utentiConAccessoCondiviso.add(utente);
     }
 
@@ -387,7 +406,25 @@ public class ToDo {
      * @param utente Utente da rimuovere
      */
     public void rimuoviUtenteCondiviso(Utente utente) {
-        this.utentiConAccessoCondiviso.remove(utente);
+        if (this.utentiConAccessoCondiviso != null && this.utentiConAccessoCondiviso.remove(utente)
+                && this.utentiConAccessoCondiviso.isEmpty()) {
+            this.utentiConAccessoCondiviso = null;
+        }
+    }
+
+    /**
+     * Rimuove dall'insieme di condivisione gli utenti che soddisfano la condizione.
+     * @param condizione Condizione sugli utenti da rimuovere
+     * @return true se almeno un utente è stato rimosso
+     */
+    public boolean rimuoviUtentiCondivisi(Predicate<Utente> condizione) {
+        if (this.utentiConAccessoCondiviso == null || !this.utentiConAccessoCondiviso.removeIf(condizione)) {
+            return false;
+        }
+        if (this.utentiConAccessoCondiviso.isEmpty()) {
+            this.utentiConAccessoCondiviso = null;
+        }
+        return true;
     }
 
     /**
@@ -396,7 +433,7 @@ public class ToDo {
      */
     @Override
     public String toString() {
-        return titolo + (scadenza != null ? " (Scade: " + scadenza.toString() + ")" : "") + (id != 0 ? " [ID:" + id + "]" : "");
+        return titolo + (scadenza != NESSUN_VALORE ? " (Scade: " + data(scadenza) + ")" : "") + (id != 0 ? " [ID:" + id + "]" : "");
     }
 
     /**
@@ -414,7 +451,7 @@ public class ToDo {
             return id == toDo.id;
         }
         return titolo.equals(toDo.titolo) &&
-                creazione.equals(toDo.creazione) && // La creazione è un buon discriminante
+                creazione == toDo.creazione && // La creazione è un buon discriminante
                 Objects.equals(autore, toDo.autore) && // Confronta gli oggetti Utente (che hanno ID)
                 Objects.equals(descrizione, toDo.descrizione);
     }
@@ -432,4 +469,22 @@ public class ToDo {
         // Altrimenti, usa i campi che definiscono l'unicità prima della persistenza.
         return Objects.hash(titolo, creazione, autore, descrizione);
     }
-}
\ No newline at end of file
+
+    /** Giorno epoch della scadenza, oppure {@link #NESSUN_VALORE}. */
+    int getGiornoScadenza() { return scadenza; }
+
+    /** Giorno epoch della creazione, oppure {@link #NESSUN_VALORE}. */
+    int getGiornoCreazione() { return creazione; }
+
+    static int giorno(LocalDate data) {
+        return data != null ? Math.toIntExact(data.toEpochDay()) : NESSUN_VALORE;
+    }
+
+    static LocalDate data(int giorno) {
+        return giorno != NESSUN_VALORE ? LocalDate.ofEpochDay(giorno) : null;
+    }
+
+    private static int intero(Integer valore) {
+        return valore != null ? valore : NESSUN_VALORE;
+    }
+}
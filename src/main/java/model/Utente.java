@@ -1,12 +1,10 @@
 package model;
 
+import sicurezza.ServizioPassword;
+
 import java.awt.Image;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -52,6 +50,24 @@ public class Utente {
         this.bacheche = new ArrayList<>(3);
     }
 
+    private Utente(int id, String username) {
+        this.id = id;
+        this.username = Objects.requireNonNull(username, "Username non può essere nullo.");
+        this.bacheche = new ArrayList<>(0);
+    }
+
+    /**
+     * Crea un utente senza hash della password che rappresenta un altro utente, ad es. l'autore di un Task
+     * o il destinatario di una condivisione. Per usare la stessa istanza in tutte le righe di un workspace
+     * vedi {@link RiferimentiUtenti}. L'istanza non va usata per l'autenticazione.
+     * @param id ID utente
+     * @param username Username
+     * @return Utente senza credenziali
+     */
+    public static Utente riferimento(int id, String username) {
+        return new Utente(id, username);
+    }
+
     /** * Restituisce l'ID dell'utente.
      * @return ID utente
      */
@@ -68,34 +84,31 @@ public class Utente {
      * @return Hash password
      */
     public String getPasswordHash() { return passwordHash; }
-    /** * Imposta la password (viene hashata).
+    /** * Imposta la password (viene hashata con {@link ServizioPassword} sul thread chiamante).
      * @param password Password in chiaro
      */
-    public void setPassword(String password) { this.passwordHash = hashPassword(password); }
+    public void setPassword(String password) { this.passwordHash = ServizioPassword.getInstance().calcola(password); }
+    /** * Imposta un hash della password già calcolato, ad es. quello ricalcolato al login.
+     * @param passwordHash Hash della password
+     */
+    public void setPasswordHash(String passwordHash) { this.passwordHash = Objects.requireNonNull(passwordHash, "Password hash non può essere nulla."); }
 
     /**
-     * Esegue l'hash della password in chiaro usando SHA-256.
+     * Verifica se la password fornita corrisponde all'hash memorizzato, sul thread chiamante.
      * @param password Password in chiaro
-     * @return Hash base64 della password
+     * @return true se la password è corretta, false altrimenti
      */
-    private String hashPassword(String password) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(password.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hashBytes);
-        } catch (NoSuchAlgorithmException e) {
-            LOGGER.log(Level.SEVERE, "Errore nell''algoritmo di hashing: {0}", e.getMessage());
-            return null;
-        }
+    public boolean checkPassword(String password) {
+        return ServizioPassword.getInstance().verifica(password, passwordHash);
     }
 
     /**
-     * Verifica se la password fornita corrisponde all'hash memorizzato.
-     * @param password Password in chiaro
-     * @return true se la password è corretta, false altrimenti
+     * Indica se l'hash memorizzato usa un algoritmo o parametri più deboli di quelli correnti
+     * e va ricalcolato con {@link #setPassword(String)} al prossimo login riuscito.
+     * @return true se l'hash va aggiornato
      */
-    public boolean checkPassword(String password) {
-        return passwordHash.equals(hashPassword(password));
+    public boolean isPasswordDaAggiornare() {
+        return ServizioPassword.getInstance().daAggiornare(passwordHash);
     }
 
     /**
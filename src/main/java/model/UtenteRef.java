@@ -0,0 +1,32 @@
+package model;
+
+import java.util.Objects;
+
+/**
+ * Proiezione leggera di un utente: solo ID e username, senza hash della password né bacheche.
+ * È il risultato delle letture degli utenti che non servono all'autenticazione (autori dei Task,
+ * destinatari delle condivisioni, ricerche per username).
+ * @param id ID utente
+ * @param username Username
+ */
+public record UtenteRef(int id, String username) {
+
+    /**
+     * Costruttore compatto: lo username è obbligatorio.
+     * @param id ID utente
+     * @param username Username
+     */
+    public UtenteRef {
+        Objects.requireNonNull(username, "Username non può essere nullo.");
+    }
+
+    /**
+     * Crea un Utente senza credenziali per questo riferimento, da usare nel modello
+     * (ad es. come autore di un Task o tra gli utenti di una condivisione); per l'istanza condivisa
+     * dalle righe di un workspace vedi {@link RiferimentiUtenti#riferimento(UtenteRef)}.
+     * @return Utente senza credenziali (vedi {@link Utente#riferimento(int, String)})
+     */
+    public Utente utente() {
+        return Utente.riferimento(id, username);
+    }
+}
@@ -0,0 +1,243 @@
+package server;
+
+import dao.BachecaDAOAsincrono;
+import dao.ToDoDAOAsincrono;
+import dao.UtenteDAOAsincrono;
+import dao.implementazione_postgres_dao.BachecaPostgresDAOAsincrono;
+import dao.implementazione_postgres_dao.BachecaPostgresDAOImpl;
+import dao.implementazione_postgres_dao.EsecutoreJdbc;
+import dao.implementazione_postgres_dao.ToDoPostgresDAOAsincrono;
+import dao.implementazione_postgres_dao.ToDoPostgresDAOImpl;
+import dao.implementazione_postgres_dao.UtentePostgresDAOAsincrono;
+import dao.implementazione_postgres_dao.UtentePostgresDAOImpl;
+import database.PoolConnessioni;
+import model.Bacheca;
+import model.ToDo;
+import model.Utente;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+
+/**
+ * Confronto tra i DAO bloccanti e le varianti asincrone con molte sessioni concorrenti.
+ * <p>
+ * Prima verifica che, per l'utente indicato, le due varianti restituiscano gli stessi dati
+ * (utente, bacheche, Task di ogni bacheca, Task condivisi e lettura in streaming), confrontandone
+ * la rappresentazione completa. Poi simula il numero di sessioni indicato, ognuna delle quali ripete
+ * la lettura delle bacheche e dei Task della prima bacheca:
+ * <ul>
+ *   <li>bloccante: un thread di piattaforma per sessione, come un server thread-per-richiesta;</li>
+ *   <li>asincrono: catene di CompletableFuture senza thread dedicati alle sessioni.</li>
+ * </ul>
+ * Entrambe usano un pool della stessa dimensione. Vengono stampati tempo, operazioni al secondo e
+ * picco di thread di piattaforma (i virtual thread non sono conteggiati dalla JVM in questo valore).
+ * <p>
+ * Uso: {@code ConfrontoDao <username> [sessioni=1000] [ripetizioni=10] [pool=todoapp.db.poolSize]}
+ */
+public final class ConfrontoDao {
+
+    private static final long ATTESA_CONNESSIONE_MS = 60_000;
+
+    private ConfrontoDao() {
+    }
+
+    /**
+     * Punto di ingresso del confronto.
+     * @param args username e, facoltativi, numero di sessioni, ripetizioni per sessione e dimensione del pool
+     * @throws Exception se il database non è raggiungibile o i risultati delle due varianti differiscono
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Uso: ConfrontoDao <username> [sessioni] [ripetizioni] [pool]");
+            System.exit(2);
+        }
+        String username = args[0];
+        int sessioni = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int ripetizioni = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        try (PoolConnessioni pool = args.length > 3 ? new PoolConnessioni(Integer.parseInt(args[3])) : PoolConnessioni.predefinito();
+             EsecutoreJdbc jdbc = new EsecutoreJdbc(pool, ATTESA_CONNESSIONE_MS)) {
+            UtenteDAOAsincrono utentiAsincroni = new UtentePostgresDAOAsincrono(jdbc);
+            BachecaDAOAsincrono bachecheAsincrone = new BachecaPostgresDAOAsincrono(jdbc);
+            ToDoDAOAsincrono todoAsincroni = new ToDoPostgresDAOAsincrono(jdbc);
+
+            Utente utente = conConnessione(pool, c -> new UtentePostgresDAOImpl(c).findByUsername(username))
+                    .orElseThrow(() -> new IllegalArgumentException("Utente non trovato: " + username));
+            verificaRisultati(pool, utente, utentiAsincroni, bachecheAsincrone, todoAsincroni);
+
+            System.out.printf("sessioni=%d ripetizioni=%d pool=%d core=%d%n", sessioni, ripetizioni,
+                    pool.getDimensione(), Runtime.getRuntime().availableProcessors());
+            System.out.printf("%-10s %10s %12s %16s%n", "variante", "tempo s", "operazioni/s", "thread (picco)");
+            misura("bloccante", sessioni, ripetizioni, () -> bloccante(pool, utente.getId(), sessioni, ripetizioni));
+            misura("asincrono", sessioni, ripetizioni, () -> asincrono(bachecheAsincrone, todoAsincroni, utente.getId(), sessioni, ripetizioni));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Prova {
+        void esegui() throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface OperazioneConnessione<T> {
+        T esegui(Connection connessione) throws SQLException;
+    }
+
+    private static void misura(String nome, int sessioni, int ripetizioni, Prova prova) throws Exception {
+        ThreadMXBean thread = ManagementFactory.getThreadMXBean();
+        System.gc();
+        thread.resetPeakThreadCount();
+        long inizio = System.nanoTime();
+        prova.esegui();
+        double secondi = (System.nanoTime() - inizio) / 1e9;
+        // Ogni ripetizione esegue due operazioni: bacheche dell'utente e Task della prima bacheca
+        double operazioni = 2.0 * sessioni * ripetizioni;
+        System.out.printf("%-10s %10.2f %12.1f %16d%n", nome, secondi, operazioni / secondi, thread.getPeakThreadCount());
+    }
+
+    private static void bloccante(PoolConnessioni pool, int utenteId, int sessioni, int ripetizioni) throws Exception {
+        try (ExecutorService esecutore = Executors.newThreadPerTaskExecutor(Thread.ofPlatform().daemon().factory())) {
+            List<Future<?>> future = new ArrayList<>(sessioni);
+            for (int s = 0; s < sessioni; s++) {
+                future.add(esecutore.submit(() -> {
+                    for (int r = 0; r < ripetizioni; r++) {
+                        List<Bacheca> bacheche = conConnessione(pool, c -> new BachecaPostgresDAOImpl(c).findByUtenteId(utenteId));
+                        if (!bacheche.isEmpty()) {
+                            conConnessione(pool, c -> new ToDoPostgresDAOImpl(c).findAllByBachecaId(bacheche.getFirst().getId()));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : future) {
+                f.get();
+            }
+        }
+    }
+
+    private static void asincrono(BachecaDAOAsincrono bacheche, ToDoDAOAsincrono todos, int utenteId,
+                                  int sessioni, int ripetizioni) {
+        List<CompletableFuture<Void>> future = new ArrayList<>(sessioni);
+        for (int s = 0; s < sessioni; s++) {
+            future.add(sessioneAsincrona(bacheche, todos, utenteId, ripetizioni));
+        }
+        CompletableFuture.allOf(future.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private static CompletableFuture<Void> sessioneAsincrona(BachecaDAOAsincrono bacheche, ToDoDAOAsincrono todos,
+                                                             int utenteId, int ripetizioni) {
+        if (ripetizioni == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return bacheche.findByUtenteId(utenteId)
+                .thenCompose(lette -> lette.isEmpty()
+                        ? CompletableFuture.completedFuture(List.<ToDo>of())
+                        : todos.findAllByBachecaId(lette.getFirst().getId()))
+                .thenCompose(_ -> sessioneAsincrona(bacheche, todos, utenteId, ripetizioni - 1));
+    }
+
+    private static void verificaRisultati(PoolConnessioni pool, Utente utente, UtenteDAOAsincrono utenti,
+                                          BachecaDAOAsincrono bacheche, ToDoDAOAsincrono todos) throws SQLException {
+        confronta("utente", conConnessione(pool, c -> new UtentePostgresDAOImpl(c).findByUsername(utente.getUsername())).map(ConfrontoDao::firma),
+                utenti.findByUsername(utente.getUsername()).join().map(ConfrontoDao::firma));
+        List<Bacheca> letteBloccante = conConnessione(pool, c -> new BachecaPostgresDAOImpl(c).findByUtenteId(utente.getId()));
+        confronta("bacheche", letteBloccante.stream().map(ServerToDo::json).toList(),
+                bacheche.findByUtenteId(utente.getId()).join().stream().map(ServerToDo::json).toList());
+        for (Bacheca b : letteBloccante) {
+            confronta("Task della bacheca " + b.getId(),
+                    conConnessione(pool, c -> new ToDoPostgresDAOImpl(c).findAllByBachecaId(b.getId())).stream().map(ConfrontoDao::firma).toList(),
+                    todos.findAllByBachecaId(b.getId()).join().stream().map(ConfrontoDao::firma).toList());
+            confronta("streaming della bacheca " + b.getId(),
+                    conConnessione(pool, c -> {
+                        try (var stream = new ToDoPostgresDAOImpl(c).streamByBachecaId(b.getId(), Integer.MIN_VALUE, Integer.MIN_VALUE)) {
+                            return stream.map(ConfrontoDao::firma).toList();
+                        }
+                    }),
+                    raccogli(todos.publishByBachecaId(b.getId(), Integer.MIN_VALUE, Integer.MIN_VALUE)).stream().map(ConfrontoDao::firma).toList());
+        }
+        confronta("Task condivisi",
+                conConnessione(pool, c -> new ToDoPostgresDAOImpl(c).findAllSharedWithUser(utente)).stream().map(ConfrontoDao::firma).toList(),
+                todos.findAllSharedWithUser(utente).join().stream().map(ConfrontoDao::firma).toList());
+        System.out.println("Risultati identici tra DAO bloccanti e asincroni.");
+    }
+
+    private static void confronta(String cosa, Object bloccante, Object asincrono) {
+        String attesa = Json.scrivi(bloccante instanceof Optional<?> o ? o.orElse(null) : bloccante);
+        String ottenuta = Json.scrivi(asincrono instanceof Optional<?> o ? o.orElse(null) : asincrono);
+        if (!attesa.equals(ottenuta)) {
+            throw new IllegalStateException("Risultati diversi per " + cosa + ":\n  bloccante: " + attesa + "\n  asincrono: " + ottenuta);
+        }
+    }
+
+    /**
+     * Raccoglie tutti gli elementi di un publisher, richiedendoli uno alla volta.
+     */
+    private static <T> List<T> raccogli(Flow.Publisher<T> publisher) {
+        CompletableFuture<List<T>> risultato = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            private final List<T> elementi = new ArrayList<>();
+            private Flow.Subscription abbonamento;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                abbonamento = subscription;
+                abbonamento.request(1);
+            }
+
+            @Override
+            public void onNext(T elemento) {
+                elementi.add(elemento);
+                abbonamento.request(1);
+            }
+
+            @Override
+            public void onError(Throwable errore) {
+                risultato.completeExceptionally(errore);
+            }
+
+            @Override
+            public void onComplete() {
+                risultato.complete(elementi);
+            }
+        });
+        return risultato.join();
+    }
+
+    private static Map<String, Object> firma(Utente u) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", u.getId());
+        m.put("username", u.getUsername());
+        m.put("passwordHash", u.getPasswordHash());
+        return m;
+    }
+
+    private static Map<String, Object> firma(ToDo t) {
+        Map<String, Object> m = new LinkedHashMap<>(ServerToDo.json(t));
+        m.put("autoreId", t.getAutoreId());
+        m.put("creazione", t.getCreazione() != null ? t.getCreazione().toString() : null);
+        m.put("bachecaDestinazioneId", t.getBachecaDestinazioneId());
+        m.put("immagine", t.getImmagine() != null
+                ? t.getImmagine().getWidth(null) + "x" + t.getImmagine().getHeight(null) : null);
+        return m;
+    }
+
+    private static <T> T conConnessione(PoolConnessioni pool, OperazioneConnessione<T> operazione) throws SQLException {
+        Connection connessione = pool.ottieni(ATTESA_CONNESSIONE_MS);
+        try {
+            return operazione.esegui(connessione);
+        } finally {
+            pool.rilascia(connessione);
+        }
+    }
+}
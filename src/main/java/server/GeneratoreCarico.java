@@ -0,0 +1,146 @@
+package server;
+
+import database.PoolConnessioni;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Prova di carico della modalità server. Per ogni dimensione del pool avvia un {@link ServerToDo}
+ * in-process su una porta libera e, per ogni numero di client, esegue per la durata indicata client
+ * concorrenti su virtual thread: ognuno apre la propria sessione e ripete la lettura delle bacheche
+ * e dei Task di una bacheca. Stampa una tabella con throughput e latenze, da cui si vede come il
+ * throughput scala con la dimensione del pool e con il numero di client.
+ * <p>
+ * Per misurare la scalabilità rispetto ai core si ripete la prova limitando i carrier thread dei
+ * virtual thread, ad es. con {@code -Djdk.virtualThreadScheduler.parallelism=2}, oppure la CPU del
+ * processo (taskset). Il carico è di sola lettura, quindi può girare su un database con dati reali.
+ * <p>
+ * Uso: {@code GeneratoreCarico <username> <password> [bacheca=UNIVERSITA] [secondi=10] [client=1,8,64,256] [pool=1,2,4,8,16]}
+ */
+public final class GeneratoreCarico {
+
+    private static final String PROPRIETA_PARALLELISMO = "jdk.virtualThreadScheduler.parallelism";
+
+    private GeneratoreCarico() {
+    }
+
+    /**
+     * Risultato di un client: richieste completate, errori e latenze in nanosecondi.
+     */
+    private record RisultatoClient(int richieste, int errori, long[] latenze) {
+    }
+
+    /**
+     * Punto di ingresso della prova di carico.
+     * @param args username, password e, facoltativi, bacheca, durata in secondi, numeri di client e dimensioni del pool
+     * @throws Exception se il server non si avvia o la prova viene interrotta
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Uso: GeneratoreCarico <username> <password> [bacheca] [secondi] [client,...] [pool,...]");
+            System.exit(2);
+        }
+        String username = args[0];
+        String password = args[1];
+        String bacheca = args.length > 2 ? args[2] : "UNIVERSITA";
+        Duration durata = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 10);
+        int[] client = args.length > 4 ? interi(args[4]) : new int[]{1, 8, 64, 256};
+        int[] pool = args.length > 5 ? interi(args[5]) : new int[]{1, 2, 4, 8, 16};
+
+        System.out.printf("core=%d parallelismo=%s durata=%ds%n", Runtime.getRuntime().availableProcessors(),
+                System.getProperty(PROPRIETA_PARALLELISMO, "predefinito"), durata.toSeconds());
+        System.out.printf("%6s %8s %12s %10s %10s %8s%n", "pool", "client", "richieste/s", "p50 ms", "p99 ms", "errori");
+        for (int dimensionePool : pool) {
+            try (ServerToDo server = ServerToDo.avvia(0, new PoolConnessioni(dimensionePool))) {
+                String base = "http://127.0.0.1:" + server.getPorta() + "/api/";
+                for (int numeroClient : client) {
+                    esegui(base, username, password, bacheca, numeroClient, dimensionePool, durata);
+                }
+            }
+        }
+    }
+
+    private static void esegui(String base, String username, String password, String bacheca,
+                               int numeroClient, int dimensionePool, Duration durata) throws Exception {
+        try (ExecutorService esecutore = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(esecutore).build()) {
+            long fine = System.nanoTime() + durata.toNanos();
+            List<Future<RisultatoClient>> risultati = new ArrayList<>(numeroClient);
+            for (int i = 0; i < numeroClient; i++) {
+                risultati.add(esecutore.submit(() -> client(http, base, username, password, bacheca, fine)));
+            }
+            int richieste = 0;
+            int errori = 0;
+            List<long[]> latenze = new ArrayList<>(numeroClient);
+            for (Future<RisultatoClient> f : risultati) {
+                RisultatoClient r = f.get();
+                richieste += r.richieste();
+                errori += r.errori();
+                latenze.add(r.latenze());
+            }
+            long[] tutte = latenze.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            System.out.printf("%6d %8d %12.1f %10.2f %10.2f %8d%n", dimensionePool, numeroClient,
+                    richieste / (double) durata.toSeconds(), percentile(tutte, 0.50), percentile(tutte, 0.99), errori);
+        }
+    }
+
+    private static RisultatoClient client(HttpClient http, String base, String username, String password,
+                                          String bacheca, long fine) throws IOException, InterruptedException {
+        HttpResponse<String> login = http.send(HttpRequest.newBuilder(URI.create(base + "login"))
+                        .POST(HttpRequest.BodyPublishers.ofString(Json.scrivi(Map.of("username", username, "password", password))))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (login.statusCode() != 200) {
+            return new RisultatoClient(0, 1, new long[0]);
+        }
+        String token = (String) Json.leggiOggetto(login.body()).get("token");
+        HttpRequest[] richieste = {
+                HttpRequest.newBuilder(URI.create(base + "bacheche")).header("Authorization", "Bearer " + token).build(),
+                HttpRequest.newBuilder(URI.create(base + "bacheche/" + bacheca + "/todos")).header("Authorization", "Bearer " + token).build()
+        };
+        long[] latenze = new long[1024];
+        int completate = 0;
+        int errori = 0;
+        while (System.nanoTime() < fine) {
+            long inizio = System.nanoTime();
+            HttpResponse<Void> risposta = http.send(richieste[(completate + errori) % richieste.length],
+                    HttpResponse.BodyHandlers.discarding());
+            long latenza = System.nanoTime() - inizio;
+            if (risposta.statusCode() != 200) {
+                errori++;
+                continue;
+            }
+            if (completate == latenze.length) {
+                latenze = Arrays.copyOf(latenze, latenze.length * 2);
+            }
+            latenze[completate++] = latenza;
+        }
+        http.send(HttpRequest.newBuilder(URI.create(base + "logout")).header("Authorization", "Bearer " + token)
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+        return new RisultatoClient(completate, errori, Arrays.copyOf(latenze, completate));
+    }
+
+    private static double percentile(long[] ordinate, double quantile) {
+        if (ordinate.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.min(ordinate.length - 1, Math.ceil(quantile * ordinate.length) - 1);
+        return ordinate[Math.max(0, indice)] / 1_000_000.0;
+    }
+
+    private static int[] interi(String elenco) {
+        return Arrays.stream(elenco.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+}
@@ -0,0 +1,261 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lettura e scrittura minimale di JSON per l'API della modalità server, senza dipendenze esterne.
+ * In scrittura accetta Map (chiavi stringa), List, String, Number, Boolean e null;
+ * in lettura produce gli stessi tipi, con i numeri come Long o Double.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Serializza un valore in JSON.
+     * @param valore Valore da serializzare
+     * @return Testo JSON
+     * @throws IllegalArgumentException se il valore contiene un tipo non supportato
+     */
+    static String scrivi(Object valore) {
+        StringBuilder sb = new StringBuilder(256);
+        scrivi(sb, valore);
+        return sb.toString();
+    }
+
+    /**
+     * Legge un oggetto JSON.
+     * @param testo Testo JSON; vuoto o null equivale a un oggetto vuoto
+     * @return Campi dell'oggetto, nell'ordine del testo
+     * @throws IllegalArgumentException se il testo non è un oggetto JSON valido
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> leggiOggetto(String testo) {
+        if (testo == null || testo.isBlank()) {
+            return new LinkedHashMap<>();
+        }
+        Lettore lettore = new Lettore(testo);
+        Object valore = lettore.valore();
+        lettore.spazi();
+        if (lettore.pos != testo.length()) {
+            throw lettore.errore("contenuto dopo la fine del valore");
+        }
+        if (!(valore instanceof Map)) {
+            throw new IllegalArgumentException("JSON non valido: atteso un oggetto");
+        }
+        return (Map<String, Object>) valore;
+    }
+
+    private static void scrivi(StringBuilder sb, Object valore) {
+        switch (valore) {
+            case null -> sb.append("null");
+            case String s -> scriviStringa(sb, s);
+            case Boolean b -> sb.append(b);
+            case Double d when d.isNaN() || d.isInfinite() -> sb.append("null");
+            case Number n -> sb.append(n);
+            case Map<?, ?> m -> {
+                sb.append('{');
+                boolean primo = true;
+                for (Map.Entry<?, ?> e : m.entrySet()) {
+                    if (!primo) sb.append(',');
+                    primo = false;
+                    scriviStringa(sb, String.valueOf(e.getKey()));
+                    sb.append(':');
+                    scrivi(sb, e.getValue());
+                }
+                sb.append('}');
+            }
+            case Iterable<?> it -> {
+                sb.append('[');
+                boolean primo = true;
+                for (Object o : it) {
+                    if (!primo) sb.append(',');
+                    primo = false;
+                    scrivi(sb, o);
+                }
+                sb.append(']');
+            }
+            default -> throw new IllegalArgumentException("Tipo non serializzabile in JSON: " + valore.getClass().getName());
+        }
+    }
+
+    private static void scriviStringa(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Parser a discesa ricorsiva su una stringa.
+     */
+    private static final class Lettore {
+        private final String testo;
+        private int pos;
+
+        Lettore(String testo) {
+            this.testo = testo;
+        }
+
+        Object valore() {
+            spazi();
+            if (pos >= testo.length()) {
+                throw errore("fine inattesa");
+            }
+            char c = testo.charAt(pos);
+            return switch (c) {
+                case '{' -> oggetto();
+                case '[' -> lista();
+                case '"' -> stringa();
+                case 't' -> parola("true", Boolean.TRUE);
+                case 'f' -> parola("false", Boolean.FALSE);
+                case 'n' -> parola("null", null);
+                default -> numero();
+            };
+        }
+
+        private Map<String, Object> oggetto() {
+            Map<String, Object> campi = new LinkedHashMap<>();
+            pos++;
+            spazi();
+            if (consuma('}')) {
+                return campi;
+            }
+            do {
+                spazi();
+                if (pos >= testo.length() || testo.charAt(pos) != '"') {
+                    throw errore("attesa una chiave");
+                }
+                String chiave = stringa();
+                spazi();
+                if (!consuma(':')) {
+                    throw errore("atteso ':'");
+                }
+                campi.put(chiave, valore());
+                spazi();
+            } while (consuma(','));
+            if (!consuma('}')) {
+                throw errore("atteso '}'");
+            }
+            return campi;
+        }
+
+        private List<Object> lista() {
+            List<Object> valori = new ArrayList<>();
+            pos++;
+            spazi();
+            if (consuma(']')) {
+                return valori;
+            }
+            do {
+                valori.add(valore());
+                spazi();
+            } while (consuma(','));
+            if (!consuma(']')) {
+                throw errore("atteso ']'");
+            }
+            return valori;
+        }
+
+        private String stringa() {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (pos < testo.length()) {
+                char c = testo.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= testo.length()) {
+                    break;
+                }
+                char escape = testo.charAt(pos++);
+                switch (escape) {
+                    case '"', '\\', '/' -> sb.append(escape);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > testo.length()) {
+                            throw errore("sequenza \\u incompleta");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(testo, pos, pos + 4, 16));
+                        } catch (NumberFormatException e) {
+                            throw errore("sequenza \\u non valida");
+                        }
+                        pos += 4;
+                    }
+                    default -> throw errore("escape non valido");
+                }
+            }
+            throw errore("stringa non terminata");
+        }
+
+        private Object parola(String parola, Object valore) {
+            if (!testo.startsWith(parola, pos)) {
+                throw errore("valore non riconosciuto");
+            }
+            pos += parola.length();
+            return valore;
+        }
+
+        private Number numero() {
+            int inizio = pos;
+            while (pos < testo.length() && "+-0123456789.eE".indexOf(testo.charAt(pos)) >= 0) {
+                pos++;
+            }
+            String cifre = testo.substring(inizio, pos);
+            try {
+                if (cifre.indexOf('.') >= 0 || cifre.indexOf('e') >= 0 || cifre.indexOf('E') >= 0) {
+                    return Double.parseDouble(cifre);
+                }
+                return Long.parseLong(cifre);
+            } catch (NumberFormatException e) {
+                throw errore("numero non valido");
+            }
+        }
+
+        private boolean consuma(char c) {
+            if (pos < testo.length() && testo.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void spazi() {
+            while (pos < testo.length() && Character.isWhitespace(testo.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        IllegalArgumentException errore(String motivo) {
+            return new IllegalArgumentException("JSON non valido alla posizione " + pos + ": " + motivo);
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import controller.Controller;
+import controller.LoginGate;
+import controller.Sessione;
+import dao.implementazione_postgres_dao.DatabaseConnectionException;
+import database.PoolConnessioni;
+import metrics.MetricsRegistry;
+import model.Bacheca;
+import model.StatoToDo;
+import model.TitoloBacheca;
+import model.ToDo;
+import model.Utente;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Modalità server senza interfaccia grafica: espone le operazioni del Controller come API HTTP/JSON
+ * su 127.0.0.1, per più utenti contemporaneamente.
+ * <p>
+ * Ogni richiesta viene eseguita su un virtual thread. Lo stato non vive in un Controller condiviso ma in una
+ * {@link Sessione} per utente (ottenuta con POST /api/login e passata come {@code Authorization: Bearer <token>}):
+ * ogni richiesta prende il lock della sessione, poi una connessione dal {@link PoolConnessioni}, crea un
+ * Controller con {@link Controller#perSessione} per quella sessione, esegue l'operazione e restituisce la
+ * connessione. Le richieste di sessioni diverse lavorano in parallelo su modelli e connessioni distinti;
+ * quelle della stessa sessione vengono eseguite una alla volta.
+ * <p>
+ * Rotte (le bacheche si indicano con il nome dell'enum, ad es. UNIVERSITA):
+ * <ul>
+ *   <li>POST /api/login {username, password} → {token}</li>
+ *   <li>POST /api/logout</li>
+ *   <li>GET /api/bacheche</li>
+ *   <li>GET /api/bacheche/{bacheca}/todos</li>
+ *   <li>POST /api/bacheche/{bacheca}/todos {titolo, descrizione, scadenza, colore, url}</li>
+ *   <li>PUT /api/todos/{id} {titolo, descrizione, scadenza, stato, colore, url, versione}</li>
+ *   <li>DELETE /api/todos/{id}</li>
+ *   <li>POST /api/todos/{id}/sposta {bacheca}</li>
+ *   <li>POST /api/todos/{id}/condividi {username, bacheca}</li>
+ * </ul>
+ * La porta è configurabile con la proprietà di sistema {@value #PROPRIETA_PORTA}, la durata delle sessioni
+ * inattive con todoapp.server.sessionTimeoutMin e la dimensione del pool con todoapp.db.poolSize.
+ */
+public final class ServerToDo implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ServerToDo.class);
+
+    /** Proprietà di sistema con la porta di ascolto del server. */
+    public static final String PROPRIETA_PORTA = "todoapp.server.port";
+    /** Porta usata se la proprietà non è valorizzata. */
+    public static final int PORTA_PREDEFINITA = 8080;
+
+    private static final String PREFISSO_API = "/api/";
+    private static final String CONTENT_TYPE_JSON = "application/json; charset=utf-8";
+    /** Dimensione massima accettata per il corpo di una richiesta. */
+    private static final int MAX_CORPO_BYTE = 64 * 1024;
+    /** Attesa massima di una connessione libera prima di rispondere 503. */
+    private static final long ATTESA_CONNESSIONE_MS = Long.getLong("todoapp.server.poolTimeoutMs", 5_000);
+    private static final long DURATA_SESSIONE_NANOS = TimeUnit.MINUTES.toNanos(Long.getLong("todoapp.server.sessionTimeoutMin", 30));
+
+    /** Rotte note, usate come etichetta della metrica di durata. */
+    private static final Set<String> ROTTE = Set.of("POST login", "POST logout", "GET bacheche", "GET bacheche/*/todos",
+            "POST bacheche/*/todos", "PUT todos/*", "DELETE todos/*", "POST todos/*/sposta", "POST todos/*/condividi");
+
+    private static final MetricsRegistry.Contatore ERRORI = MetricsRegistry.getInstance()
+            .contatore("server_errors_total", "Richieste dell'API terminate con un errore del server");
+
+    /**
+     * Risposta di una rotta: codice HTTP e corpo da serializzare in JSON (null per nessun corpo).
+     */
+    private record Risposta(int stato, Object corpo) {
+    }
+
+    /**
+     * Errore da restituire al client con il codice HTTP indicato.
+     */
+    private static final class ErroreRichiesta extends RuntimeException {
+        private final int stato;
+
+        ErroreRichiesta(int stato, String messaggio) {
+            super(messaggio);
+            this.stato = stato;
+        }
+    }
+
+    private final HttpServer server;
+    private final PoolConnessioni pool;
+    private final ExecutorService virtualThread = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Sessione> sessioni = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    private ServerToDo(int porta, PoolConnessioni pool) throws IOException {
+        this.pool = pool;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta), 0);
+        server.createContext(PREFISSO_API, this::gestisciRichiesta);
+        server.setExecutor(virtualThread);
+        MetricsRegistry.getInstance().gauge("server_sessions", "Sessioni attive della modalità server", sessioni::size);
+    }
+
+    /**
+     * Avvia il server su 127.0.0.1.
+     * @param porta Porta di ascolto (0 per una porta libera qualsiasi)
+     * @param pool Pool di connessioni usato dalle richieste, chiuso insieme al server
+     * @return Server avviato
+     * @throws IOException se la porta non è disponibile
+     */
+    public static ServerToDo avvia(int porta, PoolConnessioni pool) throws IOException {
+        ServerToDo s = new ServerToDo(porta, pool);
+        s.server.start();
+        logger.info("ServerToDo: API in ascolto su http://127.0.0.1:{}/api/ (pool di {} connessioni)",
+                s.getPorta(), pool.getDimensione());
+        return s;
+    }
+
+    /**
+     * Restituisce la porta effettiva di ascolto.
+     * @return Porta del server
+     */
+    public int getPorta() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Arresta il server, attendendo al massimo un secondo le richieste in corso, e chiude il pool.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        virtualThread.shutdown();
+        pool.close();
+        sessioni.clear();
+        logger.info("ServerToDo: server arrestato.");
+    }
+
+    private void gestisciRichiesta(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Risposta risposta;
+            try {
+                risposta = instrada(exchange);
+            } catch (ErroreRichiesta e) {
+                risposta = errore(e.stato, e.getMessage());
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                risposta = errore(400, e.getMessage());
+            } catch (SQLException | DatabaseConnectionException e) {
+                ERRORI.incrementa();
+                logger.warn("ServerToDo: database non disponibile per {} {}: {}",
+                        exchange.getRequestMethod(), exchange.getRequestURI().getPath(), e.getMessage());
+                risposta = errore(503, "Database non disponibile");
+            } catch (LoginGate.TroppiTentativiException e) {
+                logger.warn("ServerToDo: login respinto: {}", e.getMessage());
+                risposta = errore(429, e.getMessage() + ", riprovare tra " + Math.max(1, (e.getAttesaMs() + 999) / 1000) + " s");
+            } catch (RejectedExecutionException e) {
+                ERRORI.incrementa();
+                logger.warn("ServerToDo: richiesta {} {} rifiutata: {}",
+                        exchange.getRequestMethod(), exchange.getRequestURI().getPath(), e.getMessage());
+                risposta = errore(503, "Server occupato, riprovare");
+            } catch (RuntimeException e) {
+                ERRORI.incrementa();
+                logger.error("ServerToDo: errore in {} {}", exchange.getRequestMethod(), exchange.getRequestURI().getPath(), e);
+                risposta = errore(500, "Errore interno");
+            }
+            invia(exchange, risposta);
+        }
+    }
+
+    private Risposta instrada(HttpExchange exchange) throws IOException, SQLException {
+        String metodo = exchange.getRequestMethod();
+        String[] parti = exchange.getRequestURI().getPath().substring(PREFISSO_API.length()).split("/");
+        String rotta = metodo + " " + parti[0] + (parti.length > 2 ? "/*/" + parti[2] : parti.length > 1 ? "/*" : "");
+        long inizio = System.nanoTime();
+        try {
+            return switch (rotta) {
+                case "POST login" -> login(leggiCorpo(exchange));
+                case "POST logout" -> logout(exchange);
+                case "GET bacheche" -> conController(exchange, this::bacheche);
+                case "GET bacheche/*/todos" -> conController(exchange, c -> todosBacheca(c, parti[1]));
+                case "POST bacheche/*/todos" -> {
+                    Map<String, Object> corpo = leggiCorpo(exchange);
+                    yield conController(exchange, c -> creaToDo(c, parti[1], corpo));
+                }
+                case "PUT todos/*" -> {
+                    Map<String, Object> corpo = leggiCorpo(exchange);
+                    yield conController(exchange, c -> modificaToDo(c, intero(parti[1]), corpo));
+                }
+                case "DELETE todos/*" -> conController(exchange, c -> eliminaToDo(c, intero(parti[1])));
+                case "POST todos/*/sposta" -> {
+                    Map<String, Object> corpo = leggiCorpo(exchange);
+                    yield conController(exchange, c -> spostaToDo(c, intero(parti[1]), corpo));
+                }
+                case "POST todos/*/condividi" -> {
+                    Map<String, Object> corpo = leggiCorpo(exchange);
+                    yield conController(exchange, c -> condividiToDo(c, intero(parti[1]), corpo));
+                }
+                default -> errore(404, "Rotta non trovata: " + metodo + " " + exchange.getRequestURI().getPath());
+            };
+        } finally {
+            MetricsRegistry.getInstance().timer("server_request_seconds", "Durata delle richieste dell'API",
+                            "rotta", ROTTE.contains(rotta) ? rotta : "altro")
+                    .registra(System.nanoTime() - inizio);
+        }
+    }
+
+    private Risposta login(Map<String, Object> corpo) throws SQLException {
+        String username = testo(corpo, "username");
+        String password = testo(corpo, "password");
+        // La connessione serve solo a leggere l'utente: la verifica della password non la trattiene
+        CompletableFuture<Optional<Controller.CredenzialiVerificate>> verifica = eseguiConConnessione(
+                c -> Controller.perRichiesta(c, virtualThread).verificaCredenziali(username, password));
+        Optional<Controller.CredenzialiVerificate> credenziali;
+        try {
+            credenziali = verifica.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+        Optional<Utente> utente = credenziali.filter(Controller.CredenzialiVerificate::isHashDaAggiornare).isPresent()
+                ? eseguiConConnessione(c -> Controller.perRichiesta(c, virtualThread).concludiAutenticazione(credenziali))
+                : credenziali.map(Controller.CredenzialiVerificate::utente);
+        if (utente.isEmpty()) {
+            return errore(401, "Credenziali non valide");
+        }
+        rimuoviSessioniScadute();
+        byte[] casuale = new byte[32];
+        random.nextBytes(casuale);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(casuale);
+        // La password non resta in memoria oltre la verifica: la sessione conserva solo ID e username
+        sessioni.put(token, new Sessione(utente.get().getId(), utente.get().getUsername()));
+        logger.info("ServerToDo: sessione aperta per l'utente '{}'.", utente.get().getUsername());
+        return new Risposta(200, Map.of("token", token, "username", utente.get().getUsername()));
+    }
+
+    private Risposta logout(HttpExchange exchange) {
+        String token = token(exchange);
+        if (token == null || sessioni.remove(token) == null) {
+            return errore(401, "Sessione non valida");
+        }
+        return new Risposta(204, null);
+    }
+
+    private Risposta bacheche(Controller controller) {
+        return new Risposta(200, controller.getBachecheUtenteCorrente().stream().map(ServerToDo::json).toList());
+    }
+
+    private Risposta todosBacheca(Controller controller, String bacheca) {
+        TitoloBacheca titolo = titoloBacheca(controller, bacheca);
+        List<ToDo> todos = controller.getToDosPerBacheca(titolo.getDisplayName());
+        return new Risposta(200, todos.stream().map(ServerToDo::json).toList());
+    }
+
+    private Risposta creaToDo(Controller controller, String bacheca, Map<String, Object> corpo) {
+        TitoloBacheca titolo = titoloBacheca(controller, bacheca);
+        Optional<ToDo> creato = controller.creaToDo(titolo.getDisplayName(), testo(corpo, "titolo"),
+                testoFacoltativo(corpo, "descrizione"), data(corpo, "scadenza"), testoFacoltativo(corpo, "colore"),
+                testoFacoltativo(corpo, "url"), null);
+        return creato.map(t -> new Risposta(201, json(t))).orElseGet(() -> errore(400, "Task non creato"));
+    }
+
+    private Risposta modificaToDo(Controller controller, int id, Map<String, Object> corpo) {
+        ToDo todo = toDoVisibile(controller, id);
+        String stato = testoFacoltativo(corpo, "stato");
+        Controller.ToDoUpdateParams params = new Controller.ToDoUpdateParams(testoFacoltativo(corpo, "titolo"),
+                testoFacoltativo(corpo, "descrizione"), data(corpo, "scadenza"),
+                stato != null ? StatoToDo.valueOf(stato) : null, testoFacoltativo(corpo, "colore"),
+                testoFacoltativo(corpo, "url"), null);
+        // Il workspace della sessione è appena stato riallineato: una versione diversa indica che il client
+        // ha letto il Task prima di una modifica successiva
+        if (corpo.get("versione") instanceof Number versione && versione.intValue() != todo.getVersione()) {
+            return esitoModifica(409, Controller.EsitoModifica.CONFLITTO, todo);
+        }
+        Controller.EsitoModifica esito = controller.modificaToDoConEsito(todo, params);
+        int codice = switch (esito) {
+            case MODIFICATO, NESSUNA_MODIFICA, IN_CODA -> 200;
+            case CONFLITTO -> 409;
+            case NON_TROVATO -> 404;
+            case NON_VALIDO -> 400;
+        };
+        return esitoModifica(codice, esito, todo);
+    }
+
+    private static Risposta esitoModifica(int codice, Controller.EsitoModifica esito, ToDo todo) {
+        Map<String, Object> risposta = new LinkedHashMap<>();
+        risposta.put("esito", esito.name());
+        risposta.put("todo", json(todo));
+        return new Risposta(codice, risposta);
+    }
+
+    private Risposta eliminaToDo(Controller controller, int id) {
+        ToDo todo = toDoVisibile(controller, id);
+        return controller.eliminaToDo(todo) ? new Risposta(204, null) : errore(409, "Task non eliminato");
+    }
+
+    private Risposta spostaToDo(Controller controller, int id, Map<String, Object> corpo) {
+        ToDo todo = toDoVisibile(controller, id);
+        TitoloBacheca destinazione = titoloBacheca(controller, testo(corpo, "bacheca"));
+        return controller.cambiaBachecaToDo(todo, destinazione.getDisplayName())
+                ? new Risposta(200, json(todo))
+                : errore(409, "Task non spostato");
+    }
+
+    private Risposta condividiToDo(Controller controller, int id, Map<String, Object> corpo) {
+        ToDo todo = toDoVisibile(controller, id);
+        TitoloBacheca destinazione = TitoloBacheca.fromDisplayName(testo(corpo, "bacheca"));
+        return controller.condividiToDo(todo, testo(corpo, "username"), destinazione.getDisplayName())
+                ? new Risposta(200, json(todo))
+                : errore(409, "Task non condiviso");
+    }
+
+    /**
+     * Esegue un'operazione sul workspace della sessione della richiesta, in esclusiva sulla sessione.
+     */
+    private Risposta conController(HttpExchange exchange, Function<Controller, Risposta> operazione) throws SQLException {
+        Sessione sessione = sessione(exchange);
+        return sessione.esegui(() -> eseguiConConnessione(
+                connessione -> operazione.apply(Controller.perSessione(connessione, virtualThread, sessione))));
+    }
+
+    /**
+     * Prende una connessione dal pool, esegue l'operazione e restituisce la connessione.
+     */
+    private <T> T eseguiConConnessione(Function<Connection, T> operazione) throws SQLException {
+        Connection connessione = pool.ottieni(ATTESA_CONNESSIONE_MS);
+        try {
+            return operazione.apply(connessione);
+        } finally {
+            pool.rilascia(connessione);
+        }
+    }
+
+    private Sessione sessione(HttpExchange exchange) {
+        String token = token(exchange);
+        Sessione sessione = token != null ? sessioni.get(token) : null;
+        long ora = System.nanoTime();
+        if (sessione == null || sessione.isScaduta(ora, DURATA_SESSIONE_NANOS)) {
+            if (sessione != null) {
+                sessioni.remove(token, sessione);
+            }
+            throw new ErroreRichiesta(401, "Sessione assente o scaduta");
+        }
+        return sessione;
+    }
+
+    private void rimuoviSessioniScadute() {
+        long ora = System.nanoTime();
+        sessioni.values().removeIf(s -> s.isScaduta(ora, DURATA_SESSIONE_NANOS));
+    }
+
+    private static String token(HttpExchange exchange) {
+        String intestazione = exchange.getRequestHeaders().getFirst("Authorization");
+        if (intestazione == null || !intestazione.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return intestazione.substring(7).trim();
+    }
+
+    private static ToDo toDoVisibile(Controller controller, int id) {
+        return controller.trovaToDoVisibile(id)
+                .orElseThrow(() -> new ErroreRichiesta(404, "Task " + id + " non trovato"));
+    }
+
+    private static TitoloBacheca titoloBacheca(Controller controller, String nome) {
+        TitoloBacheca titolo = TitoloBacheca.fromDisplayName(nome);
+        if (controller.getBachecaByDisplayNameDaUtenteCorrente(titolo.getDisplayName()).isEmpty()) {
+            throw new ErroreRichiesta(404, "Bacheca " + nome + " non trovata");
+        }
+        return titolo;
+    }
+
+    private static Map<String, Object> leggiCorpo(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] corpo = in.readNBytes(MAX_CORPO_BYTE + 1);
+            if (corpo.length > MAX_CORPO_BYTE) {
+                throw new ErroreRichiesta(413, "Corpo della richiesta troppo grande");
+            }
+            return Json.leggiOggetto(new String(corpo, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String testo(Map<String, Object> corpo, String campo) {
+        String valore = testoFacoltativo(corpo, campo);
+        if (valore == null || valore.isBlank()) {
+            throw new IllegalArgumentException("Campo obbligatorio mancante: " + campo);
+        }
+        return valore;
+    }
+
+    private static String testoFacoltativo(Map<String, Object> corpo, String campo) {
+        Object valore = corpo.get(campo);
+        if (valore != null && !(valore instanceof String)) {
+            throw new IllegalArgumentException("Il campo " + campo + " deve essere una stringa");
+        }
+        return (String) valore;
+    }
+
+    private static LocalDate data(Map<String, Object> corpo, String campo) {
+        String valore = testoFacoltativo(corpo, campo);
+        return valore == null || valore.isBlank() ? null : LocalDate.parse(valore);
+    }
+
+    private static int intero(String valore) {
+        try {
+            return Integer.parseInt(valore);
+        } catch (NumberFormatException e) {
+            throw new ErroreRichiesta(404, "ID non valido: " + valore);
+        }
+    }
+
+    static Map<String, Object> json(Bacheca b) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", b.getId());
+        m.put("titolo", b.getTitoloEnum().name());
+        m.put("nome", b.getTitoloDisplayName());
+        m.put("descrizione", b.getDescrizione());
+        return m;
+    }
+
+    static Map<String, Object> json(ToDo t) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", t.getId());
+        m.put("bachecaId", t.getBachecaId());
+        m.put("autore", t.getAutore() != null ? t.getAutore().getUsername() : null);
+        m.put("titolo", t.getTitolo());
+        m.put("descrizione", t.getDescrizione());
+        m.put("url", t.getUrl());
+        m.put("scadenza", t.getScadenza() != null ? t.getScadenza().toString() : null);
+        m.put("stato", t.getStato().name());
+        m.put("colore", t.getColore());
+        m.put("posizione", t.getPosizione());
+        m.put("versione", t.getVersione());
+        m.put("condivisoCon", t.getUtentiConAccessoCondiviso().stream().map(Utente::getUsername).sorted().toList());
+        return m;
+    }
+
+    private static Risposta errore(int stato, String messaggio) {
+        return new Risposta(stato, Map.of("errore", messaggio != null ? messaggio : "Richiesta non valida"));
+    }
+
+    private static void invia(HttpExchange exchange, Risposta risposta) throws IOException {
+        if (risposta.corpo() == null) {
+            exchange.sendResponseHeaders(risposta.stato(), -1);
+            return;
+        }
+        byte[] corpo = Json.scrivi(risposta.corpo()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE_JSON);
+        exchange.sendResponseHeaders(risposta.stato(), corpo.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(corpo);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package sicurezza;
+
+/**
+ * Algoritmo di hashing delle password con cui {@link ServizioPassword} calcola i nuovi hash.
+ * <p>
+ * Oltre a verificare gli hash esistenti (vedi {@link VerificatorePassword}) ne produce di nuovi, nel formato
+ * {@code nome$parametri...}.
+ */
+public interface AlgoritmoPassword extends VerificatorePassword {
+
+    /**
+     * Calcola l'hash di una password con un sale casuale e i parametri correnti.
+     * @param password Password in chiaro
+     * @return Hash nel formato {@code nome$parametri...}
+     */
+    String calcola(String password);
+}
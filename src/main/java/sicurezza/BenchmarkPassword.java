@@ -0,0 +1,116 @@
+package sicurezza;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Misura il costo di {@link Pbkdf2Password} per scegliere il numero di iterazioni (todoapp.password.iterations).
+ * <p>
+ * Per ogni numero di iterazioni calcola un hash, esegue alcune verifiche di riscaldamento e poi ripete le
+ * verifiche per la durata indicata con tanti thread quanti ne ha l'esecutore di {@link ServizioPassword}, come
+ * fanno i login contemporanei. Stampa latenza e login al secondo sostenibili e indica il numero di iterazioni
+ * più alto che regge il throughput richiesto: il costo più alto accettabile è quello che rende più lento un
+ * attacco a forza bruta sugli hash.
+ * <p>
+ * Uso: {@code BenchmarkPassword [login/s=20] [thread=todoapp.password.threads] [iterazioni=100000,210000,310000,600000,1000000] [secondi=3]}
+ */
+public final class BenchmarkPassword {
+
+    private static final String PASSWORD = "password-di-prova";
+    private static final int RISCALDAMENTO = 5;
+    /** Durata del riscaldamento iniziale, che porta il codice di PBKDF2 alla compilazione JIT prima delle misure. */
+    private static final Duration RISCALDAMENTO_JIT = Duration.ofSeconds(2);
+
+    private BenchmarkPassword() {
+    }
+
+    /**
+     * Risultato di un thread: verifiche completate e relative latenze in nanosecondi.
+     */
+    private record RisultatoThread(int verifiche, long[] latenze) {
+    }
+
+    /**
+     * Punto di ingresso del benchmark.
+     * @param args Facoltativi: login al secondo da sostenere, thread, numeri di iterazioni separati da virgola e durata in secondi
+     * @throws Exception se la misura viene interrotta
+     */
+    public static void main(String[] args) throws Exception {
+        double obiettivo = args.length > 0 ? Double.parseDouble(args[0]) : 20;
+        int thread = args.length > 1 ? Integer.parseInt(args[1])
+                : Math.max(1, Integer.getInteger("todoapp.password.threads", Runtime.getRuntime().availableProcessors() / 2));
+        int[] iterazioni = args.length > 2 ? Arrays.stream(args[2].split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray()
+                : new int[]{100_000, 210_000, 310_000, 600_000, 1_000_000};
+        Duration durata = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 3);
+
+        System.out.printf("core=%d thread=%d obiettivo=%.1f login/s durata=%ds%n",
+                Runtime.getRuntime().availableProcessors(), thread, obiettivo, durata.toSeconds());
+        System.out.printf("%12s %10s %10s %10s %8s%n", "iterazioni", "p50 ms", "p99 ms", "login/s", "esito");
+        Pbkdf2Password riscaldamento = new Pbkdf2Password(10_000);
+        misura(riscaldamento, riscaldamento.calcola(PASSWORD), thread, RISCALDAMENTO_JIT);
+        int consigliate = 0;
+        for (int n : iterazioni) {
+            Pbkdf2Password algoritmo = new Pbkdf2Password(n);
+            String hash = algoritmo.calcola(PASSWORD);
+            for (int i = 0; i < RISCALDAMENTO; i++) {
+                algoritmo.verifica(PASSWORD, hash);
+            }
+            List<RisultatoThread> risultati = misura(algoritmo, hash, thread, durata);
+            int verifiche = risultati.stream().mapToInt(RisultatoThread::verifiche).sum();
+            long[] latenze = risultati.stream().flatMapToLong(r -> Arrays.stream(r.latenze(), 0, r.verifiche())).sorted().toArray();
+            double alSecondo = verifiche / (durata.toNanos() / 1e9);
+            boolean regge = alSecondo >= obiettivo;
+            if (regge) {
+                consigliate = Math.max(consigliate, n);
+            }
+            System.out.printf("%12d %10.1f %10.1f %10.1f %8s%n", n, percentile(latenze, 0.50), percentile(latenze, 0.99),
+                    alSecondo, regge ? "ok" : "lento");
+        }
+        if (consigliate > 0) {
+            System.out.printf("Iterazioni consigliate: -D%s=%d%n", ServizioPassword.PROPRIETA_ITERAZIONI, consigliate);
+        } else {
+            System.out.println("Nessun valore regge l'obiettivo: ridurre le iterazioni o aumentare i thread.");
+        }
+    }
+
+    private static List<RisultatoThread> misura(Pbkdf2Password algoritmo, String hash, int thread, Duration durata) throws Exception {
+        long fine = System.nanoTime() + durata.toNanos();
+        try (ExecutorService esecutore = Executors.newFixedThreadPool(thread)) {
+            List<Future<RisultatoThread>> future = new ArrayList<>(thread);
+            for (int t = 0; t < thread; t++) {
+                future.add(esecutore.submit(() -> {
+                    long[] latenze = new long[64];
+                    int n = 0;
+                    while (System.nanoTime() - fine < 0) {
+                        long inizio = System.nanoTime();
+                        if (!algoritmo.verifica(PASSWORD, hash)) {
+                            throw new IllegalStateException("Verifica fallita");
+                        }
+                        if (n == latenze.length) {
+                            latenze = Arrays.copyOf(latenze, n * 2);
+                        }
+                        latenze[n++] = System.nanoTime() - inizio;
+                    }
+                    return new RisultatoThread(n, latenze);
+                }));
+            }
+            List<RisultatoThread> risultati = new ArrayList<>(thread);
+            for (Future<RisultatoThread> f : future) {
+                risultati.add(f.get());
+            }
+            return risultati;
+        }
+    }
+
+    private static double percentile(long[] ordinate, double quantile) {
+        if (ordinate.length == 0) {
+            return Double.NaN;
+        }
+        return ordinate[Math.min(ordinate.length - 1, (int) (quantile * ordinate.length))] / 1e6;
+    }
+}
@@ -0,0 +1,101 @@
+package sicurezza;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Hashing delle password con PBKDF2-HMAC-SHA256 del JDK, con sale casuale e numero di iterazioni configurabile.
+ * <p>
+ * Formato: {@code pbkdf2-sha256$<iterazioni>$<sale base64>$<hash base64>}. Un hash con meno iterazioni di quelle
+ * correnti resta valido ma va ricalcolato (vedi {@link #daAggiornare(String)}).
+ */
+public final class Pbkdf2Password implements AlgoritmoPassword {
+
+    /** Nome dell'algoritmo negli hash. */
+    public static final String NOME = "pbkdf2-sha256";
+
+    private static final String ALGORITMO_JCA = "PBKDF2WithHmacSHA256";
+    private static final int LUNGHEZZA_SALE = 16;
+    private static final int LUNGHEZZA_HASH_BIT = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterazioni;
+
+    /**
+     * Costruttore.
+     * @param iterazioni Numero di iterazioni per i nuovi hash, cioè il costo di ogni calcolo e verifica
+     * @throws IllegalArgumentException se le iterazioni non sono positive
+     */
+    public Pbkdf2Password(int iterazioni) {
+        if (iterazioni < 1) {
+            throw new IllegalArgumentException("Il numero di iterazioni deve essere positivo: " + iterazioni);
+        }
+        this.iterazioni = iterazioni;
+    }
+
+    /**
+     * Restituisce il numero di iterazioni usato per i nuovi hash.
+     * @return Iterazioni correnti
+     */
+    public int getIterazioni() {
+        return iterazioni;
+    }
+
+    @Override
+    public String nome() {
+        return NOME;
+    }
+
+    @Override
+    public String calcola(String password) {
+        byte[] sale = new byte[LUNGHEZZA_SALE];
+        RANDOM.nextBytes(sale);
+        byte[] hash = deriva(password, sale, iterazioni);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return NOME + "$" + iterazioni + "$" + base64.encodeToString(sale) + "$" + base64.encodeToString(hash);
+    }
+
+    @Override
+    public boolean verifica(String password, String hash) {
+        String[] parti = hash.split("\\$");
+        if (parti.length != 4 || !NOME.equals(parti[0])) {
+            return false;
+        }
+        try {
+            int iterazioniHash = Integer.parseInt(parti[1]);
+            byte[] sale = Base64.getDecoder().decode(parti[2]);
+            byte[] atteso = Base64.getDecoder().decode(parti[3]);
+            return iterazioniHash > 0 && MessageDigest.isEqual(atteso, deriva(password, sale, iterazioniHash));
+        } catch (IllegalArgumentException _) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean daAggiornare(String hash) {
+        String[] parti = hash.split("\\$");
+        try {
+            return parti.length != 4 || Integer.parseInt(parti[1]) < iterazioni;
+        } catch (NumberFormatException _) {
+            return true;
+        }
+    }
+
+    private static byte[] deriva(String password, byte[] sale, int iterazioni) {
+        char[] caratteri = password.toCharArray();
+        PBEKeySpec spec = new PBEKeySpec(caratteri, sale, iterazioni, LUNGHEZZA_HASH_BIT);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO_JCA).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITMO_JCA + " non disponibile", e);
+        } finally {
+            spec.clearPassword();
+            Arrays.fill(caratteri, '\0');
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package sicurezza;
+
+import metrics.MetricsRegistry;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Servizio di hashing e verifica delle password.
+ * <p>
+ * I nuovi hash usano l'algoritmo corrente ({@link Pbkdf2Password}, con le iterazioni della proprietà di sistema
+ * todoapp.password.iterations); gli hash memorizzati vengono verificati con l'algoritmo indicato dal loro prefisso,
+ * compresi quelli SHA-256 senza sale delle versioni precedenti, e {@link #daAggiornare(String)} segnala quelli da
+ * ricalcolare al login. {@link #verificaAsync(String, String)} ricalcola l'hash nello stesso task della verifica.
+ * <p>
+ * Un hash costa per scelta decine o centinaia di millisecondi di CPU, quindi le varianti asincrone girano su un
+ * esecutore dedicato e limitato: todoapp.password.threads thread (predefinito: metà dei core) e una coda di
+ * todoapp.password.queue richieste. Così l'EDT non si blocca e in modalità server i login contemporanei non
+ * occupano tutti i core; oltre la coda le richieste vengono rifiutate con {@link RejectedExecutionException}.
+ * Il costo va scelto con {@link BenchmarkPassword} in base al numero di login al secondo da sostenere.
+ */
+public final class ServizioPassword {
+
+    /** Proprietà di sistema con le iterazioni PBKDF2 dei nuovi hash. */
+    public static final String PROPRIETA_ITERAZIONI = "todoapp.password.iterations";
+    /** Iterazioni predefinite, pari alla raccomandazione OWASP per PBKDF2-HMAC-SHA256. */
+    public static final int ITERAZIONI_PREDEFINITE = 600_000;
+
+    private static final MetricsRegistry.Timer TEMPO_HASH = MetricsRegistry.getInstance()
+            .timer("password_hash_seconds", "Durata del calcolo di un hash di password", "operazione", "calcola");
+    private static final MetricsRegistry.Timer TEMPO_VERIFICA = MetricsRegistry.getInstance()
+            .timer("password_hash_seconds", "Durata del calcolo di un hash di password", "operazione", "verifica");
+    private static final MetricsRegistry.Contatore RIFIUTATE = MetricsRegistry.getInstance()
+            .contatore("password_hash_rejected_total", "Richieste di hashing rifiutate per coda piena");
+
+    private static final ServizioPassword ISTANZA = new ServizioPassword(
+            new Pbkdf2Password(Math.max(1, Integer.getInteger(PROPRIETA_ITERAZIONI, ITERAZIONI_PREDEFINITE))),
+            Math.max(1, Integer.getInteger("todoapp.password.threads", Runtime.getRuntime().availableProcessors() / 2)),
+            Math.max(1, Integer.getInteger("todoapp.password.queue", 64)));
+
+    /**
+     * Esito della verifica di una password.
+     * @param valida true se la password corrisponde
+     * @param nuovoHash Hash ricalcolato con l'algoritmo e i parametri correnti se la password è valida e l'hash
+     *                  memorizzato era da aggiornare, altrimenti null
+     */
+    public record EsitoVerifica(boolean valida, String nuovoHash) {
+    }
+
+    private final AlgoritmoPassword corrente;
+    private final List<VerificatorePassword> accettati;
+    private final ThreadPoolExecutor esecutore;
+
+    /**
+     * Costruttore.
+     * @param corrente Algoritmo dei nuovi hash
+     * @param thread Thread dell'esecutore dedicato
+     * @param coda Richieste in attesa accettate dall'esecutore
+     */
+    public ServizioPassword(AlgoritmoPassword corrente, int thread, int coda) {
+        this.corrente = corrente;
+        this.accettati = List.of(corrente, new Sha256Legacy());
+        AtomicInteger numero = new AtomicInteger();
+        this.esecutore = new ThreadPoolExecutor(thread, thread, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(coda), r -> {
+            Thread t = new Thread(r, "password-hash-" + numero.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, (_, _) -> {
+            RIFIUTATE.incrementa();
+            throw new RejectedExecutionException("Troppe richieste di hashing in attesa");
+        });
+        this.esecutore.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Restituisce il servizio configurato con le proprietà di sistema.
+     * @return Istanza condivisa
+     */
+    public static ServizioPassword getInstance() {
+        return ISTANZA;
+    }
+
+    /**
+     * Restituisce l'algoritmo usato per i nuovi hash.
+     * @return Algoritmo corrente
+     */
+    public AlgoritmoPassword getAlgoritmoCorrente() {
+        return corrente;
+    }
+
+    /**
+     * Calcola l'hash di una password sul thread chiamante.
+     * @param password Password in chiaro
+     * @return Hash con algoritmo e parametri
+     */
+    public String calcola(String password) {
+        return TEMPO_HASH.misura(() -> corrente.calcola(password));
+    }
+
+    /**
+     * Verifica una password sul thread chiamante, con l'algoritmo indicato dal prefisso dell'hash.
+     * @param password Password in chiaro
+     * @param hash Hash memorizzato (può essere null)
+     * @return true se la password corrisponde
+     */
+    public boolean verifica(String password, String hash) {
+        if (password == null || hash == null || hash.isEmpty()) {
+            return false;
+        }
+        VerificatorePassword algoritmo = algoritmo(hash);
+        if (algoritmo == null) {
+            return false;
+        }
+        return TEMPO_VERIFICA.misura(() -> algoritmo.verifica(password, hash));
+    }
+
+    /**
+     * Indica se un hash memorizzato va ricalcolato con l'algoritmo e i parametri correnti.
+     * @param hash Hash memorizzato
+     * @return true se l'hash è di un altro algoritmo o usa parametri più deboli
+     */
+    public boolean daAggiornare(String hash) {
+        if (hash == null || hash.isEmpty()) {
+            return false;
+        }
+        VerificatorePassword algoritmo = algoritmo(hash);
+        return algoritmo == null || algoritmo.daAggiornare(hash);
+    }
+
+    /**
+     * Calcola l'hash di una password sull'esecutore dedicato.
+     * @param password Password in chiaro
+     * @return Future con l'hash
+     * @throws RejectedExecutionException se la coda dell'esecutore è piena
+     */
+    public CompletableFuture<String> calcolaAsync(String password) {
+        return inBackground(() -> calcola(password));
+    }
+
+    /**
+     * Verifica una password e, se è valida e l'hash memorizzato va aggiornato, ne calcola uno nuovo, sul thread chiamante.
+     * @param password Password in chiaro
+     * @param hash Hash memorizzato (può essere null)
+     * @return Esito della verifica, con l'eventuale nuovo hash da salvare
+     */
+    public EsitoVerifica verificaEAggiorna(String password, String hash) {
+        boolean valida = verifica(password, hash);
+        return new EsitoVerifica(valida, valida && daAggiornare(hash) ? calcola(password) : null);
+    }
+
+    /**
+     * Verifica una password sull'esecutore dedicato, come {@link #verificaEAggiorna(String, String)}:
+     * l'eventuale nuovo hash viene calcolato nello stesso task e il salvataggio resta al chiamante.
+     * @param password Password in chiaro
+     * @param hash Hash memorizzato
+     * @return Future con l'esito della verifica
+     * @throws RejectedExecutionException se la coda dell'esecutore è piena
+     */
+    public CompletableFuture<EsitoVerifica> verificaAsync(String password, String hash) {
+        return inBackground(() -> verificaEAggiorna(password, hash));
+    }
+
+    private <T> CompletableFuture<T> inBackground(Supplier<T> operazione) {
+        return CompletableFuture.supplyAsync(operazione, esecutore);
+    }
+
+    /**
+     * Restituisce l'algoritmo di un hash memorizzato: quello del prefisso, SHA-256 legacy se il prefisso
+     * manca, null se l'algoritmo non è tra quelli accettati.
+     */
+    private VerificatorePassword algoritmo(String hash) {
+        int separatore = hash.indexOf('$');
+        if (separatore < 0) {
+            return accettati.getLast();
+        }
+        String nome = hash.substring(0, separatore);
+        for (VerificatorePassword a : accettati) {
+            if (a.nome().equals(nome)) {
+                return a;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,36 @@
+package sicurezza;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Hash delle versioni precedenti: SHA-256 senza sale della password, in base64 e senza prefisso.
+ * Serve solo a verificare gli utenti registrati prima di {@link Pbkdf2Password}: ogni hash va aggiornato
+ * e, non essendo un {@link AlgoritmoPassword}, non può essere usato per i nuovi hash.
+ */
+final class Sha256Legacy implements VerificatorePassword {
+
+    @Override
+    public String nome() {
+        return "sha256";
+    }
+
+    @Override
+    public boolean verifica(String password, String hash) {
+        try {
+            byte[] calcolato = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+            return MessageDigest.isEqual(Base64.getDecoder().decode(hash), calcolato);
+        } catch (IllegalArgumentException _) {
+            return false;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+
+    @Override
+    public boolean daAggiornare(String hash) {
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package sicurezza;
+
+/**
+ * Verifica delle password rispetto agli hash prodotti da un algoritmo, usata da {@link ServizioPassword}.
+ * <p>
+ * Ogni hash inizia con il nome dell'algoritmo seguito da {@code $} e contiene i parametri con cui è stato calcolato,
+ * così un hash memorizzato si può verificare anche dopo che i parametri correnti sono cambiati. Gli algoritmi che
+ * possono anche produrre nuovi hash implementano {@link AlgoritmoPassword}; quelli delle versioni precedenti
+ * restano accettati solo in verifica.
+ */
+public interface VerificatorePassword {
+
+    /**
+     * Restituisce il nome dell'algoritmo, usato come prefisso dei suoi hash.
+     * @return Nome dell'algoritmo
+     */
+    String nome();
+
+    /**
+     * Verifica una password rispetto a un hash prodotto da questo algoritmo, con i parametri memorizzati nell'hash.
+     * @param password Password in chiaro
+     * @param hash Hash memorizzato
+     * @return true se la password corrisponde
+     */
+    boolean verifica(String password, String hash);
+
+    /**
+     * Indica se un hash prodotto da questo algoritmo usa parametri più deboli di quelli correnti
+     * e va quindi ricalcolato al prossimo login riuscito.
+     * @param hash Hash memorizzato
+     * @return true se l'hash va ricalcolato
+     */
+    boolean daAggiornare(String hash);
+}